@@ -29,6 +29,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.joda.time.LocalDate;
@@ -187,6 +188,12 @@ public class FunctionalityExposedForExtensions<T> implements IContext<T> {
 
     private final PlannerConfiguration<T> configuration;
 
+    /**
+     * Keeps the critical path being shown, so it's only recalculated for the
+     * tasks moved or resized in the following changes of the graph.
+     */
+    private CriticalPathCalculator<Task, Dependency> shownCriticalPathCalculator;
+
     public FunctionalityExposedForExtensions(
             Planner planner, PlannerConfiguration<T> configuration, GanttZKDiagramGraph diagramGraph) {
 
@@ -422,16 +429,25 @@ public class FunctionalityExposedForExtensions<T> implements IContext<T> {
 
     @Override
     public void showCriticalPath() {
-        CriticalPathCalculator<Task, Dependency> criticalPathCalculator =
-                CriticalPathCalculator.create(configuration.isDependenciesConstraintsHavePriority());
-
-        List<Task> criticalPath = criticalPathCalculator.calculateCriticalPath(diagramGraph);
+        List<Task> criticalPath = calculateShownCriticalPath();
 
         for (Task task : diagramGraph.getTasks()) {
             task.setInCriticalPath(isInCriticalPath(criticalPath, task));
         }
     }
 
+    private List<Task> calculateShownCriticalPath() {
+        Set<Task> tasksMoved = diagramGraph.getTasksMovedInLastChange();
+        if ( shownCriticalPathCalculator != null && tasksMoved != null ) {
+            return shownCriticalPathCalculator.recalculateCriticalPath(tasksMoved);
+        }
+
+        shownCriticalPathCalculator =
+                CriticalPathCalculator.create(configuration.isDependenciesConstraintsHavePriority());
+
+        return shownCriticalPathCalculator.calculateCriticalPath(diagramGraph);
+    }
+
     private boolean isInCriticalPath(List<Task> criticalPath, Task task) {
         if ( task.isContainer() ) {
             List<Task> allTaskLeafs = task.getAllTaskLeafs();
@@ -458,6 +474,7 @@ public class FunctionalityExposedForExtensions<T> implements IContext<T> {
 
     @Override
     public void hideCriticalPath() {
+        shownCriticalPathCalculator = null;
         for (Task task : diagramGraph.getTasks()) {
             task.setInCriticalPath(false);
         }
@@ -75,7 +75,8 @@ public class GanttPanel extends XulElement implements AfterCompose {
         dependencyList = new DependencyList(context);
 
         tasksLists = TaskList.createFor(
-                context, doubleClickCommand, commandsOnTasksContextualized, disabilityConfiguration, predicate);
+                context, doubleClickCommand, commandsOnTasksContextualized, disabilityConfiguration, predicate,
+                planner.isVirtualizedRendering());
 
         appendChild(tasksLists);
         appendChild(dependencyList);
@@ -21,6 +21,7 @@
 
 package org.zkoss.ganttz;
 
+import java.beans.PropertyChangeListener;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -43,12 +44,19 @@ import org.zkoss.zk.ui.Executions;
 import org.zkoss.zk.ui.HtmlMacroComponent;
 import org.zkoss.zk.ui.event.OpenEvent;
 import org.zkoss.zul.Tree;
+import org.zkoss.zul.Treecell;
 import org.zkoss.zul.Treeitem;
 import org.zkoss.zul.TreeitemRenderer;
+import org.zkoss.zul.Treerow;
 
 /**
  * Tree element to display tasks structure in the planning Gantt.
  * <br />
+ * If the rendering of the planner is virtualized, the rows of the tasks that
+ * aren't visible in the {@link TaskList} are rendered as placeholders with
+ * just the name, and they are rendered completely when the tasks become
+ * visible.
+ * <br />
  *
  * @author Óscar González Fernández <ogonzalez@igalia.com>
  * @author Manuel Rego Casasnovas <mrego@igalia.com>
@@ -76,6 +84,10 @@ public class LeftTasksTree extends HtmlMacroComponent {
 
     private Planner planner;
 
+    private final Map<Task, Treeitem> itemsByTask = new HashMap<>();
+
+    private final Map<Task, PropertyChangeListener> visibilityListeners = new HashMap<>();
+
     public LeftTasksTree(IDisabilityConfiguration disabilityConfiguration,
                          Planner planner,
                          FilterAndParentExpandedPredicates predicate) {
@@ -128,9 +140,6 @@ public class LeftTasksTree extends HtmlMacroComponent {
 
             }
 
-            LeftTasksTreeRow leftTasksTreeRow =
-                    LeftTasksTreeRow.create(disabilityConfiguration, task, new TreeNavigator(task), planner);
-
             if ( task.isContainer() ) {
                 expandWhenOpened((TaskContainer) task, treeitem);
             }
@@ -140,16 +149,15 @@ public class LeftTasksTree extends HtmlMacroComponent {
                 treeitem.getChildren().clear();
             }
 
-            Component row = disabilityConfiguration.isTreeEditable()
-                    ? Executions
-                    .getCurrent()
-                    .createComponents("~./ganttz/zul/leftTasksTreeRow.zul", treeitem, null)
-                    : Executions
-                    .getCurrent()
-                    .createComponents("~./ganttz/zul/leftTasksTreeRowLabels.zul", treeitem, null);
+            if ( isVirtualized() ) {
+                trackVisibility(task, treeitem);
+            }
 
-            leftTasksTreeRow.doAfterCompose(row);
-            detailsForBeans.put(task, leftTasksTreeRow);
+            if ( isVirtualized() && !task.isVisible() ) {
+                renderPlaceholderRow(treeitem, task);
+            } else {
+                renderCompleteRow(treeitem, task);
+            }
             deferredFiller.isBeingRendered(task, treeitem);
         }
 
@@ -165,6 +173,75 @@ public class LeftTasksTree extends HtmlMacroComponent {
         return new TaskBeanRenderer();
     }
 
+    private boolean isVirtualized() {
+        return planner.isVirtualizedRendering();
+    }
+
+    private void renderCompleteRow(Treeitem treeitem, Task task) {
+        LeftTasksTreeRow leftTasksTreeRow =
+                LeftTasksTreeRow.create(disabilityConfiguration, task, new TreeNavigator(task), planner);
+
+        Component row = disabilityConfiguration.isTreeEditable()
+                ? Executions
+                .getCurrent()
+                .createComponents("~./ganttz/zul/leftTasksTreeRow.zul", treeitem, null)
+                : Executions
+                .getCurrent()
+                .createComponents("~./ganttz/zul/leftTasksTreeRowLabels.zul", treeitem, null);
+
+        try {
+            leftTasksTreeRow.doAfterCompose(row);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        detailsForBeans.put(task, leftTasksTreeRow);
+    }
+
+    private void renderPlaceholderRow(Treeitem treeitem, Task task) {
+        Treerow row = new Treerow();
+        row.setSclass("taskdetail-grid");
+        row.appendChild(new Treecell(task.getName()));
+        treeitem.appendChild(row);
+        detailsForBeans.remove(task);
+    }
+
+    /**
+     * The row is replaced when the task becomes visible or not in the
+     * {@link TaskList}, keeping the children of the item
+     */
+    private void trackVisibility(final Task task, Treeitem treeitem) {
+        itemsByTask.put(task, treeitem);
+        if ( visibilityListeners.containsKey(task) ) {
+            return;
+        }
+
+        PropertyChangeListener listener = evt -> {
+            if ( "visible".equals(evt.getPropertyName()) ) {
+                replaceRow(task, task.isVisible());
+            }
+        };
+        task.addVisibilityPropertiesChangeListener(listener);
+        visibilityListeners.put(task, listener);
+    }
+
+    private void replaceRow(Task task, boolean complete) {
+        Treeitem treeitem = itemsByTask.get(task);
+        boolean isComplete = detailsForBeans.get(task) != null;
+        if ( treeitem == null || treeitem.getTree() == null || complete == isComplete ) {
+            return;
+        }
+
+        if ( treeitem.getTreerow() != null ) {
+            treeitem.getTreerow().detach();
+        }
+
+        if ( complete ) {
+            renderCompleteRow(treeitem, task);
+        } else {
+            renderPlaceholderRow(treeitem, task);
+        }
+    }
+
     public boolean isOpened(Task task) {
         return task.isLeaf() || task.isExpanded();
     }
@@ -192,6 +269,10 @@ public class LeftTasksTree extends HtmlMacroComponent {
             return map.get(taskbean);
         }
 
+        public void remove(Task task) {
+            map.remove(task);
+        }
+
     }
 
     private final class TreeNavigator implements ILeftTasksTreeNavigator {
@@ -224,6 +305,11 @@ public class LeftTasksTree extends HtmlMacroComponent {
         }
 
         private LeftTasksTreeRow getDetailFor(Task child) {
+            if ( child != null && detailsForBeans.get(child) == null ) {
+                // It's a placeholder, it's rendered completely so it can receive the focus
+                replaceRow(child, true);
+            }
+
             return detailsForBeans.get(child);
         }
 
@@ -482,6 +568,12 @@ public class LeftTasksTree extends HtmlMacroComponent {
 
     public void taskRemoved(Task taskRemoved) {
         tasksTreeModel.remove(taskRemoved);
+
+        PropertyChangeListener listener = visibilityListeners.remove(taskRemoved);
+        if ( listener != null ) {
+            taskRemoved.removeVisibilityPropertiesChangeListener(listener);
+        }
+        itemsByTask.remove(taskRemoved);
     }
 
     void addTask(Position position, Task task) {
@@ -76,6 +76,11 @@ public class Planner extends HtmlMacroComponent  {
 
     private static final String PLANNER_COMMAND = "planner-command";
 
+    /**
+     * Parameter added to the URL of the planner when it's printed
+     */
+    public static final String PRINT_PARAMETER = "print";
+
     private static final Log PROFILING_LOG = ProfilingLogFactory.getLog(Planner.class);
 
     private String EXPAND_ALL_BUTTON = "expandAll";
@@ -114,6 +119,8 @@ public class Planner extends HtmlMacroComponent  {
 
     private boolean isFlattenTree = false;
 
+    private boolean virtualizedRendering = false;
+
     private ZoomLevel zoomLevel = null;
 
     private Listbox listZoomLevels = null;
@@ -185,6 +192,16 @@ public class Planner extends HtmlMacroComponent  {
         return values != null && toLowercaseSet(values).contains("all");
     }
 
+    /**
+     * The rendering is virtualized unless the planner is being printed, as
+     * all the rows must be rendered then.
+     *
+     * @see TaskList
+     */
+    public static boolean guessVirtualizedRendering(Map<String, String[]> queryURLParameters) {
+        return !queryURLParameters.containsKey(PRINT_PARAMETER);
+    }
+
     public static boolean guessShowAdvancesByDefault(Map<String, String[]> queryURLParameters) {
         String[] values = queryURLParameters.get("advances");
         return values != null && toLowercaseSet(values).contains("all");
@@ -367,6 +384,7 @@ public class Planner extends HtmlMacroComponent  {
                 configuration.getStartConstraints(),
                 configuration.getEndConstraints(),
                 configuration.isDependenciesConstraintsHavePriority());
+        this.diagramGraph.setIncrementalPropagation(configuration.isIncrementalPropagation());
 
         FunctionalityExposedForExtensions<T> newContext =
                 new FunctionalityExposedForExtensions<>(this, configuration, diagramGraph);
@@ -945,6 +963,18 @@ public class Planner extends HtmlMacroComponent  {
         return isFlattenTree;
     }
 
+    public boolean isVirtualizedRendering() {
+        return virtualizedRendering;
+    }
+
+    /**
+     * It must be set before the configuration, as it's used when the
+     * components are created
+     */
+    public void setVirtualizedRendering(boolean virtualizedRendering) {
+        this.virtualizedRendering = virtualizedRendering;
+    }
+
     public Button findCommandComponent(String name) {
         for (CommandContextualized<?> c : contextualizedGlobalCommands) {
             if ( c.getCommand().getName().equals(name) ) {
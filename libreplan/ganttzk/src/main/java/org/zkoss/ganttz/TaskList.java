@@ -38,10 +38,18 @@ import org.zkoss.ganttz.timetracker.zoom.IZoomLevelChangedListener;
 import org.zkoss.ganttz.timetracker.zoom.ZoomLevel;
 import org.zkoss.ganttz.util.Interval;
 import org.zkoss.ganttz.util.MenuBuilder;
+import org.zkoss.ganttz.util.RowsWindow;
+import org.zkoss.zk.au.AuRequest;
+import org.zkoss.zk.au.AuService;
+import org.zkoss.zk.au.out.AuInvoke;
+import org.zkoss.zk.mesg.MZk;
+import org.zkoss.zk.ui.UiException;
 import org.zkoss.zk.ui.ext.AfterCompose;
 import org.zkoss.zul.Menupopup;
+import org.zkoss.zk.ui.sys.ContentRenderer;
 import org.zkoss.zul.impl.XulElement;
 
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.ArrayList;
@@ -54,11 +62,31 @@ import java.util.Collections;
 
 /**
  * Component to show the list of task in the planner.
+ * <p>
+ * If the rendering is virtualized only the rows in the scroll viewport plus a
+ * buffer are materialised, the rest of the rows shown are replaced by blank
+ * space in the client. The components of the rows are kept when they go out of
+ * the viewport, so they are reused when scrolling back. The dependencies are
+ * only rendered when both tasks are materialised, as the {@link Task}s out of
+ * the viewport aren't visible.
+ * </p>
  *
  * @author Javier Moran Rua <jmoran@igalia.com>
  */
 public class TaskList extends XulElement implements AfterCompose {
 
+    /**
+     * Rows materialised when the rendering is virtualized until the client
+     * tells the rows in the viewport
+     */
+    public static final int INITIAL_ROWS = 60;
+
+    /**
+     * Rows materialised above and below the viewport when the rendering is
+     * virtualized
+     */
+    public static final int BUFFER_ROWS = 40;
+
     private transient IZoomLevelChangedListener zoomLevelChangedListener;
 
     private List<Task> currentTotalTasks;
@@ -81,13 +109,29 @@ public class TaskList extends XulElement implements AfterCompose {
 
     private Map<TaskComponent, Menupopup> contextMenus = new HashMap<>();
 
+    /**
+     * It's <code>null</code> if the rendering isn't virtualized
+     */
+    private final RowsWindow rowsWindow;
+
+    /**
+     * The tasks accepted by the predicate in the order they are shown. Only
+     * used if the rendering is virtualized.
+     */
+    private List<Task> shownTasks = new ArrayList<>();
+
+    private Set<TaskComponent> composedTaskComponents = new HashSet<>();
+
+    private String progressType;
+
     public TaskList(
             FunctionalityExposedForExtensions<?> context,
             CommandOnTaskContextualized<?> doubleClickCommand,
             List<Task> tasks,
             List<? extends CommandOnTaskContextualized<?>> commandsOnTasksContextualized,
             IDisabilityConfiguration disabilityConfiguration,
-            FilterAndParentExpandedPredicates predicate) {
+            FilterAndParentExpandedPredicates predicate,
+            boolean virtualized) {
 
         this.context = context;
         this.doubleClickCommand = doubleClickCommand;
@@ -95,16 +139,51 @@ public class TaskList extends XulElement implements AfterCompose {
         this.commandsOnTasksContextualized = commandsOnTasksContextualized;
         this.disabilityConfiguration = disabilityConfiguration;
         this.predicate = predicate;
+        this.rowsWindow = virtualized ? new RowsWindow(INITIAL_ROWS, BUFFER_ROWS) : null;
+
+        setAuService(new AuService() {
+            public boolean service(AuRequest request, boolean everError) {
+                if ( "onShownRowsChange".equals(request.getCommand()) ) {
+                    shownRowsChanged(toInteger(retrieveData(request, "first")),
+                            toInteger(retrieveData(request, "last")));
+
+                    return true;
+                }
+
+                return false;
+            }
+
+            private int toInteger(Object valueFromRequestData) {
+                return ((Number) valueFromRequestData).intValue();
+            }
+
+            private Object retrieveData(AuRequest request, String key) {
+                Object value = request.getData().get(key);
+                if ( value == null )
+                    throw new UiException(MZk.ILLEGAL_REQUEST_WRONG_DATA, new Object[] { key, this });
+
+                return value;
+            }
+        });
+    }
+
+    public boolean isVirtualized() {
+        return rowsWindow != null;
     }
 
     public void updateCompletion(String progressType) {
+        this.progressType = progressType;
         for (TaskComponent task: getTaskComponents()) {
-            task.updateCompletion(progressType);
-            task.updateCompletionReportedHours();
-            task.updateTooltipText(progressType);
+            updateCompletion(task, progressType);
         }
     }
 
+    private static void updateCompletion(TaskComponent task, String progressType) {
+        task.updateCompletion(progressType);
+        task.updateCompletionReportedHours();
+        task.updateTooltipText(progressType);
+    }
+
     public List<Task> getAllTasks() {
         return new ArrayList<>(currentTotalTasks);
     }
@@ -114,7 +193,8 @@ public class TaskList extends XulElement implements AfterCompose {
             CommandOnTaskContextualized<?> doubleClickCommand,
             List<? extends CommandOnTaskContextualized<?>> commandsOnTasksContextualized,
             IDisabilityConfiguration disabilityConfiguration,
-            FilterAndParentExpandedPredicates predicate) {
+            FilterAndParentExpandedPredicates predicate,
+            boolean virtualized) {
 
         return new TaskList(
                 context,
@@ -122,7 +202,8 @@ public class TaskList extends XulElement implements AfterCompose {
                 context.getDiagramGraph().getTopLevelTasks(),
                 commandsOnTasksContextualized,
                 disabilityConfiguration,
-                predicate);
+                predicate,
+                virtualized);
     }
 
     public List<DependencyComponent> asDependencyComponents(Collection<? extends Dependency> dependencies) {
@@ -203,18 +284,30 @@ public class TaskList extends XulElement implements AfterCompose {
 
     protected List<TaskComponent> getTaskComponents() {
         ArrayList<TaskComponent> result = new ArrayList<>();
+        for (TaskRow row : getTaskRows()) {
+            result.add(row.getChild());
+        }
+
+        return result;
+    }
+
+    private List<TaskRow> getTaskRows() {
+        List<TaskRow> result = new ArrayList<>();
         for (Object child : getChildren()) {
             if ( child instanceof TaskRow ) {
-                TaskRow row = (TaskRow) child;
-                result.add(row.getChild());
+                result.add((TaskRow) child);
             }
         }
 
         return result;
     }
 
+    /**
+     * @return the number of tasks shown, including the ones out of the
+     *         viewport if the rendering is virtualized
+     */
     public int getTasksNumber() {
-        return getTaskComponents().size();
+        return isVirtualized() ? shownTasks.size() : getTaskComponents().size();
     }
 
     @Override
@@ -346,12 +439,130 @@ public class TaskList extends XulElement implements AfterCompose {
     }
 
     private void reload(boolean relocate) {
-        ArrayList<Task> tasksPendingToAdd = new ArrayList<>();
-        reload(currentTotalTasks, tasksPendingToAdd, relocate);
-        addPendingTasks(tasksPendingToAdd, null, relocate);
+        if ( isVirtualized() ) {
+            reloadShownTasks(relocate);
+        } else {
+            ArrayList<Task> tasksPendingToAdd = new ArrayList<>();
+            reload(currentTotalTasks, tasksPendingToAdd, relocate);
+            addPendingTasks(tasksPendingToAdd, null, relocate);
+        }
         getGanttPanel().getDependencyList().redrawDependencies();
     }
 
+    private void reloadShownTasks(boolean relocate) {
+        List<Task> allTasks = new ArrayList<>();
+        shownTasks = new ArrayList<>();
+        collectShownTasks(currentTotalTasks, allTasks, shownTasks);
+        rowsWindow.fitTo(shownTasks.size());
+        renderRowsWindow(relocate);
+
+        // The tasks never rendered must be marked too, so their dependencies aren't rendered
+        for (Task each : allTasks) {
+            if ( each.isVisible() && !visibleTasks.contains(each) ) {
+                each.setVisible(false);
+            }
+        }
+    }
+
+    private void collectShownTasks(List<Task> tasks, List<Task> allTasks, List<Task> result) {
+        for (Task task : tasks) {
+            allTasks.add(task);
+            if ( predicate.accepts(task) ) {
+                result.add(task);
+            }
+
+            if ( task instanceof TaskContainer ) {
+                collectShownTasks(task.getTasks(), allTasks, result);
+            }
+        }
+    }
+
+    private void shownRowsChanged(int firstShown, int lastShown) {
+        if ( !isVirtualized() ) {
+            return;
+        }
+
+        /* The client may send a stale scroll position after the rows have been reduced */
+        int totalRows = shownTasks.size();
+        if ( rowsWindow.show(Math.min(firstShown, totalRows), Math.min(lastShown, totalRows)) ) {
+            rowsWindow.fitTo(totalRows);
+            renderRowsWindow(false);
+        }
+    }
+
+    /**
+     * Materialises the rows of the window in order, reusing the components
+     * of the rows already rendered
+     */
+    private void renderRowsWindow(boolean relocate) {
+        int first = Math.min(rowsWindow.getFirst(), shownTasks.size());
+        int last = Math.min(rowsWindow.getLast(), shownTasks.size());
+        List<Task> toRender = shownTasks.subList(first, last);
+
+        Set<Task> toRenderSet = new HashSet<>(toRender);
+        for (Task each : new ArrayList<>(visibleTasks)) {
+            if ( !toRenderSet.contains(each) ) {
+                hideRow(each);
+            }
+        }
+
+        List<TaskRow> rendered = getTaskRows();
+        int position = 0;
+        for (TaskComponent each : createAndPublishComponentsIfNeeded(toRender)) {
+            TaskRow next = position < rendered.size() ? rendered.get(position) : null;
+            if ( next == each.getRow() ) {
+                position++;
+                continue;
+            }
+            rendered.remove(each.getRow());
+            showRow(each, next, relocate);
+        }
+
+        smartUpdate("firstRow", first);
+        smartUpdate("lastRow", last);
+        smartUpdate("totalRows", shownTasks.size());
+        response("refreshTooltips", new AuInvoke(this, "refreshTooltips"));
+    }
+
+    private void showRow(TaskComponent taskComponent, TaskRow beforeThis, boolean relocate) {
+        if ( composedTaskComponents.add(taskComponent) ) {
+            addTaskComponent(beforeThis, taskComponent, relocate);
+        } else {
+            // It was already composed, it only has to be updated with the changes done meanwhile
+            insertBefore(taskComponent.getRow(), beforeThis);
+            taskComponent.updateProperties();
+            if ( progressType != null ) {
+                updateCompletion(taskComponent, progressType);
+            }
+        }
+        visibleTasks.add(taskComponent.getTask());
+        taskComponent.getTask().setVisible(true);
+    }
+
+    private void hideRow(Task task) {
+        TaskComponent taskComponent = taskComponentByTask.get(task);
+        boolean rendered = taskComponent != null && taskComponent.getParent() != null &&
+                taskComponent.getRow().getParent() == this;
+
+        if ( rendered ) {
+            removeChild(taskComponent.getRow());
+        }
+        visibleTasks.remove(task);
+        task.setVisible(false);
+    }
+
+    @Override
+    protected void renderProperties(ContentRenderer renderer) throws IOException {
+        super.renderProperties(renderer);
+
+        if ( isVirtualized() ) {
+            renderer.render("virtualized", true);
+            renderer.render("firstRow", Math.min(rowsWindow.getFirst(), shownTasks.size()));
+            renderer.render("lastRow", Math.min(rowsWindow.getLast(), shownTasks.size()));
+            renderer.render("totalRows", shownTasks.size());
+        }
+    }
+
     private void reload(List<Task> tasks, List<Task> tasksPendingToAdd, boolean relocate) {
         for (Task task : tasks) {
             if ( visibleTasks.contains(task) ) {
@@ -199,6 +199,8 @@ public class PlannerConfiguration<T> implements IDisabilityConfiguration {
 
     private boolean scheduleBackwards = false;
 
+    private boolean incrementalPropagation = false;
+
     public PlannerConfiguration(IAdapterToTaskFundamentalProperties<T> adapter,
                                 IStructureNavigator<T> navigator,
                                 List<? extends T> data) {
@@ -529,6 +531,17 @@ public class PlannerConfiguration<T> implements IDisabilityConfiguration {
         this.scheduleBackwards = scheduleBackwards;
     }
 
+    public boolean isIncrementalPropagation() {
+        return incrementalPropagation;
+    }
+
+    /**
+     * @see org.zkoss.ganttz.data.GanttDiagramGraph#setIncrementalPropagation(boolean)
+     */
+    public void setIncrementalPropagation(boolean incrementalPropagation) {
+        this.incrementalPropagation = incrementalPropagation;
+    }
+
     public boolean isShowResourcesOn() {
         return showResourcesOn;
     }
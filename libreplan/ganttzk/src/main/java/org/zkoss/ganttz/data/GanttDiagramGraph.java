@@ -53,6 +53,7 @@ import org.zkoss.ganttz.data.constraint.ConstraintOnComparableValues;
 import org.zkoss.ganttz.data.constraint.ConstraintOnComparableValues.ComparisonType;
 import org.zkoss.ganttz.data.criticalpath.ICriticalPathCalculable;
 import org.zkoss.ganttz.util.IAction;
+import org.zkoss.ganttz.util.OperationMetrics;
 import org.zkoss.ganttz.util.PreAndPostNotReentrantActionsWrapper;
 import org.zkoss.ganttz.util.ReentranceGuard;
 import org.zkoss.ganttz.util.ReentranceGuard.IReentranceCases;
@@ -68,6 +69,11 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
 
     private static final Log LOG = LogFactory.getLog(GanttDiagramGraph.class);
 
+    /**
+     * Name of the dependencies enforcement in {@link OperationMetrics}
+     */
+    public static final String DEPENDENCIES_ENFORCEMENT_OPERATION = "planner.dependencies-enforcement";
+
     public static IDependenciesEnforcerHook doNothingHook() {
         return new IDependenciesEnforcerHook() {
 
@@ -290,8 +296,16 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
 
     private final boolean dependenciesConstraintsHavePriority;
 
+    private boolean incrementalPropagation = false;
+
     private final ReentranceGuard positionsUpdatingGuard = new ReentranceGuard();
 
+    private final Set<V> tasksMovedInLastChange = new HashSet<>();
+
+    private boolean tasksOrDependenciesModified = true;
+
+    private boolean tasksOrDependenciesModifiedBeforeLastChange = true;
+
     private final PreAndPostNotReentrantActionsWrapper preAndPostActions = new PreAndPostNotReentrantActionsWrapper() {
 
         @Override
@@ -301,6 +315,9 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
 
         @Override
         protected void preAction() {
+            tasksOrDependenciesModifiedBeforeLastChange = tasksOrDependenciesModified;
+            tasksOrDependenciesModified = false;
+            tasksMovedInLastChange.clear();
             executeGraphChangeListeners(new ArrayList<>(preGraphChangeListeners));
         }
 
@@ -319,6 +336,21 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
 
     private List<IGraphChangeListener> postGraphChangeListeners = new ArrayList<>();
 
+    /**
+     * Returns the tasks moved or resized in the last change of the graph, so
+     * the post graph change listeners can update only what depends on them. It
+     * returns <code>null</code> if tasks or dependencies have been added or
+     * removed since the previous change, as then the dates are not the only
+     * thing modified.
+     */
+    public Set<V> getTasksMovedInLastChange() {
+        if ( tasksOrDependenciesModifiedBeforeLastChange || tasksOrDependenciesModified ) {
+            return null;
+        }
+
+        return Collections.unmodifiableSet(tasksMovedInLastChange);
+    }
+
     public void addPreGraphChangeListener(IGraphChangeListener preGraphChangeListener) {
         preGraphChangeListeners.add(preGraphChangeListener);
     }
@@ -372,6 +404,23 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
         this.topologicalSorter = new TopologicalSorter();
     }
 
+    /**
+     * In incremental propagation mode the depths calculated by the
+     * {@link TopologicalSorter} are kept when the graph structure changes and
+     * only the downstream cone of the modified tasks is recalculated.
+     * Besides, only the containers that are ancestors of the modified tasks
+     * are checked for shrinking, so the graph must be consistent beforehand,
+     * e.g. after calling {@link #enforceAllRestrictions()}.
+     */
+    public void setIncrementalPropagation(boolean incrementalPropagation) {
+        this.incrementalPropagation = incrementalPropagation;
+        topologicalSorter.recalculationNeeded();
+    }
+
+    public boolean isIncrementalPropagation() {
+        return incrementalPropagation;
+    }
+
     public void enforceAllRestrictions() {
         enforcer.enforceRestrictionsOn(withoutVisibleIncomingDependencies(getTopLevelTasks()));
     }
@@ -424,19 +473,28 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
      * parent and child nodes ({@link TaskPoint}) must be placed in the correct order.
      * Also during topological sorting nodes are placed on appropriate levels.
      * Topological sorting can be done using different algorithms, but here is used Khan's algorithm.
+     * In {@link #isIncrementalPropagation() incremental mode} the calculated levels are kept and only the nodes
+     * reachable from the tasks whose dependencies have changed are placed again.
      */
     class TopologicalSorter {
 
         private Map<TaskPoint, Integer> taskPointsByDepthCached = null;
 
+        private Set<V> pendingOfRecalculation = new HashSet<>();
+
         /**
          * This method is used to place each node on appropriate level.
          *
          * @return map of TaskPoints with appropriate levels
          */
         private Map<TaskPoint, Integer> taskPointsByDepth() {
+            if ( taskPointsByDepthCached != null && !pendingOfRecalculation.isEmpty() ) {
+                recalculateReachableFrom(pendingOfRecalculation);
+                pendingOfRecalculation.clear();
+            }
+
             if ( taskPointsByDepthCached != null ) {
-                return taskPointsByDepthCached;
+                return Collections.unmodifiableMap(taskPointsByDepthCached);
             }
 
             Map<TaskPoint, Integer> result = new HashMap<>();
@@ -458,7 +516,10 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
 
                 TaskPoint current = withoutIncoming.poll();
 
-                visitedTaskPoints.add(current); // Marking taskpoint as visited
+                // Marking taskpoint as visited. A taskpoint can be queued several times, visiting it again is useless
+                if ( !visitedTaskPoints.add(current) ) {
+                    continue;
+                }
 
                 // Taking all child elements
                 for (TaskPoint each : current.getImmediateSuccessors()) {
@@ -483,7 +544,105 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
                 }
             }
 
-            return taskPointsByDepthCached = Collections.unmodifiableMap(result);
+            taskPointsByDepthCached = result;
+
+            return Collections.unmodifiableMap(taskPointsByDepthCached);
+        }
+
+        /**
+         * Places again the nodes reachable from the provided tasks. The levels of the rest of nodes cannot be
+         * affected, so they're used as they are. A node gets a level only if all its predecessors have one, the
+         * same rule used when placing all the nodes.
+         */
+        private void recalculateReachableFrom(Collection<? extends V> tasks) {
+            Set<TaskPoint> reachable = new HashSet<>();
+            for (V each : tasks) {
+                if ( graph.containsVertex(each) ) {
+                    reachable.addAll(allPointsPotentiallyModified(each).getReachable());
+                }
+            }
+
+            for (TaskPoint each : reachable) {
+                taskPointsByDepthCached.remove(each);
+            }
+
+            Set<TaskPoint> initial = new HashSet<>(getInitial(withoutVisibleIncomingDependencies(getTopLevelTasks())));
+            Map<TaskPoint, Integer> pendingPredecessors = new HashMap<>();
+            Queue<TaskPoint> placed = new LinkedList<>();
+
+            for (TaskPoint each : reachable) {
+                if ( initial.contains(each) ) {
+                    taskPointsByDepthCached.put(each, 0);
+                    placed.offer(each);
+                    continue;
+                }
+
+                Integer pending = countPredecessorsToBePlaced(each, reachable);
+                if ( pending == null ) {
+                    continue;
+                }
+
+                if ( pending == 0 ) {
+                    place(each);
+                    placed.offer(each);
+                } else {
+                    pendingPredecessors.put(each, pending);
+                }
+            }
+
+            while (!placed.isEmpty()) {
+                TaskPoint current = placed.poll();
+
+                for (TaskPoint each : current.getImmediateSuccessors()) {
+                    Integer pending = pendingPredecessors.get(each);
+                    if ( pending == null || !each.getImmediatePredecessors().contains(current) ) {
+                        continue;
+                    }
+
+                    if ( pending == 1 ) {
+                        pendingPredecessors.remove(each);
+                        place(each);
+                        placed.offer(each);
+                    } else {
+                        pendingPredecessors.put(each, pending - 1);
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return the number of predecessors of <code>taskPoint</code> that are pending of being placed or
+         *         <code>null</code> if <code>taskPoint</code> can never be placed
+         */
+        private Integer countPredecessorsToBePlaced(TaskPoint taskPoint, Set<TaskPoint> toBePlaced) {
+            Set<TaskPoint> predecessors = taskPoint.getImmediatePredecessors();
+            if ( predecessors.isEmpty() ) {
+                return null;
+            }
+
+            int result = 0;
+            for (TaskPoint each : predecessors) {
+
+                if ( !each.getImmediateSuccessors().contains(taskPoint) ) {
+                    return null;
+                }
+
+                if ( toBePlaced.contains(each) ) {
+                    result++;
+                } else if ( !taskPointsByDepthCached.containsKey(each) ) {
+                    return null;
+                }
+            }
+
+            return result;
+        }
+
+        private void place(TaskPoint taskPoint) {
+            int depth = 0;
+            for (TaskPoint each : taskPoint.getImmediatePredecessors()) {
+                depth = Math.max(depth, taskPointsByDepthCached.get(each) + 1);
+            }
+            taskPointsByDepthCached.put(taskPoint, depth);
         }
 
         private <K, T> void initializeIfNeededForKey(Map<K, T> map, K key, T initialValue) {
@@ -503,6 +662,30 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
 
         public void recalculationNeeded() {
             taskPointsByDepthCached = null;
+            pendingOfRecalculation.clear();
+        }
+
+        /**
+         * The dependencies arriving to <code>task</code> have changed, so the
+         * levels of the nodes reachable from it could change too.
+         */
+        public void recalculationNeededFrom(V task) {
+            if ( !incrementalPropagation || taskPointsByDepthCached == null ) {
+                recalculationNeeded();
+                return;
+            }
+            pendingOfRecalculation.add(task);
+        }
+
+        public void removed(V task) {
+            if ( !incrementalPropagation || taskPointsByDepthCached == null ) {
+                recalculationNeeded();
+                return;
+            }
+            TaskPoint allPoints = allPointsPotentiallyModified(task);
+            taskPointsByDepthCached.remove(allPoints);
+            taskPointsByDepthCached.remove(new TaskPoint(task, allPoints.entryPoint.getOther()));
+            pendingOfRecalculation.remove(task);
         }
 
         public List<Recalculation> sort(Collection<? extends Recalculation> recalculationsToBeSorted) {
@@ -560,7 +743,8 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
 
             V task = stack.remove(0);
             graph.addVertex(task);
-            topologicalSorter.recalculationNeeded();
+            tasksOrDependenciesModified = true;
+            topologicalSorter.recalculationNeededFrom(task);
             adapter.registerDependenciesEnforcerHookOn(task, enforcer);
 
             if ( adapter.isContainer(task) ) {
@@ -822,6 +1006,7 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
                             new StartDateNofitication(notification, previousStart, previousEnd, newStart);
 
                     deferedNotifier.get().add(task, startDateNotification);
+                    tasksMovedInLastChange.add(task);
 
                 }
 
@@ -829,6 +1014,7 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
                 public void setNewEnd(GanttDate previousEnd, GanttDate newEnd) {
                     LengthNotification lengthNotification = new LengthNotification(notification, previousEnd, newEnd);
                     deferedNotifier.get().add(task, lengthNotification);
+                    tasksMovedInLastChange.add(task);
                 }
             };
 
@@ -967,7 +1153,12 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
          * listeners must be notified.
          */
         private void onNewEntrance(final IAction action) {
-            preAndPostActions.doAction(decorateWithNotifications(action));
+            OperationMetrics.Timer timer = OperationMetrics.start(DEPENDENCIES_ENFORCEMENT_OPERATION);
+            try {
+                preAndPostActions.doAction(decorateWithNotifications(action));
+            } finally {
+                timer.stop();
+            }
         }
 
         /**
@@ -1044,6 +1235,7 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
                     allModified.add(each.taskPoint.task);
                 }
             }
+            tasksMovedInLastChange.addAll(allModified);
 
             List<V> shrunkContainers = shrunkContainersOfModified(allModified);
             for (V each : getTaskAffectedByShrinking(shrunkContainers)) {
@@ -1071,11 +1263,14 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
         }
 
         private List<V> shrunkContainersOfModified(Set<V> allModified) {
-            Set<V> topmostToShrink = getTopMostThatCouldPotentiallyNeedShrinking(allModified);
             List<V> allToShrink = new ArrayList<>();
 
-            for (V each : topmostToShrink) {
-                allToShrink.addAll(getContainersBottomUp(each));
+            if ( incrementalPropagation ) {
+                allToShrink.addAll(getContainingContainersBottomUp(allModified));
+            } else {
+                for (V each : getTopMostThatCouldPotentiallyNeedShrinking(allModified)) {
+                    allToShrink.addAll(getContainersBottomUp(each));
+                }
             }
 
             List<V> result = new ArrayList<>();
@@ -1101,6 +1296,33 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
             return result;
         }
 
+        /**
+         * Only the containers that contain some of the modified tasks can
+         * need shrinking. They're returned so the deepest ones come first.
+         */
+        private List<V> getContainingContainersBottomUp(Collection<V> modified) {
+            final Map<V, Integer> levels = new LinkedHashMap<>();
+            for (V each : modified) {
+                List<V> path = fromTaskToTop(each);
+                for (int i = 0; i < path.size(); i++) {
+                    V current = path.get(i);
+                    if ( adapter.isContainer(current) && !levels.containsKey(current) ) {
+                        levels.put(current, path.size() - i);
+                    }
+                }
+            }
+
+            List<V> result = new ArrayList<>(levels.keySet());
+            Collections.sort(result, new Comparator<V>() {
+                @Override
+                public int compare(V o1, V o2) {
+                    return levels.get(o2) - levels.get(o1);
+                }
+            });
+
+            return result;
+        }
+
         private Collection<? extends V> getContainersBottomUp(V container) {
             List<V> result = new ArrayList<V>();
             List<V> tasks = adapter.getChildren(container);
@@ -1969,7 +2191,11 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
 
     public void remove(final V task) {
         Set<V> needingEnforcing = getOutgoingTasksFor(task);
+        Set<V> neighbours = new HashSet<>(needingEnforcing);
+        neighbours.addAll(getIncomingTasksFor(task));
+
         graph.removeVertex(task);
+        tasksOrDependenciesModified = true;
         topLevelTasks.remove(task);
         fromChildToParent.remove(task);
 
@@ -1979,13 +2205,17 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
             }
         }
 
-        topologicalSorter.recalculationNeeded();
+        topologicalSorter.removed(task);
+        for (V each : neighbours) {
+            topologicalSorter.recalculationNeededFrom(each);
+        }
         enforcer.enforceRestrictionsOn(needingEnforcing);
     }
 
     public void removeDependency(D dependency) {
         graph.removeEdge(dependency);
-        topologicalSorter.recalculationNeeded();
+        tasksOrDependenciesModified = true;
+        topologicalSorter.recalculationNeededFrom(getDependencyDestination(dependency));
         V destination = adapter.getDestination(dependency);
         V source = adapter.getSource(dependency);
         enforcer.enforceRestrictionsOn(destination);
@@ -2030,7 +2260,8 @@ public class GanttDiagramGraph<V, D extends IDependency<V>> implements ICritical
         V source = adapter.getSource(dependency);
         V destination = adapter.getDestination(dependency);
         graph.addEdge(source, destination, dependency);
-        topologicalSorter.recalculationNeeded();
+        tasksOrDependenciesModified = true;
+        topologicalSorter.recalculationNeededFrom(getDependencyDestination(dependency));
         if ( enforceRestrictions ) {
             enforceRestrictions(destination);
         }
@@ -27,9 +27,13 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.joda.time.Days;
 import org.joda.time.LocalDate;
@@ -40,11 +44,23 @@ import org.zkoss.ganttz.data.constraint.Constraint;
 
 /**
  * Class that calculates the critical path of a Gantt diagram graph.
+ * <p>
+ * The nodes are placed on levels, so every node is after all its previous
+ * tasks. The forward and backward passes process a level at a time; the nodes
+ * of the same level don't depend on each other, so big levels are processed
+ * concurrently using a {@link ForkJoinPool}. All the information needed from
+ * the graph is retrieved beforehand in the calling thread.
+ * </p>
  *
  * @author Manuel Rego Casasnovas <mrego@igalia.com>
  */
 public class CriticalPathCalculator<T, D extends IDependency<T>> {
 
+    /**
+     * Levels with less nodes than this are processed in the calling thread.
+     */
+    private static final int PARALLELISM_THRESHOLD = 128;
+
     private final boolean dependenciesConstraintsHavePriority;
 
     public static <T, D extends IDependency<T>> CriticalPathCalculator<T, D> create(
@@ -68,24 +84,13 @@ public class CriticalPathCalculator<T, D extends IDependency<T>> {
 
     private Map<T, Map<T, DependencyType>> dependencies;
 
-    private class VisitorTracker {
+    private Map<T, Map<T, DependencyType>> dependencyTypes;
 
-        private Map<T, Set<T>> visitorsOn = new HashMap<T, Set<T>>();
+    private Map<T, Constraint<GanttDate>> constraints;
 
-        void visit(T visited, T visitor) {
-            if (!visitorsOn.containsKey(visited)) {
-                visitorsOn.put(visited, new HashSet<T>());
-            }
-            visitorsOn.get(visited).add(visitor);
-        }
+    private List<List<Node<T, D>>> levels;
 
-        boolean hasBeenVisitedByAll(T current,
-                Collection<? extends T> collection) {
-            return visitorsOn.containsKey(current)
-                    && visitorsOn.get(current).containsAll(collection);
-        }
-
-    }
+    private Map<T, Integer> levelOf;
 
     public List<T> calculateCriticalPath(ICriticalPathCalculable<T> graph) {
         this.graph = graph;
@@ -99,10 +104,68 @@ public class CriticalPathCalculator<T, D extends IDependency<T>> {
 
         nodes = createGraphNodes();
 
-        forward(bop, null, new VisitorTracker());
-        eop.updateLatestValues();
+        retrieveDependencyTypesAndConstraints();
+        calculateLevels();
 
-        backward(eop, null, new VisitorTracker());
+        forward(levels);
+        updateEndOfProject();
+
+        backward(levels);
+
+        return getTasksOnCriticalPath();
+    }
+
+    /**
+     * Recalculates the critical path for the graph provided in the last call
+     * to {@link #calculateCriticalPath(ICriticalPathCalculable)} when only the
+     * dates of the <code>modified</code> tasks have changed, the dependencies
+     * must remain the same.
+     * <p>
+     * The earliest values are only recalculated for the tasks reachable from
+     * the modified ones and the latest values for the tasks the modified ones
+     * are reachable from. If the beginning or the end of the project change
+     * everything is calculated again.
+     * </p>
+     */
+    public List<T> recalculateCriticalPath(Collection<? extends T> modified) {
+        if (graph == null) {
+            throw new IllegalStateException(
+                    "the critical path must have been calculated before");
+        }
+
+        LocalDate newInitDate = calculateInitDate();
+        if (newInitDate == null || !newInitDate.equals(initDate)) {
+            return calculateCriticalPath(graph);
+        }
+
+        Set<Node<T, D>> modifiedNodes = new HashSet<Node<T, D>>();
+        for (T each : removeContainers(new ArrayList<T>(modified))) {
+            Node<T, D> node = nodes.get(each);
+            if (node != null) {
+                node.setDates(graph.getStartDate(each),
+                        graph.getEndDateFor(each));
+                constraints.put(each, getDateConstraints(each));
+                modifiedNodes.add(node);
+            }
+        }
+
+        List<List<Node<T, D>>> after = onlyOnLevels(reachable(modifiedNodes,
+                true));
+        for (List<Node<T, D>> level : after) {
+            for (Node<T, D> each : level) {
+                each.resetEarliestValues();
+            }
+        }
+        forward(after);
+
+        int previousEndOfProject = eop.getEarliestStart();
+        updateEndOfProject();
+
+        if (previousEndOfProject != eop.getEarliestStart()) {
+            backward(levels);
+        } else {
+            backward(onlyOnLevels(reachable(modifiedNodes, false)));
+        }
 
         return getTasksOnCriticalPath();
     }
@@ -291,58 +354,273 @@ public class CriticalPathCalculator<T, D extends IDependency<T>> {
         return DependencyType.END_START;
     }
 
-    private void forward(Node<T, D> currentNode, T previousTask,
-            VisitorTracker visitorTracker) {
-        T currentTask = currentNode.getTask();
-        int earliestStart = currentNode.getEarliestStart();
-        int earliestFinish = currentNode.getEarliestFinish();
+    private void retrieveDependencyTypesAndConstraints() {
+        dependencyTypes = new HashMap<T, Map<T, DependencyType>>();
+        constraints = new HashMap<T, Constraint<GanttDate>>();
 
-        Set<T> nextTasks = currentNode.getNextTasks();
-        if (nextTasks.isEmpty()) {
-            eop.setEarliestStart(earliestFinish);
-        } else {
-            int countStartStart = 0;
-
-            for (T task : nextTasks) {
-                visitorTracker.visit(task, currentTask);
-                if (graph.isContainer(currentTask)) {
-                    if (graph.contains(currentTask, previousTask)) {
-                        if (graph.contains(currentTask, task)) {
-                            continue;
-                        }
-                    }
+        for (Node<T, D> node : nodes.values()) {
+            T task = node.getTask();
+            constraints.put(task, getDateConstraints(task));
+
+            Map<T, DependencyType> types = new HashMap<T, DependencyType>();
+            for (T next : node.getNextTasks()) {
+                types.put(next,
+                        getDependencyTypeEndStartByDefault(task, next));
+            }
+            dependencyTypes.put(task, types);
+        }
+    }
+
+    private DependencyType getDependencyType(T from, T to) {
+        if (from == null || to == null) {
+            return DependencyType.END_START;
+        }
+        DependencyType result = dependencyTypes.get(from).get(to);
+        return result != null ? result : DependencyType.END_START;
+    }
+
+    /**
+     * Places each node on the level after the biggest level of its previous
+     * tasks. Nodes involved in cycles aren't placed.
+     */
+    private void calculateLevels() {
+        levels = new ArrayList<List<Node<T, D>>>();
+        levelOf = new HashMap<T, Integer>();
+
+        Map<T, Integer> pendingPrevious = new HashMap<T, Integer>();
+        Queue<Node<T, D>> placed = new LinkedList<Node<T, D>>();
+
+        for (Node<T, D> node : nodes.values()) {
+            int pending = node.getPreviousTasks().size();
+            if (pending == 0) {
+                place(node, 0);
+                placed.offer(node);
+            } else {
+                pendingPrevious.put(node.getTask(), pending);
+            }
+        }
+
+        while (!placed.isEmpty()) {
+            Node<T, D> current = placed.poll();
+            int level = levelOf.get(current.getTask());
+
+            for (T next : current.getNextTasks()) {
+                Integer pending = pendingPrevious.get(next);
+                if (pending == null) {
+                    continue;
+                }
+                if (pending == 1) {
+                    pendingPrevious.remove(next);
+                    Node<T, D> node = nodes.get(next);
+                    place(node, level + 1);
+                    placed.offer(node);
+                } else {
+                    pendingPrevious.put(next, pending - 1);
                 }
+            }
+        }
+    }
+
+    private void place(Node<T, D> node, int level) {
+        while (levels.size() <= level) {
+            levels.add(new ArrayList<Node<T, D>>());
+        }
+        levels.get(level).add(node);
+        levelOf.put(node.getTask(), level);
+    }
 
-                Node<T, D> node = nodes.get(task);
-                DependencyType dependencyType = getDependencyTypeEndStartByDefault(
-                        currentTask, task);
-                Constraint<GanttDate> constraint = getDateConstraints(task);
-
-                switch (dependencyType) {
-                case START_START:
-                    setEarliestStart(node, earliestStart, constraint);
-                    countStartStart++;
-                    break;
-                case END_END:
-                    setEarliestStart(node, earliestFinish - node.getDuration(),
-                            constraint);
-                    break;
-                case END_START:
-                default:
-                    setEarliestStart(node, earliestFinish, constraint);
-                    break;
+    private Set<Node<T, D>> reachable(Collection<Node<T, D>> from,
+            boolean forward) {
+        Set<Node<T, D>> result = new HashSet<Node<T, D>>(from);
+        Queue<Node<T, D>> pending = new LinkedList<Node<T, D>>(from);
+
+        while (!pending.isEmpty()) {
+            Node<T, D> current = pending.poll();
+            Set<T> adjacent = forward ? current.getNextTasks() : current
+                    .getPreviousTasks();
+            for (T each : adjacent) {
+                Node<T, D> node = nodes.get(each);
+                if (node != null && result.add(node)) {
+                    pending.offer(node);
                 }
+            }
+        }
+
+        return result;
+    }
+
+    private List<List<Node<T, D>>> onlyOnLevels(Set<Node<T, D>> selected) {
+        List<List<Node<T, D>>> result = new ArrayList<List<Node<T, D>>>();
+        for (int i = 0; i < levels.size(); i++) {
+            result.add(new ArrayList<Node<T, D>>());
+        }
+
+        for (Node<T, D> each : selected) {
+            Integer level = levelOf.get(each.getTask());
+            if (level != null) {
+                result.get(level).add(each);
+            }
+        }
+
+        return result;
+    }
+
+    private abstract class LevelProcessing extends RecursiveAction {
 
-                if (visitorTracker.hasBeenVisitedByAll(task,
-                        node.getPreviousTasks())) {
-                    forward(node, currentTask, visitorTracker);
+        private final List<Node<T, D>> level;
+
+        private final int from;
+
+        private final int to;
+
+        LevelProcessing(List<Node<T, D>> level, int from, int to) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLELISM_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    process(level.get(i));
                 }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(create(level, from, middle), create(level, middle, to));
+        }
+
+        protected abstract LevelProcessing create(List<Node<T, D>> level,
+                int from, int to);
+
+        protected abstract void process(Node<T, D> node);
+
+        void processAll() {
+            if (to - from <= PARALLELISM_THRESHOLD) {
+                compute();
+            } else {
+                ForkJoinPool.commonPool().invoke(this);
+            }
+        }
+
+    }
+
+    private class ForwardProcessing extends LevelProcessing {
+
+        ForwardProcessing(List<Node<T, D>> level, int from, int to) {
+            super(level, from, to);
+        }
+
+        @Override
+        protected LevelProcessing create(List<Node<T, D>> level, int from,
+                int to) {
+            return new ForwardProcessing(level, from, to);
+        }
+
+        @Override
+        protected void process(Node<T, D> node) {
+            forward(node);
+        }
+
+    }
+
+    private class BackwardProcessing extends LevelProcessing {
+
+        BackwardProcessing(List<Node<T, D>> level, int from, int to) {
+            super(level, from, to);
+        }
+
+        @Override
+        protected LevelProcessing create(List<Node<T, D>> level, int from,
+                int to) {
+            return new BackwardProcessing(level, from, to);
+        }
+
+        @Override
+        protected void process(Node<T, D> node) {
+            backward(node);
+        }
+
+    }
+
+    private void forward(List<List<Node<T, D>>> levelsToProcess) {
+        for (List<Node<T, D>> level : levelsToProcess) {
+            new ForwardProcessing(level, 0, level.size()).processAll();
+        }
+    }
+
+    /**
+     * Calculates the earliest start of the node from the earliest values of
+     * its previous tasks, that must have been already calculated.
+     */
+    private void forward(Node<T, D> node) {
+        T task = node.getTask();
+        Constraint<GanttDate> constraint = constraints.get(task);
+        boolean visited = false;
+        boolean reachedByAll = true;
+
+        if (bop.getNextTasks().contains(task)) {
+            visited = true;
+            setEarliestStart(node, bop.getEarliestFinish(), constraint);
+        }
+
+        for (T previousTask : node.getPreviousTasks()) {
+            Node<T, D> previous = nodes.get(previousTask);
+            if (!previous.isReachedForward()) {
+                reachedByAll = false;
+                continue;
+            }
+            visited = true;
+
+            switch (getDependencyType(previousTask, task)) {
+            case START_START:
+                setEarliestStart(node, previous.getEarliestStart(),
+                        constraint);
+                break;
+            case END_END:
+                setEarliestStart(node, previous.getEarliestFinish()
+                        - node.getDuration(), constraint);
+                break;
+            case END_START:
+            default:
+                setEarliestStart(node, previous.getEarliestFinish(),
+                        constraint);
+                break;
+            }
+        }
+
+        node.setReachedForward(visited && reachedByAll);
+    }
+
+    private void updateEndOfProject() {
+        eop.resetEarliestValues();
+        if (bop.getNextTasks().isEmpty()) {
+            eop.setEarliestStart(bop.getEarliestFinish());
+        }
+
+        for (Node<T, D> node : nodes.values()) {
+            if (node.isReachedForward() && allStartStart(node)) {
+                eop.setEarliestStart(node.getEarliestFinish());
             }
+        }
+
+        eop.resetLatestValues();
+        eop.updateLatestValues();
+    }
 
-            if (nextTasks.size() == countStartStart) {
-                eop.setEarliestStart(earliestFinish);
+    /**
+     * @return if all the dependencies to the next tasks are
+     *         {@link DependencyType#START_START}, it's also true if there
+     *         aren't next tasks
+     */
+    private boolean allStartStart(Node<T, D> node) {
+        for (T next : node.getNextTasks()) {
+            if (getDependencyType(node.getTask(), next) != DependencyType.START_START) {
+                return false;
             }
         }
+        return true;
     }
 
     private void setEarliestStart(Node<T, D> node, int earliestStart,
@@ -381,58 +659,56 @@ public class CriticalPathCalculator<T, D extends IDependency<T>> {
         return Constraint.coalesce(startConstraints);
     }
 
-    private void backward(Node<T, D> currentNode, T nextTask,
-            VisitorTracker visitorTracker) {
-        T currentTask = currentNode.getTask();
-        int latestStart = currentNode.getLatestStart();
-        int latestFinish = currentNode.getLatestFinish();
-
-        Set<T> previousTasks = currentNode.getPreviousTasks();
-        if (previousTasks.isEmpty()) {
-            bop.setLatestFinish(latestStart);
-        } else {
-            int countEndEnd = 0;
-
-            for (T task : previousTasks) {
-                visitorTracker.visit(task, currentTask);
-                if (graph.isContainer(currentTask)) {
-                    if (graph.contains(currentTask, nextTask)) {
-                        if (graph.contains(currentTask, task)) {
-                            continue;
-                        }
-                    }
-                }
+    private void backward(List<List<Node<T, D>>> levelsToProcess) {
+        for (int i = levelsToProcess.size() - 1; i >= 0; i--) {
+            List<Node<T, D>> level = levelsToProcess.get(i);
+            for (Node<T, D> each : level) {
+                each.resetLatestValues();
+            }
+            new BackwardProcessing(level, 0, level.size()).processAll();
+        }
+    }
 
-                Node<T, D> node = nodes.get(task);
-                DependencyType dependencyType = getDependencyTypeEndStartByDefault(
-                        task, currentTask);
-                Constraint<GanttDate> constraint = getDateConstraints(task);
-
-                switch (dependencyType) {
-                case START_START:
-                    setLatestFinish(node, latestStart + node.getDuration(),
-                            constraint);
-                    break;
-                case END_END:
-                    setLatestFinish(node, latestFinish, constraint);
-                    countEndEnd++;
-                    break;
-                case END_START:
-                default:
-                    setLatestFinish(node, latestStart, constraint);
-                    break;
-                }
+    /**
+     * Calculates the latest finish of the node from the latest values of its
+     * next tasks, that must have been already calculated.
+     */
+    private void backward(Node<T, D> node) {
+        T task = node.getTask();
+        Constraint<GanttDate> constraint = constraints.get(task);
+        boolean visited = false;
+        boolean reachedByAll = true;
+
+        if (eop.getPreviousTasks().contains(task)) {
+            visited = true;
+            setLatestFinish(node, eop.getLatestStart(), constraint);
+        }
 
-                if (visitorTracker.hasBeenVisitedByAll(task,
-                        node.getNextTasks())) {
-                    backward(node, currentTask, visitorTracker);
-                }
+        for (T nextTask : node.getNextTasks()) {
+            Node<T, D> next = nodes.get(nextTask);
+            if (!next.isReachedBackward()) {
+                reachedByAll = false;
+                continue;
             }
-
-            if (previousTasks.size() == countEndEnd) {
-                bop.setLatestFinish(latestStart);
+            visited = true;
+
+            switch (getDependencyType(task, nextTask)) {
+            case START_START:
+                setLatestFinish(node,
+                        next.getLatestStart() + node.getDuration(),
+                        constraint);
+                break;
+            case END_END:
+                setLatestFinish(node, next.getLatestFinish(), constraint);
+                break;
+            case END_START:
+            default:
+                setLatestFinish(node, next.getLatestStart(), constraint);
+                break;
             }
         }
+
+        node.setReachedBackward(visited && reachedByAll);
     }
 
     private void setLatestFinish(Node<T, D> node, int latestFinish,
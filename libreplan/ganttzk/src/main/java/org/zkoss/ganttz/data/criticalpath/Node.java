@@ -51,26 +51,65 @@ public class Node<T, D extends IDependency<T>> {
     private LocalDate beginDate = null;
     private LocalDate endDate = null;
 
+    private boolean reachedForward = false;
+    private boolean reachedBackward = false;
+
     public Node(T task, Set<? extends T> previousTasks,
             Set<? extends T> nextTasks, GanttDate startDate, GanttDate endDate) {
         this.task = task;
 
+        setDates(startDate, endDate);
+        resetEarliestValues();
+
+        if (previousTasks != null) {
+            this.previousTasks = new HashSet<T>(previousTasks);
+        }
+        if (nextTasks != null) {
+            this.nextTasks = new HashSet<T>(nextTasks);
+        }
+    }
+
+    void setDates(GanttDate startDate, GanttDate endDate) {
         if (startDate != null) {
             this.beginDate = new LocalDate(startDate.toDayRoundedDate());
         }
         if (endDate != null) {
             this.endDate = new LocalDate(endDate.toDayRoundedDate());
         }
+    }
 
+    void resetEarliestValues() {
         this.earliestStart = 0;
         this.earliestFinish = getDuration();
+    }
 
-        if (previousTasks != null) {
-            this.previousTasks = new HashSet<T>(previousTasks);
-        }
-        if (nextTasks != null) {
-            this.nextTasks = new HashSet<T>(nextTasks);
-        }
+    void resetLatestValues() {
+        this.latestStart = null;
+        this.latestFinish = null;
+    }
+
+    /**
+     * The forward pass of the critical path method has reached this node
+     * through all its previous tasks.
+     */
+    boolean isReachedForward() {
+        return reachedForward;
+    }
+
+    void setReachedForward(boolean reachedForward) {
+        this.reachedForward = reachedForward;
+    }
+
+    /**
+     * The backward pass of the critical path method has reached this node
+     * through all its next tasks.
+     */
+    boolean isReachedBackward() {
+        return reachedBackward;
+    }
+
+    void setReachedBackward(boolean reachedBackward) {
+        this.reachedBackward = reachedBackward;
     }
 
     public T getTask() {
@@ -0,0 +1,216 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.zkoss.ganttz.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Always on timers and counters of the key operations of the planner, like
+ * opening or saving a project.
+ * <p>
+ * Each execution is measured with a {@link Timer} that must be stopped in the
+ * same thread, usually in a finally block. The number of executions, the time
+ * and the SQL statements prepared are accumulated by operation, keeping the
+ * durations of the last {@link #SAMPLES} executions to calculate the
+ * percentiles. The durations are logged too in the profiling log, see
+ * {@link ProfilingLogFactory}.
+ * </p>
+ * <p>
+ * The statements are only counted if a {@link IStatementsCounter} has been
+ * set, as this module doesn't access the database.
+ * </p>
+ */
+public class OperationMetrics {
+
+    private static final Log PROFILING_LOG = ProfilingLogFactory.getLog(OperationMetrics.class);
+
+    public static final int SAMPLES = 1024;
+
+    /**
+     * Counts the SQL statements prepared in the current thread.
+     */
+    public interface IStatementsCounter {
+
+        IStatementsCount start();
+
+    }
+
+    public interface IStatementsCount {
+
+        /**
+         * @return the statements prepared since the count was started
+         */
+        int stop();
+
+    }
+
+    private static final IStatementsCount NO_STATEMENTS = () -> 0;
+
+    private static final IStatementsCounter NO_STATEMENTS_COUNTER = () -> NO_STATEMENTS;
+
+    private static volatile IStatementsCounter statementsCounter = NO_STATEMENTS_COUNTER;
+
+    private static final ConcurrentMap<String, Recorder> recorders = new ConcurrentHashMap<>();
+
+    /**
+     * An execution of an operation being measured.
+     */
+    public static class Timer {
+
+        private final String operation;
+
+        private final IStatementsCount statements;
+
+        private final long start;
+
+        private boolean stopped = false;
+
+        private Timer(String operation, IStatementsCount statements) {
+            this.operation = operation;
+            this.statements = statements;
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * Records the execution. Calling it again has no effect.
+         */
+        public void stop() {
+            if ( stopped ) {
+                return;
+            }
+            stopped = true;
+            long elapsed = System.nanoTime() - start;
+            int statementsPrepared = statements.stop();
+            getRecorder(operation).record(elapsed, statementsPrepared);
+            if ( PROFILING_LOG.isDebugEnabled() ) {
+                PROFILING_LOG.debug(operation + " took " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms and " +
+                        statementsPrepared + " statements");
+            }
+        }
+
+    }
+
+    private static class Recorder {
+
+        private final long[] samples = new long[SAMPLES];
+
+        private long count = 0;
+
+        private long totalNanos = 0;
+
+        private long maxNanos = 0;
+
+        private long totalStatements = 0;
+
+        private long maxStatements = 0;
+
+        synchronized void record(long nanos, int statements) {
+            samples[(int) (count % SAMPLES)] = nanos;
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            totalStatements += statements;
+            maxStatements = Math.max(maxStatements, statements);
+        }
+
+        synchronized OperationStatistics getStatistics(String name) {
+            long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, SAMPLES));
+            Arrays.sort(sorted);
+
+            return new OperationStatistics(name, count, toMillis(totalNanos), toMillis(maxNanos),
+                    toMillis(percentile(sorted, 50)), toMillis(percentile(sorted, 95)),
+                    toMillis(percentile(sorted, 99)), totalStatements, maxStatements);
+        }
+
+        private static long percentile(long[] sorted, int percentile) {
+            if ( sorted.length == 0 ) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+
+            return sorted[Math.max(rank, 1) - 1];
+        }
+
+        private static long toMillis(long nanos) {
+            return TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+
+    }
+
+    private static Recorder getRecorder(String operation) {
+        Recorder result = recorders.get(operation);
+        if ( result == null ) {
+            recorders.putIfAbsent(operation, new Recorder());
+            result = recorders.get(operation);
+        }
+
+        return result;
+    }
+
+    /**
+     * Starts measuring an execution of the operation in the current thread.
+     */
+    public static Timer start(String operation) {
+        return new Timer(operation, statementsCounter.start());
+    }
+
+    /**
+     * @param counter
+     *            it's used to count the statements of the operations started
+     *            from now on. If <code>null</code> they are not counted.
+     */
+    public static void setStatementsCounter(IStatementsCounter counter) {
+        statementsCounter = counter != null ? counter : NO_STATEMENTS_COUNTER;
+    }
+
+    /**
+     * @return the statistics of the operations executed, ordered by name
+     */
+    public static List<OperationStatistics> getStatistics() {
+        Map<String, Recorder> sorted = new TreeMap<>(recorders);
+        List<OperationStatistics> result = new ArrayList<>();
+        for (Map.Entry<String, Recorder> each : sorted.entrySet()) {
+            result.add(each.getValue().getStatistics(each.getKey()));
+        }
+
+        return result;
+    }
+
+    /**
+     * Discards the measures taken so far, for instance to compare them after
+     * a change in the configuration.
+     */
+    public static void reset() {
+        recorders.clear();
+    }
+
+    private OperationMetrics() {
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.zkoss.ganttz.util;
+
+/**
+ * The measures of an operation recorded by {@link OperationMetrics}. The
+ * percentiles are calculated over the last executions.
+ */
+public class OperationStatistics {
+
+    private final String name;
+
+    private final long count;
+
+    private final long totalMs;
+
+    private final long maxMs;
+
+    private final long p50Ms;
+
+    private final long p95Ms;
+
+    private final long p99Ms;
+
+    private final long totalStatements;
+
+    private final long maxStatements;
+
+    OperationStatistics(String name, long count, long totalMs, long maxMs,
+                        long p50Ms, long p95Ms, long p99Ms,
+                        long totalStatements, long maxStatements) {
+        this.name = name;
+        this.count = count;
+        this.totalMs = totalMs;
+        this.maxMs = maxMs;
+        this.p50Ms = p50Ms;
+        this.p95Ms = p95Ms;
+        this.p99Ms = p99Ms;
+        this.totalStatements = totalStatements;
+        this.maxStatements = maxStatements;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalMs() {
+        return totalMs;
+    }
+
+    public long getMeanMs() {
+        return count == 0 ? 0 : totalMs / count;
+    }
+
+    public long getMaxMs() {
+        return maxMs;
+    }
+
+    public long getP50Ms() {
+        return p50Ms;
+    }
+
+    public long getP95Ms() {
+        return p95Ms;
+    }
+
+    public long getP99Ms() {
+        return p99Ms;
+    }
+
+    /**
+     * @return the SQL statements prepared by all the executions, or zero if
+     *         they aren't counted
+     */
+    public long getTotalStatements() {
+        return totalStatements;
+    }
+
+    public long getMeanStatements() {
+        return count == 0 ? 0 : totalStatements / count;
+    }
+
+    public long getMaxStatements() {
+        return maxStatements;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + count + " executions, mean " + getMeanMs() + " ms, p95 " + p95Ms + " ms, max " +
+                maxMs + " ms, " + getMeanStatements() + " statements";
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.zkoss.ganttz.util;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * The range of rows of a list that are materialised as components, when only
+ * the ones in the scroll viewport plus a buffer are rendered.
+ * <p>
+ * The range is only moved when some row shown in the viewport isn't
+ * materialised, centering it then on the rows shown. So small scrolls reuse
+ * the rows already rendered.
+ * </p>
+ */
+public class RowsWindow {
+
+    private final int bufferRows;
+
+    private int first = 0;
+
+    /* Exclusive */
+    private int last;
+
+    /**
+     * @param initialRows
+     *            the rows materialised until the viewport is known
+     * @param bufferRows
+     *            the rows materialised above and below the viewport
+     */
+    public RowsWindow(int initialRows, int bufferRows) {
+        Validate.isTrue(initialRows > 0);
+        Validate.isTrue(bufferRows >= 0);
+        this.last = initialRows;
+        this.bufferRows = bufferRows;
+    }
+
+    public int getFirst() {
+        return first;
+    }
+
+    public int getLast() {
+        return last;
+    }
+
+    public boolean contains(int row) {
+        return row >= first && row < last;
+    }
+
+    /**
+     * Moves the window if some of the rows shown isn't materialised. The rows
+     * come from the client, so a negative or inverted range is clamped
+     * instead of rejected.
+     *
+     * @param firstShown
+     *            the first row in the viewport
+     * @param lastShown
+     *            the row after the last one in the viewport
+     * @return <code>true</code> if the window has been moved
+     */
+    public boolean show(int firstShown, int lastShown) {
+        firstShown = Math.max(0, firstShown);
+        lastShown = Math.max(firstShown, lastShown);
+        if ( firstShown >= first && lastShown <= last ) {
+            return false;
+        }
+        first = Math.max(0, firstShown - bufferRows);
+        last = lastShown + bufferRows;
+
+        return true;
+    }
+
+    /**
+     * Adapts the window to the number of rows of the list, moving it back if
+     * the rows have been reduced so it exceeds them, for instance when
+     * collapsing a container. The size of the window is kept.
+     */
+    public void fitTo(int totalRows) {
+        Validate.isTrue(totalRows >= 0);
+        if ( last <= totalRows || first == 0 ) {
+            return;
+        }
+        int size = last - first;
+        first = Math.max(0, totalRows - size);
+        last = first + size;
+    }
+
+}
@@ -59,6 +59,7 @@ ganttz.GanttPanel = zk.$extends(
             this._taskdetails.css("top", "-" + this._rightPanelLayout.scrollTop() + "px");
             this._plannergraph.scrollLeft( this._rightPanelLayout.scrollLeft() );
             this.timeplotContainerRescroll();
+            ganttz.TaskList.getInstance().checkShownRows(this._rightPanelLayout);
         },
         
         /*
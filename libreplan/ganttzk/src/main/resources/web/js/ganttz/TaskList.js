@@ -3,11 +3,99 @@ zk.$package("ganttz");
 ganttz.TaskList = zk.$extends(
     zk.Widget,
     {
+        $define : {
+            /*
+             * When virtualized only the rows from firstRow to lastRow (exclusive) are rendered,
+             * the space of the other ones is kept with the padding of the list.
+             */
+            virtualized : function() {
+                this._adjustSpacers();
+            },
+            firstRow : function() {
+                this._adjustSpacers();
+            },
+            lastRow : function() {
+                this._adjustSpacers();
+            },
+            totalRows : function() {
+                this._adjustSpacers();
+            }
+        },
+
         $init : function() {
             this.$supers('$init', arguments);
             this.$class.setInstance(this);
         },
 
+        bind_ : function() {
+            this.$supers('bind_', arguments);
+            this._adjustSpacers();
+        },
+
+        unbind_ : function() {
+            clearTimeout(this._shownRowsTimeout);
+            this.$supers('unbind_', arguments);
+        },
+
+        _rowPitch : function() {
+            var first = this.firstChild;
+            if (first && first.$n()) {
+                var second = first.nextSibling;
+                var pitch = second && second.$n()
+                    ? jq(second.$n()).offset().top - jq(first.$n()).offset().top
+                    : jq(first.$n()).outerHeight(true);
+
+                if (pitch > 0) {
+                    this._pitch = pitch;
+                }
+            }
+
+            return this._pitch;
+        },
+
+        _adjustSpacers : function() {
+            var node = this.$n();
+            if (!node || !this._virtualized) {
+                return;
+            }
+
+            var pitch = this._rowPitch();
+            if (!pitch) {
+                return;
+            }
+
+            jq(node).css({
+                'padding-top' : (this._firstRow * pitch) + 'px',
+                'padding-bottom' : (Math.max(0, this._totalRows - this._lastRow) * pitch) + 'px'
+            });
+        },
+
+        /*
+         * Called when the planner is scrolled. If the shown rows aren't rendered the server is asked to render them,
+         * waiting until the scroll stops.
+         */
+        checkShownRows : function(scroller) {
+            if (!this._virtualized) {
+                return;
+            }
+
+            clearTimeout(this._shownRowsTimeout);
+            this._shownRowsTimeout = setTimeout(jq.proxy(function() {
+                var pitch = this._rowPitch();
+                if (!pitch) {
+                    return;
+                }
+
+                var first = Math.floor(scroller.scrollTop() / pitch);
+                var last = Math.min(this._totalRows, Math.ceil((scroller.scrollTop() + scroller.height()) / pitch));
+                first = Math.max(0, Math.min(first, last));
+
+                if (first < this._firstRow || last > this._lastRow) {
+                    zAu.send(new zk.Event(this, 'onShownRowsChange', {first : first, last : last}));
+                }
+            }, this), 150);
+        },
+
         showAllTaskLabels : function() {
             for (var child = this.firstChild; child; child = child.nextSibling)
                 child.showLabels();
@@ -0,0 +1,242 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.zkoss.ganttz.data;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.zkoss.ganttz.data.GanttDiagramGraph.GanttZKDiagramGraph;
+import org.zkoss.ganttz.data.ITaskFundamentalProperties.IModifications;
+import org.zkoss.ganttz.data.ITaskFundamentalProperties.IUpdatablePosition;
+import org.zkoss.ganttz.data.constraint.Constraint;
+
+/**
+ * Tests for {@link GanttDiagramGraph}. The incremental propagation mode must
+ * produce the same positions than the default one.
+ */
+public class GanttDiagramGraphTest {
+
+    private static final LocalDate START = new LocalDate(2016, 1, 4);
+
+    private static final long DAY_MILLISECONDS = 24 * 60 * 60 * 1000L;
+
+    static TaskLeaf createTask(LocalDate start, int durationDays) {
+        Date begin = start.toDateTimeAtStartOfDay().toDate();
+
+        return new TaskLeaf(new DefaultFundamentalProperties(
+                "task", begin, durationDays * DAY_MILLISECONDS, "", begin, begin, begin,
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+    }
+
+    static GanttZKDiagramGraph createGraph(boolean incremental) {
+        GanttZKDiagramGraph result = GanttDiagramGraph.create(
+                false,
+                Collections.<Constraint<GanttDate>> emptyList(),
+                Collections.<Constraint<GanttDate>> emptyList(),
+                true);
+
+        result.setIncrementalPropagation(incremental);
+
+        return result;
+    }
+
+    static void moveTo(Task task, final LocalDate date) {
+        task.doPositionModifications(new IModifications() {
+            @Override
+            public void doIt(IUpdatablePosition position) {
+                position.moveTo(GanttDate.createFrom(date));
+            }
+        });
+    }
+
+    /**
+     * Several chains of tasks. Each task depends on the previous one of its
+     * chain and some of them also depend on a task of the previous chain.
+     */
+    private static class Scenario {
+
+        private final GanttZKDiagramGraph graph;
+
+        private final List<Task> tasks = new ArrayList<>();
+
+        Scenario(boolean incremental, int chains, int tasksPerChain) {
+            graph = createGraph(incremental);
+
+            for (int i = 0; i < chains * tasksPerChain; i++) {
+                tasks.add(createTask(START, 1 + i % 3));
+            }
+            graph.addTopLevel(tasks);
+
+            for (int chain = 0; chain < chains; chain++) {
+                for (int i = 1; i < tasksPerChain; i++) {
+                    graph.addWithoutEnforcingConstraints(
+                            new Dependency(get(chain, tasksPerChain, i - 1), get(chain, tasksPerChain, i),
+                                    DependencyType.END_START));
+
+                    if ( chain > 0 && i % 4 == 0 ) {
+                        graph.addWithoutEnforcingConstraints(
+                                new Dependency(get(chain - 1, tasksPerChain, i), get(chain, tasksPerChain, i),
+                                        DependencyType.START_START));
+                    }
+                }
+            }
+            graph.enforceAllRestrictions();
+        }
+
+        private Task get(int chain, int tasksPerChain, int position) {
+            return tasks.get(chain * tasksPerChain + position);
+        }
+
+        List<LocalDate> getStartDates() {
+            List<LocalDate> result = new ArrayList<>();
+            for (Task each : tasks) {
+                result.add(each.getBeginDate().toLocalDate());
+            }
+
+            return result;
+        }
+    }
+
+    @Test
+    public void enforcingAllRestrictionsIsTheSameInBothModes() {
+        Scenario normal = new Scenario(false, 5, 20);
+        Scenario incremental = new Scenario(true, 5, 20);
+
+        assertThat(incremental.getStartDates(), equalTo(normal.getStartDates()));
+        assertTrue(normal.tasks.get(19).getBeginDate().toLocalDate().isAfter(START));
+    }
+
+    @Test
+    public void movingATaskIsTheSameInBothModes() {
+        Scenario normal = new Scenario(false, 5, 20);
+        Scenario incremental = new Scenario(true, 5, 20);
+
+        for (int each : new int[] { 0, 23, 41, 0, 77 }) {
+            LocalDate newStart = normal.tasks.get(each).getBeginDate().toLocalDate().plusDays(3);
+            moveTo(normal.tasks.get(each), newStart);
+            moveTo(incremental.tasks.get(each), newStart);
+
+            assertThat(incremental.getStartDates(), equalTo(normal.getStartDates()));
+        }
+    }
+
+    @Test
+    public void addingAndRemovingDependenciesIsTheSameInBothModes() {
+        Scenario normal = new Scenario(false, 4, 10);
+        Scenario incremental = new Scenario(true, 4, 10);
+
+        Dependency normalDependency = new Dependency(normal.tasks.get(9), normal.tasks.get(12),
+                DependencyType.END_START);
+        Dependency incrementalDependency = new Dependency(incremental.tasks.get(9), incremental.tasks.get(12),
+                DependencyType.END_START);
+
+        normal.graph.add(normalDependency);
+        incremental.graph.add(incrementalDependency);
+        assertThat(incremental.getStartDates(), equalTo(normal.getStartDates()));
+
+        moveTo(normal.tasks.get(5), normal.tasks.get(5).getBeginDate().toLocalDate().plusDays(7));
+        moveTo(incremental.tasks.get(5), incremental.tasks.get(5).getBeginDate().toLocalDate().plusDays(7));
+        assertThat(incremental.getStartDates(), equalTo(normal.getStartDates()));
+
+        normal.graph.removeDependency(normalDependency);
+        incremental.graph.removeDependency(incrementalDependency);
+        moveTo(normal.tasks.get(10), START);
+        moveTo(incremental.tasks.get(10), START);
+        assertThat(incremental.getStartDates(), equalTo(normal.getStartDates()));
+    }
+
+    @Test
+    public void removingATaskIsTheSameInBothModes() {
+        Scenario normal = new Scenario(false, 3, 10);
+        Scenario incremental = new Scenario(true, 3, 10);
+
+        normal.graph.remove(normal.tasks.remove(4));
+        incremental.graph.remove(incremental.tasks.remove(4));
+        assertThat(incremental.getStartDates(), equalTo(normal.getStartDates()));
+
+        moveTo(normal.tasks.get(0), START.plusDays(2));
+        moveTo(incremental.tasks.get(0), START.plusDays(2));
+        assertThat(incremental.getStartDates(), equalTo(normal.getStartDates()));
+    }
+
+    @Test
+    public void containersAreExpandedInBothModes() {
+        List<LocalDate> results = null;
+        for (boolean incremental : new boolean[] { false, true }) {
+            GanttZKDiagramGraph graph = createGraph(incremental);
+            TaskLeaf first = createTask(START, 2);
+            TaskLeaf second = createTask(START, 2);
+            TaskContainer container = new TaskContainer(new DefaultFundamentalProperties(
+                    "container", START.toDateTimeAtStartOfDay().toDate(), 4 * DAY_MILLISECONDS, "",
+                    new Date(), new Date(), new Date(), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO), true);
+            container.add(first);
+            container.add(second);
+            TaskLeaf after = createTask(START, 1);
+
+            graph.addTopLevel(Collections.<Task> singletonList(container));
+            graph.addTopLevel(after);
+            graph.addWithoutEnforcingConstraints(new Dependency(first, second, DependencyType.END_START));
+            graph.addWithoutEnforcingConstraints(new Dependency(container, after, DependencyType.END_START));
+            graph.enforceAllRestrictions();
+
+            moveTo(first, START.plusDays(5));
+
+            List<LocalDate> dates = new ArrayList<>();
+            for (Task each : new Task[] { first, second, container, after }) {
+                dates.add(each.getBeginDate().toLocalDate());
+                dates.add(each.getEndDate().toLocalDate());
+            }
+
+            if ( results == null ) {
+                results = dates;
+            } else {
+                assertThat(dates, equalTo(results));
+            }
+        }
+    }
+
+    @Test
+    public void theTasksMovedInTheLastChangeAreKnownUntilTheDependenciesChange() {
+        Scenario scenario = new Scenario(false, 2, 10);
+        Task resized = scenario.tasks.get(3);
+
+        resized.resizeTo(resized.getEndDate().toLocalDate().plusDays(2));
+        assertTrue(scenario.graph.getTasksMovedInLastChange().contains(resized));
+        assertTrue(scenario.graph.getTasksMovedInLastChange().contains(scenario.tasks.get(9)));
+        assertFalse(scenario.graph.getTasksMovedInLastChange().contains(scenario.tasks.get(2)));
+
+        scenario.graph.add(new Dependency(scenario.tasks.get(2), scenario.tasks.get(15), DependencyType.END_START));
+        assertNull(scenario.graph.getTasksMovedInLastChange());
+
+        resized.resizeTo(resized.getEndDate().toLocalDate().plusDays(1));
+        assertTrue(scenario.graph.getTasksMovedInLastChange().contains(resized));
+    }
+
+}
@@ -28,20 +28,32 @@ import static org.hamcrest.CoreMatchers.anyOf;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.zkoss.ganttz.data.constraint.ConstraintOnComparableValues.biggerOrEqualThan;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 
 import org.joda.time.Days;
 import org.joda.time.LocalDate;
 import org.junit.Test;
+import org.zkoss.ganttz.data.DefaultFundamentalProperties;
+import org.zkoss.ganttz.data.Dependency;
 import org.zkoss.ganttz.data.DependencyType;
 import org.zkoss.ganttz.data.GanttDate;
+import org.zkoss.ganttz.data.GanttDiagramGraph;
+import org.zkoss.ganttz.data.GanttDiagramGraph.GanttZKDiagramGraph;
 import org.zkoss.ganttz.data.IDependency;
 import org.zkoss.ganttz.data.ITaskFundamentalProperties;
+import org.zkoss.ganttz.data.ITaskFundamentalProperties.IModifications;
+import org.zkoss.ganttz.data.ITaskFundamentalProperties.IUpdatablePosition;
+import org.zkoss.ganttz.data.Task;
+import org.zkoss.ganttz.data.TaskLeaf;
 import org.zkoss.ganttz.data.constraint.Constraint;
 import org.zkoss.ganttz.data.constraint.ConstraintOnComparableValues;
 
@@ -242,6 +254,56 @@ public class CriticalPathCalculatorTest {
         replay(diagramGraphExample);
     }
 
+    /**
+     * <pre>
+     * #### T1 ####
+     *       |---- #### S1 ####
+     *       |---- #### S2 ####
+     *       ...
+     *       |---- #### SN ####
+     * </pre>
+     */
+    private void givenTaskWithManySubtasks(int daysTask1, int daysSubtasks, int subtasks,
+                                           int daysLongestSubtask) {
+
+        diagramGraphExample = createNiceMock(ICriticalPathCalculable.class);
+
+        ITaskFundamentalProperties task1 = createTask(START, daysTask1);
+        List<ITaskFundamentalProperties> subtasksList = new ArrayList<>();
+        for (int i = 0; i < subtasks - 1; i++) {
+            subtasksList.add(createTask(START, daysSubtasks));
+        }
+        subtasksList.add(subtasks / 2, createTask(START, daysLongestSubtask));
+
+        List<ITaskFundamentalProperties> listOfTasks = new ArrayList<>();
+        listOfTasks.add(task1);
+        listOfTasks.addAll(subtasksList);
+
+        expect(diagramGraphExample.getTasks()).andReturn(listOfTasks).anyTimes();
+        expect(diagramGraphExample.getInitialTasks()).andReturn(Collections.singletonList(task1)).anyTimes();
+        expect(diagramGraphExample.getLatestTasks()).andReturn(subtasksList).anyTimes();
+
+        expect(diagramGraphExample.getDependencyFrom(
+                isA(ITaskFundamentalProperties.class),
+                isA(ITaskFundamentalProperties.class))).andReturn(null)
+                .anyTimes();
+
+        expect(diagramGraphExample.getIncomingTasksFor(task1)).andReturn(new HashSet<>()).anyTimes();
+        expect(diagramGraphExample.getOutgoingTasksFor(task1)).andReturn(new HashSet<>(subtasksList)).anyTimes();
+
+        for (ITaskFundamentalProperties each : subtasksList) {
+            expect(diagramGraphExample.getIncomingTasksFor(each))
+                    .andReturn(new HashSet<>(Collections.singletonList(task1)))
+                    .anyTimes();
+
+            expect(diagramGraphExample.getOutgoingTasksFor(each)).andReturn(new HashSet<>()).anyTimes();
+        }
+
+        addTaskMethods(listOfTasks);
+
+        replay(diagramGraphExample);
+    }
+
     /**
      * <pre>
      * #### T1 ####
@@ -3082,4 +3144,125 @@ public class CriticalPathCalculatorTest {
         }
     }
 
+    /**
+     * The subtasks are on the same level, and there are enough of them to be
+     * processed in parallel.
+     */
+    @Test
+    public void taskWithManySubtasks() {
+        givenTaskWithManySubtasks(10, 3, 500, 7);
+        List<ITaskFundamentalProperties> criticalPath = buildCalculator().calculateCriticalPath(diagramGraphExample);
+
+        assertThat(criticalPath.size(), equalTo(2));
+
+        for (ITaskFundamentalProperties task : criticalPath) {
+            assertThat(daysBetweenStartAndEnd(task), anyOf(equalTo(10), equalTo(7)));
+        }
+    }
+
+    private static final long DAY_MILLISECONDS = 24 * 60 * 60 * 1000L;
+
+    private TaskLeaf createTaskLeaf(LocalDate start, int durationDays) {
+        Date begin = start.toDateTimeAtStartOfDay().toDate();
+
+        return new TaskLeaf(new DefaultFundamentalProperties(
+                "task", begin, durationDays * DAY_MILLISECONDS, "", begin, begin, begin,
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+    }
+
+    /**
+     * Several chains of tasks. Each task depends on the previous one of its
+     * chain and some of them also depend on a task of the previous chain.
+     */
+    private GanttZKDiagramGraph givenChainsOfTasks(List<Task> tasks, int chains, int tasksPerChain) {
+        GanttZKDiagramGraph result = GanttDiagramGraph.create(
+                false,
+                Collections.<Constraint<GanttDate>> emptyList(),
+                Collections.<Constraint<GanttDate>> emptyList(),
+                false);
+
+        for (int i = 0; i < chains * tasksPerChain; i++) {
+            tasks.add(createTaskLeaf(START, 1 + i % 3));
+        }
+        result.addTopLevel(tasks);
+
+        for (int chain = 0; chain < chains; chain++) {
+            for (int i = 1; i < tasksPerChain; i++) {
+                Task task = tasks.get(chain * tasksPerChain + i);
+                result.addWithoutEnforcingConstraints(
+                        new Dependency(tasks.get(chain * tasksPerChain + i - 1), task, DependencyType.END_START));
+
+                if ( chain > 0 && i % 4 == 0 ) {
+                    result.addWithoutEnforcingConstraints(
+                            new Dependency(tasks.get((chain - 1) * tasksPerChain + i), task,
+                                    DependencyType.START_START));
+                }
+            }
+        }
+        result.enforceAllRestrictions();
+
+        return result;
+    }
+
+    private void moveTo(Task task, final LocalDate date) {
+        task.doPositionModifications(new IModifications() {
+            @Override
+            public void doIt(IUpdatablePosition position) {
+                position.moveTo(GanttDate.createFrom(date));
+            }
+        });
+    }
+
+    private void assertSameAsCalculatingItAgain(List<Task> recalculated, GanttZKDiagramGraph graph) {
+        List<Task> calculated = CriticalPathCalculator.<Task, Dependency> create(false).calculateCriticalPath(graph);
+
+        assertThat(new HashSet<>(recalculated), equalTo(new HashSet<>(calculated)));
+    }
+
+    @Test
+    public void criticalPathRecalculatedAfterResizingTasksIsTheSameAsCalculatingItAgain() {
+        List<Task> tasks = new ArrayList<>();
+        GanttZKDiagramGraph graph = givenChainsOfTasks(tasks, 5, 20);
+        CriticalPathCalculator<Task, Dependency> calculator = CriticalPathCalculator.create(false);
+        calculator.calculateCriticalPath(graph);
+
+        for (int each : new int[] { 10, 47, 99, 10, 61 }) {
+            Task resized = tasks.get(each);
+            resized.resizeTo(resized.getEndDate().toLocalDate().plusDays(each % 2 == 0 ? 6 : 2));
+
+            assertTrue(graph.getTasksMovedInLastChange().contains(resized));
+            assertSameAsCalculatingItAgain(calculator.recalculateCriticalPath(graph.getTasksMovedInLastChange()),
+                    graph);
+        }
+    }
+
+    @Test
+    public void criticalPathRecalculatedAfterMovingTasksIsTheSameAsCalculatingItAgain() {
+        List<Task> tasks = new ArrayList<>();
+        GanttZKDiagramGraph graph = givenChainsOfTasks(tasks, 5, 20);
+        CriticalPathCalculator<Task, Dependency> calculator = CriticalPathCalculator.create(false);
+        calculator.calculateCriticalPath(graph);
+
+        for (int each : new int[] { 20, 0, 60, 40, 20 }) {
+            Task moved = tasks.get(each);
+            moveTo(moved, moved.getBeginDate().toLocalDate().plusDays(each % 40 == 0 ? 4 : 9));
+
+            assertTrue(graph.getTasksMovedInLastChange().contains(moved));
+
+            assertSameAsCalculatingItAgain(calculator.recalculateCriticalPath(graph.getTasksMovedInLastChange()),
+                    graph);
+        }
+
+        moveTo(tasks.get(0), START.minusDays(3));
+        assertSameAsCalculatingItAgain(calculator.recalculateCriticalPath(graph.getTasksMovedInLastChange()), graph);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void criticalPathCannotBeRecalculatedBeforeCalculatingIt() {
+        List<Task> tasks = new ArrayList<>();
+        givenChainsOfTasks(tasks, 1, 2);
+
+        CriticalPathCalculator.<Task, Dependency> create(false).recalculateCriticalPath(tasks);
+    }
+
 }
@@ -0,0 +1,111 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.zkoss.ganttz.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link OperationMetrics}.
+ */
+public class OperationMetricsTest {
+
+    @Before
+    public void discardTheOperationsRecordedByOtherTests() {
+        OperationMetrics.reset();
+    }
+
+    @After
+    public void cleanUp() {
+        OperationMetrics.setStatementsCounter(null);
+        OperationMetrics.reset();
+    }
+
+    private static OperationStatistics statisticsOf(String operation) {
+        for (OperationStatistics each : OperationMetrics.getStatistics()) {
+            if ( each.getName().equals(operation) ) {
+                return each;
+            }
+        }
+        throw new AssertionError(operation + " not found");
+    }
+
+    @Test
+    public void theExecutionsAreCountedByOperation() {
+        OperationMetrics.start("b").stop();
+        OperationMetrics.start("a").stop();
+        OperationMetrics.start("a").stop();
+
+        List<OperationStatistics> statistics = OperationMetrics.getStatistics();
+        assertEquals(2, statistics.size());
+        assertEquals("a", statistics.get(0).getName());
+        assertEquals(2, statistics.get(0).getCount());
+        assertEquals(1, statistics.get(1).getCount());
+    }
+
+    @Test
+    public void stoppingTwiceRecordsOneExecution() {
+        OperationMetrics.Timer timer = OperationMetrics.start("a");
+        timer.stop();
+        timer.stop();
+
+        assertEquals(1, statisticsOf("a").getCount());
+    }
+
+    @Test
+    public void theDurationsAreMeasured() throws InterruptedException {
+        OperationMetrics.Timer timer = OperationMetrics.start("a");
+        Thread.sleep(20);
+        timer.stop();
+
+        OperationStatistics statistics = statisticsOf("a");
+        assertTrue(statistics.getMaxMs() >= 20);
+        assertEquals(statistics.getMaxMs(), statistics.getP99Ms());
+        assertTrue(statistics.getP50Ms() <= statistics.getP95Ms());
+    }
+
+    @Test
+    public void theStatementsAreCountedIfThereIsACounter() {
+        OperationMetrics.start("a").stop();
+        OperationMetrics.setStatementsCounter(() -> () -> 3);
+        OperationMetrics.start("a").stop();
+        OperationMetrics.start("a").stop();
+
+        OperationStatistics statistics = statisticsOf("a");
+        assertEquals(6, statistics.getTotalStatements());
+        assertEquals(3, statistics.getMaxStatements());
+        assertEquals(2, statistics.getMeanStatements());
+    }
+
+    @Test
+    public void resetDiscardsTheMeasures() {
+        OperationMetrics.start("a").stop();
+        OperationMetrics.reset();
+
+        assertTrue(OperationMetrics.getStatistics().isEmpty());
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.zkoss.ganttz.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link RowsWindow}.
+ */
+public class RowsWindowTest {
+
+    @Test
+    public void theInitialRowsAreMaterialised() {
+        RowsWindow window = new RowsWindow(50, 20);
+        assertEquals(0, window.getFirst());
+        assertEquals(50, window.getLast());
+        assertTrue(window.contains(49));
+        assertFalse(window.contains(50));
+    }
+
+    @Test
+    public void itIsNotMovedWhileTheRowsShownAreMaterialised() {
+        RowsWindow window = new RowsWindow(50, 20);
+        assertFalse(window.show(10, 40));
+        assertEquals(0, window.getFirst());
+        assertEquals(50, window.getLast());
+    }
+
+    @Test
+    public void itIsCenteredOnTheRowsShownWhenMoved() {
+        RowsWindow window = new RowsWindow(50, 20);
+        assertTrue(window.show(100, 130));
+        assertEquals(80, window.getFirst());
+        assertEquals(150, window.getLast());
+
+        assertTrue(window.show(5, 35));
+        assertEquals(0, window.getFirst());
+        assertEquals(55, window.getLast());
+    }
+
+    @Test
+    public void itIsMovedBackWhenTheRowsAreReduced() {
+        RowsWindow window = new RowsWindow(50, 20);
+        window.show(100, 130);
+        window.fitTo(200);
+        assertEquals(80, window.getFirst());
+
+        window.fitTo(60);
+        assertEquals(0, window.getFirst());
+        assertEquals(70, window.getLast());
+
+        window.show(100, 130);
+        window.fitTo(90);
+        assertEquals(20, window.getFirst());
+        assertEquals(90, window.getLast());
+    }
+
+    @Test
+    public void aNegativeOrInvertedRangeIsClamped() {
+        RowsWindow window = new RowsWindow(50, 20);
+        assertTrue(window.show(100, 90));
+        assertEquals(80, window.getFirst());
+        assertEquals(120, window.getLast());
+
+        assertTrue(window.show(-10, -5));
+        assertEquals(0, window.getFirst());
+        assertEquals(20, window.getLast());
+    }
+
+}
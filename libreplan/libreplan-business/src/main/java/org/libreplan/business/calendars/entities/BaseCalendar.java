@@ -27,6 +27,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
@@ -44,8 +45,6 @@ import org.libreplan.business.common.entities.EntitySequence;
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
 import org.libreplan.business.resources.entities.VirtualWorker;
 import org.libreplan.business.workingday.EffortDuration;
-import org.libreplan.business.workingday.EffortDuration.IEffortFrom;
-import org.libreplan.business.workingday.IntraDayDate;
 import org.libreplan.business.workingday.IntraDayDate.PartialDay;
 import org.libreplan.business.workingday.ResourcesPerDay;
 
@@ -74,6 +73,10 @@ public class BaseCalendar extends IntegrationEntity implements ICalendar, IHuman
 
     private Integer lastSequenceCode = 0;
 
+    private volatile CalendarCapacityIndex capacityIndex;
+
+    private final AtomicLong capacitiesModifications = new AtomicLong();
+
     /**
      * Constructor for hibernate. Do not use!
      */
@@ -170,10 +173,12 @@ public class BaseCalendar extends IntegrationEntity implements ICalendar, IHuman
 
     public void setParent(BaseCalendar parent) {
         getLastCalendarData().setParent(parent);
+        CalendarCapacityIndex.calendarModified(this);
     }
 
     public void setParent(BaseCalendar parent, LocalDate date) {
         getCalendarData(date).setParent(parent);
+        CalendarCapacityIndex.calendarModified(this);
     }
 
     public boolean isDerived() {
@@ -239,6 +244,7 @@ public class BaseCalendar extends IntegrationEntity implements ICalendar, IHuman
         }
 
         exceptions.add(day);
+        CalendarCapacityIndex.calendarModified(this);
     }
 
     public void removeExceptionDay(LocalDate date) {
@@ -249,6 +255,7 @@ public class BaseCalendar extends IntegrationEntity implements ICalendar, IHuman
         }
 
         exceptions.remove(day);
+        CalendarCapacityIndex.calendarModified(this);
     }
 
     public void updateExceptionDay(LocalDate date, Capacity capacity, CalendarExceptionType type) {
@@ -286,9 +293,38 @@ public class BaseCalendar extends IntegrationEntity implements ICalendar, IHuman
     public Capacity getCapacityWithOvertime(LocalDate day) {
         Validate.notNull(day);
 
+        return getCapacityIndex().getCapacityWithOvertime(day);
+    }
+
+    Capacity calculateCapacityWithOvertime(LocalDate day) {
         return multiplyByCalendarUnits(findCapacityAt(day));
     }
 
+    /**
+     * It's public so it can be called through the proxy of a parent calendar
+     */
+    public long getCapacitiesModifications() {
+        return capacitiesModifications.get();
+    }
+
+    /**
+     * @see #getCapacitiesModifications()
+     */
+    public void capacitiesModified() {
+        capacitiesModifications.incrementAndGet();
+    }
+
+    private CalendarCapacityIndex getCapacityIndex() {
+        CalendarCapacityIndex result = capacityIndex;
+
+        if (result == null || result.isObsolete()) {
+            result = CalendarCapacityIndex.create(this);
+            capacityIndex = result;
+        }
+
+        return result;
+    }
+
     private Capacity findCapacityAt(LocalDate date) {
         if (!isActive(date)) {
             return Capacity.zero();
@@ -346,17 +382,9 @@ public class BaseCalendar extends IntegrationEntity implements ICalendar, IHuman
      * @return Duration of work
      */
     public EffortDuration getWorkableDuration(LocalDate init, LocalDate endInclusive) {
+        Validate.isTrue(!init.isAfter(endInclusive.plusDays(1)));
 
-        Iterable<PartialDay> daysBetween =
-                IntraDayDate.startOfDay(init).daysUntil(IntraDayDate.startOfDay(endInclusive).nextDayAtStart());
-
-        return EffortDuration.sum(daysBetween, new IEffortFrom<PartialDay>() {
-            @Override
-            public EffortDuration from(PartialDay each) {
-                return getCapacityOn(each);
-            }
-
-        });
+        return getCapacityIndex().getWorkableDuration(init, endInclusive.plusDays(1));
     }
 
     /**
@@ -397,6 +425,8 @@ public class BaseCalendar extends IntegrationEntity implements ICalendar, IHuman
      * @param date
      */
     public void newVersion(LocalDate date) {
+        CalendarCapacityIndex.calendarModified(this);
+
         BaseCalendar lastParent = null;
 
         if (getLastCalendarData() != null) {
@@ -408,6 +438,8 @@ public class BaseCalendar extends IntegrationEntity implements ICalendar, IHuman
     }
 
     public CalendarData createNewVersionInsideIntersection(LocalDate startDate, LocalDate expiringDate) {
+        CalendarCapacityIndex.calendarModified(this);
+
         for (CalendarData nextVersion : calendarDataVersions) {
 
             if ((nextVersion.getExpiringDate() == null) || (expiringDate.compareTo(nextVersion.getExpiringDate()) <= 0)) {
@@ -480,6 +512,8 @@ public class BaseCalendar extends IntegrationEntity implements ICalendar, IHuman
     }
 
     public CalendarData createLastVersion(LocalDate startDate) {
+        CalendarCapacityIndex.calendarModified(this);
+
         CalendarData calendarData = getCalendarDataBeforeTheLastIfAny();
         if ((calendarData.getExpiringDate() != null) && (startDate.compareTo(calendarData.getExpiringDate()) <= 0)) {
             throw new IllegalArgumentException(
@@ -496,6 +530,8 @@ public class BaseCalendar extends IntegrationEntity implements ICalendar, IHuman
     }
 
     public CalendarData createFirstVersion(LocalDate expiringDate) {
+        CalendarCapacityIndex.calendarModified(this);
+
         CalendarData firstVersion = getFirstCalendarData();
         if ((firstVersion.getExpiringDate() != null) && (expiringDate.compareTo(firstVersion.getExpiringDate()) >= 0)) {
 
@@ -513,6 +549,7 @@ public class BaseCalendar extends IntegrationEntity implements ICalendar, IHuman
     }
 
     public void newVersion(LocalDate startDate, LocalDate expiringDate, BaseCalendar parent) {
+        CalendarCapacityIndex.calendarModified(this);
 
         CalendarData newCalendarData;
         if (startDate != null && expiringDate != null) {
@@ -554,6 +591,8 @@ public class BaseCalendar extends IntegrationEntity implements ICalendar, IHuman
     }
 
     public void addNewVersion(CalendarData version){
+        CalendarCapacityIndex.calendarModified(this);
+
         if (version.getExpiringDate() == null) {
             if (getLastCalendarData().getExpiringDate() == null) {
                 throw new IllegalArgumentException("the date is null and overlaps with the last work week.");
@@ -802,6 +841,8 @@ public class BaseCalendar extends IntegrationEntity implements ICalendar, IHuman
     }
 
     public void removeCalendarData(CalendarData calendarData) {
+        CalendarCapacityIndex.calendarModified(this);
+
         if (this.getCalendarDataVersions().size() <= 1) {
             throw new IllegalArgumentException("You can not remove the last calendar data");
         }
@@ -842,6 +883,8 @@ public class BaseCalendar extends IntegrationEntity implements ICalendar, IHuman
     }
 
     public void addNewCalendarAvailability(CalendarAvailability calendarAvailability) {
+        CalendarCapacityIndex.calendarModified(this);
+
         if (this instanceof ResourceCalendar) {
 
             if (!calendarAvailabilities.isEmpty()) {
@@ -871,6 +914,8 @@ public class BaseCalendar extends IntegrationEntity implements ICalendar, IHuman
     }
 
     public void removeCalendarAvailability(CalendarAvailability calendarAvailability) {
+        CalendarCapacityIndex.calendarModified(this);
+
         calendarAvailabilities.remove(calendarAvailability);
     }
 
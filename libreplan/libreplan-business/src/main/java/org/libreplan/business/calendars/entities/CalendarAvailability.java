@@ -46,6 +46,11 @@ public class CalendarAvailability extends IntegrationEntity {
 
     private LocalDate endDate;
 
+    /**
+     * It's only known once the capacities of the calendar have been indexed
+     */
+    private volatile BaseCalendar containingCalendar;
+
     /**
      * Constructor for hibernate. Do not use!
      */
@@ -68,6 +73,10 @@ public class CalendarAvailability extends IntegrationEntity {
         return create(new CalendarAvailability(startDate, endDate));
     }
 
+    void setContainingCalendar(BaseCalendar containingCalendar) {
+        this.containingCalendar = containingCalendar;
+    }
+
     public LocalDate getStartDate() {
         return startDate;
     }
@@ -81,6 +90,7 @@ public class CalendarAvailability extends IntegrationEntity {
         }
 
         this.startDate = startDate;
+        CalendarCapacityIndex.calendarModified(containingCalendar);
     }
 
     public LocalDate getEndDate() {
@@ -92,6 +102,7 @@ public class CalendarAvailability extends IntegrationEntity {
             throw new IllegalArgumentException("End date must be greater or equal than start date");
         }
         this.endDate = endDate;
+        CalendarCapacityIndex.calendarModified(containingCalendar);
     }
 
     public boolean isActive(LocalDate date) {
@@ -0,0 +1,240 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.calendars.entities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.joda.time.LocalDate;
+import org.libreplan.business.workingday.EffortDuration;
+
+/**
+ * Stores the capacity of each day of a {@link BaseCalendar}, with the versions,
+ * the parents, the exceptions and the availabilities already applied.
+ * <p>
+ * The days are stored in dense arrays by month, that are calculated the first
+ * time a day of the month is requested. Each month also keeps the accumulated
+ * standard effort, so the workable duration of an interval is obtained adding
+ * the accumulated values of the months involved.
+ * </p>
+ * <p>
+ * A calendar depends on its parents and on the {@link CalendarData},
+ * {@link CalendarException} and {@link CalendarAvailability} it contains. Each
+ * calendar keeps a counter of its modifications, so an index is obsolete when
+ * the counter of its calendar or of any of its parents has changed since it
+ * was created. The parts of the calendars don't reference the calendar
+ * containing them, so it's assigned to them when the index is created.
+ * </p>
+ * <p>
+ * The {@link CalendarExceptionType exception types} are shared by all the
+ * calendars, so modifying any of them makes all the indexes obsolete. They are
+ * rarely modified compared to how often the capacities are queried.
+ * </p>
+ */
+class CalendarCapacityIndex {
+
+    private static final AtomicLong exceptionTypesModifications = new AtomicLong();
+
+    /**
+     * It must be called whenever something that affects the capacities of the
+     * calendar is modified
+     */
+    static void calendarModified(BaseCalendar calendar) {
+        if ( calendar != null ) {
+            calendar.capacitiesModified();
+        }
+    }
+
+    /**
+     * It must be called whenever the capacity of an exception type is modified
+     */
+    static void exceptionTypesModified() {
+        exceptionTypesModifications.incrementAndGet();
+    }
+
+    static CalendarCapacityIndex create(BaseCalendar calendar) {
+        long exceptionTypes = exceptionTypesModifications.get();
+        List<BaseCalendar> hierarchy = new ArrayList<>();
+        addWithParents(hierarchy, calendar);
+
+        long[] modifications = new long[hierarchy.size()];
+        for (int i = 0; i < modifications.length; i++) {
+            modifications[i] = hierarchy.get(i).getCapacitiesModifications();
+            assignContainingCalendar(hierarchy.get(i));
+        }
+
+        return new CalendarCapacityIndex(calendar, exceptionTypes, hierarchy, modifications);
+    }
+
+    private static void addWithParents(List<BaseCalendar> hierarchy, BaseCalendar calendar) {
+        for (BaseCalendar each : hierarchy) {
+            if ( each == calendar ) {
+                return;
+            }
+        }
+
+        hierarchy.add(calendar);
+        for (CalendarData each : calendar.getCalendarDataVersions()) {
+            if ( each.getParent() != null ) {
+                addWithParents(hierarchy, each.getParent());
+            }
+        }
+    }
+
+    private static void assignContainingCalendar(BaseCalendar calendar) {
+        for (CalendarData each : calendar.getCalendarDataVersions()) {
+            each.setContainingCalendar(calendar);
+        }
+        for (CalendarException each : calendar.getExceptions()) {
+            each.setContainingCalendar(calendar);
+        }
+        for (CalendarAvailability each : calendar.getCalendarAvailabilities()) {
+            each.setContainingCalendar(calendar);
+        }
+    }
+
+    private static int monthKey(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthOfYear() - 1;
+    }
+
+    private static class Month {
+
+        private final Capacity[] capacities;
+
+        /**
+         * <code>accumulatedSeconds[i]</code> is the sum of the standard effort
+         * of the days of the month before the day <code>i + 1</code>
+         */
+        private final long[] accumulatedSeconds;
+
+        private Month(BaseCalendar calendar, LocalDate firstDay) {
+            int days = firstDay.dayOfMonth().getMaximumValue();
+            capacities = new Capacity[days];
+            accumulatedSeconds = new long[days + 1];
+
+            for (int i = 0; i < days; i++) {
+                capacities[i] = calendar.calculateCapacityWithOvertime(firstDay.plusDays(i));
+                accumulatedSeconds[i + 1] = accumulatedSeconds[i] + capacities[i].getStandardEffort().getSeconds();
+            }
+        }
+
+        Capacity getCapacity(LocalDate date) {
+            return capacities[date.getDayOfMonth() - 1];
+        }
+
+        long secondsBefore(LocalDate date) {
+            return accumulatedSeconds[date.getDayOfMonth() - 1];
+        }
+
+        long totalSeconds() {
+            return accumulatedSeconds[capacities.length];
+        }
+
+    }
+
+    private final BaseCalendar calendar;
+
+    private final long exceptionTypesModificationsAtCreation;
+
+    /**
+     * The calendar and its parents
+     */
+    private final List<BaseCalendar> hierarchy;
+
+    private final long[] modificationsAtCreation;
+
+    private final ConcurrentMap<Integer, Month> months = new ConcurrentHashMap<>();
+
+    private CalendarCapacityIndex(BaseCalendar calendar,
+                                  long exceptionTypesModificationsAtCreation,
+                                  List<BaseCalendar> hierarchy,
+                                  long[] modificationsAtCreation) {
+
+        this.calendar = calendar;
+        this.exceptionTypesModificationsAtCreation = exceptionTypesModificationsAtCreation;
+        this.hierarchy = hierarchy;
+        this.modificationsAtCreation = modificationsAtCreation;
+    }
+
+    boolean isObsolete() {
+        if ( exceptionTypesModificationsAtCreation != exceptionTypesModifications.get() ) {
+            return true;
+        }
+        for (int i = 0; i < modificationsAtCreation.length; i++) {
+            if ( modificationsAtCreation[i] != hierarchy.get(i).getCapacitiesModifications() ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    Capacity getCapacityWithOvertime(LocalDate date) {
+        return getMonth(date).getCapacity(date);
+    }
+
+    /**
+     * @return the sum of the standard effort of the days from
+     *         <code>startInclusive</code> to <code>endExclusive</code>
+     */
+    EffortDuration getWorkableDuration(LocalDate startInclusive, LocalDate endExclusive) {
+        if ( !startInclusive.isBefore(endExclusive) ) {
+            return EffortDuration.zero();
+        }
+
+        Month first = getMonth(startInclusive);
+        Month last = getMonth(endExclusive);
+
+        if ( monthKey(startInclusive) == monthKey(endExclusive) ) {
+            return toDuration(last.secondsBefore(endExclusive) - first.secondsBefore(startInclusive));
+        }
+
+        long result = first.totalSeconds() - first.secondsBefore(startInclusive);
+        LocalDate month = startInclusive.withDayOfMonth(1).plusMonths(1);
+        while (monthKey(month) < monthKey(endExclusive)) {
+            result += getMonth(month).totalSeconds();
+            month = month.plusMonths(1);
+        }
+
+        return toDuration(result + last.secondsBefore(endExclusive));
+    }
+
+    private static EffortDuration toDuration(long seconds) {
+        return EffortDuration.seconds((int) seconds);
+    }
+
+    private Month getMonth(LocalDate date) {
+        int key = monthKey(date);
+        Month result = months.get(key);
+
+        if ( result == null ) {
+            result = new Month(calendar, date.withDayOfMonth(1));
+            Month previous = months.putIfAbsent(key, result);
+
+            return previous != null ? previous : result;
+        }
+
+        return result;
+    }
+
+}
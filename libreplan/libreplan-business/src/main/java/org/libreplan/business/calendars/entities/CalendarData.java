@@ -69,6 +69,8 @@ public class CalendarData extends IntegrationEntity {
     }
 
     public void updateUnvalidated(LocalDate expiringDate, BaseCalendar parent) {
+        CalendarCapacityIndex.calendarModified(containingCalendar);
+
         if (expiringDate != null) {
             this.expiringDate = expiringDate;
         }
@@ -96,6 +98,11 @@ public class CalendarData extends IntegrationEntity {
 
     private BaseCalendar parent;
 
+    /**
+     * It's only known once the capacities of the calendar have been indexed
+     */
+    private volatile BaseCalendar containingCalendar;
+
     public enum Days {
         MONDAY(Calendar.MONDAY),
         TUESDAY(Calendar.TUESDAY),
@@ -126,10 +133,14 @@ public class CalendarData extends IntegrationEntity {
     public CalendarData() {
         capacityPerDay = new HashMap<>();
         for (Days each : Days.values()) {
-            setCapacityAt(each, null);
+            capacityPerDay.put(each.ordinal(), null);
         }
     }
 
+    void setContainingCalendar(BaseCalendar containingCalendar) {
+        this.containingCalendar = containingCalendar;
+    }
+
     public Map<Integer, Integer> getHoursPerDay() {
         return asHours(capacityPerDay);
     }
@@ -160,6 +171,7 @@ public class CalendarData extends IntegrationEntity {
 
     public void setCapacityAt(Days day, Capacity capacity) {
         capacityPerDay.put(day.ordinal(), capacity);
+        CalendarCapacityIndex.calendarModified(containingCalendar);
     }
 
 
@@ -181,6 +193,7 @@ public class CalendarData extends IntegrationEntity {
 
     public void setExpiringDate(LocalDate expiringDate) {
         this.expiringDate = expiringDate;
+        CalendarCapacityIndex.calendarModified(containingCalendar);
     }
 
     public CalendarData copy() {
@@ -198,10 +211,12 @@ public class CalendarData extends IntegrationEntity {
 
     public void setParent(BaseCalendar parent) {
         this.parent = parent;
+        CalendarCapacityIndex.calendarModified(containingCalendar);
     }
 
     public void removeExpiringDate() {
         this.expiringDate = null;
+        CalendarCapacityIndex.calendarModified(containingCalendar);
     }
 
     public boolean isPosteriorTo(LocalDate date) {
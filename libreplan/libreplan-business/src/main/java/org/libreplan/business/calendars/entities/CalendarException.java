@@ -71,6 +71,8 @@ public class CalendarException extends IntegrationEntity {
 
     public void updateUnvalidated(LocalDate date, Integer hours,
             CalendarExceptionType type) {
+        CalendarCapacityIndex.calendarModified(containingCalendar);
+
         if (date != null) {
             this.date = date;
         }
@@ -90,6 +92,11 @@ public class CalendarException extends IntegrationEntity {
 
     private CalendarExceptionType type;
 
+    /**
+     * It's only known once the capacities of the calendar have been indexed
+     */
+    private volatile BaseCalendar containingCalendar;
+
     /**
      * Constructor for hibernate. Do not use!
      */
@@ -119,6 +126,10 @@ public class CalendarException extends IntegrationEntity {
         return capacity;
     }
 
+    void setContainingCalendar(BaseCalendar containingCalendar) {
+        this.containingCalendar = containingCalendar;
+    }
+
     @NotNull
     public CalendarExceptionType getType() {
         return type;
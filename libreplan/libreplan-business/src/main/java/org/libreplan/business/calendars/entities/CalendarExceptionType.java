@@ -130,6 +130,7 @@ public class CalendarExceptionType extends IntegrationEntity implements IHumanId
     public void setCapacity(Capacity capacity) {
         Validate.notNull(capacity);
         this.capacity = capacity;
+        CalendarCapacityIndex.exceptionTypesModified();
     }
 
     /**
@@ -141,6 +142,7 @@ public class CalendarExceptionType extends IntegrationEntity implements IHumanId
 
     public void setOverAssignable(Boolean overAssignable) {
         this.capacity = capacity.overAssignableWithoutLimit(BooleanUtils.isTrue(overAssignable));
+        CalendarCapacityIndex.exceptionTypesModified();
     }
 
     public String getOverAssignableStr() {
@@ -153,6 +155,7 @@ public class CalendarExceptionType extends IntegrationEntity implements IHumanId
 
     public void setDuration(EffortDuration duration) {
         this.capacity = this.capacity.withStandardEffort(duration);
+        CalendarCapacityIndex.exceptionTypesModified();
     }
 
     @Override
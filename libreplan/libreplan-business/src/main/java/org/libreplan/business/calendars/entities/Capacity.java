@@ -211,6 +211,18 @@ public class Capacity {
                 duration);
     }
 
+    /**
+     * The same as {@link #limitDuration(EffortDuration)} but working with
+     * seconds, so no {@link EffortDuration} is created.
+     */
+    public int limitSeconds(int seconds) {
+        if (isOverAssignableWithoutLimit()) {
+            return seconds;
+        }
+        return Math.min(standardEffort.getSeconds()
+                + allowedExtraEffort.getSeconds(), seconds);
+    }
+
     /**
      * <p>
      * Is the provided duration below the allowed duration? In that case there
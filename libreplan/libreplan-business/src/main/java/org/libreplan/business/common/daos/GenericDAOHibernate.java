@@ -24,6 +24,8 @@ package org.libreplan.business.common.daos;
 import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.commons.lang3.Validate;
@@ -37,6 +39,7 @@ import org.hibernate.criterion.Restrictions;
 import org.libreplan.business.common.BaseEntity;
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
 import org.libreplan.business.common.exceptions.ValidationException;
+import org.libreplan.business.hibernate.cache.ReferenceEntitiesCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -194,6 +197,20 @@ public class GenericDAOHibernate<E extends BaseEntity, PK extends Serializable>
 
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    @Transactional(readOnly = true)
+    public List<E> findByIds(Collection<PK> ids) {
+        if ( ids.isEmpty() ) {
+            return new ArrayList<>();
+        }
+
+        return getSession()
+                .createCriteria(entityClass)
+                .add(Restrictions.in("id", ids))
+                .list();
+    }
+
     public void remove(PK id) throws InstanceNotFoundException {
         getSession().delete(find(id));
     }
@@ -202,7 +219,7 @@ public class GenericDAOHibernate<E extends BaseEntity, PK extends Serializable>
     @Override
     @Transactional(readOnly = true)
     public <T extends E> List<T> list(Class<T> klass) {
-        return getSession().createCriteria(klass).list();
+        return getSession().createCriteria(klass).setCacheable(ReferenceEntitiesCache.isReferenceEntity(klass)).list();
     }
 
     @Override
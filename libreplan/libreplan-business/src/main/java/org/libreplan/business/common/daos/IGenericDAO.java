@@ -22,6 +22,7 @@
 package org.libreplan.business.common.daos;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
@@ -150,6 +151,12 @@ public interface IGenericDAO <E, PK extends Serializable>{
 
     boolean exists(PK id);
 
+    /**
+     * It returns the entities with the provided ids that exist, in no
+     * particular order.
+     */
+    List<E> findByIds(Collection<PK> ids);
+
     void remove(PK id) throws InstanceNotFoundException;
 
     <T extends E> List<T> list(Class<T> klass);
@@ -21,6 +21,7 @@
 
 package org.libreplan.business.common.daos;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.libreplan.business.common.IntegrationEntity;
@@ -63,9 +64,25 @@ public interface IIntegrationEntityDAO<E extends IntegrationEntity>
 
     public E findExistingEntityByCode(String code);
 
+    /**
+     * It returns the entities with any of the <code>codes</code> in just one
+     * query. Codes are compared ignoring case and blank codes are ignored.
+     */
+    public List<E> findByCodes(Collection<String> codes);
+
     /**
      * It returns all entities ordered by ascending code.
      */
     public List<E> findAll();
 
+    /**
+     * It returns up to <code>maxResults</code> entities with an id greater
+     * than <code>lastId</code>, ordered by ascending id. If
+     * <code>lastId</code> is <code>null</code> it starts from the first one.
+     *
+     * It allows to go through all the entities by pages, using the id of the
+     * last entity of a page to retrieve the next one.
+     */
+    public List<E> findAfter(Long lastId, int maxResults);
+
 }
@@ -21,9 +21,14 @@
 
 package org.libreplan.business.common.daos;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Criteria;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
 import org.libreplan.business.common.IntegrationEntity;
@@ -94,6 +99,47 @@ public class IntegrationEntityDAO<E extends IntegrationEntity>
         }
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    @Transactional(readOnly = true)
+    public List<E> findByCodes(Collection<String> codes) {
+        Set<String> lowerCaseCodes = new HashSet<>();
+        for (String each : codes) {
+            if ( !StringUtils.isBlank(each) ) {
+                lowerCaseCodes.add(each.trim().toLowerCase());
+            }
+        }
+
+        if ( lowerCaseCodes.isEmpty() ) {
+            return new ArrayList<>();
+        }
+
+        return getSession()
+                .createQuery("FROM " + getEntityClass().getName() + " e WHERE lower(e." + getCodeProperty() +
+                        ") IN (:codes)")
+                .setParameterList("codes", lowerCaseCodes)
+                .list();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    @Transactional(readOnly = true)
+    public List<E> findAfter(Long lastId, int maxResults) {
+        Criteria criteria = getSession().createCriteria(getEntityClass());
+        if ( lastId != null ) {
+            criteria.add(Restrictions.gt("id", lastId));
+        }
+
+        return criteria.addOrder(Order.asc("id")).setMaxResults(maxResults).list();
+    }
+
+    /**
+     * @return the property of the entity that holds the code
+     */
+    protected String getCodeProperty() {
+        return "code";
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public List<E> findAll() {
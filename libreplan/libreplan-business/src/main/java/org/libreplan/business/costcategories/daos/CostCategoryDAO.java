@@ -56,6 +56,7 @@ public class CostCategoryDAO extends IntegrationEntityDAO<CostCategory>
 
         Criteria c = getSession().createCriteria(CostCategory.class);
         c.add(Restrictions.eq("enabled", true));
+        c.setCacheable(true);
 
         List<CostCategory> list = new ArrayList<CostCategory>();
         list.addAll(c.list());
@@ -77,6 +77,7 @@ public class TypeOfWorkHoursDAO extends IntegrationEntityDAO<TypeOfWorkHours>
 
         Criteria c = getSession().createCriteria(TypeOfWorkHours.class);
         c.add(Restrictions.eq("code", code));
+        c.setCacheable(true);
 
         TypeOfWorkHours found = (TypeOfWorkHours) c.uniqueResult();
         if (found == null) {
@@ -90,6 +91,7 @@ public class TypeOfWorkHoursDAO extends IntegrationEntityDAO<TypeOfWorkHours>
 
         Criteria c = getSession().createCriteria(TypeOfWorkHours.class);
         c.add(Restrictions.eq("enabled", true));
+        c.setCacheable(true);
 
         List<TypeOfWorkHours> list = new ArrayList<TypeOfWorkHours>();
         list.addAll(c.list());
@@ -0,0 +1,127 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.business.hibernate;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.libreplan.business.common.BaseEntity;
+
+/**
+ * The values of the properties of some entities as they are stored in the
+ * database, taken when they were loaded or saved the last time. They are kept
+ * while the entities are detached, for instance by the planning of an order.
+ * <p>
+ * When the detached entities are reattached while they are used by
+ * {@link SavedStatesInterceptor}, only the ones with values different from the
+ * saved ones are updated. Otherwise all the entities reattached are updated,
+ * as Hibernate doesn't know which ones have been modified.
+ * </p>
+ */
+public class SavedStates {
+
+    private final Map<String, Map<Serializable, Object[]>> statesByEntityName = new HashMap<>();
+
+    private final Map<String, String[]> propertyNamesByEntityName = new HashMap<>();
+
+    public synchronized int size() {
+        int result = 0;
+        for (Map<Serializable, Object[]> each : statesByEntityName.values()) {
+            result += each.size();
+        }
+
+        return result;
+    }
+
+    /**
+     * Forgets the state of the entity, so it's always updated when reattached
+     */
+    public synchronized void forget(BaseEntity entity) {
+        String entityName = getEntityName(entity);
+        if ( entityName != null && entity.getId() != null ) {
+            remove(entityName, entity.getId());
+        }
+    }
+
+    /**
+     * @return the saved value of the property of the entity, or
+     *         <code>null</code> if it's unknown
+     */
+    public synchronized Object getSavedValue(BaseEntity entity, String property) {
+        String entityName = getEntityName(entity);
+        if ( entityName == null || entity.getId() == null ) {
+            return null;
+        }
+        Object[] state = get(entityName, entity.getId());
+        String[] propertyNames = propertyNamesByEntityName.get(entityName);
+        if ( state == null || propertyNames == null ) {
+            return null;
+        }
+        for (int i = 0; i < propertyNames.length; i++) {
+            if ( propertyNames[i].equals(property) ) {
+                return state[i];
+            }
+        }
+
+        return null;
+    }
+
+    private static String getEntityName(BaseEntity entity) {
+        if ( entity instanceof HibernateProxy ) {
+            LazyInitializer initializer = ((HibernateProxy) entity).getHibernateLazyInitializer();
+
+            return initializer.isUninitialized() ? null : initializer.getImplementation().getClass().getName();
+        }
+
+        return entity.getClass().getName();
+    }
+
+    synchronized Object[] get(String entityName, Serializable id) {
+        Map<Serializable, Object[]> states = statesByEntityName.get(entityName);
+
+        return states != null ? states.get(id) : null;
+    }
+
+    synchronized void put(String entityName, Serializable id, Object[] state, String[] propertyNames) {
+        Map<Serializable, Object[]> states = statesByEntityName.get(entityName);
+        if ( states == null ) {
+            states = new HashMap<>();
+            statesByEntityName.put(entityName, states);
+            propertyNamesByEntityName.put(entityName, propertyNames);
+        }
+        states.put(id, state);
+    }
+
+    synchronized void remove(String entityName, Serializable id) {
+        Map<Serializable, Object[]> states = statesByEntityName.get(entityName);
+        if ( states != null ) {
+            states.remove(id);
+        }
+    }
+
+    synchronized void clear() {
+        statesByEntityName.clear();
+    }
+
+}
@@ -0,0 +1,261 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.business.hibernate;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Transaction;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
+import org.hibernate.type.Type;
+import org.libreplan.business.common.IOnTransaction;
+
+/**
+ * Checks the entities reattached to the session against the
+ * {@link SavedStates} used in the current thread, so only the modified ones
+ * are updated.
+ * <p>
+ * Meanwhile it keeps the states up to date: the entities loaded are saved
+ * immediately, and the ones inserted, updated or removed once their
+ * transaction is committed. If a transaction isn't committed all the states
+ * are forgotten, since it's not known which changes have been applied.
+ * </p>
+ * <p>
+ * It's registered as the interceptor of the session factory, but it does
+ * nothing unless it's called from {@link #runUsing(SavedStates, IOnTransaction)}.
+ * </p>
+ */
+public class SavedStatesInterceptor extends EmptyInterceptor {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    private static class EntityId {
+
+        private final String entityName;
+
+        private final Serializable id;
+
+        private EntityId(Object entity, Serializable id) {
+            this.entityName = entity.getClass().getName();
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if ( !(obj instanceof EntityId) ) {
+                return false;
+            }
+            EntityId other = (EntityId) obj;
+
+            return entityName.equals(other.entityName) && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * entityName.hashCode() + id.hashCode();
+        }
+
+    }
+
+    /**
+     * The state of an entity written in the current transaction. The values
+     * are copied once it's committed, as Hibernate still modifies them, for
+     * instance setting the new version.
+     */
+    private static class PendingState {
+
+        private final Object[] values;
+
+        private final String[] propertyNames;
+
+        private final Type[] types;
+
+        private PendingState(Object[] values, String[] propertyNames, Type[] types) {
+            this.values = values;
+            this.propertyNames = propertyNames;
+            this.types = types;
+        }
+
+    }
+
+    private static class Scope {
+
+        private final SavedStates states;
+
+        /**
+         * The removed entities are kept with a <code>null</code> state
+         */
+        private final Map<EntityId, PendingState> pending = new LinkedHashMap<>();
+
+        private Scope(SavedStates states) {
+            this.states = states;
+        }
+
+        private Object[] getState(EntityId entityId) {
+            PendingState result = pending.get(entityId);
+            if ( result != null ) {
+                return result.values;
+            }
+
+            return pending.containsKey(entityId) ? null : states.get(entityId.entityName, entityId.id);
+        }
+
+        private void committed() {
+            for (Map.Entry<EntityId, PendingState> each : pending.entrySet()) {
+                EntityId entityId = each.getKey();
+                PendingState state = each.getValue();
+                if ( state == null ) {
+                    states.remove(entityId.entityName, entityId.id);
+                } else {
+                    states.put(entityId.entityName, entityId.id, copy(state.values, state.types),
+                            state.propertyNames);
+                }
+            }
+            pending.clear();
+        }
+
+        private void notCommitted() {
+            pending.clear();
+            states.clear();
+        }
+
+    }
+
+    /**
+     * Executes the action using the states. The transactions must be started
+     * and committed inside the action, so the states are updated.
+     */
+    public static <T> T runUsing(SavedStates states, IOnTransaction<T> action) {
+        Scope previous = current.get();
+        current.set(new Scope(states));
+        try {
+            return action.execute();
+        } finally {
+            if ( previous != null ) {
+                current.set(previous);
+            } else {
+                current.remove();
+            }
+        }
+    }
+
+    /**
+     * Deep copies the values of the properties using their types, so the
+     * mutable ones like dates aren't shared with the entity. No session
+     * factory is passed since it's only used to copy the components with a
+     * reference to their parent entity, that aren't used in the mappings.
+     */
+    private static Object[] copy(Object[] values, Type[] types) {
+        Object[] result = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = types[i].deepCopy(values[i], null);
+        }
+
+        return result;
+    }
+
+    @Override
+    public int[] findDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+                           String[] propertyNames, Type[] types) {
+        Scope scope = current.get();
+        /* If the previous state is known Hibernate does the usual checking */
+        if ( scope == null || id == null || previousState != null ) {
+            return null;
+        }
+        Object[] saved = scope.getState(new EntityId(entity, id));
+        if ( saved == null || saved.length != currentState.length ) {
+            return null;
+        }
+
+        List<Integer> dirty = new ArrayList<>();
+        for (int i = 0; i < currentState.length; i++) {
+            if ( !types[i].isSame(saved[i], currentState[i]) ) {
+                dirty.add(i);
+            }
+        }
+        int[] result = new int[dirty.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = dirty.get(i);
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        Scope scope = current.get();
+        if ( scope != null && id != null ) {
+            scope.states.put(entity.getClass().getName(), id, copy(state, types), propertyNames);
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        written(entity, id, state, propertyNames, types);
+
+        return false;
+    }
+
+    @Override
+    public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+                                String[] propertyNames, Type[] types) {
+        written(entity, id, currentState, propertyNames, types);
+
+        return false;
+    }
+
+    private void written(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        Scope scope = current.get();
+        if ( scope != null && id != null ) {
+            scope.pending.put(new EntityId(entity, id), new PendingState(state, propertyNames, types));
+        }
+    }
+
+    @Override
+    public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        Scope scope = current.get();
+        if ( scope != null && id != null ) {
+            scope.pending.put(new EntityId(entity, id), null);
+        }
+    }
+
+    @Override
+    public void afterTransactionCompletion(Transaction tx) {
+        Scope scope = current.get();
+        if ( scope == null ) {
+            return;
+        }
+        if ( tx != null && tx.getStatus() == TransactionStatus.COMMITTED ) {
+            scope.committed();
+        } else {
+            scope.notCommitted();
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.hibernate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements prepared by Hibernate in the current thread while
+ * a {@link Count} is running.
+ * <p>
+ * It's registered as the statement inspector of the session factory, so the
+ * statements executed by a use case can be measured without enabling the
+ * Hibernate statistics. It allows to detect N+1 problems, for instance the
+ * ones happening when the planning of an order is loaded.
+ * </p>
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<List<Count>> running = new ThreadLocal<>();
+
+    /**
+     * The statements prepared in a thread since it was started. The counts can
+     * be nested, each one receiving all the statements prepared since it was
+     * started.
+     */
+    public static class Count {
+
+        private int statements = 0;
+
+        private boolean stopped = false;
+
+        private Count() {
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        /**
+         * @return the statements counted
+         */
+        public int stop() {
+            if ( !stopped ) {
+                stopped = true;
+                List<Count> counts = running.get();
+                if ( counts != null ) {
+                    counts.remove(this);
+                    if ( counts.isEmpty() ) {
+                        running.remove();
+                    }
+                }
+            }
+
+            return statements;
+        }
+
+    }
+
+    /**
+     * Starts counting the statements of the current thread. The returned count
+     * must be stopped in the same thread, usually in a finally block.
+     */
+    public static Count start() {
+        List<Count> counts = running.get();
+        if ( counts == null ) {
+            counts = new ArrayList<>();
+            running.set(counts);
+        }
+        Count result = new Count();
+        counts.add(result);
+
+        return result;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<Count> counts = running.get();
+        if ( counts != null ) {
+            for (Count each : counts) {
+                each.statements++;
+            }
+        }
+
+        return sql;
+    }
+
+}
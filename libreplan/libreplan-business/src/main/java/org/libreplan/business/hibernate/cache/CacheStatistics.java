@@ -0,0 +1,80 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.hibernate.cache;
+
+/**
+ * Statistics about the use of a region of the second level cache.
+ */
+public class CacheStatistics {
+
+    private final String region;
+
+    private final long hits;
+
+    private final long misses;
+
+    private final long puts;
+
+    private final long elementsInMemory;
+
+    CacheStatistics(String region, long hits, long misses, long puts, long elementsInMemory) {
+        this.region = region;
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.elementsInMemory = elementsInMemory;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getPuts() {
+        return puts;
+    }
+
+    public long getElementsInMemory() {
+        return elementsInMemory;
+    }
+
+    /**
+     * @return the percentage of the lookups found in the cache
+     */
+    public int getHitRatio() {
+        long lookups = hits + misses;
+
+        return lookups == 0 ? 0 : (int) (hits * 100 / lookups);
+    }
+
+    @Override
+    public String toString() {
+        return region + ": " + hits + " hits, " + misses + " misses, " + puts + " puts, " + elementsInMemory +
+                " elements in memory";
+    }
+
+}
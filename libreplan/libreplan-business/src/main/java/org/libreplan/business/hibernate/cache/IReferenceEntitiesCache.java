@@ -0,0 +1,41 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.hibernate.cache;
+
+import java.util.List;
+
+/**
+ * The second level cache of the entities read on nearly every page, as
+ * calendars, criteria, cost categories or types of work hours.
+ */
+public interface IReferenceEntitiesCache {
+
+    /**
+     * @return the statistics of each region of the second level cache and of
+     *         the query cache, empty if the Hibernate statistics are disabled
+     */
+    List<CacheStatistics> getStatistics();
+
+    /**
+     * Removes all the entities, collections and queries cached.
+     */
+    void evictAll();
+
+}
@@ -0,0 +1,199 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.hibernate.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.internal.StandardQueryCache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.libreplan.business.advance.entities.AdvanceType;
+import org.libreplan.business.calendars.entities.BaseCalendar;
+import org.libreplan.business.calendars.entities.CalendarAvailability;
+import org.libreplan.business.calendars.entities.CalendarData;
+import org.libreplan.business.calendars.entities.CalendarException;
+import org.libreplan.business.calendars.entities.CalendarExceptionType;
+import org.libreplan.business.costcategories.entities.CostCategory;
+import org.libreplan.business.costcategories.entities.HourCost;
+import org.libreplan.business.costcategories.entities.TypeOfWorkHours;
+import org.libreplan.business.hibernate.notification.EntityChanges;
+import org.libreplan.business.hibernate.notification.IEntityChangesListener;
+import org.libreplan.business.hibernate.notification.ISnapshotRefresherService;
+import org.libreplan.business.labels.entities.Label;
+import org.libreplan.business.labels.entities.LabelType;
+import org.libreplan.business.materials.entities.UnitType;
+import org.libreplan.business.resources.entities.Criterion;
+import org.libreplan.business.resources.entities.CriterionSatisfaction;
+import org.libreplan.business.resources.entities.CriterionType;
+import org.libreplan.business.resources.entities.Resource;
+import org.libreplan.business.workreports.entities.WorkReportType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the second level cache of the reference entities consistent with the
+ * changes notified by {@link ISnapshotRefresherService}.
+ * <p>
+ * Hibernate updates the cached entities modified through the session, but
+ * not the cached collections whose elements are changed only from the other
+ * side of the association, nor the entities changed without knowing their
+ * ids. The regions affected are evicted after the transaction is committed.
+ * </p>
+ * <p>
+ * The reference entities are the ones whose list queries are cached, see
+ * {@link #isReferenceEntity(Class)}.
+ * </p>
+ */
+@Component
+@Scope(BeanDefinition.SCOPE_SINGLETON)
+public class ReferenceEntitiesCache implements IReferenceEntitiesCache, IEntityChangesListener {
+
+    private static final Log LOG = LogFactory.getLog(ReferenceEntitiesCache.class);
+
+    private static final Set<Class<?>> REFERENCE_ENTITIES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            AdvanceType.class,
+            BaseCalendar.class,
+            CalendarExceptionType.class,
+            CostCategory.class,
+            Criterion.class,
+            CriterionType.class,
+            Label.class,
+            LabelType.class,
+            TypeOfWorkHours.class,
+            UnitType.class,
+            WorkReportType.class)));
+
+    /**
+     * The cached collections that must be evicted when their elements change
+     */
+    private static final Map<Class<?>, List<String>> COLLECTIONS_BY_ELEMENT = new HashMap<>();
+
+    static {
+        collection(CalendarException.class, BaseCalendar.class, "exceptions");
+        collection(CalendarData.class, BaseCalendar.class, "calendarDataVersions");
+        collection(CalendarAvailability.class, BaseCalendar.class, "calendarAvailabilities");
+        collection(HourCost.class, CostCategory.class, "hourCosts");
+        collection(Criterion.class, CriterionType.class, "criterions");
+        collection(Label.class, LabelType.class, "labels");
+        collection(CriterionSatisfaction.class, Resource.class, "criterionSatisfactions");
+    }
+
+    private static void collection(Class<?> element, Class<?> owner, String property) {
+        List<String> roles = COLLECTIONS_BY_ELEMENT.get(element);
+        if ( roles == null ) {
+            roles = new ArrayList<>();
+            COLLECTIONS_BY_ELEMENT.put(element, roles);
+        }
+        roles.add(owner.getName() + "." + property);
+    }
+
+    /**
+     * @return <code>true</code> if the queries listing the entities of the
+     *         class can be cached
+     */
+    public static boolean isReferenceEntity(Class<?> klass) {
+        return REFERENCE_ENTITIES.contains(klass);
+    }
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private ISnapshotRefresherService snapshotRefresherService;
+
+    @PostConstruct
+    private void listenChanges() {
+        snapshotRefresherService.addChangesListener(this);
+    }
+
+    @Override
+    public void onChanges(EntityChanges changes) {
+        Cache cache = sessionFactory.getCache();
+        for (Class<?> each : changes.getClasses()) {
+            List<String> roles = COLLECTIONS_BY_ELEMENT.get(each);
+            if ( roles != null ) {
+                for (String role : roles) {
+                    LOG.debug("evicting " + role + " due to changes on " + each.getSimpleName());
+                    cache.evictCollectionRegion(role);
+                }
+            }
+            if ( changes.hasUnknownIds(each) && isCached(each) ) {
+                LOG.debug("evicting " + each.getName() + " due to changes with unknown ids");
+                cache.evictEntityRegion(each);
+                cache.evictDefaultQueryRegion();
+            }
+        }
+    }
+
+    private boolean isCached(Class<?> klass) {
+        return ((SessionFactoryImplementor) sessionFactory).getEntityPersister(klass.getName()).hasCache();
+    }
+
+    @Override
+    public List<CacheStatistics> getStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        if ( !statistics.isStatisticsEnabled() ) {
+            return Collections.emptyList();
+        }
+
+        List<CacheStatistics> result = new ArrayList<>();
+        String[] regions = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regions);
+        for (String each : regions) {
+            if ( each.equals(StandardQueryCache.class.getName()) ) {
+                continue;
+            }
+            SecondLevelCacheStatistics region = statistics.getSecondLevelCacheStatistics(each);
+            if ( region != null ) {
+                result.add(new CacheStatistics(each, region.getHitCount(), region.getMissCount(),
+                        region.getPutCount(), region.getElementCountInMemory()));
+            }
+        }
+        SecondLevelCacheStatistics queries = statistics.getSecondLevelCacheStatistics(
+                StandardQueryCache.class.getName());
+        result.add(new CacheStatistics(StandardQueryCache.class.getName(), statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount(),
+                queries == null ? 0 : queries.getElementCountInMemory()));
+
+        return result;
+    }
+
+    @Override
+    public void evictAll() {
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+}
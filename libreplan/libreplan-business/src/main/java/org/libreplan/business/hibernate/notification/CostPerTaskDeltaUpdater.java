@@ -0,0 +1,117 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.business.hibernate.notification;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Function;
+
+import org.joda.time.LocalDate;
+import org.libreplan.business.planner.entities.Task;
+import org.libreplan.business.planner.entities.TaskElement;
+
+/**
+ * Updates a cost per task calculating again only the cost of the tasks
+ * changed and of the tasks affected by the changes of other entities. If the
+ * tasks affected by some change are unknown, it's calculated from scratch.
+ */
+class CostPerTaskDeltaUpdater implements ISnapshotDeltaUpdater<Map<TaskElement, SortedMap<LocalDate, BigDecimal>>> {
+
+    private final Function<Task, SortedMap<LocalDate, BigDecimal>> costCalculation;
+
+    private final Function<Collection<Long>, List<TaskElement>> tasksFinder;
+
+    private final Function<EntityChanges, Set<Long>> affectedTasks;
+
+    private final List<Class<?>> affectingClasses;
+
+    /**
+     * @param affectedTasks
+     *            the ids of the tasks affected by the changes of the
+     *            <code>affectingClasses</code>
+     */
+    CostPerTaskDeltaUpdater(Function<Task, SortedMap<LocalDate, BigDecimal>> costCalculation,
+                            Function<Collection<Long>, List<TaskElement>> tasksFinder,
+                            Function<EntityChanges, Set<Long>> affectedTasks,
+                            Class<?>... affectingClasses) {
+
+        this.costCalculation = costCalculation;
+        this.tasksFinder = tasksFinder;
+        this.affectedTasks = affectedTasks;
+        this.affectingClasses = Arrays.asList(affectingClasses);
+    }
+
+    @Override
+    public Map<TaskElement, SortedMap<LocalDate, BigDecimal>> update(
+            Map<TaskElement, SortedMap<LocalDate, BigDecimal>> previous, EntityChanges changes) {
+
+        if ( changes.hasUnknownIds(Task.class) ) {
+            return null;
+        }
+        for (Class<?> each : changes.getClasses()) {
+            if ( isAffecting(each) && changes.hasUnknownIds(each) ) {
+                return null;
+            }
+        }
+
+        Set<Long> removed = changes.getRemovedIds(Task.class);
+        Set<Long> toCalculate = changes.getModifiedIds(Task.class);
+        toCalculate.addAll(affectedTasks.apply(changes));
+        toCalculate.removeAll(removed);
+
+        Set<Long> discarded = new HashSet<>(toCalculate);
+        discarded.addAll(removed);
+
+        Map<TaskElement, SortedMap<LocalDate, BigDecimal>> result = new HashMap<>();
+        for (Map.Entry<TaskElement, SortedMap<LocalDate, BigDecimal>> each : previous.entrySet()) {
+            if ( !discarded.contains(each.getKey().getId()) ) {
+                result.put(each.getKey(), each.getValue());
+            }
+        }
+        if ( !toCalculate.isEmpty() ) {
+            for (TaskElement each : tasksFinder.apply(toCalculate)) {
+                if ( each instanceof Task ) {
+                    result.put(each, costCalculation.apply((Task) each));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private boolean isAffecting(Class<?> klass) {
+        for (Class<?> each : affectingClasses) {
+            if ( each.isAssignableFrom(klass) ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+}
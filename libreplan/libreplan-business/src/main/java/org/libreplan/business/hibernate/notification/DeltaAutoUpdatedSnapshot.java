@@ -0,0 +1,223 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.libreplan.business.hibernate.notification;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Snapshot that applies the changes of the entities to its previous value with
+ * a {@link ISnapshotDeltaUpdater}, calculating it from scratch only when the
+ * changes can't be applied.
+ * <p>
+ * The changes are applied in order, so at most one calculation is running at
+ * any time. The changes received while calculating are accumulated and applied
+ * together afterwards. Meanwhile the previous value is returned.
+ * </p>
+ */
+class DeltaAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T>, IReloadableSnapshot {
+
+    private static final Log LOG = LogFactory.getLog(DeltaAutoUpdatedSnapshot.class);
+
+    private final String name;
+
+    private final Callable<T> callable;
+
+    private final ISnapshotDeltaUpdater<T> deltaUpdater;
+
+    private final CountDownLatch firstLoad = new CountDownLatch(1);
+
+    private volatile T value;
+
+    private volatile boolean loaded = false;
+
+    private volatile Exception firstLoadError;
+
+    /* The following fields are guarded by this */
+
+    private EntityChanges pending = new EntityChanges();
+
+    private boolean calculationRequested = false;
+
+    private boolean recalculationNeeded = false;
+
+    private boolean running = false;
+
+    private long pendingSince = 0;
+
+    private long applyingSince = 0;
+
+    private int calculations = 0;
+
+    private int deltaUpdates = 0;
+
+    private int errors = 0;
+
+    private long totalMsExecuting = 0;
+
+    private long lastMsExecuting = 0;
+
+    DeltaAutoUpdatedSnapshot(String name, Callable<T> callable, ISnapshotDeltaUpdater<T> deltaUpdater) {
+        Validate.notNull(name);
+        Validate.notNull(callable);
+        Validate.notNull(deltaUpdater);
+        this.name = "*" + name + "*";
+        this.callable = callable;
+        this.deltaUpdater = deltaUpdater;
+    }
+
+    @Override
+    public T getValue() {
+        if ( !loaded ) {
+            try {
+                firstLoad.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            if ( !loaded ) {
+                throw new RuntimeException(firstLoadError);
+            }
+        }
+
+        return value;
+    }
+
+    @Override
+    public synchronized void ensureFirstLoad(ExecutorService executorService) {
+        if ( loaded || calculationRequested ) {
+            return;
+        }
+        calculationRequested = true;
+        launch(executorService);
+    }
+
+    @Override
+    public synchronized void reloadNeeded(ExecutorService executorService, EntityChanges changes) {
+        if ( pending.isEmpty() ) {
+            pendingSince = System.currentTimeMillis();
+        }
+        pending.addAll(changes);
+        launch(executorService);
+    }
+
+    private void launch(ExecutorService executorService) {
+        if ( !running ) {
+            running = true;
+            executorService.submit(this::applyPending);
+        }
+    }
+
+    private void applyPending() {
+        while (true) {
+            EntityChanges changes;
+            boolean fromScratch;
+            synchronized (this) {
+                if ( !calculationRequested && pending.isEmpty() ) {
+                    running = false;
+
+                    return;
+                }
+                changes = pending;
+                pending = new EntityChanges();
+                fromScratch = calculationRequested || recalculationNeeded || !loaded;
+                calculationRequested = false;
+                recalculationNeeded = false;
+                if ( pendingSince != 0 && (applyingSince == 0 || pendingSince < applyingSince) ) {
+                    applyingSince = pendingSince;
+                }
+                pendingSince = 0;
+            }
+            apply(changes, fromScratch);
+        }
+    }
+
+    private void apply(EntityChanges changes, boolean fromScratch) {
+        long start = System.currentTimeMillis();
+        boolean delta = false;
+        Exception error = null;
+        try {
+            T newValue = null;
+            if ( !fromScratch ) {
+                newValue = applyDelta(changes);
+                delta = newValue != null;
+            }
+            if ( newValue == null ) {
+                newValue = callable.call();
+            }
+            value = newValue;
+            loaded = true;
+        } catch (Exception e) {
+            error = e;
+            LOG.error("error loading " + name + ", keeping old value", e);
+        } finally {
+            long timeExecuting = System.currentTimeMillis() - start;
+            synchronized (this) {
+                if ( error != null ) {
+                    errors++;
+                    /* The changes have been lost, so it must be calculated again next time */
+                    recalculationNeeded = true;
+                } else {
+                    applyingSince = 0;
+                    if ( delta ) {
+                        deltaUpdates++;
+                    } else {
+                        calculations++;
+                    }
+                }
+                totalMsExecuting += timeExecuting;
+                lastMsExecuting = timeExecuting;
+            }
+            LOG.debug(name + " took " + timeExecuting + " ms " + (delta ? "applying changes" : "executing"));
+            if ( firstLoad.getCount() > 0 ) {
+                firstLoadError = error;
+                firstLoad.countDown();
+            }
+        }
+    }
+
+    private T applyDelta(EntityChanges changes) {
+        try {
+            return deltaUpdater.update(value, changes);
+        } catch (Exception e) {
+            LOG.error("error applying changes to " + name + ", calculating it again", e);
+
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized SnapshotStatistics getStatistics() {
+        long staleSince = applyingSince != 0 ? applyingSince : pendingSince;
+
+        return new SnapshotStatistics(name, calculations, deltaUpdates, errors, totalMsExecuting, lastMsExecuting,
+                staleSince == 0 ? 0 : System.currentTimeMillis() - staleSince);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
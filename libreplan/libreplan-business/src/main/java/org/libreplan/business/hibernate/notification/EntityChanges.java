@@ -0,0 +1,193 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.libreplan.business.hibernate.notification;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The ids of the entities inserted, updated or removed, grouped by the class of
+ * the entity. The classes are the concrete ones, not the superclasses.
+ * <p>
+ * It's filled by {@link HibernateDatabaseModificationsListener}, so the
+ * snapshots can update their values instead of recalculating them.
+ * </p>
+ * <p>
+ * It also keeps the ids of the entities affected by the changes, as recorded
+ * by the {@link IAffectedEntitiesResolver}. They are grouped by the class the
+ * resolver specifies.
+ * </p>
+ *
+ * @see ISnapshotDeltaUpdater
+ */
+public class EntityChanges {
+
+    private final Map<Class<?>, Set<Long>> modified = new HashMap<>();
+
+    private final Map<Class<?>, Set<Long>> removed = new HashMap<>();
+
+    private final Map<Class<?>, Set<Long>> affected = new HashMap<>();
+
+    private final Set<Class<?>> withoutIds = new HashSet<>();
+
+    public synchronized void modified(Class<?> entityClass, Serializable id) {
+        add(modified, entityClass, id);
+    }
+
+    public synchronized void removed(Class<?> entityClass, Serializable id) {
+        add(removed, entityClass, id);
+    }
+
+    public synchronized void affected(Class<?> entityClass, Long id) {
+        add(affected, entityClass, id);
+    }
+
+    /**
+     * The entities affected by the changes of the entities of the class are
+     * unknown, so {@link #hasUnknownIds(Class...)} returns <code>true</code>
+     * for it
+     */
+    synchronized void affectedUnknown(Class<?> changedClass) {
+        withoutIds.add(changedClass);
+    }
+
+    private void add(Map<Class<?>, Set<Long>> map, Class<?> entityClass, Serializable id) {
+        if ( !(id instanceof Long) ) {
+            withoutIds.add(entityClass);
+            return;
+        }
+
+        Set<Long> ids = map.get(entityClass);
+        if ( ids == null ) {
+            ids = new HashSet<>();
+            map.put(entityClass, ids);
+        }
+        ids.add((Long) id);
+    }
+
+    synchronized void addAll(EntityChanges other) {
+        EntityChanges copy = other.copy();
+        addAll(modified, copy.modified);
+        addAll(removed, copy.removed);
+        addAll(affected, copy.affected);
+        withoutIds.addAll(copy.withoutIds);
+    }
+
+    private static void addAll(Map<Class<?>, Set<Long>> destination, Map<Class<?>, Set<Long>> source) {
+        for (Map.Entry<Class<?>, Set<Long>> each : source.entrySet()) {
+            Set<Long> ids = destination.get(each.getKey());
+            if ( ids == null ) {
+                destination.put(each.getKey(), new HashSet<>(each.getValue()));
+            } else {
+                ids.addAll(each.getValue());
+            }
+        }
+    }
+
+    synchronized EntityChanges copy() {
+        EntityChanges result = new EntityChanges();
+        addAll(result.modified, modified);
+        addAll(result.removed, removed);
+        addAll(result.affected, affected);
+        result.withoutIds.addAll(withoutIds);
+
+        return result;
+    }
+
+    public synchronized boolean isEmpty() {
+        return modified.isEmpty() && removed.isEmpty() && affected.isEmpty() && withoutIds.isEmpty();
+    }
+
+    public synchronized Set<Class<?>> getClasses() {
+        Set<Class<?>> result = new HashSet<>(modified.keySet());
+        result.addAll(removed.keySet());
+        result.addAll(withoutIds);
+
+        return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * @return <code>true</code> if some entity of the classes has been changed
+     *         but its id or the entities it affects are unknown
+     */
+    public synchronized boolean hasUnknownIds(Class<?>... classes) {
+        for (Class<?> each : classes) {
+            if ( withoutIds.contains(each) ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the ids of the entities of the classes inserted or updated
+     */
+    public synchronized Set<Long> getModifiedIds(Class<?>... classes) {
+        return collect(modified, classes);
+    }
+
+    /**
+     * @return the ids of the entities of the classes removed
+     */
+    public synchronized Set<Long> getRemovedIds(Class<?>... classes) {
+        return collect(removed, classes);
+    }
+
+    /**
+     * @return the ids of the entities of the classes inserted, updated or
+     *         removed
+     */
+    public synchronized Set<Long> getChangedIds(Class<?>... classes) {
+        Set<Long> result = collect(modified, classes);
+        result.addAll(collect(removed, classes));
+
+        return result;
+    }
+
+    /**
+     * @return the ids of the entities of the classes affected by the changes
+     */
+    public synchronized Set<Long> getAffectedIds(Class<?>... classes) {
+        return collect(affected, classes);
+    }
+
+    private static Set<Long> collect(Map<Class<?>, Set<Long>> map, Class<?>... classes) {
+        Set<Long> result = new HashSet<>();
+        for (Class<?> each : classes) {
+            Set<Long> ids = map.get(each);
+            if ( ids != null ) {
+                result.addAll(ids);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "modified: " + modified + ", removed: " + removed + ", affected: " + affected
+                + ", without ids: " + withoutIds;
+    }
+
+}
@@ -20,6 +20,7 @@
  */
 package org.libreplan.business.hibernate.notification;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -29,6 +30,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -70,22 +72,40 @@ public class HibernateDatabaseModificationsListener implements
 
     private final ExecutorService executor = Executors.newFixedThreadPool(3);
 
-    private final ConcurrentMap<Class<?>, BlockingQueue<NotBlockingAutoUpdatedSnapshot<?>>> interested;
+    private final ConcurrentMap<Class<?>, BlockingQueue<IReloadableSnapshot>> interested;
 
     private ConcurrentMap<Transaction, Dispatcher> pending = new ConcurrentHashMap<>();
 
-    private Set<NotBlockingAutoUpdatedSnapshot<?>> snapshotsInterestedOn(Class<?> entityClass) {
-        List<Class<?>> list = new ArrayList<>(1);
-        list.add(entityClass);
+    private final List<IReloadableSnapshot> snapshots = new CopyOnWriteArrayList<>();
+
+    private final List<IEntityChangesListener> changesListeners = new CopyOnWriteArrayList<>();
+
+    private final List<AffectedEntitiesResolver<?>> affectedEntitiesResolvers = new CopyOnWriteArrayList<>();
+
+    private static final class AffectedEntitiesResolver<T> {
+
+        private final Class<T> changedClass;
+
+        private final IAffectedEntitiesResolver<? super T> resolver;
+
+        private AffectedEntitiesResolver(Class<T> changedClass, IAffectedEntitiesResolver<? super T> resolver) {
+            this.changedClass = changedClass;
+            this.resolver = resolver;
+        }
+
+        private void recordAffected(Object entity, EntityChanges changes) {
+            if ( changedClass.isInstance(entity) ) {
+                resolver.recordAffected(changedClass.cast(entity), changes);
+            }
+        }
 
-        return snapshotsInterestedOn(list);
     }
 
-    private Set<NotBlockingAutoUpdatedSnapshot<?>> snapshotsInterestedOn(Collection<? extends Class<?>> classesList) {
-        Set<NotBlockingAutoUpdatedSnapshot<?>> result = new HashSet<>();
+    private Set<IReloadableSnapshot> snapshotsInterestedOn(Collection<? extends Class<?>> classesList) {
+        Set<IReloadableSnapshot> result = new HashSet<>();
 
         for (Class<?> each : new HashSet<>(classesList)) {
-            BlockingQueue<NotBlockingAutoUpdatedSnapshot<?>> queue = interested.get(each);
+            BlockingQueue<IReloadableSnapshot> queue = interested.get(each);
             if ( queue != null ) {
                 result.addAll(queue);
             }
@@ -96,16 +116,15 @@ public class HibernateDatabaseModificationsListener implements
 
     private final class Dispatcher implements Synchronization {
 
-        private BlockingQueue<Class<?>> classes = new LinkedBlockingQueue<>();
+        private final EntityChanges changes = new EntityChanges();
         private final Transaction transaction;
 
-        public Dispatcher(Transaction transaction, Class<?> entityClass) {
-            classes.offer(entityClass);
+        public Dispatcher(Transaction transaction) {
             this.transaction = transaction;
         }
 
-        public void add(Class<?> entityClass) {
-            classes.offer(entityClass);
+        public EntityChanges getChanges() {
+            return changes;
         }
 
         @Override
@@ -118,15 +137,14 @@ public class HibernateDatabaseModificationsListener implements
             pending.remove(transaction);
 
             if ( isProbablySucessful(status) ) {
-                List<Class<?>> list = new ArrayList<>();
-                classes.drainTo(list);
-                LOG.debug(list.size() + " modification events recorded");
-                Set<NotBlockingAutoUpdatedSnapshot<?>> toDispatch = snapshotsInterestedOn(list);
+                LOG.debug("modification events recorded: " + changes);
+                Set<IReloadableSnapshot> toDispatch = snapshotsInterestedOn(changes.getClasses());
 
                 LOG.debug(
                         "dispatching " + toDispatch + " snapshots to reload due to transaction successful completion");
 
-                dispatch(toDispatch);
+                dispatch(toDispatch, changes);
+                notifyChangesListeners(changes);
             }
         }
 
@@ -164,17 +182,17 @@ public class HibernateDatabaseModificationsListener implements
 
     @Override
     public void onPostDelete(PostDeleteEvent event) {
-        modificationOn(inferTransaction(event), inferEntityClass(getEntityObject(event)));
+        removalOn(inferTransaction(event), getEntityObject(event), event.getId());
     }
 
     @Override
     public void onPostUpdate(PostUpdateEvent event) {
-        modificationOn(inferTransaction(event), inferEntityClass(getEntityObject(event)));
+        modificationOn(inferTransaction(event), getEntityObject(event), event.getId());
     }
 
     @Override
     public void onPostInsert(PostInsertEvent event) {
-        modificationOn(inferTransaction(event), inferEntityClass(getEntityObject(event)));
+        modificationOn(inferTransaction(event), getEntityObject(event), event.getId());
     }
 
 
@@ -204,30 +222,83 @@ public class HibernateDatabaseModificationsListener implements
         return entity.getClass();
     }
 
-    void modificationOn(Transaction transaction, Class<?> entityClass) {
-        if ( transaction == null ) {
-            dispatch(snapshotsInterestedOn(entityClass));
+    void modificationOn(Transaction transaction, Object entity, Serializable id) {
+        EntityChanges changes = changesOn(transaction);
+        changes.modified(inferEntityClass(entity), id);
+        recordAffected(entity, changes);
+        dispatchIfNoTransaction(transaction, changes);
+    }
+
+    void removalOn(Transaction transaction, Object entity, Serializable id) {
+        EntityChanges changes = changesOn(transaction);
+        changes.removed(inferEntityClass(entity), id);
+        recordAffected(entity, changes);
+        dispatchIfNoTransaction(transaction, changes);
+    }
 
-            return;
+    private void recordAffected(Object entity, EntityChanges changes) {
+        for (AffectedEntitiesResolver<?> each : affectedEntitiesResolvers) {
+            try {
+                each.recordAffected(entity, changes);
+            } catch (Exception e) {
+                LOG.warn("the entities affected by the change of " + entity + " are unknown", e);
+                changes.affectedUnknown(inferEntityClass(entity));
+            }
         }
-        Dispatcher newDispatcher = new Dispatcher(transaction, entityClass);
+    }
+
+    /**
+     * @return where the changes done in the transaction must be recorded
+     */
+    private EntityChanges changesOn(Transaction transaction) {
+        if ( transaction == null ) {
+            return new EntityChanges();
+        }
+        Dispatcher newDispatcher = new Dispatcher(transaction);
         Dispatcher previous;
         previous = pending.putIfAbsent(transaction, newDispatcher);
 
         boolean dispatcherAlreadyExisted = previous != null;
         if ( dispatcherAlreadyExisted ) {
-            previous.add(entityClass);
-        } else {
-            transaction.registerSynchronization(newDispatcher);
+            return previous.getChanges();
         }
+        transaction.registerSynchronization(newDispatcher);
+
+        return newDispatcher.getChanges();
     }
 
-    private void dispatch(Set<NotBlockingAutoUpdatedSnapshot<?>> toBeDispatched) {
-        toBeDispatched.forEach(this::dispatch);
+    private void dispatchIfNoTransaction(Transaction transaction, EntityChanges changes) {
+        if ( transaction == null ) {
+            dispatch(snapshotsInterestedOn(changes.getClasses()), changes);
+            notifyChangesListeners(changes);
+        }
     }
 
-    private void dispatch(NotBlockingAutoUpdatedSnapshot<?> each) {
-        each.reloadNeeded(executor);
+    private void notifyChangesListeners(EntityChanges changes) {
+        for (IEntityChangesListener each : changesListeners) {
+            try {
+                each.onChanges(changes);
+            } catch (Exception e) {
+                LOG.error("error notifying changes to " + each, e);
+            }
+        }
+    }
+
+    @Override
+    public void addChangesListener(IEntityChangesListener listener) {
+        changesListeners.add(listener);
+    }
+
+    @Override
+    public <T> void addAffectedEntitiesResolver(Class<T> changedClass,
+                                                IAffectedEntitiesResolver<? super T> resolver) {
+        affectedEntitiesResolvers.add(new AffectedEntitiesResolver<>(changedClass, resolver));
+    }
+
+    private void dispatch(Set<IReloadableSnapshot> toBeDispatched, EntityChanges changes) {
+        for (IReloadableSnapshot each : toBeDispatched) {
+            each.reloadNeeded(executor, changes);
+        }
     }
 
     @Override
@@ -239,19 +310,49 @@ public class HibernateDatabaseModificationsListener implements
 
         final NotBlockingAutoUpdatedSnapshot<T> result;
         result = new NotBlockingAutoUpdatedSnapshot<>(name, callable);
+        register(result, reloadOn);
 
+        return result;
+    }
+
+    @Override
+    public <T> IAutoUpdatedSnapshot<T> takeSnapshot(
+            String name, Callable<T> callable, ISnapshotDeltaUpdater<T> deltaUpdater, ReloadOn reloadOn) {
+
+        if ( !hibernateListenersRegistered ) {
+            throw new IllegalStateException(
+                    "The hibernate listeners has not been registered. There is some configuration problem.");
+        }
+
+        final DeltaAutoUpdatedSnapshot<T> result;
+        result = new DeltaAutoUpdatedSnapshot<>(name, callable, deltaUpdater);
+        register(result, reloadOn);
+
+        return result;
+    }
+
+    private void register(IReloadableSnapshot snapshot, ReloadOn reloadOn) {
         for (Class<?> each : reloadOn.getClassesOnWhichToReload()) {
             interested.putIfAbsent(each, emptyQueue());
-            BlockingQueue<NotBlockingAutoUpdatedSnapshot<?>> queue = interested.get(each);
-            boolean success = queue.add(result);
+            BlockingQueue<IReloadableSnapshot> queue = interested.get(each);
+            boolean success = queue.add(snapshot);
             assert success : "the type of queue used must not have restricted capacity";
         }
-        result.ensureFirstLoad(executor);
+        snapshots.add(snapshot);
+        snapshot.ensureFirstLoad(executor);
+    }
+
+    @Override
+    public List<SnapshotStatistics> getStatistics() {
+        List<SnapshotStatistics> result = new ArrayList<>();
+        for (IReloadableSnapshot each : snapshots) {
+            result.add(each.getStatistics());
+        }
 
         return result;
     }
 
-    private BlockingQueue<NotBlockingAutoUpdatedSnapshot<?>> emptyQueue() {
+    private BlockingQueue<IReloadableSnapshot> emptyQueue() {
         return new LinkedBlockingQueue<>();
     }
 
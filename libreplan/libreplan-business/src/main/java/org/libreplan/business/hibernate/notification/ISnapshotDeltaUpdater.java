@@ -0,0 +1,39 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.libreplan.business.hibernate.notification;
+
+/**
+ * Calculates the new value of a snapshot from its previous value and the
+ * entities changed since it was calculated. It's run on a read only
+ * transaction.
+ *
+ * @see ISnapshotRefresherService#takeSnapshot(String, java.util.concurrent.Callable, ISnapshotDeltaUpdater, ReloadOn)
+ */
+public interface ISnapshotDeltaUpdater<T> {
+
+    /**
+     * @param previous
+     *            the current value of the snapshot. It must not be modified,
+     *            as it can be being used
+     * @return the new value or <code>null</code> if the changes can't be
+     *         applied, so the snapshot must be calculated again
+     */
+    T update(T previous, EntityChanges changes) throws Exception;
+
+}
@@ -20,6 +20,7 @@
  */
 package org.libreplan.business.hibernate.notification;
 
+import java.util.List;
 import java.util.concurrent.Callable;
 
 /**
@@ -30,4 +31,29 @@ public interface ISnapshotRefresherService {
 
     public <T> IAutoUpdatedSnapshot<T> takeSnapshot(String name, Callable<T> callable, ReloadOn reloadOn);
 
+    /**
+     * Like {@link #takeSnapshot(String, Callable, ReloadOn)} but when the
+     * entities change the value is updated with <code>deltaUpdater</code>,
+     * using <code>callable</code> only when it isn't possible.
+     */
+    public <T> IAutoUpdatedSnapshot<T> takeSnapshot(
+            String name, Callable<T> callable, ISnapshotDeltaUpdater<T> deltaUpdater, ReloadOn reloadOn);
+
+    /**
+     * @return the statistics of all the snapshots taken
+     */
+    public List<SnapshotStatistics> getStatistics();
+
+    /**
+     * Registers a listener notified of the changes done in each successful
+     * transaction, without waiting for the snapshots to be reloaded.
+     */
+    public void addChangesListener(IEntityChangesListener listener);
+
+    /**
+     * Registers a resolver of the entities affected by the changes of the
+     * entities of <code>changedClass</code> or its subclasses.
+     */
+    public <T> void addAffectedEntitiesResolver(Class<T> changedClass, IAffectedEntitiesResolver<? super T> resolver);
+
 }
@@ -23,6 +23,7 @@ package org.libreplan.business.hibernate.notification;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.lang3.Validate;
@@ -33,7 +34,7 @@ import org.apache.commons.logging.LogFactory;
  * @author Óscar González Fernández
  *
  */
-class NotBlockingAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T> {
+class NotBlockingAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T>, IReloadableSnapshot {
 
     private static final Log LOG = LogFactory
             .getLog(NotBlockingAutoUpdatedSnapshot.class);
@@ -46,6 +47,12 @@ class NotBlockingAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T> {
 
     private final ExecutionsReport executionsReport;
 
+    /**
+     * When the oldest reload not completed yet was requested, zero if there
+     * is none
+     */
+    private final AtomicLong staleSince = new AtomicLong();
+
     private abstract class State {
         abstract T getValue();
 
@@ -181,7 +188,13 @@ class NotBlockingAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T> {
         return currentState.get().getValue();
     }
 
+    @Override
+    public void reloadNeeded(ExecutorService executorService, EntityChanges changes) {
+        reloadNeeded(executorService);
+    }
+
     public void reloadNeeded(ExecutorService executorService) {
+        staleSince.compareAndSet(0, System.currentTimeMillis());
         Future<T> future = executorService
                 .submit(callableDecoratedWithStatistics());
         State previousState;
@@ -196,6 +209,7 @@ class NotBlockingAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T> {
         previousState.cancel();
     }
 
+    @Override
     public void ensureFirstLoad(ExecutorService executorService) {
         if (hasBeenInitialized()) {
             return;
@@ -215,6 +229,15 @@ class NotBlockingAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T> {
         return name;
     }
 
+    @Override
+    public SnapshotStatistics getStatistics() {
+        Data data = executionsReport.data.get();
+        long since = staleSince.get();
+
+        return new SnapshotStatistics(name, data.executionTimes, 0, data.errors, data.totalMsExecuting,
+                data.lastMsExecuting, since == 0 ? 0 : System.currentTimeMillis() - since);
+    }
+
     private boolean hasBeenInitialized() {
         return currentState.get().hasBeenInitialized();
     }
@@ -229,7 +252,10 @@ class NotBlockingAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T> {
                 long timeWaiting = start - requestTime;
                 Exception error = null;
                 try {
-                    return callable.call();
+                    T result = callable.call();
+                    upToDateSince(requestTime);
+
+                    return result;
                 } catch (Exception e) {
                     error = e;
                     LOG.error("error executing snapshot " + name);
@@ -242,24 +268,37 @@ class NotBlockingAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T> {
         };
     }
 
+    /**
+     * The reloads requested before <code>requestTime</code> are already
+     * reflected on the value
+     */
+    private void upToDateSince(long requestTime) {
+        long since;
+        do {
+            since = staleSince.get();
+        } while (since != 0 && since <= requestTime && !staleSince.compareAndSet(since, 0));
+    }
+
     private static class Data {
         final int executionTimes;
         final int errors;
         long totalMsWaiting;
         long totalMsExecuting;
+        long lastMsExecuting;
 
         private Data(int executionTimes, int errors, long totalMsWaiting,
-                long totalMsExecuting) {
+                long totalMsExecuting, long lastMsExecuting) {
             this.executionTimes = executionTimes;
             this.totalMsWaiting = totalMsWaiting;
             this.totalMsExecuting = totalMsExecuting;
+            this.lastMsExecuting = lastMsExecuting;
             this.errors = errors;
         }
 
         public Data newData(long timeWaiting, long timeExcuting, Exception e) {
             return new Data(executionTimes + 1, errors + (e != null ? 1 : 0),
                     totalMsWaiting + timeWaiting,
-                    totalMsExecuting + timeExcuting);
+                    totalMsExecuting + timeExcuting, timeExcuting);
         }
 
     }
@@ -267,7 +306,7 @@ class NotBlockingAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T> {
     private class ExecutionsReport {
 
         private AtomicReference<Data> data = new AtomicReference<Data>(
-                new Data(0, 0, 0, 0));
+                new Data(0, 0, 0, 0, 0));
 
         public void newData(long timeWaiting, long timeExecuting,
                 Exception possibleError) {
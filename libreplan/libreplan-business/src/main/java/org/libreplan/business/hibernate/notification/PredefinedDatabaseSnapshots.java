@@ -26,10 +26,12 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
 
+import org.apache.commons.lang3.Validate;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.joda.time.LocalDate;
@@ -49,13 +51,16 @@ import org.libreplan.business.labels.entities.Label;
 import org.libreplan.business.labels.entities.LabelType;
 import org.libreplan.business.orders.daos.IOrderDAO;
 import org.libreplan.business.orders.entities.Order;
+import org.libreplan.business.orders.entities.OrderElement;
+import org.libreplan.business.planner.chart.DayAssignmentsColumns;
 import org.libreplan.business.planner.chart.ResourceLoadChartData;
 import org.libreplan.business.planner.daos.IDayAssignmentDAO;
 import org.libreplan.business.planner.daos.ITaskElementDAO;
-import org.libreplan.business.planner.entities.DayAssignment;
+import org.libreplan.business.planner.entities.GenericDayAssignment;
 import org.libreplan.business.planner.entities.GenericResourceAllocation;
 import org.libreplan.business.planner.entities.ICostCalculator;
 import org.libreplan.business.planner.entities.ResourceAllocation;
+import org.libreplan.business.planner.entities.SpecificDayAssignment;
 import org.libreplan.business.planner.entities.SpecificResourceAllocation;
 import org.libreplan.business.planner.entities.Task;
 import org.libreplan.business.planner.entities.TaskElement;
@@ -223,6 +228,7 @@ public class PredefinedDatabaseSnapshots {
         }
 
         snapshotsRegistered = true;
+        registerAffectedEntitiesResolvers();
         criterionsMap = snapshot("criterions map", calculateCriterionsMap(), CriterionType.class, Criterion.class);
         labelsMap = snapshot("labels map", calculateLabelsMap(), LabelType.class, Label.class);
         listWorkers = snapshot("workers", calculateWorkers(), Worker.class);
@@ -252,19 +258,23 @@ public class PredefinedDatabaseSnapshots {
                 GenericResourceAllocation.class,
                 ResourceAllocation.class);
 
-        workReportLines = snapshot("work report lines", calculateWorkReportLines(), WorkReportLine.class);
+        workReportLines = snapshot(
+                "work report lines", calculateWorkReportLines(), updateWorkReportLines(), WorkReportLine.class);
 
         estimatedCostPerTask = snapshot(
                 "estimated cost per task",
                 calculateEstimatedCostPerTask(),
+                updateEstimatedCostPerTask(),
                 TaskElement.class,
                 Task.class,
                 TaskGroup.class,
-                DayAssignment.class);
+                SpecificDayAssignment.class,
+                GenericDayAssignment.class);
 
         advanceCostPerTask = snapshot(
                 "advance cost per task",
                 calculateAdvanceCostPerTask(),
+                updateAdvanceCostPerTask(),
                 TaskElement.class,
                 Task.class,
                 TaskGroup.class,
@@ -276,11 +286,32 @@ public class PredefinedDatabaseSnapshots {
                 .takeSnapshot(name, callableOnReadOnlyTransaction(callable), ReloadOn.onChangeOf(reloadOnChangesOf));
     }
 
+    private <T> IAutoUpdatedSnapshot<T> snapshot(String name,
+                                                 Callable<T> callable,
+                                                 ISnapshotDeltaUpdater<T> deltaUpdater,
+                                                 Class<?>... reloadOnChangesOf) {
+
+        return snapshotRefresherService.takeSnapshot(
+                name,
+                callableOnReadOnlyTransaction(callable),
+                deltaUpdaterOnReadOnlyTransaction(deltaUpdater),
+                ReloadOn.onChangeOf(reloadOnChangesOf));
+    }
+
     @SuppressWarnings("unchecked")
     private <T> Callable<T> callableOnReadOnlyTransaction(Callable<T> callable) {
         return AdHocTransactionService.readOnlyProxy(transactionService, Callable.class, callable);
     }
 
+    @SuppressWarnings("unchecked")
+    private <T> ISnapshotDeltaUpdater<T> deltaUpdaterOnReadOnlyTransaction(ISnapshotDeltaUpdater<T> deltaUpdater) {
+        return AdHocTransactionService.readOnlyProxy(transactionService, ISnapshotDeltaUpdater.class, deltaUpdater);
+    }
+
+    public List<SnapshotStatistics> getSnapshotsStatistics() {
+        return snapshotRefresherService.getStatistics();
+    }
+
     private Callable<SortedMap<CriterionType, List<Criterion>>> calculateCriterionsMap() {
         return () -> {
             SortedMap<CriterionType, List<Criterion>> result = new TreeMap<>(getComparatorByName());
@@ -362,7 +393,8 @@ public class PredefinedDatabaseSnapshots {
 
     private Callable<ResourceLoadChartData> calculateResourceLoadChartData() {
         return () -> {
-            List<DayAssignment> dayAssignments = dayAssignmentDAO.getAllFor(scenarioManager.getCurrent(), null, null);
+            DayAssignmentsColumns dayAssignments =
+                    DayAssignmentsColumns.create(dayAssignmentDAO.getAllFor(scenarioManager.getCurrent(), null, null));
             List<Resource> resources = resourceDAO.list(Resource.class);
             return new ResourceLoadChartData(dayAssignments, resources);
 
@@ -373,6 +405,25 @@ public class PredefinedDatabaseSnapshots {
         return () -> workReportLineDAO.list(WorkReportLine.class);
     }
 
+    private ISnapshotDeltaUpdater<List<WorkReportLine>> updateWorkReportLines() {
+        return (previous, changes) -> {
+            if ( changes.hasUnknownIds(WorkReportLine.class) ) {
+                return null;
+            }
+
+            Set<Long> changed = changes.getChangedIds(WorkReportLine.class);
+            List<WorkReportLine> result = new ArrayList<>(previous.size());
+            for (WorkReportLine each : previous) {
+                if ( !changed.contains(each.getId()) ) {
+                    result.add(each);
+                }
+            }
+            result.addAll(workReportLineDAO.findByIds(changes.getModifiedIds(WorkReportLine.class)));
+
+            return result;
+        };
+    }
+
 
 
     private Callable<Map<TaskElement, SortedMap<LocalDate, BigDecimal>>> calculateEstimatedCostPerTask() {
@@ -389,6 +440,54 @@ public class PredefinedDatabaseSnapshots {
         };
     }
 
+    /**
+     * The estimated cost of a task changes with the day assignments of its
+     * not derived allocations
+     */
+    private ISnapshotDeltaUpdater<Map<TaskElement, SortedMap<LocalDate, BigDecimal>>> updateEstimatedCostPerTask() {
+        return new CostPerTaskDeltaUpdater(
+                hoursCostCalculator::getEstimatedCost,
+                taskElementDAO::findByIds,
+                changes -> changes.getAffectedIds(Task.class),
+                SpecificDayAssignment.class,
+                GenericDayAssignment.class);
+    }
+
+    /**
+     * The advance cost of a task changes with the advance assignments of its
+     * order element, that also change the advances of its ancestors
+     */
+    private ISnapshotDeltaUpdater<Map<TaskElement, SortedMap<LocalDate, BigDecimal>>> updateAdvanceCostPerTask() {
+        return new CostPerTaskDeltaUpdater(
+                hoursCostCalculator::getAdvanceCost,
+                taskElementDAO::findByIds,
+                changes -> taskElementDAO.findIdsOfTasksOfOrderElementsAndAncestors(
+                        changes.getAffectedIds(OrderElement.class)),
+                DirectAdvanceAssignment.class);
+    }
+
+    private void registerAffectedEntitiesResolvers() {
+        snapshotRefresherService.addAffectedEntitiesResolver(SpecificDayAssignment.class,
+                (dayAssignment, changes) -> recordTaskOf(dayAssignment.getSpecificResourceAllocation(), changes));
+
+        snapshotRefresherService.addAffectedEntitiesResolver(GenericDayAssignment.class,
+                (dayAssignment, changes) -> recordTaskOf(dayAssignment.getGenericResourceAllocation(), changes));
+
+        snapshotRefresherService.addAffectedEntitiesResolver(DirectAdvanceAssignment.class,
+                (advanceAssignment, changes) -> {
+                    OrderElement orderElement = advanceAssignment.getOrderElement();
+                    Validate.isTrue(orderElement != null && orderElement.getId() != null,
+                            "the order element of the advance assignment is unknown");
+                    changes.affected(OrderElement.class, orderElement.getId());
+                });
+    }
+
+    private static void recordTaskOf(ResourceAllocation<?> allocation, EntityChanges changes) {
+        Task task = allocation != null ? allocation.getTask() : null;
+        Validate.isTrue(task != null && task.getId() != null, "the task of the allocation is unknown");
+        changes.affected(Task.class, task.getId());
+    }
+
     private Callable<Map<TaskElement, SortedMap<LocalDate, BigDecimal>>> calculateAdvanceCostPerTask() {
         return () -> {
             Map<TaskElement, SortedMap<LocalDate, BigDecimal>> map = new HashMap<>();
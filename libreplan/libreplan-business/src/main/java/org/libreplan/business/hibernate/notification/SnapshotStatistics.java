@@ -0,0 +1,104 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.libreplan.business.hibernate.notification;
+
+/**
+ * Statistics about the calculations of a snapshot.
+ */
+public class SnapshotStatistics {
+
+    private final String name;
+
+    private final int calculations;
+
+    private final int deltaUpdates;
+
+    private final int errors;
+
+    private final long totalMsExecuting;
+
+    private final long lastMsExecuting;
+
+    private final long msStale;
+
+    SnapshotStatistics(String name, int calculations, int deltaUpdates, int errors,
+                       long totalMsExecuting, long lastMsExecuting, long msStale) {
+        this.name = name;
+        this.calculations = calculations;
+        this.deltaUpdates = deltaUpdates;
+        this.errors = errors;
+        this.totalMsExecuting = totalMsExecuting;
+        this.lastMsExecuting = lastMsExecuting;
+        this.msStale = msStale;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return how many times the snapshot has been calculated from scratch
+     */
+    public int getCalculations() {
+        return calculations;
+    }
+
+    /**
+     * @return how many times the snapshot has been updated applying the
+     *         changes to the previous value
+     */
+    public int getDeltaUpdates() {
+        return deltaUpdates;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    public long getTotalMsExecuting() {
+        return totalMsExecuting;
+    }
+
+    public long getLastMsExecuting() {
+        return lastMsExecuting;
+    }
+
+    public long getMeanMsExecuting() {
+        int executions = calculations + deltaUpdates;
+
+        return executions == 0 ? 0 : totalMsExecuting / executions;
+    }
+
+    /**
+     * @return the milliseconds since the oldest modification not reflected yet
+     *         on the value of the snapshot. It's zero if the value is up to
+     *         date
+     */
+    public long getMsStale() {
+        return msStale;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + calculations + " calculations, " + deltaUpdates + " delta updates, " + errors +
+                " errors, mean " + getMeanMsExecuting() + " ms, last " + lastMsExecuting + " ms, stale " + msStale +
+                " ms";
+    }
+
+}
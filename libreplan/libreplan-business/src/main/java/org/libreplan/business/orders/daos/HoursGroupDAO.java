@@ -97,15 +97,16 @@ public class HoursGroupDAO extends IntegrationEntityDAO<HoursGroup>
     @Transactional(readOnly= true, propagation = Propagation.REQUIRES_NEW)
     public HoursGroup findRepeatedHoursGroupCodeInDB(List<HoursGroup> hoursGroupList) {
         final Map<String, HoursGroup> hoursGroups = createMapByCode(hoursGroupList);
-        final Map<String, HoursGroup> hoursGroupsInDB = createMapByCode(getAll());
+        if (hoursGroups.isEmpty()) {
+            return null;
+        }
 
-        for (String code : hoursGroups.keySet()) {
-            HoursGroup hoursGroup = hoursGroups.get(code);
-            HoursGroup hoursGroupInDB = hoursGroupsInDB.get(code);
+        for (HoursGroup hoursGroupInDB : findByCodes(hoursGroups.keySet())) {
+            HoursGroup hoursGroup = hoursGroups.get(hoursGroupInDB.getCode());
 
             // There's an element in the DB with the same code and it's a
             // different element
-            if (hoursGroupInDB != null
+            if (hoursGroup != null
                     && !hoursGroupInDB.getId().equals(hoursGroup.getId())) {
                 return hoursGroup;
             }
@@ -113,15 +114,13 @@ public class HoursGroupDAO extends IntegrationEntityDAO<HoursGroup>
         return null;
     }
 
-    private List<HoursGroup> getAll() {
-        return list(HoursGroup.class);
-    }
-
     private Map<String, HoursGroup> createMapByCode(List<HoursGroup> hoursGroups) {
         Map<String, HoursGroup> result = new HashMap<String, HoursGroup>();
         for (HoursGroup each: hoursGroups) {
             final String code = each.getCode();
-            result.put(code, each);
+            if (code != null) {
+                result.put(code, each);
+            }
         }
         return result;
     }
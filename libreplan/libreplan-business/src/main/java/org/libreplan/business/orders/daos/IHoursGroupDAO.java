@@ -42,7 +42,8 @@ public interface IHoursGroupDAO extends IIntegrationEntityDAO<HoursGroup> {
 
     /**
      * Checks if there's another {@link HoursGroup} in DB which code is the same as
-     * some of the ones in order.hoursGroups
+     * some of the ones in order.hoursGroups. Only the codes received are
+     * queried.
      *
      * @param order
      * @return
@@ -21,6 +21,7 @@
 
 package org.libreplan.business.orders.daos;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -88,6 +89,17 @@ public interface IOrderDAO extends IIntegrationEntityDAO<Order> {
             List<Label> labels, List<Criterion> criteria,
             ExternalCompany customer, OrderStatusEnum state, Boolean excludeFinishedProject);
 
+    /**
+     * Returns the ids of the orders that
+     * {@link #getOrdersByReadAuthorizationBetweenDatesByLabelsCriteriaCustomerAndState}
+     * returns, in the same order, but without loading them. Useful to load
+     * just some of them afterwards with {@link #findByIds}.
+     */
+    List<Long> getOrdersIdsByReadAuthorizationBetweenDatesByLabelsCriteriaCustomerAndState(
+            String username, Scenario scenario, Date startDate, Date endDate,
+            List<Label> labels, List<Criterion> criteria,
+            ExternalCompany customer, OrderStatusEnum state, Boolean excludeFinishedProject);
+
     /**
      * Returns the order filtered by the name.
      * If name is blank (whitespace, empty ("") or null, it throws <code>InstanceNotFoundException</code>.
@@ -120,4 +132,18 @@ public interface IOrderDAO extends IIntegrationEntityDAO<Order> {
      */
     List<Order> getOrdersWithNotEmptyCustomersReferences();
 
+    /**
+     * Like {@link #findAfter(Long, int)} but only with the orders saved since
+     * <code>modifiedSince</code>. Orders without last modification date are
+     * always included, as it's unknown when they were modified.
+     */
+    List<Order> getOrdersModifiedSinceAfter(Date modifiedSince, Long lastId, int maxResults);
+
+    /**
+     * Sets the last modification date of the orders. It's updated directly in
+     * the database, so the orders loaded in the session keep their previous
+     * date.
+     */
+    void updateLastModified(Collection<Long> orderIds, Date lastModified);
+
 }
@@ -22,6 +22,7 @@
 package org.libreplan.business.orders.daos;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -118,13 +119,15 @@ public interface IOrderElementDAO extends IIntegrationEntityDAO<OrderElement> {
     Set<String> getAllCodesExcluding(List<OrderElement> orderElements);
 
     /**
-     * Checks if there's another {@link OrderElement} in DB which code is the same as
-     * some of the ones in order (and its children)
+     * Checks if there's another {@link OrderElement} of a different order in
+     * DB which code is the same as some of the ones received. Only the codes
+     * received are queried.
      *
-     * @param order
-     * @return
+     * @param orderElements
+     * @return the {@link OrderElement} with the repeated code or
+     *         <code>null</code> if there isn't any
      */
-    OrderElement findRepeatedOrderCodeInDB(OrderElement order);
+    OrderElement findRepeatedOrderCodeInDB(Collection<? extends OrderElement> orderElements);
 
     boolean hasImputedExpenseSheet(Long id) throws InstanceNotFoundException;
 
@@ -22,19 +22,24 @@ package org.libreplan.business.orders.daos;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Criteria;
 import org.hibernate.Query;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.joda.time.LocalDate;
 import org.libreplan.business.common.IAdHocTransactionService;
 import org.libreplan.business.common.IOnTransaction;
 import org.libreplan.business.common.daos.IntegrationEntityDAO;
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
+import org.libreplan.business.common.exceptions.ValidationException;
 import org.libreplan.business.costcategories.daos.CostCategoryDAO;
 import org.libreplan.business.costcategories.daos.ITypeOfWorkHoursDAO;
 import org.libreplan.business.costcategories.entities.TypeOfWorkHours;
@@ -234,14 +239,34 @@ public class OrderDAO extends IntegrationEntityDAO<Order> implements IOrderDAO {
             OrderStatusEnum state,
             Boolean excludeFinishedProject) {
 
+        Criteria c = createCriteriaByReadAuthorizationBetweenDatesByLabelsCriteriaCustomerAndState(
+                user, startDate, endDate, labels, criteria, customer, state, excludeFinishedProject);
+
+        return c == null ? Collections.<Order> emptyList() : c.list();
+    }
+
+    /**
+     * Returns <code>null</code> if it's already known that no order passes the
+     * filters.
+     */
+    private Criteria createCriteriaByReadAuthorizationBetweenDatesByLabelsCriteriaCustomerAndState(
+            User user,
+            Date startDate,
+            Date endDate,
+            List<Label> labels,
+            List<Criterion> criteria,
+            ExternalCompany customer,
+            OrderStatusEnum state,
+            Boolean excludeFinishedProject) {
+
         List<Long> ordersIdsFiltered = getOrdersIdsFiltered(user, labels, criteria, customer, state, excludeFinishedProject);
         if (ordersIdsFiltered != null && ordersIdsFiltered.isEmpty()) {
-            return Collections.emptyList();
+            return null;
         }
 
         List<Long> ordersIdsByDates = getOrdersIdsByDates(startDate, endDate);
         if (ordersIdsByDates != null && ordersIdsByDates.isEmpty()) {
-            return Collections.emptyList();
+            return null;
         }
 
         List<Long> ordersIdsUnscheduled = getOrdersIdsUnscheduled(startDate, endDate);
@@ -274,7 +299,7 @@ public class OrderDAO extends IntegrationEntityDAO<Order> implements IOrderDAO {
         c.addOrder(org.hibernate.criterion.Order.desc("initDate"));
         c.addOrder(org.hibernate.criterion.Order.asc("infoComponent.name"));
 
-        return c.list();
+        return c;
     }
 
     private List<Long> getOrdersIdsUnscheduled(Date startDate, Date endDate) {
@@ -519,6 +544,59 @@ public class OrderDAO extends IntegrationEntityDAO<Order> implements IOrderDAO {
                 .list();
     }
 
+    /**
+     * The last modification date is updated every time an order is saved.
+     */
+    @Override
+    public void save(Order order) throws ValidationException {
+        order.setLastModified(new Date());
+        super.save(order);
+    }
+
+    @Override
+    public void saveWithoutValidating(Order order) {
+        order.setLastModified(new Date());
+        super.saveWithoutValidating(order);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    @Transactional(readOnly = true)
+    public List<Order> getOrdersModifiedSinceAfter(Date modifiedSince, Long lastId, int maxResults) {
+        Criteria criteria = getSession().createCriteria(getEntityClass()).add(Restrictions.or(
+                Restrictions.isNull("lastModified"),
+                Restrictions.ge("lastModified", modifiedSince)));
+
+        if ( lastId != null ) {
+            criteria.add(Restrictions.gt("id", lastId));
+        }
+
+        return criteria.addOrder(org.hibernate.criterion.Order.asc("id")).setMaxResults(maxResults).list();
+    }
+
+    @Override
+    public void updateLastModified(Collection<Long> orderIds, Date lastModified) {
+        if ( orderIds.isEmpty() ) {
+            return;
+        }
+
+        /* A native query avoids the temporary tables Hibernate uses to update
+         * joined subclasses. Declaring the entity only invalidates its cache
+         * region, instead of the whole second level and query caches */
+        getSession()
+                .createSQLQuery("update order_table set last_modified = :lastModified " +
+                        "where order_element_id in (:ids)")
+                .addSynchronizedEntityClass(Order.class)
+                .setTimestamp("lastModified", lastModified)
+                .setParameterList("ids", orderIds)
+                .executeUpdate();
+    }
+
+    @Override
+    protected String getCodeProperty() {
+        return "infoComponent.code";
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     @Transactional(readOnly = true)
@@ -574,6 +652,46 @@ public class OrderDAO extends IntegrationEntityDAO<Order> implements IOrderDAO {
                 user, startDate, endDate, labels, criteria, customer, state, excludeFinishedProject), scenario);
     }
 
+    @Override
+    public List<Long> getOrdersIdsByReadAuthorizationBetweenDatesByLabelsCriteriaCustomerAndState(
+            String username,
+            Scenario scenario,
+            Date startDate,
+            Date endDate,
+            List<Label> labels,
+            List<Criterion> criteria,
+            ExternalCompany customer,
+            OrderStatusEnum state,
+            Boolean excludeFinishedProject) {
+
+        User user;
+        try {
+            user = userDAO.findByLoginName(username);
+        } catch (InstanceNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+
+        Criteria c = createCriteriaByReadAuthorizationBetweenDatesByLabelsCriteriaCustomerAndState(
+                user, startDate, endDate, labels, criteria, customer, state, excludeFinishedProject);
+        if (c == null) {
+            return Collections.emptyList();
+        }
+        c.setProjection(Projections.id());
+
+        Set<Long> idsInScenario = new HashSet<>();
+        for (Order each : scenario.getOrders().keySet()) {
+            idsInScenario.add(each.getId());
+        }
+
+        List<Long> result = new ArrayList<>();
+        for (Long each : (List<Long>) c.list()) {
+            if (idsInScenario.contains(each)) {
+                result.add(each);
+            }
+        }
+        return result;
+    }
+
     private List<Order> existsInScenario(List<Order> orders, Scenario scenario) {
         List<Order> result = new ArrayList<>();
         for (Order each : orders) {
@@ -25,6 +25,7 @@ import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -206,6 +207,11 @@ public class OrderElementDAO extends IntegrationEntityDAO<OrderElement> implemen
                 .list();
     }
 
+    @Override
+    protected String getCodeProperty() {
+        return "infoComponent.code";
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     @Transactional(readOnly = true)
@@ -460,17 +466,18 @@ public class OrderElementDAO extends IntegrationEntityDAO<OrderElement> implemen
 
     @Override
     @Transactional(readOnly= true, propagation = Propagation.REQUIRES_NEW)
-    public OrderElement findRepeatedOrderCodeInDB(OrderElement order) {
-        final Map<String, OrderElement> orderElements = createMapByCode(getOrderAndAllChildren(order));
-        final Map<String, OrderElement> orderElementsInDB = createMapByCode(getAll());
+    public OrderElement findRepeatedOrderCodeInDB(Collection<? extends OrderElement> orderElements) {
+        final Map<String, OrderElement> byCode = createMapByCode(orderElements);
+        if ( byCode.isEmpty() ) {
+            return null;
+        }
         boolean condition;
 
-        for (String code : orderElements.keySet()) {
-            OrderElement orderElement = orderElements.get(code);
-            OrderElement orderElementInDB = orderElementsInDB.get(code);
+        for (OrderElement orderElementInDB : findByCodes(byCode.keySet())) {
+            OrderElement orderElement = byCode.get(orderElementInDB.getCode());
 
             // There is an element in the DB with the same code and it's a different element in a different order
-            condition = orderElementInDB != null &&
+            condition = orderElement != null &&
                     !orderElementInDB.getId().equals(orderElement.getId()) &&
                     !orderElementInDB.getOrder().getId().equals(orderElement.getOrder().getId());
 
@@ -481,19 +488,13 @@ public class OrderElementDAO extends IntegrationEntityDAO<OrderElement> implemen
         return null;
     }
 
-    private List<OrderElement> getOrderAndAllChildren(OrderElement order) {
-        List<OrderElement> result = new ArrayList<>();
-        result.add(order);
-        result.addAll(order.getAllChildren());
-
-        return result;
-    }
-
-    private Map<String, OrderElement> createMapByCode(List<OrderElement> orderElements) {
+    private Map<String, OrderElement> createMapByCode(Collection<? extends OrderElement> orderElements) {
         Map<String, OrderElement> result = new HashMap<>();
         for (OrderElement each: orderElements) {
             final String code = each.getCode();
-            result.put(code, each);
+            if ( code != null ) {
+                result.put(code, each);
+            }
         }
         return result;
     }
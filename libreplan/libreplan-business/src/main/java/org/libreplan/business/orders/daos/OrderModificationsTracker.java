@@ -0,0 +1,195 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.business.orders.daos;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PostConstruct;
+import javax.transaction.Synchronization;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.libreplan.business.advance.entities.AdvanceAssignment;
+import org.libreplan.business.advance.entities.AdvanceMeasurement;
+import org.libreplan.business.orders.entities.HoursGroup;
+import org.libreplan.business.orders.entities.Order;
+import org.libreplan.business.orders.entities.OrderElement;
+import org.libreplan.business.requirements.entities.CriterionRequirement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+/**
+ * Updates the last modification date of the {@link Order orders} whose tree
+ * is changed by a transaction, whatever DAO it's saved through. The order
+ * elements, hours groups, criterion requirements and progress of the tree are
+ * considered, as the advance assignments are not owned by their order
+ * element, so changing them doesn't update it.
+ * <p>
+ * The orders are found walking up the trees in memory, as the parents are
+ * always loaded. The date is set just before the transaction commits, so it's
+ * not updated if it's rolled back. Without a transaction the changes are not
+ * tracked.
+ * </p>
+ */
+@Component
+@Scope(BeanDefinition.SCOPE_SINGLETON)
+public class OrderModificationsTracker implements
+        PostInsertEventListener,
+        PostUpdateEventListener,
+        PostDeleteEventListener {
+
+    /**
+     * The orders changed by a transaction
+     */
+    private final class TransactionChanges implements Synchronization {
+
+        private final Transaction transaction;
+
+        private final Set<Long> orderIds = new HashSet<>();
+
+        private TransactionChanges(Transaction transaction) {
+            this.transaction = transaction;
+        }
+
+        @Override
+        public void beforeCompletion() {
+            orderDAO.updateLastModified(orderIds, new Date());
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            pending.remove(transaction);
+        }
+
+    }
+
+    private final ConcurrentMap<Transaction, TransactionChanges> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private IOrderDAO orderDAO;
+
+    @PostConstruct
+    private void registerListeners() {
+        EventListenerRegistry registry = ((SessionFactoryImpl) sessionFactory)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event, event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event, event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event, event.getEntity());
+    }
+
+    private void changed(AbstractEvent event, Object entity) {
+        Set<Long> changedIds = new HashSet<>();
+        if ( entity instanceof OrderElement ) {
+            /* A removed order element may be detached from its parent, but
+             * then the children of the parent are updated too */
+            addOrderOf(changedIds, (OrderElement) entity);
+        } else if ( entity instanceof HoursGroup ) {
+            addOrderOf(changedIds, ((HoursGroup) entity).getParentOrderLine());
+        } else if ( entity instanceof CriterionRequirement ) {
+            CriterionRequirement requirement = (CriterionRequirement) entity;
+            addOrderOf(changedIds, requirement.getOrderElement());
+            if ( requirement.getHoursGroup() != null ) {
+                addOrderOf(changedIds, requirement.getHoursGroup().getParentOrderLine());
+            }
+        } else if ( entity instanceof AdvanceAssignment ) {
+            addOrderOf(changedIds, ((AdvanceAssignment) entity).getOrderElement());
+        } else if ( entity instanceof AdvanceMeasurement ) {
+            AdvanceAssignment advanceAssignment = ((AdvanceMeasurement) entity).getAdvanceAssignment();
+            if ( advanceAssignment != null ) {
+                addOrderOf(changedIds, advanceAssignment.getOrderElement());
+            }
+        }
+
+        if ( !changedIds.isEmpty() ) {
+            TransactionChanges changes = changesOn(event.getSession().getTransaction());
+            if ( changes != null ) {
+                changes.orderIds.addAll(changedIds);
+            }
+        }
+    }
+
+    private static void addOrderOf(Set<Long> ids, OrderElement orderElement) {
+        Order order = orderElement == null ? null : orderElement.getOrder();
+        if ( order != null && order.getId() != null ) {
+            ids.add(order.getId());
+        }
+    }
+
+    /**
+     * @return <code>null</code> if there is no transaction
+     */
+    private TransactionChanges changesOn(Transaction transaction) {
+        if ( transaction == null ) {
+            return null;
+        }
+        TransactionChanges newChanges = new TransactionChanges(transaction);
+        TransactionChanges previous = pending.putIfAbsent(transaction, newChanges);
+        if ( previous != null ) {
+            return previous;
+        }
+        transaction.registerSynchronization(newChanges);
+
+        return newChanges;
+    }
+
+}
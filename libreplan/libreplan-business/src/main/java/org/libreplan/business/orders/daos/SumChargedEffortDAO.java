@@ -37,6 +37,7 @@ import org.libreplan.business.orders.entities.Order;
 import org.libreplan.business.orders.entities.OrderElement;
 import org.libreplan.business.orders.entities.OrderLineGroup;
 import org.libreplan.business.orders.entities.SumChargedEffort;
+import org.libreplan.business.orders.entities.SumChargedEffortDeltas;
 import org.libreplan.business.util.Pair;
 import org.libreplan.business.workingday.EffortDuration;
 import org.libreplan.business.workreports.daos.IWorkReportLineDAO;
@@ -73,170 +74,118 @@ public class SumChargedEffortDAO extends
     @Autowired
     private IOrderElementDAO orderElementDAO;
 
-    private Map<OrderElement, SumChargedEffort> mapSumChargedEfforts;
-
     @Override
     public void updateRelatedSumChargedEffortWithWorkReportLineSet(
             Set<WorkReportLine> workReportLineSet) {
-        resetMapSumChargedEfforts();
+        Map<Long, Pair<EffortDuration, OrderElement>> previousValues = findPreviousValues(workReportLineSet);
 
+        SumChargedEffortDeltas deltas = new SumChargedEffortDeltas();
         for (WorkReportLine workReportLine : workReportLineSet) {
-            updateRelatedSumChargedEffortWithAddedOrModifiedWorkReportLine(workReportLine);
+            Pair<EffortDuration, OrderElement> previous = previousValues
+                    .get(workReportLine.getId());
+            if (previous != null) {
+                deltas.subtract(previous.getSecond(), previous.getFirst());
+            }
+            deltas.add(workReportLine.getOrderElement(),
+                    workReportLine.getEffort());
         }
+
+        saveDeltas(deltas, new HashMap<>());
     }
 
-    private void updateRelatedSumChargedEffortWithAddedOrModifiedWorkReportLine(
-            final WorkReportLine workReportLine) {
-        boolean increase = true;
-        boolean sameOrderElement = true;
-        EffortDuration effort = workReportLine.getEffort();
-        OrderElement orderElement = workReportLine.getOrderElement();
-
-        EffortDuration previousEffort = null;
-        OrderElement previousOrderElement = null;
-
-        if (!workReportLine.isNewObject()) {
-            Pair<EffortDuration, OrderElement> previous = transactionService
-                    .runOnAnotherTransaction(new IOnTransaction<Pair<EffortDuration, OrderElement>>() {
-                        @Override
-                        public Pair<EffortDuration, OrderElement> execute() {
+    /**
+     * Returns the effort and the {@link OrderElement} stored in the database
+     * for the lines already saved. They're retrieved in just one additional
+     * transaction, as the values in the current session are the modified ones.
+     */
+    private Map<Long, Pair<EffortDuration, OrderElement>> findPreviousValues(
+            Set<WorkReportLine> workReportLineSet) {
+        final Set<Long> ids = new HashSet<Long>();
+        for (WorkReportLine workReportLine : workReportLineSet) {
+            if (!workReportLine.isNewObject()) {
+                ids.add(workReportLine.getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        return transactionService
+                .runOnAnotherTransaction(new IOnTransaction<Map<Long, Pair<EffortDuration, OrderElement>>>() {
+                    @Override
+                    public Map<Long, Pair<EffortDuration, OrderElement>> execute() {
+                        Map<Long, Pair<EffortDuration, OrderElement>> result = new HashMap<>();
+                        for (Long id : ids) {
                             try {
                                 WorkReportLine line = workReportLineDAO
-                                        .find(workReportLine.getId());
+                                        .find(id);
 
                                 OrderElement orderElement = line
                                         .getOrderElement();
                                 forceLoadParents(orderElement);
 
-                                return Pair.create(line.getEffort(),
-                                        orderElement);
+                                result.put(id, Pair.create(line.getEffort(),
+                                        orderElement));
                             } catch (InstanceNotFoundException e) {
                                 throw new RuntimeException(e);
                             }
                         }
+                        return result;
+                    }
 
-                        private void forceLoadParents(OrderElement orderElement) {
-                            OrderLineGroup parent = orderElement.getParent();
-                            if (parent != null) {
-                                forceLoadParents(parent);
-                            }
+                    private void forceLoadParents(OrderElement orderElement) {
+                        OrderLineGroup parent = orderElement.getParent();
+                        if (parent != null) {
+                            forceLoadParents(parent);
                         }
+                    }
 
-                    });
-
-            previousEffort = previous.getFirst();
-            previousOrderElement = previous.getSecond();
-
-            sameOrderElement = orderElement.getId().equals(
-                    previousOrderElement.getId());
-        }
-
-        if (sameOrderElement) {
-            if (previousEffort != null) {
-                if (effort.compareTo(previousEffort) >= 0) {
-                    effort = effort.minus(previousEffort);
-                } else {
-                    increase = false;
-                    effort = previousEffort.minus(effort);
-                }
-            }
-
-            if (!effort.isZero()) {
-                if (increase) {
-                    addDirectChargedEffort(orderElement, effort);
-                } else {
-                    substractDirectChargedEffort(orderElement, effort);
-                }
-            }
-        } else {
-            substractDirectChargedEffort(previousOrderElement, previousEffort);
-            addDirectChargedEffort(orderElement, effort);
-        }
-    }
-
-    private void addDirectChargedEffort(OrderElement orderElement,
-            EffortDuration effort) {
-        SumChargedEffort sumChargedEffort = getByOrderElement(orderElement);
-
-        sumChargedEffort.addDirectChargedEffort(effort);
-        save(sumChargedEffort);
-
-        addInirectChargedEffortRecursively(orderElement.getParent(), effort);
+                });
     }
 
-    private void addInirectChargedEffortRecursively(OrderElement orderElement,
-            EffortDuration effort) {
-        if (orderElement != null) {
-            SumChargedEffort sumChargedEffort = getByOrderElement(orderElement);
-
-            sumChargedEffort.addIndirectChargedEffort(effort);
-            save(sumChargedEffort);
-
-            addInirectChargedEffortRecursively(orderElement.getParent(), effort);
+    private void saveDeltas(SumChargedEffortDeltas deltas,
+            final Map<OrderElement, SumChargedEffort> sums) {
+        for (SumChargedEffort each : deltas
+                .applyTo(orderElement -> getByOrderElement(sums, orderElement))) {
+            save(each);
         }
     }
 
     @Override
     public void updateRelatedSumChargedEffortWithDeletedWorkReportLineSet(
             Set<WorkReportLine> workReportLineSet) {
-        resetMapSumChargedEfforts();
-
+        SumChargedEffortDeltas deltas = new SumChargedEffortDeltas();
         for (WorkReportLine workReportLine : workReportLineSet) {
-            updateRelatedSumChargedEffortWithDeletedWorkReportLine(workReportLine);
-        }
-    }
+            if (workReportLine.isNewObject()) {
+                // If the line hasn't been saved, we have nothing to update
+                continue;
+            }
 
-    private void resetMapSumChargedEfforts() {
-        mapSumChargedEfforts = new HashMap<OrderElement, SumChargedEffort>();
-    }
+            // Refresh data from database, because of changes not saved are not
+            // useful for the following operations
+            sessionFactory.getCurrentSession().refresh(workReportLine);
 
-    private void updateRelatedSumChargedEffortWithDeletedWorkReportLine(
-            WorkReportLine workReportLine) {
-        if (workReportLine.isNewObject()) {
-            // If the line hasn't been saved, we have nothing to update
-            return;
+            deltas.subtract(workReportLine.getOrderElement(),
+                    workReportLine.getEffort());
         }
 
-        // Refresh data from database, because of changes not saved are not
-        // useful for the following operations
-        sessionFactory.getCurrentSession().refresh(workReportLine);
-
-        substractDirectChargedEffort(workReportLine.getOrderElement(),
-                workReportLine.getEffort());
-    }
-
-    private void substractDirectChargedEffort(OrderElement orderElement,
-            EffortDuration effort) {
-        SumChargedEffort sumChargedEffort = getByOrderElement(orderElement);
-
-        sumChargedEffort.subtractDirectChargedEffort(effort);
-        save(sumChargedEffort);
-
-        substractInirectChargedEffortRecursively(orderElement.getParent(),
-                effort);
-    }
-
-    private void substractInirectChargedEffortRecursively(OrderElement orderElement,
-            EffortDuration effort) {
-        if (orderElement != null) {
-            SumChargedEffort sumChargedEffort = getByOrderElement(orderElement);
-
-            sumChargedEffort.subtractIndirectChargedEffort(effort);
-            save(sumChargedEffort);
-
-            substractInirectChargedEffortRecursively(orderElement.getParent(), effort);
-        }
+        saveDeltas(deltas, new HashMap<>());
     }
 
-    private SumChargedEffort getByOrderElement(OrderElement orderElement) {
-        SumChargedEffort sumChargedEffort = mapSumChargedEfforts
-                .get(orderElement);
+    /**
+     * The {@link SumChargedEffort} objects already used are kept in
+     * <code>sums</code> during each operation. It's not a field as this DAO is
+     * used concurrently by several threads.
+     */
+    private SumChargedEffort getByOrderElement(
+            Map<OrderElement, SumChargedEffort> sums, OrderElement orderElement) {
+        SumChargedEffort sumChargedEffort = sums.get(orderElement);
         if (sumChargedEffort == null) {
             sumChargedEffort = findByOrderElement(orderElement);
             if (sumChargedEffort == null) {
                 sumChargedEffort = SumChargedEffort.create(orderElement);
             }
-            mapSumChargedEfforts.put(orderElement, sumChargedEffort);
+            sums.put(orderElement, sumChargedEffort);
         }
         return sumChargedEffort;
     }
@@ -253,27 +202,31 @@ public class SumChargedEffortDAO extends
     public void recalculateSumChargedEfforts(Long orderId) {
         try {
             Order order = orderDAO.find(orderId);
-            resetMapSumChargedEfforts();
-            resetSumChargedEffort(order);
-            calculateDirectChargedEffort(order);
-            calculateTimesheetData(order);
+            Map<OrderElement, SumChargedEffort> sums = new HashMap<>();
+            resetSumChargedEffort(sums, order);
+            SumChargedEffortDeltas deltas = new SumChargedEffortDeltas();
+            calculateDirectChargedEffort(deltas, order);
+            saveDeltas(deltas, sums);
+            calculateTimesheetData(sums, order);
         } catch (InstanceNotFoundException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private void resetSumChargedEffort(OrderElement orderElement) {
-        SumChargedEffort sumChargedEffort = getByOrderElement(orderElement);
+    private void resetSumChargedEffort(
+            Map<OrderElement, SumChargedEffort> sums, OrderElement orderElement) {
+        SumChargedEffort sumChargedEffort = getByOrderElement(sums, orderElement);
         sumChargedEffort.reset();
 
         for (OrderElement each : orderElement.getChildren()) {
-            resetSumChargedEffort(each);
+            resetSumChargedEffort(sums, each);
         }
     }
 
-    private void calculateDirectChargedEffort(OrderElement orderElement) {
+    private void calculateDirectChargedEffort(SumChargedEffortDeltas deltas,
+            OrderElement orderElement) {
         for (OrderElement each : orderElement.getChildren()) {
-            calculateDirectChargedEffort(each);
+            calculateDirectChargedEffort(deltas, each);
         }
 
         EffortDuration effort = EffortDuration.zero();
@@ -281,16 +234,17 @@ public class SumChargedEffortDAO extends
                 .findByOrderElement(orderElement)) {
             effort = effort.plus(line.getEffort());
         }
-        addDirectChargedEffort(orderElement, effort);
+        deltas.add(orderElement, effort);
     }
 
-    private void calculateTimesheetData(OrderElement orderElement) {
-        calculateTimesheetDatesAndChildren(orderElement);
-        calculateFinishedTimesheetsAndChildren(orderElement);
+    private void calculateTimesheetData(
+            Map<OrderElement, SumChargedEffort> sums, OrderElement orderElement) {
+        calculateTimesheetDatesAndChildren(sums, orderElement);
+        calculateFinishedTimesheetsAndChildren(sums, orderElement);
     }
 
     private Pair<Date, Date> calculateTimesheetDatesAndChildren(
-            OrderElement orderElement) {
+            Map<OrderElement, SumChargedEffort> sums, OrderElement orderElement) {
         Pair<Date, Date> minMax = workReportLineDAO
                 .findMinAndMaxDatesByOrderElement(orderElement);
 
@@ -301,7 +255,7 @@ public class SumChargedEffortDAO extends
         addIfNotNull(maxDates, minMax.getSecond());
 
         for (OrderElement child : orderElement.getChildren()) {
-            Pair<Date, Date> minMaxChild = calculateTimesheetDatesAndChildren(child);
+            Pair<Date, Date> minMaxChild = calculateTimesheetDatesAndChildren(sums, child);
             addIfNotNull(minDates, minMaxChild.getFirst());
             addIfNotNull(maxDates, minMaxChild.getSecond());
         }
@@ -310,7 +264,7 @@ public class SumChargedEffortDAO extends
                 minDates.isEmpty() ? null : Collections.min(minDates),
                 maxDates.isEmpty() ? null : Collections.max(maxDates));
 
-        SumChargedEffort sumChargedEffort = getByOrderElement(orderElement);
+        SumChargedEffort sumChargedEffort = getByOrderElement(sums, orderElement);
         sumChargedEffort.setTimesheetDates(result.getFirst(),
                 result.getSecond());
         save(sumChargedEffort);
@@ -325,16 +279,17 @@ public class SumChargedEffortDAO extends
     }
 
     private void calculateFinishedTimesheetsAndChildren(
-            OrderElement orderElement) {
-        calculateFinishedTimesheets(orderElement);
+            Map<OrderElement, SumChargedEffort> sums, OrderElement orderElement) {
+        calculateFinishedTimesheets(sums, orderElement);
 
         for (OrderElement child : orderElement.getChildren()) {
-            calculateFinishedTimesheetsAndChildren(child);
+            calculateFinishedTimesheetsAndChildren(sums, child);
         }
     }
 
-    private void calculateFinishedTimesheets(OrderElement orderElement) {
-        SumChargedEffort sumChargedEffort = getByOrderElement(orderElement);
+    private void calculateFinishedTimesheets(
+            Map<OrderElement, SumChargedEffort> sums, OrderElement orderElement) {
+        SumChargedEffort sumChargedEffort = getByOrderElement(sums, orderElement);
         sumChargedEffort.setFinishedTimesheets(workReportLineDAO
                 .isFinished(orderElement));
         save(sumChargedEffort);
@@ -393,11 +348,12 @@ public class SumChargedEffortDAO extends
     @Override
     @Transactional
     public void recalculateTimesheetData(Set<OrderElement> orderElements) {
+        Map<OrderElement, SumChargedEffort> sums = new HashMap<>();
         try {
             for (OrderElement orderElement : orderElements) {
-                saveTimesheetDatesRecursively(orderElementDAO.find(orderElement
+                saveTimesheetDatesRecursively(sums, orderElementDAO.find(orderElement
                         .getId()));
-                calculateFinishedTimesheets(orderElementDAO.find(orderElement
+                calculateFinishedTimesheets(sums, orderElementDAO.find(orderElement
                         .getId()));
             }
         } catch (InstanceNotFoundException e) {
@@ -405,14 +361,16 @@ public class SumChargedEffortDAO extends
         }
     }
 
-    private void saveTimesheetDatesRecursively(OrderElement orderElement) {
+    private void saveTimesheetDatesRecursively(
+            Map<OrderElement, SumChargedEffort> sums, OrderElement orderElement) {
         if (orderElement != null) {
-            saveTimesheetDates(orderElement);
-            saveTimesheetDatesRecursively(orderElement.getParent());
+            saveTimesheetDates(sums, orderElement);
+            saveTimesheetDatesRecursively(sums, orderElement.getParent());
         }
     }
 
-    private void saveTimesheetDates(OrderElement orderElement) {
+    private void saveTimesheetDates(
+            Map<OrderElement, SumChargedEffort> sums, OrderElement orderElement) {
         Pair<Date, Date> minMax = workReportLineDAO
                 .findMinAndMaxDatesByOrderElement(orderElement);
 
@@ -423,7 +381,7 @@ public class SumChargedEffortDAO extends
         addIfNotNull(maxDates, minMax.getSecond());
 
         for (OrderElement child : orderElement.getChildren()) {
-            SumChargedEffort childSumChargedEffort = getByOrderElement(child);
+            SumChargedEffort childSumChargedEffort = getByOrderElement(sums, child);
             addIfNotNull(minDates,
                     childSumChargedEffort.getFirstTimesheetDate());
             addIfNotNull(maxDates, childSumChargedEffort.getLastTimesheetDate());
@@ -433,7 +391,7 @@ public class SumChargedEffortDAO extends
                 : Collections.min(minDates), maxDates.isEmpty() ? null
                 : Collections.max(maxDates));
 
-        SumChargedEffort sumChargedEffort = getByOrderElement(orderElement);
+        SumChargedEffort sumChargedEffort = getByOrderElement(sums, orderElement);
         sumChargedEffort.setTimesheetDates(result.getFirst(),
                 result.getSecond());
         save(sumChargedEffort);
@@ -37,4 +37,10 @@ public interface ISumChargedEffortRecalculator {
      */
     void recalculate(Long orderId);
 
+    /**
+     * Returns the current queue depth and lag of the recalculations, besides
+     * the number of them done.
+     */
+    RecalculationStatistics getStatistics();
+
 }
@@ -125,6 +125,8 @@ public class Order extends OrderLineGroup implements Comparable {
 
     private Integer budgetMargin;
 
+    private Date lastModified;
+
 
     public Order() {
         /**
@@ -699,6 +701,19 @@ public class Order extends OrderLineGroup implements Comparable {
         this.budgetMargin = budgetMargin;
     }
 
+    /**
+     * @return when the order was saved for the last time. It's
+     *         <code>null</code> for the orders not saved since this information
+     *         is stored
+     */
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Date lastModified) {
+        this.lastModified = lastModified;
+    }
+
     @Override
     public boolean isOrder() {
         return true;
@@ -0,0 +1,125 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.orders.entities;
+
+/**
+ * Statistics about the recalculations done by
+ * {@link ISumChargedEffortRecalculator}.
+ */
+public class RecalculationStatistics {
+
+    private final int requests;
+
+    private final int coalescedRequests;
+
+    private final int recalculations;
+
+    private final int errors;
+
+    private final int queueDepth;
+
+    private final int running;
+
+    private final long msLag;
+
+    private final long lastMsWaiting;
+
+    private final long totalMsExecuting;
+
+    public RecalculationStatistics(int requests, int coalescedRequests, int recalculations, int errors,
+                                   int queueDepth, int running, long msLag, long lastMsWaiting,
+                                   long totalMsExecuting) {
+        this.requests = requests;
+        this.coalescedRequests = coalescedRequests;
+        this.recalculations = recalculations;
+        this.errors = errors;
+        this.queueDepth = queueDepth;
+        this.running = running;
+        this.msLag = msLag;
+        this.lastMsWaiting = lastMsWaiting;
+        this.totalMsExecuting = totalMsExecuting;
+    }
+
+    public int getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return how many requests have been merged with a previous one for the
+     *         same {@link Order} that was still waiting
+     */
+    public int getCoalescedRequests() {
+        return coalescedRequests;
+    }
+
+    public int getRecalculations() {
+        return recalculations;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the number of {@link Order Orders} waiting to be recalculated
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return the number of {@link Order Orders} being recalculated now
+     */
+    public int getRunning() {
+        return running;
+    }
+
+    /**
+     * @return the milliseconds since the oldest request not attended yet. It's
+     *         zero if there isn't any {@link Order} waiting
+     */
+    public long getMsLag() {
+        return msLag;
+    }
+
+    /**
+     * @return the milliseconds the last recalculation started was waiting
+     *         since it was requested
+     */
+    public long getLastMsWaiting() {
+        return lastMsWaiting;
+    }
+
+    public long getTotalMsExecuting() {
+        return totalMsExecuting;
+    }
+
+    public long getMeanMsExecuting() {
+        return recalculations == 0 ? 0 : totalMsExecuting / recalculations;
+    }
+
+    @Override
+    public String toString() {
+        return requests + " requests (" + coalescedRequests + " coalesced), " + recalculations +
+                " recalculations, " + errors + " errors, " + queueDepth + " waiting, " + running +
+                " running, lag " + msLag + " ms, mean " + getMeanMsExecuting() + " ms";
+    }
+
+}
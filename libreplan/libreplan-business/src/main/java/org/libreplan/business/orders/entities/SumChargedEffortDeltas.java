@@ -0,0 +1,157 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.orders.entities;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+import org.libreplan.business.workingday.EffortDuration;
+import org.libreplan.business.workreports.entities.WorkReportLine;
+
+/**
+ * Accumulates the changes in the effort charged to several
+ * {@link OrderElement OrderElements} in order to apply them to their
+ * {@link SumChargedEffort} objects at once.
+ * <p>
+ * The effort added or subtracted to an {@link OrderElement} is its direct
+ * charged effort and it's propagated as indirect charged effort to all its
+ * ancestors. The changes are kept as net deltas, so each {@link SumChargedEffort}
+ * is modified only once whatever the number of {@link WorkReportLine
+ * WorkReportLines} involved, and the lines that move effort between siblings
+ * don't modify their common ancestors.
+ * </p>
+ * <p>
+ * The elements are identified by their id, so the same element loaded in
+ * different sessions is considered only once.
+ * </p>
+ */
+public class SumChargedEffortDeltas {
+
+    private static class Delta {
+
+        private final OrderElement orderElement;
+
+        private long directSeconds = 0;
+
+        private long indirectSeconds = 0;
+
+        private Delta(OrderElement orderElement) {
+            this.orderElement = orderElement;
+        }
+
+        private boolean isZero() {
+            return directSeconds == 0 && indirectSeconds == 0;
+        }
+
+    }
+
+    private final Map<Object, Delta> deltas = new LinkedHashMap<>();
+
+    public void add(OrderElement orderElement, EffortDuration effort) {
+        propagate(orderElement, effort.getSeconds());
+    }
+
+    public void subtract(OrderElement orderElement, EffortDuration effort) {
+        propagate(orderElement, -effort.getSeconds());
+    }
+
+    private void propagate(OrderElement orderElement, long seconds) {
+        Validate.notNull(orderElement);
+        if ( seconds == 0 ) {
+            return;
+        }
+
+        getDelta(orderElement).directSeconds += seconds;
+        for (OrderElement each = orderElement.getParent(); each != null; each = each.getParent()) {
+            getDelta(each).indirectSeconds += seconds;
+        }
+    }
+
+    private Delta getDelta(OrderElement orderElement) {
+        Object key = orderElement.getId() != null ? orderElement.getId() : orderElement;
+        Delta result = deltas.get(key);
+        if ( result == null ) {
+            result = new Delta(orderElement);
+            deltas.put(key, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return <code>true</code> if there isn't any {@link SumChargedEffort} to
+     *         modify
+     */
+    public boolean isEmpty() {
+        for (Delta each : deltas.values()) {
+            if ( !each.isZero() ) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Applies the changes to the {@link SumChargedEffort} of each modified
+     * {@link OrderElement}, obtained with <code>sumChargedEffortFor</code>.
+     *
+     * @return the {@link SumChargedEffort} objects modified
+     */
+    public List<SumChargedEffort> applyTo(Function<OrderElement, SumChargedEffort> sumChargedEffortFor) {
+        List<SumChargedEffort> result = new ArrayList<>();
+        for (Delta each : deltas.values()) {
+            if ( each.isZero() ) {
+                continue;
+            }
+            SumChargedEffort sumChargedEffort = sumChargedEffortFor.apply(each.orderElement);
+            applyDirect(sumChargedEffort, each.directSeconds);
+            applyIndirect(sumChargedEffort, each.indirectSeconds);
+            result.add(sumChargedEffort);
+        }
+
+        return result;
+    }
+
+    private static void applyDirect(SumChargedEffort sumChargedEffort, long seconds) {
+        if ( seconds > 0 ) {
+            sumChargedEffort.addDirectChargedEffort(toEffort(seconds));
+        } else if ( seconds < 0 ) {
+            sumChargedEffort.subtractDirectChargedEffort(toEffort(-seconds));
+        }
+    }
+
+    private static void applyIndirect(SumChargedEffort sumChargedEffort, long seconds) {
+        if ( seconds > 0 ) {
+            sumChargedEffort.addIndirectChargedEffort(toEffort(seconds));
+        } else if ( seconds < 0 ) {
+            sumChargedEffort.subtractIndirectChargedEffort(toEffort(-seconds));
+        }
+    }
+
+    private static EffortDuration toEffort(long seconds) {
+        return EffortDuration.seconds(Math.toIntExact(seconds));
+    }
+
+}
@@ -16,11 +16,14 @@
  * You should have received a copy of the GNU Affero General Public License
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
-
 package org.libreplan.business.orders.entities;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -38,9 +41,14 @@ import org.springframework.stereotype.Component;
  * This is needed to be called when some elements are moved in the {@link Order}
  * .<br />
  *
- * This class uses a thread, in order to call one by one all the requests
- * received. Moreover, if there's any concurrency issue (because of some reports
- * were saving in the meanwhile) the recalculation is repeated again (with
+ * The recalculations of different orders are done in parallel using a pool of
+ * <code>POOL_SIZE</code> threads, but an order is never recalculated by two
+ * threads at the same time. The requests received for an order that is still
+ * waiting are merged with the previous one, and the ones received while it's
+ * being recalculated make it to be recalculated again afterwards.<br />
+ *
+ * Moreover, if there's any concurrency issue (because of some reports were
+ * saving in the meanwhile) the recalculation is repeated again (with
  * <code>MAX_ATTEMPS_BECAUSE_CONCURRENCY</code> as maximum) till it's performed
  * without concurrency problems.
  *
@@ -64,18 +72,76 @@ public class SumChargedEffortRecalculator implements
      */
     protected static final int MAX_ATTEMPS_BECAUSE_CONCURRENCY = 100;
 
-    @Autowired
-    private ISumChargedEffortDAO sumChargedEffortDAO;
+    /**
+     * Maximum number of orders recalculated at the same time.
+     */
+    protected static final int POOL_SIZE = Math.max(2, Math.min(4,
+            Runtime.getRuntime().availableProcessors()));
 
     /**
-     * Single thread executor in order to perform the recalculations one by one.
+     * State of an order with a recalculation requested or running.
      */
-    private ExecutorService executor = Executors.newSingleThreadExecutor();
+    private static class OrderState {
+
+        /**
+         * When the oldest request not attended was received, zero if there
+         * isn't any.
+         */
+        private long pendingSince;
+
+        private boolean running = false;
+
+        private OrderState(long pendingSince) {
+            this.pendingSince = pendingSince;
+        }
+
+    }
+
+    @Autowired
+    private ISumChargedEffortDAO sumChargedEffortDAO;
+
+    private final ExecutorService executor = createExecutor();
+
+    private static ExecutorService createExecutor() {
+        ThreadPoolExecutor result = new ThreadPoolExecutor(POOL_SIZE,
+                POOL_SIZE, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        result.allowCoreThreadTimeOut(true);
+        return result;
+    }
+
+    /* The following fields are guarded by this */
+
+    private final Map<Long, OrderState> states = new HashMap<>();
+
+    private int requests = 0;
+
+    private int coalescedRequests = 0;
+
+    private int recalculations = 0;
+
+    private int errors = 0;
+
+    private long lastMsWaiting = 0;
+
+    private long totalMsExecuting = 0;
 
     @Override
-    public void recalculate(Long orderId) {
-        LOG.info("Mark order (id=" + orderId + ") to be recalculated");
-        executor.execute(getRecalculationThread(orderId));
+    public synchronized void recalculate(Long orderId) {
+        requests++;
+        OrderState state = states.get(orderId);
+        if (state == null) {
+            LOG.info("Mark order (id=" + orderId + ") to be recalculated");
+            states.put(orderId, new OrderState(System.currentTimeMillis()));
+            executor.execute(getRecalculationThread(orderId));
+        } else if (state.pendingSince == 0) {
+            // It's running, it will be recalculated again when it finishes
+            LOG.info("Mark order (id=" + orderId
+                    + ") to be recalculated again");
+            state.pendingSince = System.currentTimeMillis();
+        } else {
+            coalescedRequests++;
+        }
     }
 
     private Runnable getRecalculationThread(final Long orderId) {
@@ -83,18 +149,25 @@ public class SumChargedEffortRecalculator implements
 
             @Override
             public void run() {
-                try {
-                    recalculateSumChargedEfforts(orderId);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
+                while (startRecalculation(orderId)) {
+                    long start = System.currentTimeMillis();
+                    boolean error = false;
+                    try {
+                        recalculateSumChargedEfforts(orderId, 0);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        error = true;
+                    } catch (RuntimeException e) {
+                        LOG.error("Error recalculating order (id=" + orderId
+                                + ")", e);
+                        error = true;
+                    } finally {
+                        finishRecalculation(orderId, error,
+                                System.currentTimeMillis() - start);
+                    }
                 }
             }
 
-            private void recalculateSumChargedEfforts(Long orderId)
-                    throws InterruptedException {
-                recalculateSumChargedEfforts(orderId, 0);
-            }
-
             private void recalculateSumChargedEfforts(Long orderId, int counter)
                     throws InterruptedException {
                 if (counter > MAX_ATTEMPS_BECAUSE_CONCURRENCY) {
@@ -120,4 +193,50 @@ public class SumChargedEffortRecalculator implements
         };
     }
 
+    /**
+     * @return <code>false</code> if there isn't any request waiting for the
+     *         order, so the thread can finish
+     */
+    private synchronized boolean startRecalculation(Long orderId) {
+        OrderState state = states.get(orderId);
+        if (state.pendingSince == 0 || Thread.currentThread().isInterrupted()) {
+            states.remove(orderId);
+            return false;
+        }
+        lastMsWaiting = System.currentTimeMillis() - state.pendingSince;
+        state.pendingSince = 0;
+        state.running = true;
+        return true;
+    }
+
+    private synchronized void finishRecalculation(Long orderId, boolean error,
+            long msExecuting) {
+        states.get(orderId).running = false;
+        recalculations++;
+        totalMsExecuting += msExecuting;
+        if (error) {
+            errors++;
+        }
+    }
+
+    @Override
+    public synchronized RecalculationStatistics getStatistics() {
+        long now = System.currentTimeMillis();
+        int queueDepth = 0;
+        int running = 0;
+        long msLag = 0;
+        for (OrderState each : states.values()) {
+            if (each.pendingSince != 0) {
+                queueDepth++;
+                msLag = Math.max(msLag, now - each.pendingSince);
+            }
+            if (each.running) {
+                running++;
+            }
+        }
+        return new RecalculationStatistics(requests, coalescedRequests,
+                recalculations, errors, queueDepth, running, msLag,
+                lastMsWaiting, totalMsExecuting);
+    }
+
 }
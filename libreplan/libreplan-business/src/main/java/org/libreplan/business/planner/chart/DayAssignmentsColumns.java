@@ -0,0 +1,304 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.planner.chart;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.libreplan.business.planner.entities.DayAssignment;
+import org.libreplan.business.resources.entities.Resource;
+
+/**
+ * Read only representation of a set of {@link DayAssignment} optimized for the
+ * resource load calculations.
+ * <p>
+ * The assignments are grouped by resource. For each resource there is a
+ * {@link Column} with the days with assignments, represented as days since
+ * {@link #EPOCH}, in ascending order and the seconds assigned on each of them.
+ * So sums on intervals and aggregations by day can be done without creating
+ * objects.
+ * </p>
+ *
+ * @see ResourceLoadChartData
+ */
+public class DayAssignmentsColumns {
+
+    public static final LocalDate EPOCH = new LocalDate(1970, 1, 1);
+
+    private static final long SECONDS_MASK = 0xFFFFFFFFL;
+
+    public static int toEpochDay(LocalDate day) {
+        return Days.daysBetween(EPOCH, day).getDays();
+    }
+
+    public static LocalDate fromEpochDay(int epochDay) {
+        return EPOCH.plusDays(epochDay);
+    }
+
+    public static DayAssignmentsColumns create(Collection<? extends DayAssignment> assignments) {
+        Map<Resource, Integer> indexes = new HashMap<>();
+        List<Resource> resources = new ArrayList<>();
+        int[] sizes = new int[assignments.size()];
+
+        for (DayAssignment each : assignments) {
+            Resource resource = each.getResource();
+            Integer index = indexes.get(resource);
+
+            if ( index == null ) {
+                index = resources.size();
+                indexes.put(resource, index);
+                resources.add(resource);
+            }
+            sizes[index]++;
+        }
+
+        /*
+         * The day is stored in the high bits and the seconds in the low ones,
+         * so sorting the values sorts them by day
+         */
+        long[][] dayAndSeconds = new long[resources.size()][];
+        for (int i = 0; i < dayAndSeconds.length; i++) {
+            dayAndSeconds[i] = new long[sizes[i]];
+            sizes[i] = 0;
+        }
+
+        for (DayAssignment each : assignments) {
+            int index = indexes.get(each.getResource());
+            long seconds = each.getDuration().getSeconds();
+            dayAndSeconds[index][sizes[index]++] = ((long) toEpochDay(each.getDay()) << 32) | seconds;
+        }
+
+        List<Column> columns = new ArrayList<>(resources.size());
+        for (int i = 0; i < dayAndSeconds.length; i++) {
+            columns.add(Column.create(resources.get(i), dayAndSeconds[i]));
+        }
+
+        return new DayAssignmentsColumns(columns);
+    }
+
+    /**
+     * The assignments of a resource aggregated by day.
+     */
+    public static class Column {
+
+        private static Column create(Resource resource, long[] dayAndSeconds) {
+            Arrays.sort(dayAndSeconds);
+
+            int[] days = new int[dayAndSeconds.length];
+            long[] seconds = new long[dayAndSeconds.length];
+            int size = 0;
+
+            for (long each : dayAndSeconds) {
+                int day = (int) (each >> 32);
+
+                if ( size == 0 || days[size - 1] != day ) {
+                    days[size++] = day;
+                }
+                seconds[size - 1] += each & SECONDS_MASK;
+            }
+
+            return new Column(resource, Arrays.copyOf(days, size), Arrays.copyOf(seconds, size));
+        }
+
+        private final Resource resource;
+
+        private final int[] days;
+
+        private final long[] seconds;
+
+        /**
+         * <code>accumulatedSeconds[i]</code> is the sum of the seconds of the
+         * days before the <code>i</code> position
+         */
+        private final long[] accumulatedSeconds;
+
+        private Column(Resource resource, int[] days, long[] seconds) {
+            this.resource = resource;
+            this.days = days;
+            this.seconds = seconds;
+            this.accumulatedSeconds = new long[seconds.length + 1];
+
+            for (int i = 0; i < seconds.length; i++) {
+                accumulatedSeconds[i + 1] = accumulatedSeconds[i] + seconds[i];
+            }
+        }
+
+        public Resource getResource() {
+            return resource;
+        }
+
+        /**
+         * @return the number of days with assignments
+         */
+        public int size() {
+            return days.length;
+        }
+
+        public int getDay(int position) {
+            return days[position];
+        }
+
+        public long getSeconds(int position) {
+            return seconds[position];
+        }
+
+        /**
+         * @return the position of the first day with assignments that is equal
+         *         or after <code>epochDay</code>. It's {@link #size()} if there
+         *         isn't such day
+         */
+        public int positionOf(int epochDay) {
+            int position = Arrays.binarySearch(days, epochDay);
+
+            return position >= 0 ? position : -position - 1;
+        }
+
+        public long sumSeconds(int startInclusive, int endExclusive) {
+            if ( startInclusive >= endExclusive ) {
+                return 0;
+            }
+
+            return accumulatedSeconds[positionOf(endExclusive)] - accumulatedSeconds[positionOf(startInclusive)];
+        }
+
+        public long getTotalSeconds() {
+            return accumulatedSeconds[seconds.length];
+        }
+
+    }
+
+    private final List<Column> columns;
+
+    private final Map<Resource, Column> byResource = new HashMap<>();
+
+    private final Map<Long, Column> byResourceId = new HashMap<>();
+
+    private final int firstDay;
+
+    private final int lastDay;
+
+    private DayAssignmentsColumns(List<Column> columns) {
+        this.columns = Collections.unmodifiableList(columns);
+
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+
+        for (Column each : columns) {
+            byResource.put(each.getResource(), each);
+
+            if ( each.getResource().getId() != null ) {
+                byResourceId.put(each.getResource().getId(), each);
+            }
+
+            if ( each.size() > 0 ) {
+                first = Math.min(first, each.getDay(0));
+                last = Math.max(last, each.getDay(each.size() - 1));
+            }
+        }
+
+        this.firstDay = first;
+        this.lastDay = last;
+    }
+
+    public boolean isEmpty() {
+        return firstDay > lastDay;
+    }
+
+    /**
+     * @return the first day with assignments as days since {@link #EPOCH}
+     * @throws IllegalStateException
+     *             if there are no assignments
+     */
+    public int getFirstDay() {
+        mustNotBeEmpty();
+
+        return firstDay;
+    }
+
+    /**
+     * @return the last day with assignments as days since {@link #EPOCH}
+     * @throws IllegalStateException
+     *             if there are no assignments
+     */
+    public int getLastDay() {
+        mustNotBeEmpty();
+
+        return lastDay;
+    }
+
+    private void mustNotBeEmpty() {
+        if ( isEmpty() ) {
+            throw new IllegalStateException("there are no assignments");
+        }
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the column for the resource or <code>null</code> if it has no
+     *         assignments
+     */
+    public Column getColumn(Resource resource) {
+        return byResource.get(resource);
+    }
+
+    /**
+     * @return the column for the resource with the provided id or
+     *         <code>null</code> if it has no assignments
+     */
+    public Column getColumn(Long resourceId) {
+        return byResourceId.get(resourceId);
+    }
+
+    public long sumSeconds(int startInclusive, int endExclusive) {
+        long result = 0;
+        for (Column each : columns) {
+            result += each.sumSeconds(startInclusive, endExclusive);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the seconds assigned to all the resources on each day of the
+     *         interval. The first position is <code>startInclusive</code>
+     */
+    public long[] secondsByDay(int startInclusive, int endExclusive) {
+        long[] result = new long[Math.max(0, endExclusive - startInclusive)];
+
+        for (Column each : columns) {
+            for (int i = each.positionOf(startInclusive); i < each.size() && each.getDay(i) < endExclusive; i++) {
+                result[each.getDay(i) - startInclusive] += each.getSeconds(i);
+            }
+        }
+
+        return result;
+    }
+
+}
@@ -22,22 +22,29 @@
 package org.libreplan.business.planner.chart;
 
 import static org.libreplan.business.planner.chart.ContiguousDaysLine.compound;
-import static org.libreplan.business.planner.chart.ContiguousDaysLine.sum;
-import static org.libreplan.business.planner.chart.ContiguousDaysLine.toSortedMap;
+import static org.libreplan.business.planner.chart.DayAssignmentsColumns.fromEpochDay;
+import static org.libreplan.business.planner.chart.DayAssignmentsColumns.toEpochDay;
 import static org.libreplan.business.workingday.EffortDuration.min;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.TreeMap;
 
 import org.joda.time.LocalDate;
+import org.libreplan.business.calendars.entities.BaseCalendar;
+import org.libreplan.business.calendars.entities.CalendarData;
+import org.libreplan.business.calendars.entities.CalendarException;
 import org.libreplan.business.hibernate.notification.PredefinedDatabaseSnapshots;
 import org.libreplan.business.planner.chart.ContiguousDaysLine.IValueTransformer;
+import org.libreplan.business.planner.chart.DayAssignmentsColumns.Column;
 import org.libreplan.business.planner.entities.DayAssignment;
 import org.libreplan.business.resources.entities.Resource;
 import org.libreplan.business.workingday.EffortDuration;
@@ -48,6 +55,12 @@ import org.libreplan.business.workingday.IntraDayDate.PartialDay;
  * This class groups the calculation of the three values needed for the chart of the company global resource load.
  * The purpose of the class is having these data pre-calculated to prevent heavy algorithms being
  * run each time the chart is shown.
+ * <p>
+ * The values are calculated lazily by windows of {@link #WINDOW_DAYS} days, so
+ * only the windows of the intervals requested with {@link #on(LocalDate, LocalDate)}
+ * are calculated. The last windows used are kept in a bounded cache, so
+ * scrolling the chart only calculates the windows that weren't shown recently.
+ * </p>
  *
  * @see PredefinedDatabaseSnapshots
  *
@@ -55,11 +68,52 @@ import org.libreplan.business.workingday.IntraDayDate.PartialDay;
  */
 public class ResourceLoadChartData implements ILoadChartData {
 
-    private SortedMap<LocalDate, EffortDuration> load;
+    public static final int WINDOW_DAYS = 64;
 
-    private SortedMap<LocalDate, EffortDuration> overload;
+    public static final int MAX_CACHED_WINDOWS = 32;
 
-    private SortedMap<LocalDate, EffortDuration> availability;
+    private static class Window {
+
+        private final ContiguousDaysLine<EffortDuration> load;
+
+        private final ContiguousDaysLine<EffortDuration> overload;
+
+        private final ContiguousDaysLine<EffortDuration> availability;
+
+        private Window(LocalDate startInclusive, LocalDate endExclusive) {
+            this.load = ContiguousDaysLine.create(startInclusive, endExclusive);
+            this.overload = ContiguousDaysLine.create(startInclusive, endExclusive);
+            this.availability = ContiguousDaysLine.create(startInclusive, endExclusive);
+        }
+
+    }
+
+    private interface ILineExtractor {
+
+        ContiguousDaysLine<EffortDuration> extract(Window window);
+    }
+
+    private static final ILineExtractor LOAD = window -> window.load;
+
+    private static final ILineExtractor OVERLOAD = window -> window.overload;
+
+    private static final ILineExtractor AVAILABILITY = window -> window.availability;
+
+    private final DayAssignmentsColumns assignments;
+
+    private final List<Resource> resources;
+
+    private final int start;
+
+    private final int end;
+
+    /* Guarded by itself */
+    private final Map<Integer, Window> windows = new LinkedHashMap<Integer, Window>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Window> eldest) {
+            return size() > MAX_CACHED_WINDOWS;
+        }
+    };
 
     public ResourceLoadChartData(List<DayAssignment> dayAssignments, List<Resource> resources) {
         this(dayAssignments, resources, null, null);
@@ -70,22 +124,172 @@ public class ResourceLoadChartData implements ILoadChartData {
                                  LocalDate startInclusive,
                                  LocalDate endExclusive) {
 
-        ContiguousDaysLine<List<DayAssignment>> assignments = ContiguousDaysLine.byDay(dayAssignments);
+        this(DayAssignmentsColumns.create(dayAssignments), resources, startInclusive, endExclusive);
+    }
+
+    public ResourceLoadChartData(DayAssignmentsColumns assignments, List<Resource> resources) {
+        this(assignments, resources, null, null);
+    }
+
+    public ResourceLoadChartData(DayAssignmentsColumns assignments,
+                                 List<Resource> resources,
+                                 LocalDate startInclusive,
+                                 LocalDate endExclusive) {
+
+        this.assignments = assignments;
+        this.resources = new ArrayList<>(resources);
+
+        int start = 0;
+        int end = 0;
+
+        if (!assignments.isEmpty()) {
+            start = assignments.getFirstDay();
+            end = assignments.getLastDay() + 1;
+        }
 
-        if (startInclusive != null && endExclusive != null) {
-            assignments = assignments.subInterval(startInclusive, endExclusive);
+        if (!assignments.isEmpty() && startInclusive != null && endExclusive != null) {
+            start = Math.max(start, toEpochDay(startInclusive));
+            end = Math.min(end, toEpochDay(endExclusive));
         }
 
-        ContiguousDaysLine<EffortDuration> load = assignments.transform(extractLoad());
+        this.start = start;
+        this.end = Math.max(start, end);
+
+        initializeCalendars();
+    }
 
-        ContiguousDaysLine<EffortDuration> overload = assignments.transform(extractOverload());
+    /**
+     * The windows are calculated after the transaction that loaded the
+     * resources has finished, so their calendars are initialized in advance.
+     */
+    private void initializeCalendars() {
+        Set<BaseCalendar> initialized = new HashSet<>();
+        for (Resource each : resources) {
+            initialize(each.getCalendar(), initialized);
+        }
+        for (Column each : assignments.getColumns()) {
+            initialize(each.getResource().getCalendar(), initialized);
+        }
+    }
 
-        ContiguousDaysLine<EffortDuration> availabilityOnAllResources =
-                assignments.transform(extractAvailabilityOnAllResources(resources));
+    private static void initialize(BaseCalendar calendar, Set<BaseCalendar> initialized) {
+        if (calendar == null || !initialized.add(calendar)) {
+            return;
+        }
+        for (CalendarData each : calendar.getCalendarDataVersions()) {
+            initialize(each.getParent(), initialized);
+        }
+        for (CalendarException each : calendar.getExceptions()) {
+            each.getType().getCapacity();
+        }
+        calendar.getCalendarAvailabilities().size();
+    }
+
+    /**
+     * @return the values of the days of the interval, both limits can be
+     *         <code>null</code> meaning that the interval is not bounded
+     */
+    private SortedMap<LocalDate, EffortDuration> collect(ILineExtractor extractor,
+                                                         LocalDate startInclusive,
+                                                         LocalDate endExclusive) {
+
+        int from = startInclusive == null ? start : Math.max(start, toEpochDay(startInclusive));
+        int to = endExclusive == null ? end : Math.min(end, toEpochDay(endExclusive));
+
+        SortedMap<LocalDate, EffortDuration> result = new TreeMap<>();
+        if (from >= to) {
+            return result;
+        }
+
+        for (int index = windowIndex(from); index <= windowIndex(to - 1); index++) {
+            ContiguousDaysLine<EffortDuration> line = extractor.extract(getWindow(index));
+            ContiguousDaysLine<EffortDuration> visible = line.subInterval(fromEpochDay(from), fromEpochDay(to));
+            if (!visible.isNotValid()) {
+                result.putAll(ContiguousDaysLine.toSortedMap(visible));
+            }
+        }
 
-        this.load = toSortedMap(ContiguousDaysLine.min(load, availabilityOnAllResources));
-        this.overload = toSortedMap(sum(overload, availabilityOnAllResources));
-        this.availability = toSortedMap(availabilityOnAllResources);
+        return result;
+    }
+
+    private static int windowIndex(int epochDay) {
+        return Math.floorDiv(epochDay, WINDOW_DAYS);
+    }
+
+    /**
+     * The window is calculated out of the lock, so the readers of other
+     * windows don't wait for it. If two readers calculate the same window at
+     * the same time the first one stored is kept.
+     */
+    private Window getWindow(int index) {
+        synchronized (windows) {
+            Window cached = windows.get(index);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Window calculated = calculateWindow(index);
+
+        synchronized (windows) {
+            Window cached = windows.get(index);
+            if (cached != null) {
+                return cached;
+            }
+            windows.put(index, calculated);
+
+            return calculated;
+        }
+    }
+
+    private Window calculateWindow(int index) {
+        int windowStart = Math.max(start, index * WINDOW_DAYS);
+        int windowEnd = Math.min(end, (index + 1) * WINDOW_DAYS);
+
+        Window result = new Window(fromEpochDay(windowStart), fromEpochDay(windowEnd));
+
+        long[] assigned = assignments.secondsByDay(windowStart, windowEnd);
+        long[] overloaded = overloadByDay(assignments, windowStart, windowEnd);
+
+        for (int i = 0; i < assigned.length; i++) {
+            LocalDate day = fromEpochDay(windowStart + i);
+            EffortDuration capacity = sumCalendarCapacitiesForDay(resources, day);
+            EffortDuration assignedOnDay = EffortDuration.seconds((int) assigned[i]);
+
+            result.load.set(day, min(assignedOnDay, capacity));
+            result.overload.set(day, EffortDuration.seconds((int) overloaded[i]).plus(capacity));
+            result.availability.set(day, capacity);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the number of windows currently calculated
+     */
+    public int getCachedWindows() {
+        synchronized (windows) {
+            return windows.size();
+        }
+    }
+
+    /**
+     * @return the seconds assigned over the calendar capacity of each resource
+     *         summed on each day of the interval
+     */
+    private static long[] overloadByDay(DayAssignmentsColumns assignments, int startInclusive, int endExclusive) {
+        long[] result = new long[Math.max(0, endExclusive - startInclusive)];
+
+        for (Column each : assignments.getColumns()) {
+            for (int i = each.positionOf(startInclusive); i < each.size() && each.getDay(i) < endExclusive; i++) {
+                LocalDate day = fromEpochDay(each.getDay(i));
+                long capacity = calendarCapacityFor(each.getResource(), PartialDay.wholeDay(day)).getSeconds();
+
+                result[each.getDay(i) - startInclusive] += Math.max(0, each.getSeconds(i) - capacity);
+            }
+        }
+
+        return result;
     }
 
     public static IValueTransformer<List<DayAssignment>, EffortDuration> extractOverload() {
@@ -157,30 +361,30 @@ public class ResourceLoadChartData implements ILoadChartData {
         };
     }
 
-    private IValueTransformer<List<DayAssignment>, EffortDuration> extractAvailabilityOnAllResources(
-            final List<Resource> resources) {
-
-        return new IValueTransformer<List<DayAssignment>, EffortDuration>() {
-
-            @Override
-            public EffortDuration transform(LocalDate day, List<DayAssignment> previousValue) {
-                return sumCalendarCapacitiesForDay(resources, day);
-            }
-        };
-    }
-
+    /**
+     * It calculates all the windows, so {@link #on(LocalDate, LocalDate)}
+     * should be preferred.
+     */
+    @Override
     public SortedMap<LocalDate, EffortDuration> getLoad() {
-        return load;
+        return collect(LOAD, null, null);
     }
 
+    @Override
     public SortedMap<LocalDate, EffortDuration> getOverload() {
-        return overload;
+        return collect(OVERLOAD, null, null);
     }
 
+    @Override
     public SortedMap<LocalDate, EffortDuration> getAvailability() {
-        return availability;
+        return collect(AVAILABILITY, null, null);
     }
 
+    /**
+     * @return the data of the interval, only the windows overlapping with it
+     *         are calculated. Both limits can be <code>null</code> meaning
+     *         that the interval is not bounded
+     */
     public ILoadChartData on(final LocalDate startInclusive, final LocalDate endExclusive) {
 
         final ResourceLoadChartData original = ResourceLoadChartData.this;
@@ -193,29 +397,17 @@ public class ResourceLoadChartData implements ILoadChartData {
 
             @Override
             public SortedMap<LocalDate, EffortDuration> getOverload() {
-                return filter(original.getOverload());
+                return original.collect(OVERLOAD, startInclusive, endExclusive);
             }
 
             @Override
             public SortedMap<LocalDate, EffortDuration> getLoad() {
-                return filter(original.getLoad());
+                return original.collect(LOAD, startInclusive, endExclusive);
             }
 
             @Override
             public SortedMap<LocalDate, EffortDuration> getAvailability() {
-                return filter(original.getAvailability());
-            }
-
-            private SortedMap<LocalDate, EffortDuration> filter(SortedMap<LocalDate, EffortDuration> map) {
-                if (startInclusive != null) {
-                    return map.tailMap(startInclusive);
-                }
-
-                if (endExclusive != null) {
-                    return map.headMap(endExclusive);
-                }
-
-                return map.subMap(startInclusive, endExclusive);
+                return original.collect(AVAILABILITY, startInclusive, endExclusive);
             }
         };
     }
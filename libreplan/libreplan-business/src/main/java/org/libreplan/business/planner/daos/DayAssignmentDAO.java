@@ -63,49 +63,99 @@ public class DayAssignmentDAO extends GenericDAOHibernate<DayAssignment, Long> i
 
     @Override
     public List<DayAssignment> getAllFor(Scenario scenario) {
-        List<DayAssignment> result = new ArrayList<>();
-        result.addAll(getSpecific(scenario, null, null, null));
-        result.addAll(getGeneric(scenario, null, null, null));
-        result.addAll(getDerived(scenario, null, null, null));
-
-        return result;
+        return getAllVisibleAt(scenario, null, null, null);
     }
 
     @Override
     public List<DayAssignment> getAllFor(Scenario scenario, LocalDate init, LocalDate end) {
-        List<DayAssignment> result = new ArrayList<>();
-        result.addAll(getSpecific(scenario, init, end, null));
-        result.addAll(getGeneric(scenario, init, end, null));
-        result.addAll(getDerived(scenario, init, end, null));
-
-        return result;
+        return getAllVisibleAt(scenario, init, end, null);
     }
 
     @Override
     public List<DayAssignment> getAllFor(
             Scenario scenario, LocalDate startDateInclusive, LocalDate endDateInclusive, Resource resource) {
 
+        return getAllVisibleAt(scenario, startDateInclusive, endDateInclusive,
+                resource != null ? Collections.singletonList(resource) : null);
+    }
+
+    @Override
+    public List<DayAssignment> getAllFor(
+            Scenario scenario, LocalDate startDateInclusive, LocalDate endDateInclusive,
+            Collection<? extends Resource> resources) {
+
+        if ( resources.isEmpty() ) {
+            return Collections.emptyList();
+        }
+
+        return getAllVisibleAt(scenario, startDateInclusive, endDateInclusive, resources);
+    }
+
+    /**
+     * @param resources
+     *            if <code>null</code> the assignments of all the resources are
+     *            returned
+     */
+    private List<DayAssignment> getAllVisibleAt(
+            Scenario scenario, LocalDate initInclusive, LocalDate endInclusive,
+            Collection<? extends Resource> resources) {
+
         List<DayAssignment> result = new ArrayList<>();
-        result.addAll(getSpecific(scenario, startDateInclusive, endDateInclusive, resource));
-        result.addAll(getGeneric(scenario, startDateInclusive, endDateInclusive, resource));
-        result.addAll(getDerived(scenario, startDateInclusive, endDateInclusive, resource));
+        result.addAll(getSpecific(scenario, initInclusive, endInclusive, resources));
+        result.addAll(getGeneric(scenario, initInclusive, endInclusive, resources));
+        result.addAll(getDerived(scenario, initInclusive, endInclusive, resources));
 
         return result;
     }
 
     private List<DerivedDayAssignment> getDerived(
-            Scenario scenario, LocalDate initInclusive, LocalDate endInclusive, Resource resource) {
+            Scenario scenario, LocalDate initInclusive, LocalDate endInclusive,
+            Collection<? extends Resource> resources) {
 
-        String queryString = "select d from DerivedDayAssignmentsContainer c " +
-                "JOIN c.dayAssignments d where c.scenario = :scenario" +
-                addQueryConditionForInitAndEndDate(initInclusive, endInclusive) + addQueryConditionsForResource(resource);
+        return getVisibleAt("DerivedDayAssignmentsContainer", scenario, initInclusive, endInclusive, resources);
+    }
+
+    /**
+     * A scenario shares the assignments of its nearest predecessor with a
+     * container for the same allocation, so the containers of the
+     * predecessors are queried too, discarding the allocations that have a
+     * container in a nearer scenario.
+     */
+    private <T extends DayAssignment> List<T> getVisibleAt(
+            String containerEntity, Scenario scenario, LocalDate initInclusive, LocalDate endInclusive,
+            Collection<? extends Resource> resources) {
+
+        List<T> result = new ArrayList<>();
+        List<Scenario> nearer = new ArrayList<>();
+        List<Scenario> scenarios = new ArrayList<>();
+        scenarios.add(scenario);
+        scenarios.addAll(scenario.getPredecessors());
+
+        for (Scenario each : scenarios) {
+            String queryString = "select d from " + containerEntity + " c " +
+                    "JOIN c.dayAssignments d where c.scenario = :scenario" +
+                    addQueryConditionForNearerScenarios(containerEntity, nearer) +
+                    addQueryConditionForInitAndEndDate(initInclusive, endInclusive) +
+                    addQueryConditionsForResources(resources);
+
+            Query query = getSession().createQuery(queryString).setParameter(SCENARIO, each);
+            if ( !nearer.isEmpty() ) {
+                query.setParameterList("nearer", nearer);
+            }
+            addInitAndEndParameters(query, initInclusive, endInclusive);
+            addResourcesParameter(query, resources);
+            result.addAll(query.list());
+            nearer.add(each);
+        }
 
-        Query query = getSession().createQuery(queryString);
-        query = query.setParameter(SCENARIO, scenario);
-        addInitAndEndParameters(query, initInclusive, endInclusive);
-        addResourceParameter(query, resource);
+        return result;
+    }
 
-        return query.list();
+    private String addQueryConditionForNearerScenarios(String containerEntity, List<Scenario> nearer) {
+        return nearer.isEmpty()
+                ? ""
+                : " and not exists (select c2.id from " + containerEntity + " c2 " +
+                  "where c2.resourceAllocation = c.resourceAllocation and c2.scenario in (:nearer))";
     }
 
     private String addQueryConditionForInitAndEndDate(LocalDate initInclusive, LocalDate endInclusive) {
@@ -114,8 +164,8 @@ public class DayAssignmentDAO extends GenericDAOHibernate<DayAssignment, Long> i
         return initCondition + endCondition;
     }
 
-    private String addQueryConditionsForResource(Resource resource) {
-        return resource != null ? " and d.resource = :resource " : "";
+    private String addQueryConditionsForResources(Collection<? extends Resource> resources) {
+        return resources != null ? " and d.resource in (:resources) " : "";
     }
 
     private Query addInitAndEndParameters(Query query, LocalDate initInclusive, LocalDate endInclusive) {
@@ -129,36 +179,22 @@ public class DayAssignmentDAO extends GenericDAOHibernate<DayAssignment, Long> i
         return query;
     }
 
-    private Query addResourceParameter(Query query, Resource resource) {
-        return resource != null ? query.setParameter("resource", resource) : query;
+    private Query addResourcesParameter(Query query, Collection<? extends Resource> resources) {
+        return resources != null ? query.setParameterList("resources", resources) : query;
     }
 
     private List<GenericDayAssignment> getGeneric(
-            Scenario scenario, LocalDate initInclusive, LocalDate endInclusive, Resource resource) {
-
-        String queryString = "select d from GenericDayAssignmentsContainer c " +
-                "JOIN c.dayAssignments d where c.scenario = :scenario" +
-                addQueryConditionForInitAndEndDate(initInclusive, endInclusive) + addQueryConditionsForResource(resource);
+            Scenario scenario, LocalDate initInclusive, LocalDate endInclusive,
+            Collection<? extends Resource> resources) {
 
-        Query query = getSession().createQuery(queryString).setParameter(SCENARIO, scenario);
-        addInitAndEndParameters(query, initInclusive, endInclusive);
-        addResourceParameter(query, resource);
-
-        return query.list();
+        return getVisibleAt("GenericDayAssignmentsContainer", scenario, initInclusive, endInclusive, resources);
     }
 
     private List<SpecificDayAssignment> getSpecific(
-            Scenario scenario, LocalDate initInclusive, LocalDate endInclusive, Resource resource) {
-
-        String queryString = "select d from SpecificDayAssignmentsContainer c " +
-                "JOIN c.dayAssignments d where c.scenario = :scenario" +
-                addQueryConditionForInitAndEndDate(initInclusive, endInclusive) + addQueryConditionsForResource(resource);
-
-        Query query = getSession().createQuery(queryString).setParameter(SCENARIO, scenario);
-        addInitAndEndParameters(query, initInclusive, endInclusive);
-        addResourceParameter(query, resource);
+            Scenario scenario, LocalDate initInclusive, LocalDate endInclusive,
+            Collection<? extends Resource> resources) {
 
-        return query.list();
+        return getVisibleAt("SpecificDayAssignmentsContainer", scenario, initInclusive, endInclusive, resources);
     }
 
     @Override
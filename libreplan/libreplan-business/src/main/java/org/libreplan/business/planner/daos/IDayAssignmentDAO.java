@@ -52,6 +52,14 @@ public interface IDayAssignmentDAO extends IGenericDAO<DayAssignment, Long> {
             LocalDate startDateInclusive, LocalDate endDateInclusive,
             Resource resource);
 
+    /**
+     * Returns the assignments visible at the scenario of all the resources
+     * between the dates, retrieved together instead of once per resource.
+     */
+    List<DayAssignment> getAllFor(Scenario scenario,
+            LocalDate startDateInclusive, LocalDate endDateInclusive,
+            Collection<? extends Resource> resources);
+
     List<DayAssignment> listFilteredByDate(LocalDate init, LocalDate end);
 
     public List<DayAssignment> findByResources(Scenario scenario, List<Resource> resources);
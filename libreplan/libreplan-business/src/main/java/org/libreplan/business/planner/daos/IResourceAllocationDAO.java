@@ -21,9 +21,11 @@
 
 package org.libreplan.business.planner.daos;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.joda.time.LocalDate;
 import org.libreplan.business.common.daos.IGenericDAO;
@@ -63,10 +65,31 @@ public interface IResourceAllocationDAO extends
             Scenario onScenario,
             Date intervalFilterStartDate, Date intervalFilterEndDate);
 
+    /**
+     * It returns the criteria, and their parents, of the generic allocations
+     * with assignments seen from the scenario, including the ones shared from
+     * its predecessors. The allocations aren't loaded, so it can be used to
+     * paginate over the criteria, loading later the allocations of the
+     * current page.
+     */
+    Set<Criterion> findCriterionsOfGenericAllocations(
+            Scenario onScenario,
+            Date intervalFilterStartDate, Date intervalFilterEndDate);
+
     List<GenericResourceAllocation> findGenericAllocationsRelatedToCriterion(
             Scenario onScenario, Criterion criterion,
             Date intervalFilterStartDate, Date intervalFilterEndDate);
 
+    /**
+     * The same than
+     * {@link #findGenericAllocationsRelatedToCriterion(Scenario, Criterion, Date, Date)}
+     * for several criteria with just one query. The criteria without
+     * allocations aren't included in the map.
+     */
+    Map<Criterion, List<GenericResourceAllocation>> findGenericAllocationsRelatedToCriterions(
+            Scenario onScenario, Collection<Criterion> criterions,
+            Date intervalFilterStartDate, Date intervalFilterEndDate);
+
     /**
      * <p>
      * It searches for the {@link SpecificResourceAllocation specific
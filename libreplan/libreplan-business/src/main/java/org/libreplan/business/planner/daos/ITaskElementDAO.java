@@ -21,10 +21,13 @@
 
 package org.libreplan.business.planner.daos;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import org.libreplan.business.common.daos.IGenericDAO;
+import org.libreplan.business.orders.entities.Order;
 import org.libreplan.business.planner.entities.TaskElement;
 import org.libreplan.business.planner.entities.TaskGroup;
 
@@ -36,6 +39,15 @@ public interface ITaskElementDAO extends IGenericDAO<TaskElement, Long> {
 
     List<TaskElement> findChildrenOf(TaskGroup each);
 
+    /**
+     * Loads in the session the task elements of the order and the data used to
+     * plan them with a fixed number of set based queries, instead of
+     * initializing their proxies one by one.
+     *
+     * @return the number of statements executed
+     */
+    int loadPlanningDataOf(Order order);
+
     List<TaskElement> listFilteredByDate(Date start, Date end);
 
     List<TaskElement> getTaskElementsNoMilestonesWithoutTaskSource();
@@ -44,4 +56,10 @@ public interface ITaskElementDAO extends IGenericDAO<TaskElement, Long> {
 
     List<TaskElement> getTaskElementsWithParentsWithoutMilestones();
 
+    /**
+     * @return the ids of the tasks of the order elements and of their
+     *         ancestors, in any scenario
+     */
+    Set<Long> findIdsOfTasksOfOrderElementsAndAncestors(Collection<Long> orderElementIds);
+
 }
@@ -0,0 +1,265 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.planner.daos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.hibernate.Session;
+import org.libreplan.business.common.BaseEntity;
+import org.libreplan.business.orders.entities.Order;
+import org.libreplan.business.orders.entities.OrderElement;
+import org.libreplan.business.orders.entities.SchedulingDataForVersion;
+import org.libreplan.business.planner.entities.DayAssignment.FilterType;
+import org.libreplan.business.planner.entities.GenericResourceAllocation;
+import org.libreplan.business.planner.entities.ResourceAllocation;
+import org.libreplan.business.planner.entities.SpecificResourceAllocation;
+import org.libreplan.business.planner.entities.TaskElement;
+import org.libreplan.business.resources.entities.Resource;
+
+/**
+ * Declares the data loaded when the planning of an order is opened.
+ * <p>
+ * Each step is a set based query that fetches the associations of the entities
+ * loaded by the previous steps, so the number of queries doesn't depend on the
+ * size of the order, only on the number of steps and on the ids that fit in a
+ * query. The entities are left in the session, so the proxies and collections
+ * are already initialized when the planning traverses them.
+ * </p>
+ */
+class PlanningFetchPlan {
+
+    static final int MAX_IDS_PER_QUERY = 500;
+
+    private static final List<Step> STEPS = Arrays.asList(
+            new Step("task elements",
+                    "select ts from TaskSource ts join fetch ts.task where ts.schedulingData.id in (:ids)",
+                    Graph::getSchedulingDataIds),
+            new Step("hours groups of task sources",
+                    "select distinct ts from TaskSource ts left join fetch ts.hoursGroups where ts.id in (:ids)",
+                    Graph::getTaskElementIds),
+            new Step("resource allocations",
+                    "select distinct t from Task t left join fetch t.resourceAllocations where t.id in (:ids)",
+                    Graph::getTaskIds),
+            new Step("derived allocations",
+                    "select distinct a from ResourceAllocation a left join fetch a.derivedAllocations "
+                            + "where a.id in (:ids)",
+                    Graph::getAllocationIds),
+            new Step("specific day assignments",
+                    "select distinct a from SpecificResourceAllocation a "
+                            + "left join fetch a.specificDayAssignmentsContainers c "
+                            + "left join fetch c.dayAssignments where a.id in (:ids)",
+                    Graph::getSpecificAllocationIds),
+            new Step("generic day assignments",
+                    "select distinct a from GenericResourceAllocation a "
+                            + "left join fetch a.genericDayAssignmentsContainers c "
+                            + "left join fetch c.dayAssignments where a.id in (:ids)",
+                    Graph::getGenericAllocationIds),
+            new Step("criteria of generic allocations",
+                    "select distinct a from GenericResourceAllocation a left join fetch a.criterions "
+                            + "where a.id in (:ids)",
+                    Graph::getGenericAllocationIds),
+            new Step("dependencies with origin",
+                    "select distinct t from TaskElement t left join fetch t.dependenciesWithThisOrigin "
+                            + "where t.id in (:ids)",
+                    Graph::getTaskElementIds),
+            new Step("dependencies with destination",
+                    "select distinct t from TaskElement t left join fetch t.dependenciesWithThisDestination "
+                            + "where t.id in (:ids)",
+                    Graph::getTaskElementIds),
+            new Step("labels",
+                    "select distinct o from OrderElement o left join fetch o.labels l left join fetch l.type "
+                            + "where o.id in (:ids)",
+                    Graph::getOrderElementIds),
+            new Step("direct advance assignments",
+                    "select distinct o from OrderElement o left join fetch o.directAdvanceAssignments "
+                            + "where o.id in (:ids)",
+                    Graph::getOrderElementIds),
+            new Step("advance measurements",
+                    "select distinct d from DirectAdvanceAssignment d left join fetch d.advanceMeasurements "
+                            + "left join fetch d.advanceType where d.orderElement.id in (:ids)",
+                    Graph::getOrderElementIds),
+            new Step("indirect advance assignments",
+                    "select distinct o from OrderLineGroup o left join fetch o.indirectAdvanceAssignments "
+                            + "where o.id in (:ids)",
+                    Graph::getOrderLineGroupIds),
+            new Step("day assignments of the resources",
+                    "select distinct r from Resource r left join fetch r.dayAssignments where r.id in (:ids)",
+                    Graph::getResourceIds));
+
+    private static class Step {
+
+        private final String name;
+
+        private final String query;
+
+        private final Function<Graph, Collection<Long>> ids;
+
+        private Step(String name, String query, Function<Graph, Collection<Long>> ids) {
+            this.name = name;
+            this.query = query;
+            this.ids = ids;
+        }
+
+        private void execute(Session session, Graph graph) {
+            List<Long> all = new ArrayList<>(ids.apply(graph));
+            for (int i = 0; i < all.size(); i += MAX_IDS_PER_QUERY) {
+                session.createQuery(query)
+                        .setParameterList("ids", all.subList(i, Math.min(i + MAX_IDS_PER_QUERY, all.size())))
+                        .list();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+
+    }
+
+    /**
+     * The entities of the order already in memory. The ids for each step are
+     * extracted after the previous steps have been executed.
+     */
+    private static class Graph {
+
+        private final Order order;
+
+        private final List<OrderElement> orderElements = new ArrayList<>();
+
+        private Graph(Order order) {
+            this.order = order;
+            orderElements.add(order);
+            orderElements.addAll(order.getAllChildren());
+        }
+
+        private Collection<Long> getOrderElementIds() {
+            return idsOf(orderElements);
+        }
+
+        private Collection<Long> getOrderLineGroupIds() {
+            List<OrderElement> groups = new ArrayList<>();
+            for (OrderElement each : orderElements) {
+                if ( !each.isLeaf() ) {
+                    groups.add(each);
+                }
+            }
+
+            return idsOf(groups);
+        }
+
+        private Collection<Long> getSchedulingDataIds() {
+            List<SchedulingDataForVersion> result = new ArrayList<>();
+            for (OrderElement each : orderElements) {
+                result.add(each.getCurrentSchedulingDataForVersion());
+            }
+
+            return idsOf(result);
+        }
+
+        private List<TaskElement> getTaskElements() {
+            List<TaskElement> result = new ArrayList<>();
+            for (OrderElement each : orderElements) {
+                TaskElement taskElement = each.getAssociatedTaskElement();
+                if ( taskElement != null ) {
+                    result.add(taskElement);
+                }
+            }
+
+            return result;
+        }
+
+        private Collection<Long> getTaskElementIds() {
+            return idsOf(getTaskElements());
+        }
+
+        private Collection<Long> getTaskIds() {
+            List<TaskElement> result = new ArrayList<>();
+            for (TaskElement each : getTaskElements()) {
+                if ( each.isTask() ) {
+                    result.add(each);
+                }
+            }
+
+            return idsOf(result);
+        }
+
+        private List<ResourceAllocation<?>> getAllocations() {
+            List<ResourceAllocation<?>> result = new ArrayList<>();
+            for (TaskElement each : getTaskElements()) {
+                if ( each.isTask() ) {
+                    result.addAll(each.getAllResourceAllocations());
+                }
+            }
+
+            return result;
+        }
+
+        private Collection<Long> getAllocationIds() {
+            return idsOf(getAllocations());
+        }
+
+        private Collection<Long> getSpecificAllocationIds() {
+            return idsOf(ResourceAllocation.getOfType(SpecificResourceAllocation.class, getAllocations()));
+        }
+
+        private Collection<Long> getGenericAllocationIds() {
+            return idsOf(ResourceAllocation.getOfType(GenericResourceAllocation.class, getAllocations()));
+        }
+
+        private Collection<Long> getResourceIds() {
+            List<Resource> resources = new ArrayList<>(order.getResources(FilterType.KEEP_ALL));
+
+            return idsOf(resources);
+        }
+
+        private static Collection<Long> idsOf(Collection<? extends BaseEntity> entities) {
+            Set<Long> result = new HashSet<>();
+            for (BaseEntity each : entities) {
+                if ( each != null && each.getId() != null ) {
+                    result.add(each.getId());
+                }
+            }
+
+            return result;
+        }
+
+    }
+
+    /**
+     * Executes all the steps for the order. The order and its elements must be
+     * attached to the session.
+     */
+    static void fetch(Session session, Order order) {
+        Graph graph = new Graph(order);
+        for (Step each : STEPS) {
+            each.execute(session, graph);
+        }
+    }
+
+    private PlanningFetchPlan() {
+    }
+
+}
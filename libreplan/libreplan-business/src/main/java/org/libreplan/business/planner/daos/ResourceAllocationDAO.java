@@ -23,12 +23,15 @@ package org.libreplan.business.planner.daos;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
@@ -229,6 +232,110 @@ public class ResourceAllocationDAO
         return toCriterionMapFrom(query);
     }
 
+    /**
+     * The containers of the predecessors are taken into account, as a scenario
+     * shares the assignments of its nearest predecessor with a container for
+     * the same allocation. Only the ids of the allocations and the scenarios
+     * of their containers are retrieved.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Criterion> findCriterionsOfGenericAllocations(
+            final Scenario onScenario,
+            final Date intervalFilterStartDate, final Date intervalFilterEndDate) {
+
+        final List<Scenario> scenarioAndPredecessors = new ArrayList<>();
+        scenarioAndPredecessors.add(onScenario);
+        scenarioAndPredecessors.addAll(onScenario.getPredecessors());
+
+        List<Object[]> containers = containersOfGenericAllocationsQuery(
+                "select criterion, generic.id, container.scenario.id ",
+                "",
+                scenarioAndPredecessors, onScenario, intervalFilterStartDate, intervalFilterEndDate).list();
+
+        List<Object[]> withAssignments = containersOfGenericAllocationsQuery(
+                "select distinct generic.id, container.scenario.id ",
+                "and container.dayAssignments is not empty ",
+                scenarioAndPredecessors, onScenario, intervalFilterStartDate, intervalFilterEndDate).list();
+
+        Map<Long, Long> visibleScenarioByAllocation = new HashMap<>();
+        for (Object[] each : containers) {
+            Long allocationId = (Long) each[1];
+            Long scenarioId = (Long) each[2];
+            Long visible = visibleScenarioByAllocation.get(allocationId);
+            if ( visible == null || isNearer(scenarioAndPredecessors, scenarioId, visible) ) {
+                visibleScenarioByAllocation.put(allocationId, scenarioId);
+            }
+        }
+
+        Set<Long> allocationsWithAssignments = new HashSet<>();
+        for (Object[] each : withAssignments) {
+            Long allocationId = (Long) each[0];
+            if ( each[1].equals(visibleScenarioByAllocation.get(allocationId)) ) {
+                allocationsWithAssignments.add(allocationId);
+            }
+        }
+
+        Set<Criterion> result = new HashSet<>();
+        for (Object[] each : containers) {
+            Criterion criterion = (Criterion) each[0];
+            if ( allocationsWithAssignments.contains(each[1]) && result.add(criterion) ) {
+                result.addAll(getParentsFrom(criterion));
+            }
+        }
+        return result;
+    }
+
+    private Query containersOfGenericAllocationsQuery(
+            final String select, final String extraConditions,
+            final List<Scenario> scenarioAndPredecessors, final Scenario onScenario,
+            final Date intervalFilterStartDate, final Date intervalFilterEndDate) {
+
+        QueryBuilder queryBuilder = new QueryBuilder() {
+
+            @Override
+            protected String getBaseQuery() {
+                return select
+                        + "from GenericResourceAllocation as generic "
+                        + "join generic.criterions as criterion "
+                        + "join generic.genericDayAssignmentsContainers as container "
+                        + "join generic.task as task";
+            }
+
+            @Override
+            protected String getBaseConditions() {
+                return "where container.scenario in (:scenarioAndPredecessors) " + extraConditions;
+            }
+
+            @Override
+            protected void setBaseParameters(Query query) {
+                query.setParameterList("scenarioAndPredecessors", scenarioAndPredecessors);
+            }
+
+            @Override
+            protected IQueryPart[] getExtraParts() {
+                return new IQueryPart[] {
+                        new DatesInterval("task", intervalFilterStartDate, intervalFilterEndDate),
+                        new OnScenario("task", onScenario) };
+            }
+
+        };
+        return queryBuilder.build(getSession());
+    }
+
+    private static boolean isNearer(List<Scenario> scenarioAndPredecessors, Long scenarioId, Long than) {
+        return indexOf(scenarioAndPredecessors, scenarioId) < indexOf(scenarioAndPredecessors, than);
+    }
+
+    private static int indexOf(List<Scenario> scenarios, Long scenarioId) {
+        for (int i = 0; i < scenarios.size(); i++) {
+            if ( scenarioId.equals(scenarios.get(i).getId()) ) {
+                return i;
+            }
+        }
+        return scenarios.size();
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public List<GenericResourceAllocation> findGenericAllocationsRelatedToCriterion(
@@ -269,6 +376,46 @@ public class ResourceAllocationDAO
         return queryBuilder.build(getSession()).list();
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Criterion, List<GenericResourceAllocation>> findGenericAllocationsRelatedToCriterions(
+            final Scenario onScenario, final Collection<Criterion> criterions,
+            final Date intervalFilterStartDate, final Date intervalFilterEndDate) {
+
+        if (criterions.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        QueryBuilder queryBuilder = new QueryBuilder() {
+
+            @Override
+            protected String getBaseQuery() {
+                return "select generic, criterion "
+                        + "from GenericResourceAllocation as generic "
+                        + "join generic.task as task "
+                        + "join generic.criterions as criterion ";
+            }
+
+            @Override
+            protected String getBaseConditions() {
+                return "where criterion in (:criterions) ";
+            }
+
+            @Override
+            protected void setBaseParameters(Query query) {
+                query.setParameterList("criterions", criterions);
+            }
+
+            @Override
+            protected IQueryPart[] getExtraParts() {
+                return new IQueryPart[] {
+                        new DatesInterval("task", intervalFilterStartDate, intervalFilterEndDate),
+                        new OnScenario("task", onScenario) };
+            }
+        };
+        return byCriterion(queryBuilder.build(getSession()).list());
+    }
+
     @SuppressWarnings("unchecked")
     private Map<Criterion, List<GenericResourceAllocation>> toCriterionMapFrom(Query query){
         return addParents(stripAllocationsWithoutAssignations(byCriterion(query.list())));
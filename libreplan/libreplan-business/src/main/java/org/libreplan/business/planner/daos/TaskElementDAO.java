@@ -21,8 +21,13 @@
 
 package org.libreplan.business.planner.daos;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.hibernate.Criteria;
 import org.hibernate.Hibernate;
@@ -30,6 +35,8 @@ import org.hibernate.Query;
 import org.hibernate.criterion.Restrictions;
 import org.joda.time.LocalDate;
 import org.libreplan.business.common.daos.GenericDAOHibernate;
+import org.libreplan.business.hibernate.StatementCounter;
+import org.libreplan.business.orders.entities.Order;
 import org.libreplan.business.planner.entities.ResourceAllocation;
 import org.libreplan.business.planner.entities.TaskElement;
 import org.libreplan.business.planner.entities.TaskGroup;
@@ -55,6 +62,18 @@ public class TaskElementDAO extends GenericDAOHibernate<TaskElement, Long> imple
                 Restrictions.eq("parent", each)).list();
     }
 
+    @Override
+    public int loadPlanningDataOf(Order order) {
+        StatementCounter.Count count = StatementCounter.start();
+        try {
+            PlanningFetchPlan.fetch(getSession(), order);
+        } finally {
+            count.stop();
+        }
+
+        return count.getStatements();
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public List<TaskElement> listFilteredByDate(Date start, Date end) {
@@ -155,4 +174,35 @@ public class TaskElementDAO extends GenericDAOHibernate<TaskElement, Long> imple
         return query.list();
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Long> findIdsOfTasksOfOrderElementsAndAncestors(Collection<Long> orderElementIds) {
+        Set<Long> orderElements = new HashSet<>(orderElementIds);
+        Collection<Long> lastLevel = orderElementIds;
+        while (!lastLevel.isEmpty()) {
+            List<Long> parents = getSession()
+                    .createQuery("select e.parent.id from OrderElement e where e.id in (:ids) and e.parent is not null")
+                    .setParameterList("ids", lastLevel)
+                    .list();
+
+            lastLevel = new ArrayList<>();
+            for (Long each : parents) {
+                if ( orderElements.add(each) ) {
+                    lastLevel.add(each);
+                }
+            }
+        }
+
+        if ( orderElements.isEmpty() ) {
+            return Collections.emptySet();
+        }
+
+        /* The id of a TaskSource is the id of its task */
+        return new HashSet<>(getSession()
+                .createQuery("select source.id from TaskSource source "
+                        + "where source.schedulingData.orderElement.id in (:ids)")
+                .setParameterList("ids", orderElements)
+                .list());
+    }
+
 }
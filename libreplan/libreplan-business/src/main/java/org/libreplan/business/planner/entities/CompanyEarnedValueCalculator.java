@@ -25,7 +25,6 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
-import java.util.TreeMap;
 
 import org.joda.time.LocalDate;
 import org.libreplan.business.calendars.entities.AvailabilityTimeLine;
@@ -55,13 +54,16 @@ public class CompanyEarnedValueCalculator extends EarnedValueCalculator implemen
         Map<TaskElement, SortedMap<LocalDate, BigDecimal>> estimatedCostPerTask =
                 databaseSnapshots.snapshotEstimatedCostPerTask();
 
-        Collection<TaskElement> list = filterTasksByDate(estimatedCostPerTask.keySet(), interval);
-        SortedMap<LocalDate, BigDecimal> estimatedCost = new TreeMap<LocalDate, BigDecimal>();
+        return accumulatedSum(costsOf(estimatedCostPerTask, interval));
+    }
 
-        for (TaskElement each : list) {
-            addCost(estimatedCost, estimatedCostPerTask.get(each));
+    private List<SortedMap<LocalDate, BigDecimal>> costsOf(
+            Map<TaskElement, SortedMap<LocalDate, BigDecimal>> costPerTask, AvailabilityTimeLine.Interval interval) {
+        List<SortedMap<LocalDate, BigDecimal>> result = new ArrayList<SortedMap<LocalDate, BigDecimal>>();
+        for (TaskElement each : filterTasksByDate(costPerTask.keySet(), interval)) {
+            result.add(costPerTask.get(each));
         }
-        return accumulateResult(estimatedCost);
+        return result;
     }
 
     private List<TaskElement> filterTasksByDate(Collection<TaskElement> tasks, AvailabilityTimeLine.Interval interval) {
@@ -85,57 +87,19 @@ public class CompanyEarnedValueCalculator extends EarnedValueCalculator implemen
         return result;
     }
 
-    private void addCost(SortedMap<LocalDate, BigDecimal> currentCost,
-                         SortedMap<LocalDate, BigDecimal> additionalCost) {
-
-        for (LocalDate day : additionalCost.keySet()) {
-            if ( !currentCost.containsKey(day) ) {
-                currentCost.put(day, BigDecimal.ZERO);
-            }
-            currentCost.put(day, currentCost.get(day).add(additionalCost.get(day)));
-        }
-    }
-
-    private SortedMap<LocalDate, BigDecimal> accumulateResult(
-            SortedMap<LocalDate, BigDecimal> map) {
-        SortedMap<LocalDate, BigDecimal> result = new TreeMap<LocalDate, BigDecimal>();
-        if (map.isEmpty()) {
-            return result;
-        }
-
-        BigDecimal accumulatedResult = BigDecimal.ZERO;
-        for (LocalDate day : map.keySet()) {
-            BigDecimal value = map.get(day);
-            accumulatedResult = accumulatedResult.add(value);
-            result.put(day, accumulatedResult);
-        }
-
-        return result;
-    }
-
     @Override
     public SortedMap<LocalDate, BigDecimal> calculateActualCostWorkPerformed(
             Interval interval) {
-        SortedMap<LocalDate, BigDecimal> result = new TreeMap<LocalDate, BigDecimal>();
         Collection<WorkReportLine> workReportLines = filterWorkReportLinesByDate(
                 databaseSnapshots.snapshotWorkReportLines(),
                 interval);
 
-        if (workReportLines.isEmpty()) {
-            return result;
-        }
-
+        DailySeries.Builder result = new DailySeries.Builder();
         for (WorkReportLine workReportLine : workReportLines) {
-            LocalDate day = new LocalDate(workReportLine.getDate());
-            BigDecimal cost = workReportLine.getEffort()
-                    .toHoursAsDecimalWithScale(2);
-
-            if (!result.containsKey(day)) {
-                result.put(day, BigDecimal.ZERO);
-            }
-            result.put(day, result.get(day).add(cost));
+            result.add(new LocalDate(workReportLine.getDate()),
+                    workReportLine.getEffort().toHoursAsDecimalWithScale(2));
         }
-        return accumulateResult(result);
+        return result.build().cumulative().toSortedMap();
     }
 
     @Override
@@ -143,14 +107,7 @@ public class CompanyEarnedValueCalculator extends EarnedValueCalculator implemen
             Interval interval) {
         Map<TaskElement, SortedMap<LocalDate, BigDecimal>> advanceCostPerTask = databaseSnapshots
                 .snapshotAdvanceCostPerTask();
-        Collection<TaskElement> tasks = filterTasksByDate(
-                advanceCostPerTask.keySet(), interval);
-
-        SortedMap<LocalDate, BigDecimal> result = new TreeMap<LocalDate, BigDecimal>();
-        for (TaskElement each : tasks) {
-            addCost(result, advanceCostPerTask.get(each));
-        }
-        return result;
+        return DailySeries.sum(costsOf(advanceCostPerTask, interval)).toSortedMap();
     }
 
 }
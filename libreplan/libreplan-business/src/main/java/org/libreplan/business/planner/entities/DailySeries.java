@@ -0,0 +1,425 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.planner.entities;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.joda.time.LocalDate;
+
+/**
+ * Values per day kept in arrays indexed by the days since the first one, used
+ * to calculate the 'Earned Value' indicators without creating a
+ * {@link BigDecimal} and a map entry for each intermediate value.
+ * <p>
+ * Like a {@link SortedMap} from {@link LocalDate} to {@link BigDecimal}, only
+ * some days of the range covered have a value. The values are stored as
+ * unscaled longs sharing the same scale, and the operations keep the scale
+ * {@link BigDecimal} would give to their results, so the values are the same
+ * ones calculated with {@link BigDecimal}. An {@link ArithmeticException} is
+ * thrown if a value doesn't fit in a long with that scale.
+ * </p>
+ * <p>
+ * It's immutable. The cumulative sums are calculated once and kept.
+ * </p>
+ */
+public class DailySeries {
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private static final DailySeries EMPTY = new DailySeries(0, new long[0], new BitSet(), 0);
+
+    public static DailySeries empty() {
+        return EMPTY;
+    }
+
+    public static DailySeries fromMap(Map<LocalDate, BigDecimal> map) {
+        return sum(Collections.singletonList(map));
+    }
+
+    /**
+     * The value of each day is the sum of the values of the maps in that day.
+     * The days without value in any map don't have value.
+     */
+    public static DailySeries sum(Collection<? extends Map<LocalDate, BigDecimal>> maps) {
+        Builder builder = new Builder();
+        for (Map<LocalDate, BigDecimal> each : maps) {
+            for (Entry<LocalDate, BigDecimal> entry : each.entrySet()) {
+                builder.add(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Sums the values added for each day, growing the range of days as
+     * needed.
+     */
+    public static class Builder {
+
+        private long first;
+
+        private long[] values = new long[0];
+
+        private BitSet defined = new BitSet();
+
+        private int scale = 0;
+
+        public Builder add(LocalDate day, BigDecimal value) {
+            long epochDay = epochDay(day);
+            if ( values.length == 0 ) {
+                first = epochDay;
+                values = new long[16];
+            }
+            if ( epochDay < first ) {
+                int shift = (int) (first - epochDay);
+                long[] newValues = new long[Math.max(values.length + shift, values.length * 2)];
+                System.arraycopy(values, 0, newValues, shift, values.length);
+                BitSet newDefined = new BitSet(newValues.length);
+                for (int i = defined.nextSetBit(0); i >= 0; i = defined.nextSetBit(i + 1)) {
+                    newDefined.set(i + shift);
+                }
+                values = newValues;
+                defined = newDefined;
+                first = epochDay;
+            } else if ( epochDay - first >= values.length ) {
+                values = Arrays.copyOf(values, (int) Math.max(epochDay - first + 1, values.length * 2L));
+            }
+            if ( value.scale() > scale ) {
+                rescale(values, 0, values.length, value.scale() - scale);
+                scale = value.scale();
+            }
+
+            int index = (int) (epochDay - first);
+            values[index] = Math.addExact(values[index], unscaled(value, scale));
+            defined.set(index);
+
+            return this;
+        }
+
+        public DailySeries build() {
+            if ( defined.isEmpty() ) {
+                return EMPTY;
+            }
+            int length = defined.length();
+
+            return new DailySeries(first, Arrays.copyOf(values, length), (BitSet) defined.clone(), scale);
+        }
+
+    }
+
+    private static long epochDay(LocalDate day) {
+        return java.time.LocalDate.of(day.getYear(), day.getMonthOfYear(), day.getDayOfMonth()).toEpochDay();
+    }
+
+    private static LocalDate toLocalDate(long epochDay) {
+        java.time.LocalDate day = java.time.LocalDate.ofEpochDay(epochDay);
+
+        return new LocalDate(day.getYear(), day.getMonthValue(), day.getDayOfMonth());
+    }
+
+    private static long unscaled(BigDecimal value, int scale) {
+        return value.setScale(scale).unscaledValue().longValueExact();
+    }
+
+    private static void rescale(long[] values, int from, int to, int increment) {
+        if ( increment == 0 ) {
+            return;
+        }
+        long factor = powerOfTen(increment);
+        for (int i = from; i < to; i++) {
+            values[i] = Math.multiplyExact(values[i], factor);
+        }
+    }
+
+    private static long powerOfTen(int exponent) {
+        if ( exponent >= POWERS_OF_TEN.length ) {
+            throw new ArithmeticException("scale too big: " + exponent);
+        }
+
+        return POWERS_OF_TEN[exponent];
+    }
+
+    private final long first;
+
+    private final long[] values;
+
+    private final BitSet defined;
+
+    private final int scale;
+
+    private volatile DailySeries cumulative;
+
+    private DailySeries(long first, long[] values, BitSet defined, int scale) {
+        this.first = first;
+        this.values = values;
+        this.defined = defined;
+        this.scale = scale;
+    }
+
+    public boolean isEmpty() {
+        return defined.isEmpty();
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    private long end() {
+        return first + values.length;
+    }
+
+    /**
+     * @return the values between the days, with zero for the days without
+     *         value, with the scale specified
+     */
+    private long[] valuesIn(long from, long to, int resultScale) {
+        long[] result = new long[(int) (to - from)];
+        long start = Math.max(from, first);
+        long end = Math.min(to, end());
+        if ( start < end ) {
+            System.arraycopy(values, (int) (start - first), result, (int) (start - from), (int) (end - start));
+            rescale(result, (int) (start - from), (int) (end - from), resultScale - scale);
+        }
+
+        return result;
+    }
+
+    private BitSet definedIn(long from, long to) {
+        BitSet result = new BitSet((int) (to - from));
+        long start = Math.max(from, first);
+        long end = Math.min(to, end());
+        for (long i = start; i < end; i++) {
+            if ( defined.get((int) (i - first)) ) {
+                result.set((int) (i - from));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * The days without value are set to zero, so they can be summed when
+     * operating with other series.
+     */
+    private static DailySeries create(long first, long[] values, BitSet defined, int scale) {
+        if ( defined.isEmpty() ) {
+            return EMPTY;
+        }
+        for (int i = defined.nextClearBit(0); i < values.length; i = defined.nextClearBit(i + 1)) {
+            values[i] = 0;
+        }
+
+        return new DailySeries(first, values, defined, scale);
+    }
+
+    /**
+     * The days with value in any of the series have value, taking as zero the
+     * value of the other series if it doesn't have value that day.
+     */
+    public DailySeries plus(DailySeries other) {
+        if ( other.isEmpty() ) {
+            return this;
+        }
+        if ( isEmpty() ) {
+            return other;
+        }
+        long from = Math.min(first, other.first);
+        long to = Math.max(end(), other.end());
+        int resultScale = Math.max(scale, other.scale);
+        long[] a = valuesIn(from, to, resultScale);
+        long[] b = other.valuesIn(from, to, resultScale);
+        for (int i = 0; i < a.length; i++) {
+            a[i] = Math.addExact(a[i], b[i]);
+        }
+        BitSet resultDefined = definedIn(from, to);
+        resultDefined.or(other.definedIn(from, to));
+
+        return create(from, a, resultDefined, resultScale);
+    }
+
+    /**
+     * Only the days with value in both series have value.
+     */
+    public DailySeries minus(DailySeries other) {
+        long from = Math.max(first, other.first);
+        long to = Math.min(end(), other.end());
+        if ( isEmpty() || other.isEmpty() || from >= to ) {
+            return EMPTY;
+        }
+        int resultScale = Math.max(scale, other.scale);
+        long[] a = valuesIn(from, to, resultScale);
+        long[] b = other.valuesIn(from, to, resultScale);
+        for (int i = 0; i < a.length; i++) {
+            a[i] = Math.subtractExact(a[i], b[i]);
+        }
+        BitSet resultDefined = definedIn(from, to);
+        resultDefined.and(other.definedIn(from, to));
+
+        return create(from, a, resultDefined, resultScale);
+    }
+
+    /**
+     * The days with value in this series have value, being zero if the other
+     * series doesn't have value that day.
+     */
+    public DailySeries multiply(DailySeries other) {
+        if ( isEmpty() ) {
+            return EMPTY;
+        }
+        long[] a = valuesIn(first, end(), scale);
+        long[] b = other.valuesIn(first, end(), other.scale);
+        BitSet otherDefined = other.definedIn(first, end());
+        for (int i = 0; i < a.length; i++) {
+            a[i] = otherDefined.get(i) ? Math.multiplyExact(a[i], b[i]) : 0;
+        }
+
+        return create(first, a, (BitSet) defined.clone(), scale + other.scale);
+    }
+
+    /**
+     * The days with value in this series have value, rounded half up with the
+     * scale of this series. The days the divisor doesn't have value or it's
+     * zero the value is <code>defaultIfNotComputable</code>.
+     */
+    public DailySeries divide(DailySeries divisor, BigDecimal defaultIfNotComputable) {
+        if ( isEmpty() ) {
+            return EMPTY;
+        }
+        long[] a = valuesIn(first, end(), scale);
+        long[] b = divisor.valuesIn(first, end(), divisor.scale);
+        BitSet divisorDefined = divisor.definedIn(first, end());
+        long defaultValue = unscaled(defaultIfNotComputable.setScale(scale, RoundingMode.HALF_UP), scale);
+        for (int i = defined.nextSetBit(0); i >= 0; i = defined.nextSetBit(i + 1)) {
+            a[i] = divisorDefined.get(i) && b[i] != 0
+                    ? divideHalfUp(a[i], b[i], divisor.scale)
+                    : defaultValue;
+        }
+
+        return create(first, a, (BitSet) defined.clone(), scale);
+    }
+
+    /**
+     * @return dividend / (divisor * 10^-divisorScale) rounded half up
+     */
+    private static long divideHalfUp(long dividend, long divisor, int divisorScale) {
+        long scaledDividend;
+        try {
+            scaledDividend = Math.multiplyExact(dividend, powerOfTen(divisorScale));
+        } catch (ArithmeticException e) {
+            return BigDecimal.valueOf(dividend)
+                    .movePointRight(divisorScale)
+                    .divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP)
+                    .longValueExact();
+        }
+        long quotient = scaledDividend / divisor;
+        long remainder = scaledDividend % divisor;
+        if ( remainder != 0 && Math.abs(remainder) >= Math.abs(divisor) - Math.abs(remainder) ) {
+            quotient += Long.signum(scaledDividend) * Long.signum(divisor);
+        }
+
+        return quotient;
+    }
+
+    /**
+     * @return the series with the sum of the values until each day with value
+     */
+    public DailySeries cumulative() {
+        DailySeries result = cumulative;
+        if ( result == null ) {
+            long[] sums = Arrays.copyOf(values, values.length);
+            for (int i = 1; i < sums.length; i++) {
+                sums[i] = Math.addExact(sums[i], sums[i - 1]);
+            }
+            result = create(first, sums, defined, scale);
+            cumulative = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the same days with value, all of them with the value specified
+     */
+    public DailySeries withValue(BigDecimal value) {
+        if ( isEmpty() ) {
+            return EMPTY;
+        }
+        int resultScale = Math.max(0, value.scale());
+        long[] result = new long[values.length];
+        Arrays.fill(result, unscaled(value, resultScale));
+
+        return create(first, result, defined, resultScale);
+    }
+
+    /**
+     * @return the maximum value, <code>null</code> if empty
+     */
+    public BigDecimal getMax() {
+        if ( isEmpty() ) {
+            return null;
+        }
+        long result = Long.MIN_VALUE;
+        for (int i = defined.nextSetBit(0); i >= 0; i = defined.nextSetBit(i + 1)) {
+            result = Math.max(result, values[i]);
+        }
+
+        return BigDecimal.valueOf(result, scale);
+    }
+
+    /**
+     * @return the value of the last day with value, <code>null</code> if
+     *         empty
+     */
+    public BigDecimal getLastValue() {
+        return isEmpty() ? null : BigDecimal.valueOf(values[defined.length() - 1], scale);
+    }
+
+    public SortedMap<LocalDate, BigDecimal> toSortedMap() {
+        SortedMap<LocalDate, BigDecimal> result = new TreeMap<>();
+        for (int i = defined.nextSetBit(0); i >= 0; i = defined.nextSetBit(i + 1)) {
+            result.put(toLocalDate(first + i), BigDecimal.valueOf(values[i], scale));
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return toSortedMap().toString();
+    }
+
+}
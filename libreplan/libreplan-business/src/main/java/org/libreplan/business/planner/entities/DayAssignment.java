@@ -123,11 +123,11 @@ public abstract class DayAssignment extends BaseEntity {
     }
 
     public static EffortDuration sum(Collection<? extends DayAssignment> assignments) {
-        EffortDuration result = zero();
+        EffortDuration.Accumulator result = new EffortDuration.Accumulator();
         for (DayAssignment each : assignments) {
-            result = result.plus(each.getDuration());
+            result.add(each.getDuration());
         }
-        return result;
+        return result.toEffortDuration();
     }
 
     public static <T extends DayAssignment> Map<Resource, List<T>> byResourceAndOrdered(
@@ -196,13 +196,50 @@ public abstract class DayAssignment extends BaseEntity {
             Scenario scenario, Collection<T> dayAssignments) {
         List<T> result = new ArrayList<T>();
         for (T each : dayAssignments) {
-            if (Objects.equals(each.getScenario(), scenario)) {
+            if (each.isVisibleAt(scenario)) {
                 result.add(each);
             }
         }
         return result;
     }
 
+    /**
+     * Checks if both collections have assignments with the same resources,
+     * days, durations and consolidated values, regardless of the order and
+     * the allocations they belong to.
+     */
+    public static boolean haveSameValues(
+            Collection<? extends DayAssignment> assignments,
+            Collection<? extends DayAssignment> otherAssignments) {
+        if (assignments.size() != otherAssignments.size()) {
+            return false;
+        }
+        Map<List<Object>, Integer> pending = new HashMap<List<Object>, Integer>();
+        for (DayAssignment each : assignments) {
+            List<Object> key = each.valuesKey();
+            Integer count = pending.get(key);
+            pending.put(key, count == null ? 1 : count + 1);
+        }
+        for (DayAssignment each : otherAssignments) {
+            List<Object> key = each.valuesKey();
+            Integer count = pending.get(key);
+            if (count == null) {
+                return false;
+            }
+            if (count == 1) {
+                pending.remove(key);
+            } else {
+                pending.put(key, count - 1);
+            }
+        }
+        return pending.isEmpty();
+    }
+
+    private List<Object> valuesKey() {
+        return Arrays.<Object> asList(resource, day, duration,
+                isConsolidated());
+    }
+
     @NotNull
     private EffortDuration duration;
 
@@ -332,6 +369,32 @@ public abstract class DayAssignment extends BaseEntity {
      */
     public abstract Scenario getScenario();
 
+    /**
+     * A {@link Scenario} shares the assignments of its nearest predecessor for
+     * the allocations it hasn't modified, so this day assignment can be seen
+     * from scenarios derived from the one it belongs to.
+     *
+     * @return if {@link DayAssignment this} day assignment belongs to the
+     *         scenario or it's shared with it
+     */
+    public boolean isVisibleAt(Scenario scenario) {
+        Scenario own = getScenario();
+        if (Objects.equals(own, scenario)) {
+            return true;
+        }
+        if (own == null || scenario == null
+                || !scenario.getPredecessors().contains(own)) {
+            return false;
+        }
+        return own.equals(getScenarioSharedWith(scenario));
+    }
+
+    /**
+     * @return the scenario whose assignments of the same allocation are seen
+     *         from the provided one. It can be <code>null</code>
+     */
+    protected abstract Scenario getScenarioSharedWith(Scenario scenario);
+
     public abstract DayAssignment withDuration(EffortDuration newDuration);
 
 }
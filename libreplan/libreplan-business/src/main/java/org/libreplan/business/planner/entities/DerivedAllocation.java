@@ -109,6 +109,48 @@ public class DerivedAllocation extends BaseEntity {
         return result;
     }
 
+    /**
+     * As in {@link ResourceAllocation}, a scenario shares the assignments of
+     * its nearest predecessor with a container until it modifies them.
+     */
+    private DerivedDayAssignmentsContainer retrieveVisible(Scenario scenario) {
+        Map<Scenario, DerivedDayAssignmentsContainer> byScenario = byScenario();
+        DerivedDayAssignmentsContainer result = byScenario.get(scenario);
+        if (result != null) {
+            return result;
+        }
+        for (Scenario each : scenario.getPredecessors()) {
+            result = byScenario.get(each);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private DerivedDayAssignmentsContainer materialize(Scenario scenario) {
+        DerivedDayAssignmentsContainer shared = retrieveVisible(scenario);
+        DerivedDayAssignmentsContainer result = retrieveOrCreate(scenario);
+        if (shared != null && shared != result) {
+            result.resetAssignmentsTo(shared.getDayAssignments());
+        }
+        return result;
+    }
+
+    private Collection<DerivedDayAssignment> getVisibleAssignments(
+            Scenario scenario) {
+        DerivedDayAssignmentsContainer container = retrieveVisible(scenario);
+        if (container == null) {
+            return new ArrayList<DerivedDayAssignment>();
+        }
+        return container.getDayAssignments();
+    }
+
+    public Scenario getScenarioOfAssignmentsSeenFrom(Scenario scenario) {
+        DerivedDayAssignmentsContainer container = retrieveVisible(scenario);
+        return container == null ? null : container.getScenario();
+    }
+
     @OnCopy(Strategy.IGNORE)
     private DayAssignmentsState dayAssignmentsState;
 
@@ -139,12 +181,7 @@ public class DerivedAllocation extends BaseEntity {
         @Override
         protected Collection<DerivedDayAssignment> getUnorderedAssignments() {
             Scenario current = Registry.getScenarioManager().getCurrent();
-            DerivedDayAssignmentsContainer container = byScenario()
-                    .get(current);
-            if (container == null) {
-                return new ArrayList<DerivedDayAssignment>();
-            }
-            return container.getDayAssignments();
+            return getVisibleAssignments(current);
         }
 
         @Override
@@ -229,22 +266,27 @@ public class DerivedAllocation extends BaseEntity {
 
         @Override
         protected Collection<DerivedDayAssignment> getUnorderedAssignments() {
-            DerivedDayAssignmentsContainer container = retrieveOrCreate(scenario);
-            return container.getDayAssignments();
+            return getVisibleAssignments(scenario);
         }
 
 
         @Override
         void resetAssignmentsTo(List<DerivedDayAssignment> dayAssignments) {
-            DerivedDayAssignmentsContainer container = retrieveOrCreate(scenario);
-            container.resetAssignmentsTo(dayAssignments);
+            DerivedDayAssignmentsContainer container = byScenario().get(
+                    scenario);
+            if (container == null
+                    && DayAssignment.haveSameValues(
+                            getVisibleAssignments(scenario), dayAssignments)) {
+                return;
+            }
+            retrieveOrCreate(scenario).resetAssignmentsTo(dayAssignments);
         }
 
         @Override
         void resetAssignmentsTo(LocalDate startInclusive,
                 LocalDate endExclusive,
                 List<DerivedDayAssignment> newAssignments) {
-            DerivedDayAssignmentsContainer container = retrieveOrCreate(scenario);
+            DerivedDayAssignmentsContainer container = materialize(scenario);
             container.resetAssignmentsTo(startInclusive, endExclusive,
                     newAssignments);
         }
@@ -364,6 +406,9 @@ public class DerivedAllocation extends BaseEntity {
     }
 
     public void removePredecessorContainersFor(Scenario scenario) {
+        if (retrieveVisible(scenario) != null) {
+            materialize(scenario);
+        }
         Map<Scenario, DerivedDayAssignmentsContainer> byScenario = byScenario();
         for (Scenario each : scenario.getPredecessors()) {
             DerivedDayAssignmentsContainer container = byScenario.get(each);
@@ -378,6 +423,9 @@ public class DerivedAllocation extends BaseEntity {
         if (container != null) {
             derivedDayAssignmentsContainers.remove(container);
         }
+        if (retrieveVisible(scenario) != null) {
+            retrieveOrCreate(scenario);
+        }
     }
 
 }
@@ -167,6 +167,13 @@ public class DerivedDayAssignment extends DayAssignment {
         return parentState.getScenario();
     }
 
+    @Override
+    protected Scenario getScenarioSharedWith(Scenario scenario) {
+        DerivedAllocation allocation = getAllocation();
+        return allocation == null ? null : allocation
+                .getScenarioOfAssignmentsSeenFrom(scenario);
+    }
+
     @Override
     public DayAssignment withDuration(EffortDuration newDuration) {
         throw new UnsupportedOperationException();
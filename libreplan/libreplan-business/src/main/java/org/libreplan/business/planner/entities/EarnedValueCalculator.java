@@ -20,10 +20,7 @@
 package org.libreplan.business.planner.entities;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.Collections;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Collection;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -38,6 +35,9 @@ import org.springframework.stereotype.Component;
  *
  *         Calculates generic 'Earned Value' indicators (those calculated out of
  *         BCWP, ACWP and BCWS
+ *
+ *         The indicators are calculated with {@link DailySeries}, so only the
+ *         results are converted to {@link BigDecimal}.
  */
 @Component
 @Scope(BeanDefinition.SCOPE_SINGLETON)
@@ -47,25 +47,24 @@ public class EarnedValueCalculator implements IEarnedValueCalculator {
     public SortedMap<LocalDate, BigDecimal> calculateCostVariance(
             SortedMap<LocalDate, BigDecimal> bcwp,
             SortedMap<LocalDate, BigDecimal> acwp) {
-        return substract(bcwp, acwp);
+        return series(bcwp).minus(series(acwp)).toSortedMap();
     }
 
     @Override
     public SortedMap<LocalDate, BigDecimal> calculateScheduleVariance(
             SortedMap<LocalDate, BigDecimal> bcwp,
             SortedMap<LocalDate, BigDecimal> bcws) {
-        return substract(bcwp, bcws);
+        return series(bcwp).minus(series(bcws)).toSortedMap();
     }
 
     @Override
     public SortedMap<LocalDate, BigDecimal> calculateBudgetAtCompletion(
             SortedMap<LocalDate, BigDecimal> bcws) {
-        SortedMap<LocalDate, BigDecimal> result = new TreeMap<LocalDate, BigDecimal>();
-        BigDecimal value = Collections.max(bcws.values());
-        for (LocalDate day : bcws.keySet()) {
-            result.put(day, value);
+        DailySeries values = series(bcws);
+        if (values.isEmpty()) {
+            return new TreeMap<LocalDate, BigDecimal>();
         }
-        return result;
+        return values.withValue(values.getMax()).toSortedMap();
     }
 
     @Override
@@ -73,180 +72,48 @@ public class EarnedValueCalculator implements IEarnedValueCalculator {
             SortedMap<LocalDate, BigDecimal> acwp,
             SortedMap<LocalDate, BigDecimal> bcwp,
             SortedMap<LocalDate, BigDecimal> bac) {
-        return multiply(divide(acwp, bcwp,
-                BigDecimal.ZERO), bac);
+        return series(acwp).divide(series(bcwp), BigDecimal.ZERO)
+                .multiply(series(bac)).toSortedMap();
     }
 
     @Override
     public SortedMap<LocalDate, BigDecimal> calculateVarianceAtCompletion(
             SortedMap<LocalDate, BigDecimal> bac,
             SortedMap<LocalDate, BigDecimal> eac) {
-        return substract(bac, eac);
+        return series(bac).minus(series(eac)).toSortedMap();
     }
 
     @Override
     public SortedMap<LocalDate, BigDecimal> calculateEstimatedToComplete(
             SortedMap<LocalDate, BigDecimal> eac,
             SortedMap<LocalDate, BigDecimal> acwp) {
-        return substract(eac, acwp);
+        return series(eac).minus(series(acwp)).toSortedMap();
     }
 
     @Override
     public SortedMap<LocalDate, BigDecimal> calculateCostPerformanceIndex(
             SortedMap<LocalDate, BigDecimal> bcwp,
             SortedMap<LocalDate, BigDecimal> acwp) {
-        return divide(bcwp, acwp, BigDecimal.ZERO);
+        return series(bcwp).divide(series(acwp), BigDecimal.ZERO).toSortedMap();
     }
 
     @Override
     public SortedMap<LocalDate, BigDecimal> calculateSchedulePerformanceIndex(
             SortedMap<LocalDate, BigDecimal> bcwp,
             SortedMap<LocalDate, BigDecimal> bcws) {
-        return divide(bcwp, bcws, BigDecimal.ZERO);
-    }
-
-    private SortedMap<LocalDate, BigDecimal> substract(
-            SortedMap<LocalDate, BigDecimal> minuend,
-            SortedMap<LocalDate, BigDecimal> subtrahend) {
-        final SortedMap<LocalDate, BigDecimal> result = new TreeMap<LocalDate, BigDecimal>();
-        forValuesAtSameKey(minuend, subtrahend, substractionOperation(result));
-        return result;
-
-    }
-
-    public static <K, V> void forValuesAtSameKey(Map<K, V> a, Map<K, V> b,
-            IOperation<K, V> onSameKey) {
-        for (Entry<K, V> each : a.entrySet()) {
-            V aValue = each.getValue();
-            V bValue = b.get(each.getKey());
-            onSameKey.operate(each.getKey(), aValue, bValue);
-        }
-    }
-
-    private static IOperation<LocalDate, BigDecimal> substractionOperation(
-            final SortedMap<LocalDate, BigDecimal> result) {
-        return notNullOperands(new IOperation<LocalDate, BigDecimal>() {
-
-            @Override
-            public void operate(LocalDate key, BigDecimal minuedValue,
-                    BigDecimal subtrahendValue) {
-                result.put(key, minuedValue.subtract(subtrahendValue));
-            }
-
-            @Override
-            public void undefinedFor(LocalDate key) {
-            }
-        });
-    }
-
-    public static <K, V> IOperation<K, V> notNullOperands(
-            final IOperation<K, V> operation) {
-        return new PreconditionChecker<K, V>(operation) {
-            @Override
-            protected boolean isOperationDefinedFor(K key, V a, V b) {
-                return a != null && b != null;
-            }
-        };
-    }
-
-    public interface IOperation<K, V> {
-
-        public void operate(K key, V a, V b);
-
-        public void undefinedFor(K key);
-    }
-
-    protected static abstract class PreconditionChecker<K, V> implements
-            IOperation<K, V> {
-
-        private final IOperation<K, V> decorated;
-
-        protected PreconditionChecker(IOperation<K, V> decorated) {
-            this.decorated = decorated;
-        }
-
-        @Override
-        public void operate(K key, V a, V b) {
-            if (isOperationDefinedFor(key, a, b)) {
-                decorated.operate(key, a, b);
-            } else {
-                decorated.undefinedFor(key);
-            }
-        }
-
-        protected abstract boolean isOperationDefinedFor(K key, V a, V b);
-
-        @Override
-        public void undefinedFor(K key) {
-            decorated.undefinedFor(key);
-        }
-
+        return series(bcwp).divide(series(bcws), BigDecimal.ZERO).toSortedMap();
     }
 
-    private static SortedMap<LocalDate, BigDecimal> multiply(
-            Map<LocalDate, BigDecimal> firstFactor,
-            Map<LocalDate, BigDecimal> secondFactor) {
-        final SortedMap<LocalDate, BigDecimal> result = new TreeMap<LocalDate, BigDecimal>();
-        forValuesAtSameKey(firstFactor, secondFactor,
-                multiplicationOperation(result));
-        return result;
-    }
-
-    private static IOperation<LocalDate, BigDecimal> multiplicationOperation(
-            final SortedMap<LocalDate, BigDecimal> result) {
-        return notNullOperands(new IOperation<LocalDate, BigDecimal>() {
-
-            @Override
-            public void operate(LocalDate key, BigDecimal a,
-                    BigDecimal b) {
-                result.put(key, a.multiply(b));
-            }
-
-            @Override
-            public void undefinedFor(LocalDate key) {
-                result.put(key, BigDecimal.ZERO);
-            }
-        });
-    }
-
-    private static SortedMap<LocalDate, BigDecimal> divide(
-            Map<LocalDate, BigDecimal> dividend,
-            Map<LocalDate, BigDecimal> divisor,
-            final BigDecimal defaultIfNotComputable) {
-        final TreeMap<LocalDate, BigDecimal> result = new TreeMap<LocalDate, BigDecimal>();
-        forValuesAtSameKey(dividend, divisor,
-                divisionOperation(result, defaultIfNotComputable));
-        return result;
-    }
-
-    private static IOperation<LocalDate, BigDecimal> divisionOperation(
-            final TreeMap<LocalDate, BigDecimal> result,
-            final BigDecimal defaultIfNotComputable) {
-        return notNullOperands(secondOperandNotZero(new IOperation<LocalDate, BigDecimal>() {
-
-            @Override
-            public void operate(LocalDate key, BigDecimal dividendValue,
-                    BigDecimal divisorValue) {
-                result.put(key, dividendValue.divide(divisorValue,
-                        RoundingMode.HALF_UP));
-            }
-
-            @Override
-            public void undefinedFor(LocalDate key) {
-                result.put(key, defaultIfNotComputable);
-            }
-        }));
+    private static DailySeries series(SortedMap<LocalDate, BigDecimal> values) {
+        return DailySeries.fromMap(values);
     }
 
-    public static <K> IOperation<K, BigDecimal> secondOperandNotZero(
-            final IOperation<K, BigDecimal> operation) {
-        return new PreconditionChecker<K, BigDecimal>(operation) {
-            @Override
-            protected boolean isOperationDefinedFor(K key, BigDecimal a,
-                    BigDecimal b) {
-                return b.signum() != 0;
-            }
-        };
+    /**
+     * @return the sum of the costs of each day accumulated from the first day
+     */
+    protected static SortedMap<LocalDate, BigDecimal> accumulatedSum(
+            Collection<? extends SortedMap<LocalDate, BigDecimal>> costs) {
+        return DailySeries.sum(costs).cumulative().toSortedMap();
     }
 
-}
\ No newline at end of file
+}
@@ -20,7 +20,6 @@
  */
 package org.libreplan.business.planner.entities;
 
-import static org.libreplan.business.workingday.EffortDuration.min;
 import static org.libreplan.business.workingday.EffortDuration.seconds;
 
 import java.util.ArrayList;
@@ -101,11 +100,15 @@ public class EffortDistributor {
         }
 
         public static EffortDuration sumDurations(List<ResourceWithAssignedDuration> withoutOvertime) {
-            EffortDuration result = EffortDuration.zero();
-            for (ResourceWithAssignedDuration each : withoutOvertime) {
-                result = result.plus(each.duration);
+            return EffortDuration.seconds(sumSeconds(withoutOvertime));
+        }
+
+        static int sumSeconds(List<ResourceWithAssignedDuration> durations) {
+            EffortDuration.Accumulator result = new EffortDuration.Accumulator();
+            for (ResourceWithAssignedDuration each : durations) {
+                result.add(each.duration);
             }
-            return result;
+            return result.getSeconds();
         }
 
         static List<Resource> resources(Collection<? extends ResourceWithAssignedDuration> collection) {
@@ -215,15 +218,16 @@ public class EffortDistributor {
         }
 
         ResourceWithAvailableCapacity withAvailableCapacityOn(PartialDay day, IAssignedEffortForResource assignedEffort) {
-            EffortDuration allCapacityForDay = calendar.getCapacityOn(PartialDay.wholeDay(day.getDate()));
-            EffortDuration capacity = calendar.getCapacityOn(day);
+            int allCapacityForDay = calendar.getCapacityOn(PartialDay.wholeDay(day.getDate())).getSeconds();
+            int capacity = calendar.getCapacityOn(day).getSeconds();
 
-            EffortDuration capacityForAlreadyAssigned = allCapacityForDay.minus(capacity);
+            int capacityForAlreadyAssigned = allCapacityForDay - capacity;
+            assert capacityForAlreadyAssigned >= 0;
 
-            EffortDuration assigned = assignedEffort.getAssignedDurationAt(resource, day.getDate());
-            EffortDuration assignedInterfering = assigned.minus(min(assigned, capacityForAlreadyAssigned));
+            int assigned = assignedEffort.getAssignedDurationAt(resource, day.getDate()).getSeconds();
+            int assignedInterfering = assigned - Math.min(assigned, capacityForAlreadyAssigned);
 
-            EffortDuration available = capacity.minus(min(assignedInterfering, capacity));
+            int available = capacity - Math.min(assignedInterfering, capacity);
 
             return new ResourceWithAvailableCapacity(resource, available);
         }
@@ -243,22 +247,25 @@ public class EffortDistributor {
 
         private final Resource resource;
 
-        private final EffortDuration available;
+        /**
+         * In seconds
+         */
+        private final int available;
 
-        public ResourceWithAvailableCapacity(Resource resource, EffortDuration available) {
+        public ResourceWithAvailableCapacity(Resource resource, int available) {
             Validate.notNull(resource);
-            Validate.notNull(available);
+            Validate.isTrue(available >= 0);
             this.resource = resource;
             this.available = available;
         }
 
-        public ResourceWithAssignedDuration doBiggestAssignationPossible(EffortDuration remaining) {
-            return new ResourceWithAssignedDuration(EffortDuration.min(remaining, available), resource);
+        public int biggestAssignationPossible(int remaining) {
+            return Math.min(remaining, available);
         }
 
         @Override
         public int compareTo(ResourceWithAvailableCapacity o) {
-            return available.compareTo(o.available);
+            return Integer.compare(available, o.available);
         }
 
         @SuppressWarnings("unchecked")
@@ -324,13 +331,14 @@ public class EffortDistributor {
         List<ResourceWithAssignedDuration> withoutOvertime =
                 assignAllPossibleWithoutOvertime(day, totalDuration, resourcesAssignable);
 
-        EffortDuration remaining = totalDuration.minus(ResourceWithAssignedDuration.sumDurations(withoutOvertime));
-        if (remaining.isZero()) {
+        int remaining = totalDuration.getSeconds() - ResourceWithAssignedDuration.sumSeconds(withoutOvertime);
+        assert remaining >= 0;
+        if (remaining == 0) {
             return withoutOvertime;
         }
         List<ResourceWithAssignedDuration> withOvertime = distributeInOvertimeForDayRemainingEffort(
                 day.getDate(),
-                remaining,
+                seconds(remaining),
                 ResourceWithAssignedDuration.sumAssignedEffort(withoutOvertime, assignedEffortForResource),
                 resourcesAssignable);
 
@@ -353,15 +361,13 @@ public class EffortDistributor {
         List<ResourceWithAvailableCapacity> fromMoreToLessCapacity =
                 resourcesFromMoreDesirableToLess(resourcesAssignable, day);
 
-        EffortDuration remaining = totalDuration;
+        int remaining = totalDuration.getSeconds();
         List<ResourceWithAssignedDuration> result = new ArrayList<>();
         for (ResourceWithAvailableCapacity each : fromMoreToLessCapacity) {
-            if (!each.available.isZero()) {
-                ResourceWithAssignedDuration r = each.doBiggestAssignationPossible(remaining);
-                remaining = remaining.minus(r.duration);
-                if (!r.duration.isZero()) {
-                    result.add(r);
-                }
+            int assigned = each.biggestAssignationPossible(remaining);
+            if (assigned > 0) {
+                remaining -= assigned;
+                result.add(new ResourceWithAssignedDuration(seconds(assigned), each.resource));
             }
         }
         return result;
@@ -390,10 +396,10 @@ public class EffortDistributor {
                 assignedEffortForEachResource,
                 distributeRemaining(day, remainingDuration, assignedEffortForEachResource, assignableResources));
 
-        EffortDuration durationDistributed = ResourceWithAssignedDuration.sumDurations(remainingDistribution);
-        EffortDuration newRemaining = remainingDuration.minus(durationDistributed);
-        assert newRemaining.compareTo(EffortDuration.zero()) >= 0;
-        if (newRemaining.isZero()) {
+        int newRemaining =
+                remainingDuration.getSeconds() - ResourceWithAssignedDuration.sumSeconds(remainingDistribution);
+        assert newRemaining >= 0;
+        if (newRemaining == 0) {
             return remainingDistribution;
         }
         IAssignedEffortForResource newEffortForEachResource =
@@ -408,7 +414,7 @@ public class EffortDistributor {
         return ResourceWithAssignedDuration.join(
                 remainingDistribution,
                 distributeInOvertimeForDayRemainingEffort(
-                        day, newRemaining, newEffortForEachResource, resourcesWithAvailableOvertime));
+                        day, seconds(newRemaining), newEffortForEachResource, resourcesWithAvailableOvertime));
     }
 
     private List<ResourceWithAssignedDuration> suppressOverAssignedBeyondAvailableCapacity(
@@ -424,27 +430,29 @@ public class EffortDistributor {
             if (capacityWithOvertime.isOverAssignableWithoutLimit()) {
                 result.add(each);
             } else {
-                EffortDuration durationCanBeAdded = calculateDurationCanBeAdded(assignedEffortForEachResource
+                int secondsCanBeAdded = calculateSecondsCanBeAdded(assignedEffortForEachResource
                         .getAssignedDurationAt(resource, date), capacityWithOvertime, each.duration);
 
-                if (!durationCanBeAdded.isZero()) {
-                    result.add(new ResourceWithAssignedDuration(durationCanBeAdded, resource));
+                if (secondsCanBeAdded == each.duration.getSeconds()) {
+                    result.add(each);
+                } else if (secondsCanBeAdded > 0) {
+                    result.add(new ResourceWithAssignedDuration(seconds(secondsCanBeAdded), resource));
                 }
             }
         }
         return result;
     }
 
-    private EffortDuration calculateDurationCanBeAdded(
+    private int calculateSecondsCanBeAdded(
             EffortDuration alreadyAssigned, Capacity capacityWithOvertime, EffortDuration newAddition) {
 
-        EffortDuration maximum =
-                capacityWithOvertime.getStandardEffort().plus(capacityWithOvertime.getAllowedExtraEffort());
+        int maximum = capacityWithOvertime.getStandardEffort().getSeconds()
+                + capacityWithOvertime.getAllowedExtraEffort().getSeconds();
 
-        if (alreadyAssigned.compareTo(maximum) >= 0) {
-            return EffortDuration.zero();
+        if (alreadyAssigned.getSeconds() >= maximum) {
+            return 0;
         } else {
-            return EffortDuration.min(newAddition, maximum.minus(alreadyAssigned));
+            return Math.min(newAddition.getSeconds(), maximum - alreadyAssigned.getSeconds());
         }
     }
 
@@ -471,9 +479,7 @@ public class EffortDistributor {
             List<ResourceWithDerivedData> resourcesWithAvailableOvertime) {
 
         List<ShareSource> shares = divisionAt(resourcesWithAvailableOvertime, assignedEffortForEachResource, date);
-        ShareDivision currentDivision = ShareSource.all(shares);
-        ShareDivision newDivision = currentDivision.plus(remainingDuration.getSeconds());
-        int[] differences = currentDivision.to(newDivision);
+        int[] differences = ShareDivision.increments(ShareSource.all(shares), remainingDuration.getSeconds());
 
         return ShareSource.durationsForEachResource(
                 shares, differences, ResourceWithDerivedData.resources(resourcesWithAvailableOvertime));
@@ -487,7 +493,6 @@ public class EffortDistributor {
         List<ShareSource> result = new ArrayList<>();
 
         for (ResourceWithDerivedData resource1 : resources) {
-            List<Share> shares = new ArrayList<>();
             Resource resource = resource1.resource;
             ICalendar calendarForResource = resource1.calendar;
             EffortDuration alreadyAssigned = assignedEffortForEachResource.getAssignedDurationAt(resource, date);
@@ -501,9 +506,10 @@ public class EffortDistributor {
             final int assignedForEach = alreadyAssignedSeconds / capacityUnits;
             final int remainder = alreadyAssignedSeconds % capacityUnits;
 
+            int[] shares = new int[capacityUnits];
             for (int j = 0; j < capacityUnits; j++) {
                 int assignedSeconds = assignedForEach + (j < remainder ? 1 : 0);
-                shares.add(new Share(assignedSeconds - capacityEachOneSeconds));
+                shares[j] = assignedSeconds - capacityEachOneSeconds;
             }
             result.add(new ShareSource(shares));
         }
@@ -514,12 +520,21 @@ public class EffortDistributor {
 
     private static class ShareSource {
 
-        public static ShareDivision all(Collection<ShareSource> sources) {
-            List<Share> shares = new ArrayList<>();
+        /**
+         * @return the shares in seconds of all the sources, one after another
+         */
+        public static int[] all(Collection<ShareSource> sources) {
+            int size = 0;
             for (ShareSource shareSource : sources) {
-                shares.addAll(shareSource.shares);
+                size += shareSource.shares.length;
             }
-            return ShareDivision.create(shares);
+            int[] result = new int[size];
+            int position = 0;
+            for (ShareSource shareSource : sources) {
+                System.arraycopy(shareSource.shares, 0, result, position, shareSource.shares.length);
+                position += shareSource.shares.length;
+            }
+            return result;
         }
 
         public static List<ResourceWithAssignedDuration> durationsForEachResource(
@@ -531,15 +546,12 @@ public class EffortDistributor {
             for (int i = 0; i < resources.size(); i++) {
                 Resource resource = resources.get(i);
                 ShareSource shareSource = sources.get(i);
-                final int differencesToTake = shareSource.shares.size();
+                final int differencesToTake = shareSource.shares.length;
                 int sum = sumDifferences(differencesInSeconds, differencesIndex, differencesToTake);
                 differencesIndex += differencesToTake;
 
-                ResourceWithAssignedDuration withAssignedDuration =
-                        new ResourceWithAssignedDuration(seconds(sum), resource);
-
-                if (!withAssignedDuration.duration.isZero()) {
-                    result.add(withAssignedDuration);
+                if (sum != 0) {
+                    result.add(new ResourceWithAssignedDuration(seconds(sum), resource));
                 }
             }
             return result;
@@ -553,9 +565,12 @@ public class EffortDistributor {
             return sum;
         }
 
-        private final List<Share> shares;
+        /**
+         * In seconds, one for each capacity unit of the resource
+         */
+        private final int[] shares;
 
-        private ShareSource(List<Share> shares) {
+        private ShareSource(int[] shares) {
             this.shares = shares;
         }
 
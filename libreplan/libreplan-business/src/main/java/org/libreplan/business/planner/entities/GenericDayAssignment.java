@@ -211,6 +211,13 @@ public class GenericDayAssignment extends DayAssignment {
         return parentState.getScenario();
     }
 
+    @Override
+    protected Scenario getScenarioSharedWith(Scenario scenario) {
+        GenericResourceAllocation allocation = getGenericResourceAllocation();
+        return allocation == null ? null : allocation
+                .getScenarioOfAssignmentsSeenFrom(scenario);
+    }
+
     public DayAssignment withDuration(EffortDuration newDuration) {
         GenericDayAssignment result = create(getDay(), newDuration,
                 getResource());
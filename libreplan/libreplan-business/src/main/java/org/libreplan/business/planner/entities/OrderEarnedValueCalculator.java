@@ -21,9 +21,9 @@ package org.libreplan.business.planner.entities;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.SortedMap;
-import java.util.TreeMap;
 
 import org.joda.time.LocalDate;
 import org.libreplan.business.orders.entities.Order;
@@ -53,39 +53,13 @@ public class OrderEarnedValueCalculator extends EarnedValueCalculator implements
     @Transactional(readOnly = true)
     @Override
     public SortedMap<LocalDate, BigDecimal> calculateActualCostWorkPerformed(Order order) {
-        SortedMap<LocalDate, BigDecimal> result = new TreeMap<LocalDate, BigDecimal>();
+        List<SortedMap<LocalDate, BigDecimal>> costs = new ArrayList<SortedMap<LocalDate, BigDecimal>>();
         for (TaskElement taskElement : getAllTaskElements(order)) {
             if ( taskElement instanceof Task ) {
-                addCost(result, getWorkReportCost((Task) taskElement));
+                costs.add(getWorkReportCost((Task) taskElement));
             }
         }
-        return accumulateResult(result);
-    }
-
-    private SortedMap<LocalDate, BigDecimal> accumulateResult(SortedMap<LocalDate, BigDecimal> map) {
-        SortedMap<LocalDate, BigDecimal> result = new TreeMap<LocalDate, BigDecimal>();
-        if ( map.isEmpty() ) {
-            return result;
-        }
-
-        BigDecimal accumulatedResult = BigDecimal.ZERO;
-        for (LocalDate day : map.keySet()) {
-            BigDecimal value = map.get(day);
-            accumulatedResult = accumulatedResult.add(value);
-            result.put(day, accumulatedResult);
-        }
-        return result;
-    }
-
-    private void addCost(SortedMap<LocalDate, BigDecimal> currentCost,
-                         SortedMap<LocalDate, BigDecimal> additionalCost) {
-
-        for (LocalDate day : additionalCost.keySet()) {
-            if ( !currentCost.containsKey(day) ) {
-                currentCost.put(day, BigDecimal.ZERO);
-            }
-            currentCost.put(day, currentCost.get(day).add(additionalCost.get(day)));
-        }
+        return accumulatedSum(costs);
     }
 
     private List<TaskElement> getAllTaskElements(Order order) {
@@ -101,20 +75,24 @@ public class OrderEarnedValueCalculator extends EarnedValueCalculator implements
     @Override
     @Transactional(readOnly = true)
     public BigDecimal getBudgetAtCompletion(Order order) {
-		SortedMap<LocalDate, BigDecimal> budgedtedCost = calculateBudgetedCostWorkScheduled(order);
-		return !budgedtedCost.isEmpty() ? budgedtedCost.get(budgedtedCost.lastKey()) : BigDecimal.ZERO;
+        DailySeries budgetedCost = budgetedCostWorkScheduled(order);
+        return !budgetedCost.isEmpty() ? budgetedCost.getLastValue() : BigDecimal.ZERO;
     }
 
     @Override
     @Transactional(readOnly = true)
     public SortedMap<LocalDate, BigDecimal> calculateBudgetedCostWorkScheduled(Order order) {
-        SortedMap<LocalDate, BigDecimal> result = new TreeMap<LocalDate, BigDecimal>();
+        return budgetedCostWorkScheduled(order).toSortedMap();
+    }
+
+    private DailySeries budgetedCostWorkScheduled(Order order) {
+        List<SortedMap<LocalDate, BigDecimal>> costs = new ArrayList<SortedMap<LocalDate, BigDecimal>>();
         for (TaskElement taskElement : getAllTaskElements(order)) {
             if ( taskElement instanceof Task ) {
-                addCost(result, getEstimatedCost((Task) taskElement));
+                costs.add(getEstimatedCost((Task) taskElement));
             }
         }
-        return accumulateResult(result);
+        return DailySeries.sum(costs).cumulative();
     }
 
     private SortedMap<LocalDate, BigDecimal> getEstimatedCost(Task task) {
@@ -150,13 +128,13 @@ public class OrderEarnedValueCalculator extends EarnedValueCalculator implements
     @Override
     @Transactional(readOnly = true)
     public SortedMap<LocalDate, BigDecimal> calculateBudgetedCostWorkPerformed(Order order) {
-        SortedMap<LocalDate, BigDecimal> estimatedCost = new TreeMap<LocalDate, BigDecimal>();
+        List<SortedMap<LocalDate, BigDecimal>> costs = new ArrayList<SortedMap<LocalDate, BigDecimal>>();
         for (TaskElement taskElement : getAllTaskElements(order)) {
             if ( taskElement instanceof Task ) {
-                addCost(estimatedCost, getAdvanceCost((Task) taskElement));
+                costs.add(getAdvanceCost((Task) taskElement));
             }
         }
-        return accumulateResult(estimatedCost);
+        return accumulatedSum(costs);
     }
 
     private SortedMap<LocalDate, BigDecimal> getAdvanceCost(Task task) {
@@ -1131,13 +1131,33 @@ public abstract class ResourceAllocation<T extends DayAssignment>
         updateResourcesPerDay();
     }
 
-    void updateAssignmentsConsolidatedValues() {
+    /**
+     * Marks as consolidated the assignments before the first day not
+     * consolidated of the task
+     */
+    public void updateAssignmentsConsolidatedValues() {
         LocalDate firstNotConsolidated = task.getFirstDayNotConsolidated().getDate();
+        if ( !consolidatedValuesChange(firstNotConsolidated) ) {
+            return;
+        }
+
+        // The assignments are modified in place, so they must not be shared with other scenario
+        getDayAssignmentsState().ensureOwnAssignments();
         for (T each : getAssignments()) {
             each.setConsolidated(each.getDay().isBefore(firstNotConsolidated));
         }
     }
 
+    private boolean consolidatedValuesChange(LocalDate firstNotConsolidated) {
+        for (T each : getAssignments()) {
+            if ( each.isConsolidated() != each.getDay().isBefore(firstNotConsolidated) ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     private void resetAssignmentsFittingAllocationDatesToResultingAssignments(
             AllocationInterval interval, List<T> assignmentsCreated) {
 
@@ -1309,19 +1329,19 @@ public abstract class ResourceAllocation<T extends DayAssignment>
     }
 
     private Set<T> getUnorderedFor(Scenario scenario) {
-        IDayAssignmentsContainer<T> container = retrieveContainerFor(scenario);
+        IDayAssignmentsContainer<T> container = retrieveVisibleContainerFor(scenario);
 
         return container == null ? new HashSet<>() : container.getDayAssignments();
     }
 
     private IntraDayDate getIntraDayStartDateFor(Scenario scenario) {
-        IDayAssignmentsContainer<T> container = retrieveContainerFor(scenario);
+        IDayAssignmentsContainer<T> container = retrieveVisibleContainerFor(scenario);
 
         return container == null ? null : container.getIntraDayStart();
     }
 
     private IntraDayDate getIntraDayEndFor(Scenario scenario) {
-        IDayAssignmentsContainer<T> container = retrieveContainerFor(scenario);
+        IDayAssignmentsContainer<T> container = retrieveVisibleContainerFor(scenario);
 
         return container == null ? null : container.getIntraDayEnd();
     }
@@ -1434,13 +1454,33 @@ public abstract class ResourceAllocation<T extends DayAssignment>
         }
 
         protected void removingAssignments(List<? extends DayAssignment> assignments){
+            boolean shared = isShared();
             removeAssignments(assignments);
             clearCachedData();
+            if ( shared ) {
+                return;
+            }
             for (DayAssignment each : assignments) {
                 dayAssignmenteRemoval.onRemoval(ResourceAllocation.this, each);
             }
         }
 
+        /**
+         * Override if the assignments can belong to another scenario. In that
+         * case they aren't detached when removed, since they're still used
+         * there.
+         */
+        protected boolean isShared() {
+            return false;
+        }
+
+        /**
+         * Override if the assignments can belong to another scenario, so they
+         * are copied before being modified in place.
+         */
+        protected void ensureOwnAssignments() {
+        }
+
         protected abstract void removeAssignments(List<? extends DayAssignment> assignments);
 
         protected abstract void addAssignments(Collection<? extends T> assignments);
@@ -1536,12 +1576,74 @@ public abstract class ResourceAllocation<T extends DayAssignment>
     }
 
     private DayAssignmentsState explicitlySpecifiedState(Scenario scenario) {
-        return new ExplicitlySpecifiedScenarioState(retrieveOrCreateContainerFor(scenario));
+        return new ExplicitlySpecifiedScenarioState(scenario);
     }
 
     protected abstract IDayAssignmentsContainer<T> retrieveContainerFor(Scenario scenario);
 
     protected abstract IDayAssignmentsContainer<T> retrieveOrCreateContainerFor(Scenario scenario);
+
+    /**
+     * A derived {@link Scenario} doesn't copy the assignments of its
+     * predecessors. While it doesn't modify them, it shares the ones of its
+     * nearest predecessor with a container.
+     *
+     * @return the container with the assignments seen from the scenario or
+     *         <code>null</code> if neither the scenario nor its predecessors
+     *         have one
+     */
+    protected IDayAssignmentsContainer<T> retrieveVisibleContainerFor(Scenario scenario) {
+        IDayAssignmentsContainer<T> result = retrieveContainerFor(scenario);
+        if ( result != null ) {
+            return result;
+        }
+        for (Scenario each : scenario.getPredecessors()) {
+            result = retrieveContainerFor(each);
+            if ( result != null ) {
+                return result;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the scenario of the assignments seen from the provided one. It
+     *         can be <code>null</code>
+     * @see #retrieveVisibleContainerFor(Scenario)
+     */
+    public Scenario getScenarioOfAssignmentsSeenFrom(Scenario scenario) {
+        IDayAssignmentsContainer<T> container = retrieveVisibleContainerFor(scenario);
+
+        return container == null ? null : container.getScenario();
+    }
+
+    /**
+     * Creates the container of the scenario, copying the values shared from
+     * its nearest predecessor if any.
+     */
+    private IDayAssignmentsContainer<T> materializeContainerFor(Scenario scenario, Collection<T> assignments) {
+        IDayAssignmentsContainer<T> shared = retrieveVisibleContainerFor(scenario);
+        IDayAssignmentsContainer<T> result = retrieveOrCreateContainerFor(scenario);
+        if ( shared != null && shared != result ) {
+            result.setIntraDayStart(shared.getIntraDayStart());
+            result.setIntraDayEnd(shared.getIntraDayEnd());
+        }
+        result.resetTo(assignments);
+
+        return result;
+    }
+
+    private IDayAssignmentsContainer<T> materializeContainerFor(Scenario scenario) {
+        IDayAssignmentsContainer<T> own = retrieveContainerFor(scenario);
+        if ( own != null ) {
+            return own;
+        }
+        IDayAssignmentsContainer<T> shared = retrieveVisibleContainerFor(scenario);
+
+        return materializeContainerFor(scenario,
+                shared == null ? Collections.<T> emptyList() : shared.getDayAssignments());
+    }
     /**
      * It uses the current scenario retrieved from {@link IScenarioManager} in
      * order to return the assignments for that scenario.
@@ -1574,6 +1676,13 @@ public abstract class ResourceAllocation<T extends DayAssignment>
             modificationsNotAllowed();
         }
 
+        @Override
+        protected final void ensureOwnAssignments() {
+            if ( retrieveContainerFor(currentScenario()) == null ) {
+                modificationsNotAllowed();
+            }
+        }
+
         private void modificationsNotAllowed() {
             throw new IllegalStateException("modifications to assignments can't be done " +
                     "if the scenario on which to work on is not explicitly specified");
@@ -1581,7 +1690,7 @@ public abstract class ResourceAllocation<T extends DayAssignment>
 
         @Override
         protected Collection<T> getUnorderedAssignments() {
-            return retrieveOrCreateContainerFor(currentScenario()).getDayAssignments();
+            return getUnorderedFor(currentScenario());
         }
 
         private Scenario currentScenario() {
@@ -1590,12 +1699,12 @@ public abstract class ResourceAllocation<T extends DayAssignment>
 
         @Override
         IntraDayDate getIntraDayStart() {
-            return retrieveContainerFor(currentScenario()).getIntraDayStart();
+            return getIntraDayStartDateFor(currentScenario());
         }
 
         @Override
         IntraDayDate getIntraDayEnd() {
-            return retrieveOrCreateContainerFor(currentScenario()).getIntraDayEnd();
+            return getIntraDayEndFor(currentScenario());
         }
 
         @Override
@@ -1610,53 +1719,102 @@ public abstract class ResourceAllocation<T extends DayAssignment>
 
     }
 
+    /**
+     * It works on the assignments of the specified scenario. If the scenario
+     * doesn't have its own container yet, the assignments of its nearest
+     * predecessor are used and they're copied to a new container for the
+     * scenario only when they're modified.
+     */
     private class ExplicitlySpecifiedScenarioState extends DayAssignmentsState {
 
-        private final IDayAssignmentsContainer<T> container;
+        private final Scenario scenario;
+
+        private IDayAssignmentsContainer<T> container;
+
+        ExplicitlySpecifiedScenarioState(Scenario scenario) {
+            Validate.notNull(scenario);
+            this.scenario = scenario;
+            this.container = retrieveContainerFor(scenario);
+        }
 
-        ExplicitlySpecifiedScenarioState(IDayAssignmentsContainer<T> container) {
-            Validate.notNull(container);
-            this.container = container;
+        @Override
+        protected boolean isShared() {
+            return container == null;
+        }
+
+        @Override
+        protected void ensureOwnAssignments() {
+            ownContainer();
+        }
+
+        private IDayAssignmentsContainer<T> ownContainer() {
+            if ( container == null ) {
+                container = materializeContainerFor(scenario);
+                clearCachedData();
+            }
+
+            return container;
         }
 
         @Override
         protected void addAssignments(Collection<? extends T> assignments) {
-            container.addAll(assignments);
+            ownContainer().addAll(assignments);
         }
 
         @Override
         protected Collection<T> getUnorderedAssignments() {
-            return container.getDayAssignments();
+            return container != null ? container.getDayAssignments() : getUnorderedFor(scenario);
         }
 
         @Override
         protected void removeAssignments(List<? extends DayAssignment> assignments) {
-            container.removeAll(assignments);
+            if ( container != null ) {
+                container.removeAll(assignments);
+                return;
+            }
+            List<T> kept = new ArrayList<>(getUnorderedFor(scenario));
+            kept.removeAll(assignments);
+            container = materializeContainerFor(scenario, kept);
+        }
+
+        @Override
+        void detachAssignments() {
+            if ( container != null ) {
+                super.detachAssignments();
+            }
         }
 
         @Override
         protected void resetTo(Collection<T> assignmentsCopied) {
-            container.resetTo(assignmentsCopied);
+            if ( container != null ) {
+                container.resetTo(assignmentsCopied);
+            } else if ( !DayAssignment.haveSameValues(getUnorderedFor(scenario), assignmentsCopied) ) {
+                container = materializeContainerFor(scenario, assignmentsCopied);
+            }
         }
 
         @Override
         IntraDayDate getIntraDayStart() {
-            return container.getIntraDayStart();
+            return container != null ? container.getIntraDayStart() : getIntraDayStartDateFor(scenario);
         }
 
         @Override
         public void setIntraDayStart(IntraDayDate intraDayStart) {
-            container.setIntraDayStart(intraDayStart);
+            if ( container != null || !Objects.equals(intraDayStart, getIntraDayStart()) ) {
+                ownContainer().setIntraDayStart(intraDayStart);
+            }
         }
 
         @Override
         IntraDayDate getIntraDayEnd() {
-            return container.getIntraDayEnd();
+            return container != null ? container.getIntraDayEnd() : getIntraDayEndFor(scenario);
         }
 
         @Override
         public void setIntraDayEnd(IntraDayDate intraDayEnd) {
-            container.setIntraDayEnd(intraDayEnd);
+            if ( container != null || !Objects.equals(intraDayEnd, getIntraDayEnd()) ) {
+                ownContainer().setIntraDayEnd(intraDayEnd);
+            }
         }
 
     }
@@ -2004,20 +2162,35 @@ public abstract class ResourceAllocation<T extends DayAssignment>
 
     public abstract void makeAssignmentsContainersDontPoseAsTransientAnyMore();
 
+    /**
+     * Removes the assignments of the predecessors of the scenario. The
+     * assignments shared with the scenario are copied to it before.
+     */
     public void removePredecessorsDayAssignmentsFor(Scenario scenario) {
         for (DerivedAllocation each : getDerivedAllocations()) {
             each.removePredecessorContainersFor(scenario);
         }
+        if ( retrieveVisibleContainerFor(scenario) != null ) {
+            materializeContainerFor(scenario);
+        }
         removePredecessorContainersFor(scenario);
     }
 
     protected abstract void removePredecessorContainersFor(Scenario scenario);
 
+    /**
+     * Removes the assignments of the scenario. If it could see the assignments
+     * of a predecessor, an empty container is kept so they aren't shared with
+     * it anymore.
+     */
     public void removeDayAssignmentsFor(Scenario scenario) {
         for (DerivedAllocation each : getDerivedAllocations()) {
             each.removeContainersFor(scenario);
         }
         removeContainersFor(scenario);
+        if ( retrieveVisibleContainerFor(scenario) != null ) {
+            retrieveOrCreateContainerFor(scenario);
+        }
     }
 
     protected abstract void removeContainersFor(Scenario scenario);
@@ -22,199 +22,141 @@
 package org.libreplan.business.planner.entities;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 import org.apache.commons.lang3.Validate;
 
+/**
+ * Division of some amount among several {@link Share shares}. The increases
+ * are given to the smallest shares first, so they become as equal as possible.
+ * <p>
+ * The shares are kept as an array of ints, so the allocation algorithms can
+ * work with seconds without creating objects for each share. The
+ * {@link Share} objects are only created when {@link #getShares()} is called.
+ * </p>
+ */
 public class ShareDivision {
 
     public static ShareDivision create(Collection<? extends Share> shares) {
-        return new ShareDivision(shares);
-    }
-
-    private static class ShareWrapper implements Comparable<ShareWrapper> {
-        private Share share;
-
-        private int originalPosition;
-
-        public ShareWrapper(Share share, int originalPosition) {
-            this.share = share;
-            this.originalPosition = originalPosition;
-
-        }
-
-        @Override
-        public int compareTo(ShareWrapper other) {
-            long thisHours = share.getHours();
-            long otherHours = other.share.getHours();
-            return Long.signum(thisHours - otherHours);
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (obj instanceof ShareWrapper) {
-                ShareWrapper other = (ShareWrapper) obj;
-                return getHours() == other.getHours();
-            }
-            return false;
-        }
-
-        @Override
-        public int hashCode() {
-            return getHours();
-        }
-
-        public static List<ShareWrapper> wrap(List<Share> shares) {
-            List<ShareWrapper> result = new ArrayList<ShareWrapper>();
-            int i = 0;
-            for (Share share : shares) {
-                result.add(new ShareWrapper(share, i));
-                i++;
-            }
-            return result;
-        }
-
-        public boolean haveSameHours(ShareWrapper other) {
-            return getHours() == other.getHours();
-        }
-
-        int getHours() {
-            return this.share.getHours();
-        }
-
-        void add(int hours) {
-            this.share = share.plus(hours);
-        }
-
-        public static void sortByOriginalPosition(List<ShareWrapper> bucket) {
-            Collections.sort(bucket, new Comparator<ShareWrapper>() {
-
-                @Override
-                public int compare(ShareWrapper o1, ShareWrapper o2) {
-                    return o1.originalPosition - o2.originalPosition;
-                }
-            });
+        Validate.notNull(shares);
+        Validate.noNullElements(shares);
+        int[] values = new int[shares.size()];
+        int i = 0;
+        for (Share each : shares) {
+            values[i++] = each.getHours();
         }
-
+        return new ShareDivision(values);
     }
 
-    private final List<Share> shares;
+    private final int[] shares;
 
-    private ShareDivision(Collection<? extends Share> shares) {
-        Validate.notNull(shares);
-        Validate.noNullElements(shares);
-        this.shares = new ArrayList<Share>(shares);
+    private ShareDivision(int[] shares) {
+        this.shares = shares;
     }
 
     public List<Share> getShares() {
-        return Collections.unmodifiableList(shares);
-    }
-
-    public ShareDivision plus(final int increase) {
-        int remainderIncrease = increase;
-        List<ShareWrapper> wrapped = ShareWrapper.wrap(shares);
-        Collections.sort(wrapped);
-        int i = 0;
-        while (i < wrapped.size()) {
-            if (remainderIncrease == 0) {
-                break;
-            }
-            int nextBigger = findNextBigger(wrapped, i);
-            FillingBucket bucket = fillingBuckectFor(wrapped, nextBigger,
-                    remainderIncrease);
-            bucket.doTheDistribution();
-            i = nextBigger;
-            remainderIncrease = remainderIncrease - bucket.getIncreaseDone();
-            assert remainderIncrease >= 0;
+        List<Share> result = new ArrayList<Share>(shares.length);
+        for (int each : shares) {
+            result.add(new Share(each));
         }
-        assert remainderIncrease == 0 || shares.isEmpty() : "all is assigned";
-        return ShareDivision.create(fromWrappers(wrapped));
+        return Collections.unmodifiableList(result);
     }
 
-    private ArrayList<Share> fromWrappers(List<ShareWrapper> wrapped) {
-        ArrayList<Share> newShares = new ArrayList<Share>(shares.size());
-        for (int i = 0; i < wrapped.size(); i++) {
-            newShares.add(null);
-        }
-        for (ShareWrapper shareWrapper : wrapped) {
-            newShares.set(shareWrapper.originalPosition, shareWrapper.share);
+    public ShareDivision plus(final int increase) {
+        int[] increments = increments(shares, increase);
+        int[] result = new int[shares.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = shares[i] + increments[i];
         }
-        return newShares;
+        return new ShareDivision(result);
     }
 
-    private static class FillingBucket {
-        private List<ShareWrapper> bucket;
-
-        private int increment;
-
-        private FillingBucket(List<ShareWrapper> bucket, int increment) {
-            this.bucket = bucket;
-            this.increment = increment;
+    /**
+     * Distributes the increase among the shares, giving it to the smallest
+     * shares first. When the increase can't be divided evenly, the remainder
+     * is given to the first shares in their original order.
+     *
+     * @param shares
+     *            they are not modified
+     * @param increase
+     *            the amount to distribute, subtraction is not handled
+     * @return the increment for each share, in the same order as the shares
+     */
+    public static int[] increments(int[] shares, final int increase) {
+        int[] result = new int[shares.length];
+        if (increase == 0 || shares.length == 0) {
+            return result;
         }
-
-        public void doTheDistribution() {
-            int incrementPerShare = increment / bucket.size();
-            int remainder = increment % bucket.size();
-            if (remainder > 0) {
-                ShareWrapper.sortByOriginalPosition(this.bucket);
-                // so the first original elements receive the remainder
+        int[] order = sortedPositions(shares);
+        long remaining = increase;
+        long level = shares[order[0]];
+        int end = 0;
+        while (true) {
+            while (end < order.length && shares[order[end]] == level) {
+                end++;
             }
-            for (ShareWrapper wrapper : bucket) {
-                wrapper.add(incrementPerShare + Math.min(1, remainder));
-                if (remainder > 0) {
-                    remainder--;
+            if (end < order.length) {
+                long needed = end * (shares[order[end]] - level);
+                if (needed <= remaining) {
+                    level = shares[order[end]];
+                    remaining -= needed;
+                    if (remaining == 0) {
+                        fill(result, shares, order, end, level, 0);
+                        return result;
+                    }
+                    continue;
                 }
             }
-        }
-
-        int getIncreaseDone() {
-            return increment;
+            fill(result, shares, order, end, level + remaining / end,
+                    (int) (remaining % end));
+            return result;
         }
     }
 
-    private static int findNextBigger(List<ShareWrapper> wrappers, int start) {
-        ShareWrapper startWrapper = wrappers.get(start);
-        for (int i = start + 1; i < wrappers.size(); i++) {
-            ShareWrapper current = wrappers.get(i);
-            if (!startWrapper.haveSameHours(current)) {
-                return i;
-            }
+    /**
+     * @return the positions of the shares sorted by their value. The ones with
+     *         the same value keep their original order.
+     */
+    private static int[] sortedPositions(int[] shares) {
+        long[] keys = new long[shares.length];
+        for (int i = 0; i < shares.length; i++) {
+            keys[i] = ((long) shares[i] << 32) | i;
         }
-        return wrappers.size();
-    }
-
-    private static FillingBucket fillingBuckectFor(List<ShareWrapper> wrappers,
-            int end, int remaining) {
-        int hoursToDistribute = end == wrappers.size() ? remaining : (int) Math
-                .min(hoursNeededToBeEqual(wrappers, 0, end), remaining);
-        return new FillingBucket(wrappers.subList(0, end), hoursToDistribute);
+        Arrays.sort(keys);
+        int[] result = new int[shares.length];
+        for (int i = 0; i < keys.length; i++) {
+            result[i] = (int) keys[i];
+        }
+        return result;
     }
 
-    private static long hoursNeededToBeEqual(List<ShareWrapper> wrappers,
-            int startInclusive, int endExclusive) {
-        ShareWrapper nextLevel = wrappers.get(endExclusive);
-        ShareWrapper currentLevel = wrappers.get(startInclusive);
-        long currentLevelHours = (long) currentLevel.getHours();
-        long difference = nextLevel.getHours() - currentLevelHours;
-        // difference must be long in order to avoid integer overflow
-        assert difference > 0;
-        return (endExclusive - startInclusive) * difference;
+    private static void fill(int[] result, int[] shares, int[] order,
+            int end, long level, int remainder) {
+        int[] filled = Arrays.copyOf(order, end);
+        if (remainder > 0) {
+            // so the first original elements receive the remainder
+            Arrays.sort(filled);
+        }
+        for (int i = 0; i < filled.length; i++) {
+            int position = filled[i];
+            result[position] = (int) (level - shares[position])
+                    + (i < remainder ? 1 : 0);
+        }
     }
 
     @Override
     public String toString() {
-        return shares.toString();
+        return Arrays.toString(shares);
     }
 
     public int[] to(ShareDivision newDivison) {
-        Validate.isTrue(shares.size() == newDivison.shares.size());
-        int[] result = new int[shares.size()];
+        Validate.isTrue(shares.length == newDivison.shares.length);
+        int[] result = new int[shares.length];
         for (int i = 0; i < result.length; i++) {
-            result[i] = newDivison.shares.get(i).getHours()
-                    - shares.get(i).getHours();
+            result[i] = newDivison.shares[i] - shares[i];
         }
         return result;
     }
@@ -194,6 +194,13 @@ public class SpecificDayAssignment extends DayAssignment {
         return parentState.getScenario();
     }
 
+    @Override
+    protected Scenario getScenarioSharedWith(Scenario scenario) {
+        SpecificResourceAllocation allocation = getSpecificResourceAllocation();
+        return allocation == null ? null : allocation
+                .getScenarioOfAssignmentsSeenFrom(scenario);
+    }
+
     @Override
     public DayAssignment withDuration(EffortDuration newDuration) {
         SpecificDayAssignment result = create(getDay(), newDuration,
@@ -31,10 +31,8 @@ import java.util.List;
 
 import org.apache.commons.lang3.Validate;
 import org.libreplan.business.calendars.entities.Capacity;
-import org.libreplan.business.planner.entities.Share;
 import org.libreplan.business.planner.entities.ShareDivision;
 import org.libreplan.business.workingday.EffortDuration;
-import org.libreplan.business.workingday.EffortDuration.IEffortFrom;
 
 /**
  * Distributes an EffortDuration among several capacities. It respects the extra
@@ -57,39 +55,34 @@ public class Distributor {
 
     private final Capacity[] capacities;
 
-    private final List<Share> normalCapacityShares;
-
-    private final List<Share> limitedOverloadShares;
-
-    private final List<Share> unlimitedOverloadShares;
-
-    private final List<List<Share>> phases = new ArrayList<List<Share>>();
+    /**
+     * The shares in seconds of each phase: the normal capacity, the limited
+     * overload and the unlimited overload.
+     */
+    private final int[][] phases;
 
     private Distributor(Capacity[] capacities) {
         Validate.notNull(capacities);
         this.capacities = capacities;
-        this.normalCapacityShares = createNormalCapacityShares(capacities);
-        this.limitedOverloadShares = createOverloadShares(capacities);
-        this.unlimitedOverloadShares = createUnlimitedShares(capacities);
-        this.phases.add(normalCapacityShares);
-        this.phases.add(limitedOverloadShares);
-        this.phases.add(this.unlimitedOverloadShares);
+        this.phases = new int[][] { createNormalCapacityShares(capacities),
+                createOverloadShares(capacities),
+                createUnlimitedShares(capacities) };
     }
 
-    private static List<Share> createNormalCapacityShares(Capacity[] capacities) {
-        List<Share> result = new ArrayList<Share>();
-        for (Capacity each : capacities) {
-            result.add(createNormalCapacityShare(each));
+    private static int[] createNormalCapacityShares(Capacity[] capacities) {
+        int[] result = new int[capacities.length];
+        for (int i = 0; i < capacities.length; i++) {
+            result[i] = createNormalCapacityShare(capacities[i]);
         }
         return result;
     }
 
-    private List<Share> createOverloadShares(Capacity[] capacities) {
-        List<Share> result = new ArrayList<Share>();
+    private int[] createOverloadShares(Capacity[] capacities) {
+        int[] result = new int[capacities.length];
         EffortDuration maxExtraEffort = getMaxExtraEffort(capacities);
-        for (Capacity each : capacities) {
-            result.add(maxExtraEffort == null ? noSpaceAvailable()
-                    : createOverloadShare(each, maxExtraEffort));
+        for (int i = 0; i < capacities.length; i++) {
+            result[i] = maxExtraEffort == null ? noSpaceAvailable()
+                    : createOverloadShare(capacities[i], maxExtraEffort);
         }
         return result;
     }
@@ -117,91 +110,60 @@ public class Distributor {
 
     }
 
-    private static Share createNormalCapacityShare(Capacity each) {
-        return new Share(-each.getStandardEffort().getSeconds());
+    private static int createNormalCapacityShare(Capacity each) {
+        return -each.getStandardEffort().getSeconds();
     }
 
-    private Share createOverloadShare(Capacity each,
+    private int createOverloadShare(Capacity each,
             EffortDuration maxExtraEffort) {
         if (each.getAllowedExtraEffort() == null && !each.isOverAssignableWithoutLimit()) {
             return noSpaceAvailable();
         }
         EffortDuration effort = each.getAllowedExtraEffort() != null ? each
                 .getAllowedExtraEffort() : maxExtraEffort;
-        return new Share(-effort.getSeconds());
+        return -effort.getSeconds();
     }
 
-    private Share noSpaceAvailable() {
-        return new Share(Integer.MAX_VALUE);
+    private int noSpaceAvailable() {
+        return Integer.MAX_VALUE;
     }
 
-    private List<Share> createUnlimitedShares(Capacity[] capacities) {
-        List<Share> result = new ArrayList<Share>();
-        for (Capacity each : capacities) {
-            result.add(each.isOverAssignableWithoutLimit() ? new Share(0)
-                    : noSpaceAvailable());
+    private int[] createUnlimitedShares(Capacity[] capacities) {
+        int[] result = new int[capacities.length];
+        for (int i = 0; i < capacities.length; i++) {
+            result[i] = capacities[i].isOverAssignableWithoutLimit() ? 0
+                    : noSpaceAvailable();
         }
         return result;
     }
 
     public List<EffortDuration> distribute(EffortDuration effort) {
-        EffortDuration[] result = new EffortDuration[capacities.length];
-        Arrays.fill(result, EffortDuration.zero());
-
-        for (List<Share> shares : phases) {
-            EffortDuration remaining = effort.minus(sum(result));
-            if (remaining.isZero()) {
-                return asList(result);
+        int[] result = new int[capacities.length];
+        int assigned = 0;
+        for (int[] shares : phases) {
+            int remaining = effort.getSeconds() - assigned;
+            assert remaining >= 0;
+            if (remaining == 0) {
+                break;
+            }
+            int[] increments = ShareDivision.increments(shares, remaining);
+            assigned = 0;
+            for (int i = 0; i < result.length; i++) {
+                result[i] = capacities[i].limitSeconds(result[i]
+                        + increments[i]);
+                assigned += result[i];
             }
-            result = limitByCapacities(sum(result,
-                    distribute(remaining, shares)));
-        }
-        return asList(result);
-    }
-
-    private EffortDuration[] sum(EffortDuration[] a, EffortDuration[] b) {
-        EffortDuration[] result = new EffortDuration[a.length];
-        for (int i = 0; i < result.length; i++) {
-            result[i] = a[i].plus(b[i]);
-        }
-        return result;
-    }
-
-    private EffortDuration[] distribute(EffortDuration effort,
-            List<Share> shares) {
-        ShareDivision division = ShareDivision.create(shares);
-        return fromSecondsToDurations(division.to(division.plus(effort
-                .getSeconds())));
-    }
-
-    private List<EffortDuration> asList(EffortDuration[] acc) {
-        return new ArrayList<EffortDuration>(Arrays.asList(acc));
-    }
-
-    private EffortDuration[] limitByCapacities(EffortDuration[] efforts) {
-        EffortDuration[] result = new EffortDuration[efforts.length];
-        for (int i = 0; i < efforts.length; i++) {
-            result[i] = capacities[i].limitDuration(efforts[i]);
         }
-        return result;
+        return fromSecondsToDurations(result);
     }
 
-    private EffortDuration[] fromSecondsToDurations(int[] seconds) {
-        EffortDuration[] result = new EffortDuration[seconds.length];
-        for (int i = 0; i < result.length; i++) {
-            result[i] = seconds(seconds[i]);
+    private List<EffortDuration> fromSecondsToDurations(int[] seconds) {
+        List<EffortDuration> result = new ArrayList<EffortDuration>(
+                seconds.length);
+        for (int each : seconds) {
+            result.add(seconds(each));
         }
         return result;
     }
 
-    private EffortDuration sum(EffortDuration[] durations) {
-        return EffortDuration.sum(asList(durations),
-                new IEffortFrom<EffortDuration>() {
-
-            @Override
-            public EffortDuration from(EffortDuration each) {
-                return each;
-            }});
-    }
-
 }
@@ -40,7 +40,6 @@ import org.libreplan.business.planner.entities.DayAssignment;
 import org.libreplan.business.planner.entities.ResourceAllocation;
 import org.libreplan.business.planner.entities.ResourceAllocation.Direction;
 import org.libreplan.business.planner.entities.Task;
-import org.libreplan.business.util.Pair;
 import org.libreplan.business.workingday.EffortDuration;
 import org.libreplan.business.workingday.IntraDayDate;
 import org.libreplan.business.workingday.IntraDayDate.PartialDay;
@@ -125,26 +124,39 @@ public abstract class UntilFillingHoursAllocator {
     private IntraDayDate untilAllocating(IntraDayDate dateFromWhichToAllocate,
             ResourcesPerDayModification resourcesPerDayModification,
             EffortDuration effortRemaining) {
-        EffortDuration taken = zero();
+        // the remaining effort is kept in seconds, an EffortDuration is only
+        // created for the limit of each day
+        int remainingSeconds = effortRemaining.getSeconds();
+        int takenSeconds = 0;
         EffortDuration biggestLastAssignment = zero();
         IntraDayDate current = dateFromWhichToAllocate;
         IAssignmentsCreator assignmentsCreator = resourcesPerDayModification
                 .createAssignmentsCreator();
-        while (effortRemaining.compareTo(zero()) > 0) {
+        while (remainingSeconds > 0) {
             PartialDay day = calculateDay(current);
-            Pair<EffortDuration, EffortDuration> pair = assignForDay(
+            List<? extends DayAssignment> newAssignments = assignForDay(
                     resourcesPerDayModification, assignmentsCreator, day,
-                    effortRemaining);
-            taken = pair.getFirst();
-            biggestLastAssignment = pair.getSecond();
-            effortRemaining = effortRemaining.minus(taken);
+                    EffortDuration.seconds(remainingSeconds));
+            takenSeconds = 0;
+            biggestLastAssignment = zero();
+            for (DayAssignment each : newAssignments) {
+                EffortDuration duration = each.getDuration();
+                takenSeconds += duration.getSeconds();
+                if (duration.compareTo(biggestLastAssignment) > 0) {
+                    biggestLastAssignment = duration;
+                }
+            }
+            Validate.isTrue(takenSeconds <= remainingSeconds,
+                    "more effort assigned than the remaining one");
+            remainingSeconds -= takenSeconds;
 
-            if (effortRemaining.compareTo(zero()) > 0) {
+            if (remainingSeconds > 0) {
                 current = nextDay(current);
             }
         }
-        IntraDayDate finish = adjustFinish(resourcesPerDayModification, taken,
-                biggestLastAssignment, current);
+        IntraDayDate finish = adjustFinish(resourcesPerDayModification,
+                EffortDuration.seconds(takenSeconds), biggestLastAssignment,
+                current);
         // We have to do it now, so the other allocations take it into account.
         // At the end it's done again with the right end date.
         setNewDataForAllocation(resourcesPerDayModification, resultAssignments
@@ -273,10 +285,9 @@ public abstract class UntilFillingHoursAllocator {
     /**
      *
      * @param resourcesPerDayModification
-     * @return a pair composed of the effort assigned and the biggest assignment
-     *         done.
+     * @return the assignments done
      */
-    private Pair<EffortDuration, EffortDuration> assignForDay(
+    private List<? extends DayAssignment> assignForDay(
             ResourcesPerDayModification resourcesPerDayModification,
             IAssignmentsCreator assignmentsCreator,
             PartialDay day, EffortDuration remaining) {
@@ -285,18 +296,7 @@ public abstract class UntilFillingHoursAllocator {
                         resourcesPerDayModification.getGoal());
         resultAssignments.get(resourcesPerDayModification).addAll(
                 newAssignments);
-        return Pair.create(DayAssignment.sum(newAssignments),
-                getMaxAssignment(newAssignments));
-    }
-
-    private EffortDuration getMaxAssignment(
-            List<? extends DayAssignment> newAssignments) {
-        if (newAssignments.isEmpty()) {
-            return zero();
-        }
-        DayAssignment max = Collections.max(newAssignments,
-                DayAssignment.byDurationComparator());
-        return max.getDuration();
+        return newAssignments;
     }
 
     private static class EffortPerAllocation {
@@ -248,6 +248,10 @@ public class Gap implements Comparable<Gap> {
         return endTime;
     }
 
+    public Integer getHoursInGap() {
+        return hoursInGap;
+    }
+
     /**
      * Returns true if the gap starts after earlierStartDateBecauseOfGantt and if it's big enough for fitting candidate.
      *
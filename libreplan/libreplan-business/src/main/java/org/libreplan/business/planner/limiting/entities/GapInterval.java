@@ -80,12 +80,11 @@ public class GapInterval {
         DateAndHour intervalStart = DateAndHour.from(interval.getStartDate());
         DateAndHour intervalEnd = DateAndHour.from(interval.getEndDate());
 
-        DateAndHour newStart = (start == null || intervalStart == null) ? null
-                : DateAndHour.max(start, intervalStart);
-        DateAndHour newEnd = (end == null || intervalEnd == null) ? null
-                : DateAndHour.min(end, intervalStart);
+        DateAndHour newStart = limit(start, intervalStart, true);
+        DateAndHour newEnd = limit(end, intervalEnd, false);
         if ((newStart == null && newEnd == null)
-                || (newEnd != null && newStart.isAfter(newEnd))) {
+                || (newStart != null && newEnd != null && newStart
+                        .isAfter(newEnd))) {
             // The period of time is not valid, as it's not an activated period
             // of time according to calendar
             return null;
@@ -93,6 +92,19 @@ public class GapInterval {
         return GapInterval.create(newStart, newEnd);
     }
 
+    /**
+     * @return the latest of both times if <code>start</code>, the earliest
+     *         otherwise. A <code>null</code> time is not bounded
+     */
+    private static DateAndHour limit(DateAndHour time, DateAndHour interval,
+            boolean start) {
+        if (time == null || interval == null) {
+            return time == null ? interval : time;
+        }
+        return start ? DateAndHour.max(time, interval) : DateAndHour.min(
+                time, interval);
+    }
+
     public Gap gapOn(Resource resource) {
         return Gap.create(resource, start, end);
     }
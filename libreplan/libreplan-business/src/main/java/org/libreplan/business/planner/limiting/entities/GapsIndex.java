@@ -0,0 +1,263 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.planner.limiting.entities;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.lang3.Validate;
+import org.libreplan.business.planner.limiting.entities.Gap.GapOnQueue;
+
+/**
+ * Index of the gaps of a queue ordered by start time. Each node keeps the
+ * maximum hours and the latest end of the gaps below it, so the first gap with
+ * enough hours after some time is found without checking all of them.
+ * <p>
+ * It's implemented as a treap, so inserting and removing gaps takes
+ * logarithmic time. As the gaps of a queue don't overlap, the searches take
+ * logarithmic time too.
+ * </p>
+ */
+public class GapsIndex {
+
+    private static class Node {
+
+        private final GapOnQueue gapOnQueue;
+
+        private final long sequence;
+
+        private final int priority;
+
+        private final int hours;
+
+        private int maxHours;
+
+        /* The latest end of the gaps below, null if some of them has no end */
+        private DateAndHour maxEnd;
+
+        private Node left;
+
+        private Node right;
+
+        private Node(GapOnQueue gapOnQueue, long sequence, int priority) {
+            this.gapOnQueue = gapOnQueue;
+            this.sequence = sequence;
+            this.priority = priority;
+            this.hours = gapOnQueue.getGap().getHoursInGap();
+            this.maxHours = hours;
+            this.maxEnd = getGap().getEndTime();
+        }
+
+        private Gap getGap() {
+            return gapOnQueue.getGap();
+        }
+
+        private void update() {
+            maxHours = hours;
+            maxEnd = getGap().getEndTime();
+            include(left);
+            include(right);
+        }
+
+        private void include(Node child) {
+            if ( child != null ) {
+                maxHours = Math.max(maxHours, child.maxHours);
+                maxEnd = maxEnd == null || child.maxEnd == null ? null : DateAndHour.max(maxEnd, child.maxEnd);
+            }
+        }
+
+        private boolean endsAfter(DateAndHour time) {
+            return isAfter(getGap().getEndTime(), time);
+        }
+
+        private boolean someEndsAfter(DateAndHour time) {
+            return isAfter(maxEnd, time);
+        }
+
+        private static boolean isAfter(DateAndHour end, DateAndHour time) {
+            return end == null || time == null || end.isAfter(time);
+        }
+
+        private int compareTo(Node other) {
+            int result = getGap().compareTo(other.getGap());
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+
+    }
+
+    private final Random random = new Random();
+
+    private final Map<GapOnQueue, Node> nodes = new IdentityHashMap<>();
+
+    private long nextSequence = 0;
+
+    private Node root;
+
+    public void add(GapOnQueue gapOnQueue) {
+        Validate.isTrue(!nodes.containsKey(gapOnQueue), "the gap is already indexed");
+        Node node = new Node(gapOnQueue, nextSequence++, random.nextInt());
+        nodes.put(gapOnQueue, node);
+        root = insert(root, node);
+    }
+
+    public void remove(GapOnQueue gapOnQueue) {
+        Node node = nodes.remove(gapOnQueue);
+        if ( node != null ) {
+            root = remove(root, node);
+        }
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    private static Node insert(Node current, Node node) {
+        if ( current == null ) {
+            return node;
+        }
+        if ( node.compareTo(current) < 0 ) {
+            current.left = insert(current.left, node);
+            if ( current.left.priority > current.priority ) {
+                current = rotateRight(current);
+            }
+        } else {
+            current.right = insert(current.right, node);
+            if ( current.right.priority > current.priority ) {
+                current = rotateLeft(current);
+            }
+        }
+        current.update();
+
+        return current;
+    }
+
+    private static Node remove(Node current, Node node) {
+        if ( current == null ) {
+            return null;
+        }
+        if ( current == node ) {
+            return merge(current.left, current.right);
+        }
+        if ( node.compareTo(current) < 0 ) {
+            current.left = remove(current.left, node);
+        } else {
+            current.right = remove(current.right, node);
+        }
+        current.update();
+
+        return current;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if ( left == null ) {
+            return right;
+        }
+        if ( right == null ) {
+            return left;
+        }
+        if ( left.priority > right.priority ) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node result = node.left;
+        node.left = result.right;
+        result.right = node;
+        node.update();
+        result.update();
+
+        return result;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node result = node.right;
+        node.right = result.left;
+        result.left = node;
+        node.update();
+        result.update();
+
+        return result;
+    }
+
+    /**
+     * @return all the gaps ordered by start time
+     */
+    public List<GapOnQueue> getGaps() {
+        return getGapsEndingAfter(null);
+    }
+
+    /**
+     * @return the gaps that end after <code>time</code> ordered by start time.
+     *         All of them if <code>time</code> is <code>null</code>
+     */
+    public List<GapOnQueue> getGapsEndingAfter(DateAndHour time) {
+        List<GapOnQueue> result = new ArrayList<>();
+        collectEndingAfter(root, time, result);
+
+        return result;
+    }
+
+    private static void collectEndingAfter(Node node, DateAndHour time, List<GapOnQueue> result) {
+        if ( node == null || !node.someEndsAfter(time) ) {
+            return;
+        }
+        collectEndingAfter(node.left, time, result);
+        if ( node.endsAfter(time) ) {
+            result.add(node.gapOnQueue);
+        }
+        collectEndingAfter(node.right, time, result);
+    }
+
+    /**
+     * @return the first gap that ends after <code>time</code> and has at least
+     *         <code>hours</code>, or <code>null</code> if there isn't any
+     */
+    public GapOnQueue getFirstGapWithAtLeast(int hours, DateAndHour time) {
+        Node result = findFirst(root, hours, time);
+
+        return result != null ? result.gapOnQueue : null;
+    }
+
+    private static Node findFirst(Node node, int hours, DateAndHour time) {
+        if ( node == null || node.maxHours < hours || !node.someEndsAfter(time) ) {
+            return null;
+        }
+        Node result = findFirst(node.left, hours, time);
+        if ( result != null ) {
+            return result;
+        }
+        if ( node.hours >= hours && node.endsAfter(time) ) {
+            return node;
+        }
+
+        return findFirst(node.right, hours, time);
+    }
+
+}
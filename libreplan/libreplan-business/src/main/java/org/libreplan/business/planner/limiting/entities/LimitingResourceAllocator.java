@@ -39,6 +39,7 @@ import org.libreplan.business.planner.entities.GenericResourceAllocation;
 import org.libreplan.business.planner.entities.ResourceAllocation;
 import org.libreplan.business.planner.entities.SpecificDayAssignment;
 import org.libreplan.business.planner.entities.SpecificResourceAllocation;
+import org.libreplan.business.planner.limiting.entities.Gap.GapOnQueue;
 import org.libreplan.business.resources.entities.LimitingResourceQueue;
 import org.libreplan.business.resources.entities.Resource;
 import org.libreplan.business.workingday.EffortDuration;
@@ -105,30 +106,45 @@ public class LimitingResourceAllocator {
      * @return {@link Gap}
      */
     public static Gap getFirstValidGap(LimitingResourceQueue queue, LimitingResourceQueueElement element) {
+        List<Gap> gaps = getValidGaps(element, queue, getStartTimeBecauseOfGantt(element), true);
 
-        final Resource resource = queue.getResource();
-        final List<LimitingResourceQueueElement> elements = new LinkedList<>(queue.getLimitingResourceQueueElements());
-        final int size = elements.size();
-        final DateAndHour startTime = getStartTimeBecauseOfGantt(element);
-
-        int pos = 0;
+        // The queue cannot hold this element (queue.resource doesn't meet element.criteria)
+        return !gaps.isEmpty() ? gaps.get(0) : null;
+    }
 
-        // Iterate through queue elements
-        while (pos <= size) {
-            Gap gap = getGapInQueueAtPosition(resource, elements, startTime, pos++);
+    /**
+     * Looks for the gaps in the index of the queue with enough hours for the
+     * element, skipping the smaller ones. As the indexed gaps don't overlap,
+     * each search continues after the end of the previous gap.
+     *
+     * @param since
+     *            the gaps are cut so they don't start before it
+     * @param onlyFirst
+     *            if only the first valid gap is needed
+     */
+    private static List<Gap> getValidGaps(LimitingResourceQueueElement element,
+                                          LimitingResourceQueue queue,
+                                          DateAndHour since,
+                                          boolean onlyFirst) {
 
-            if ( gap != null ) {
+        final Resource resource = queue.getResource();
+        final int hours = element.getIntentedTotalHours();
+        List<Gap> result = new ArrayList<>();
 
-                List<Gap> subgaps = getFittingSubgaps(element, gap, resource);
+        DateAndHour endsAfter = since;
+        GapOnQueue indexed;
+        while ((indexed = queue.getFirstGapWithAtLeast(hours, endsAfter)) != null) {
+            Gap gap = indexed.getGap();
+            Gap cut = Gap.create(resource, DateAndHour.max(gap.getStartTime(), since), gap.getEndTime());
+            result.addAll(getFittingSubgaps(element, cut, resource));
 
-                if ( !subgaps.isEmpty() ) {
-                    return subgaps.get(0);
-                }
+            if ( (onlyFirst && !result.isEmpty()) || gap.getEndTime() == null ) {
+                break;
             }
+            endsAfter = gap.getEndTime();
         }
 
-        // The queue cannot hold this element (queue.resource doesn't meet element.criteria)
-        return null;
+        return result;
     }
 
     private static List<Gap> getFittingSubgaps(LimitingResourceQueueElement element,
@@ -164,49 +180,7 @@ public class LimitingResourceAllocator {
                                                         LimitingResourceQueue queue,
                                                         DateAndHour since) {
 
-        List<Gap> result = new ArrayList<>();
-
-        final Resource resource = queue.getResource();
-        final List<LimitingResourceQueueElement> elements = new LinkedList<>(queue.getLimitingResourceQueueElements());
-        final int size = elements.size();
-
-        int pos = moveUntil(elements, since);
-
-        // Iterate through queue elements
-        while (pos <= size) {
-            Gap gap = getGapInQueueAtPosition(
-                    resource, elements, since, pos++);
-
-            // The queue cannot hold this element (queue.resource doesn't meet element.criteria)
-            if ( gap != null ) {
-                List<Gap> subgaps = getFittingSubgaps(element, gap, resource);
-                result.addAll(subgaps);
-            }
-        }
-
-        return result;
-    }
-
-    private static int moveUntil(List<LimitingResourceQueueElement> elements, DateAndHour until) {
-        int pos = 0;
-
-        if ( elements.size() > 0 ) {
-            // Space between until and first element start time
-            LimitingResourceQueueElement first = elements.get(0);
-            if (until.isBefore(first.getStartTime())) {
-                return 0;
-            }
-
-            for (pos = 1; pos < elements.size(); pos++) {
-                final LimitingResourceQueueElement each = elements.get(pos);
-                final DateAndHour startTime = each.getStartTime();
-
-                if ( until.isBefore(startTime) || until.isEquals(startTime) ) {
-                    return pos;
-                }
-            }
-        }
-        return pos;
+        return getValidGaps(element, queue, since, false);
     }
 
     private static boolean isGeneric(LimitingResourceQueueElement element) {
@@ -227,56 +201,10 @@ public class LimitingResourceAllocator {
         return new DateAndHour(end.getDay(), end.getDuration().getHours());
     }
 
-    private static Gap getGapInQueueAtPosition(Resource resource,
-                                               List<LimitingResourceQueueElement> elements,
-                                               DateAndHour startTimeBecauseOfGantt,
-                                               int pos) {
-
-        final int size = elements.size();
-
-        // No elements in queue
-        if ( size == 0 ) {
-            return createLastGap(startTimeBecauseOfGantt, null, resource);
-        }
-
-        // Last element
-        if ( pos == size ) {
-            return createLastGap(startTimeBecauseOfGantt, elements.get(size - 1), resource);
-        }
-
-        LimitingResourceQueueElement next = elements.get(pos);
-
-        // First element
-        if ( pos == 0 && startTimeBecauseOfGantt.getDate().isBefore(next.getStartDate()) ) {
-            return Gap.create(resource, startTimeBecauseOfGantt, next.getStartTime());
-        }
-
-        // In the middle of two elements
-        if (pos > 0) {
-            LimitingResourceQueueElement previous = elements.get(pos - 1);
-            return Gap.create(resource,
-                                DateAndHour.max(previous.getEndTime(),
-                                startTimeBecauseOfGantt),
-                                next.getStartTime());
-        }
-
-        return null;
-    }
-
     private static DateAndHour getStartTimeBecauseOfGantt(LimitingResourceQueueElement element) {
         return new DateAndHour(new LocalDate(element.getEarliestStartDateBecauseOfGantt()), 0);
     }
 
-    private static Gap createLastGap(DateAndHour _startTime,
-                                     LimitingResourceQueueElement lastElement,
-                                     Resource resource) {
-
-        final DateAndHour queueEndTime = (lastElement != null) ? lastElement.getEndTime() : null;
-        DateAndHour startTime = DateAndHour.max(_startTime, queueEndTime);
-
-        return Gap.create(resource, startTime, null);
-    }
-
     /**
      * Generates a list of {@link DayAssignment} for {@link Resource} starting from startTime.
      *
@@ -148,8 +148,8 @@ public class LimitingResourceQueueElement extends BaseEntity {
     }
 
     public void setEndDate(LocalDate date) {
-        notifyQueueElementIsMoved();
         endQueuePosition.setDate(date);
+        notifyQueueElementIsMoved();
     }
 
     public int getEndHour() {
@@ -161,6 +161,18 @@ public class LimitingResourceQueueElement extends BaseEntity {
         notifyQueueElementIsMoved();
     }
 
+    /**
+     * Moves the element notifying the queue just once, so it doesn't see the
+     * intermediate positions
+     */
+    public void moveTo(DateAndHour start, DateAndHour end) {
+        startQueuePosition.setDate(start.getDate());
+        startQueuePosition.setHour(start.getHour());
+        endQueuePosition.setDate(end.getDate());
+        endQueuePosition.setHour(end.getHour());
+        notifyQueueElementIsMoved();
+    }
+
     public Duration getLengthBetween() {
         DateTime start = getStartDate().toDateTimeAtStartOfDay().plusHours(
                 getStartHour());
@@ -0,0 +1,168 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.planner.montecarlo;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.joda.time.LocalDate;
+import org.libreplan.business.planner.montecarlo.MonteCarloSimulation.Chunk;
+
+/**
+ * A running {@link MonteCarloSimulation}. It allows to know its progress, to
+ * cancel it and to wait for its result.
+ */
+public class MonteCarloExecution {
+
+    private static final Log LOG = LogFactory.getLog(MonteCarloExecution.class);
+
+    public interface IProgressListener {
+
+        void progressChanged(int completedPercentage);
+    }
+
+    private final LocalDate startDate;
+
+    private final int iterations;
+
+    private final IProgressListener progressListener;
+
+    private final CountDownLatch pendingChunks;
+
+    private final AtomicLong iterationsDone = new AtomicLong();
+
+    private final AtomicInteger completedPercentage = new AtomicInteger();
+
+    private final long startTime = System.currentTimeMillis();
+
+    /* Guarded by this */
+    private final long[] timesByDuration;
+
+    private volatile boolean cancelled = false;
+
+    private volatile RuntimeException error;
+
+    MonteCarloExecution(LocalDate startDate,
+                        int durations,
+                        int iterations,
+                        int chunks,
+                        IProgressListener progressListener) {
+
+        this.startDate = startDate;
+        this.timesByDuration = new long[durations];
+        this.iterations = iterations;
+        this.pendingChunks = new CountDownLatch(chunks);
+        this.progressListener = progressListener;
+    }
+
+    void submit(ExecutorService executor, final Chunk chunk) {
+        executor.submit(() -> {
+            try {
+                if ( isCancelled() ) {
+                    return;
+                }
+                long[] chunkTimes = new long[timesByDuration.length];
+                if ( chunk.run(chunkTimes, this) ) {
+                    merge(chunkTimes);
+                }
+            } catch (RuntimeException e) {
+                LOG.error("error running Monte Carlo simulation", e);
+                error = e;
+                cancelled = true;
+            } finally {
+                pendingChunks.countDown();
+            }
+        });
+    }
+
+    private synchronized void merge(long[] chunkTimes) {
+        for (int i = 0; i < chunkTimes.length; i++) {
+            timesByDuration[i] += chunkTimes[i];
+        }
+    }
+
+    void advance(int iterationsRun) {
+        long done = iterationsDone.addAndGet(iterationsRun);
+        int percentage = (int) (done * 100 / iterations);
+        int previous = completedPercentage.get();
+        while (percentage > previous) {
+            if ( completedPercentage.compareAndSet(previous, percentage) ) {
+                if ( progressListener != null ) {
+                    progressListener.progressChanged(percentage);
+                }
+                if ( percentage == 100 ) {
+                    LOG.debug("Monte Carlo simulation of " + iterations + " iterations took "
+                            + (System.currentTimeMillis() - startTime) + " ms");
+                }
+                return;
+            }
+            previous = completedPercentage.get();
+        }
+    }
+
+    /**
+     * Stops the simulation as soon as possible. {@link #getResult()} will
+     * throw {@link CancellationException}.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isDone() {
+        return pendingChunks.getCount() == 0;
+    }
+
+    /**
+     * @return the percentage of iterations done, from 0 to 100
+     */
+    public int getProgress() {
+        return completedPercentage.get();
+    }
+
+    /**
+     * Waits until all the iterations are done
+     *
+     * @throws CancellationException
+     *             if it has been cancelled
+     */
+    public MonteCarloResult getResult() throws InterruptedException {
+        pendingChunks.await();
+        if ( error != null ) {
+            throw error;
+        }
+        if ( cancelled ) {
+            throw new CancellationException("the Monte Carlo simulation has been cancelled");
+        }
+
+        synchronized (this) {
+            return new MonteCarloResult(startDate, timesByDuration.clone());
+        }
+    }
+
+}
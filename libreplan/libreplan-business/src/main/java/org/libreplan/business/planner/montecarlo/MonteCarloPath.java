@@ -0,0 +1,152 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.planner.montecarlo;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.Validate;
+import org.joda.time.LocalDate;
+
+/**
+ * The tasks of a critical path to simulate with {@link MonteCarloSimulation}.
+ * <p>
+ * For each task it keeps the pessimistic, normal and optimistic durations in
+ * calendar days and the probability of each one, in primitive arrays so the
+ * iterations don't create objects.
+ * </p>
+ */
+public class MonteCarloPath {
+
+    public static MonteCarloPath startingOn(LocalDate startDate) {
+        return new MonteCarloPath(startDate);
+    }
+
+    private final LocalDate startDate;
+
+    private int size = 0;
+
+    private int[] pessimisticDays = new int[8];
+
+    private int[] normalDays = new int[8];
+
+    private int[] optimisticDays = new int[8];
+
+    private double[] pessimisticUpperLimit = new double[8];
+
+    private double[] normalUpperLimit = new double[8];
+
+    private MonteCarloPath(LocalDate startDate) {
+        Validate.notNull(startDate);
+        this.startDate = startDate;
+    }
+
+    /**
+     * Adds a task at the end of the path.
+     *
+     * @param pessimisticPercentage
+     *            the probability of the pessimistic duration, from 0 to 100
+     * @param normalPercentage
+     *            the probability of the normal duration, from 0 to 100. The
+     *            rest is the probability of the optimistic duration
+     */
+    public MonteCarloPath addTask(int pessimisticDays, int pessimisticPercentage,
+                                  int normalDays, int normalPercentage,
+                                  int optimisticDays) {
+
+        Validate.isTrue(pessimisticDays >= 0 && normalDays >= 0 && optimisticDays >= 0,
+                "durations cannot be negative");
+        Validate.isTrue(pessimisticPercentage >= 0 && normalPercentage >= 0
+                && pessimisticPercentage + normalPercentage <= 100,
+                "percentages must be between 0 and 100");
+
+        ensureCapacity(size + 1);
+        this.pessimisticDays[size] = pessimisticDays;
+        this.normalDays[size] = normalDays;
+        this.optimisticDays[size] = optimisticDays;
+        this.pessimisticUpperLimit[size] = pessimisticPercentage / 100.0;
+        this.normalUpperLimit[size] = (pessimisticPercentage + normalPercentage) / 100.0;
+        size++;
+
+        return this;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if ( capacity > pessimisticDays.length ) {
+            int newLength = Math.max(capacity, pessimisticDays.length * 2);
+            pessimisticDays = Arrays.copyOf(pessimisticDays, newLength);
+            normalDays = Arrays.copyOf(normalDays, newLength);
+            optimisticDays = Arrays.copyOf(optimisticDays, newLength);
+            pessimisticUpperLimit = Arrays.copyOf(pessimisticUpperLimit, newLength);
+            normalUpperLimit = Arrays.copyOf(normalUpperLimit, newLength);
+        }
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the duration of the task for a random number between 0 and 1
+     */
+    int durationFor(int task, double random) {
+        if ( random <= pessimisticUpperLimit[task] ) {
+            return pessimisticDays[task];
+        }
+        if ( random <= normalUpperLimit[task] ) {
+            return normalDays[task];
+        }
+
+        return optimisticDays[task];
+    }
+
+    /**
+     * @return the longest duration of the path in days
+     */
+    int maxDuration() {
+        long result = 0;
+        for (int i = 0; i < size; i++) {
+            result += Math.max(pessimisticDays[i], Math.max(normalDays[i], optimisticDays[i]));
+        }
+        Validate.isTrue(result <= Integer.MAX_VALUE, "the path is too long");
+
+        return (int) result;
+    }
+
+    MonteCarloPath copy() {
+        MonteCarloPath result = new MonteCarloPath(startDate);
+        result.size = size;
+        result.pessimisticDays = Arrays.copyOf(pessimisticDays, size);
+        result.normalDays = Arrays.copyOf(normalDays, size);
+        result.optimisticDays = Arrays.copyOf(optimisticDays, size);
+        result.pessimisticUpperLimit = Arrays.copyOf(pessimisticUpperLimit, size);
+        result.normalUpperLimit = Arrays.copyOf(normalUpperLimit, size);
+
+        return result;
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.planner.montecarlo;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+
+/**
+ * The number of times each end date has been obtained by a
+ * {@link MonteCarloSimulation}.
+ */
+public class MonteCarloResult {
+
+    private final LocalDate startDate;
+
+    private final long[] timesByDuration;
+
+    private final long iterations;
+
+    MonteCarloResult(LocalDate startDate, long[] timesByDuration) {
+        this.startDate = startDate;
+        this.timesByDuration = timesByDuration;
+
+        long total = 0;
+        for (long each : timesByDuration) {
+            total += each;
+        }
+        this.iterations = total;
+    }
+
+    public long getIterations() {
+        return iterations;
+    }
+
+    public long getTimes(LocalDate endDate) {
+        int duration = Days.daysBetween(startDate, endDate).getDays();
+
+        return duration >= 0 && duration < timesByDuration.length ? timesByDuration[duration] : 0;
+    }
+
+    /**
+     * @return the probability of finishing on each end date obtained
+     */
+    public SortedMap<LocalDate, BigDecimal> getProbabilities() {
+        SortedMap<LocalDate, BigDecimal> result = new TreeMap<>();
+        if ( iterations == 0 ) {
+            return result;
+        }
+
+        BigDecimal total = BigDecimal.valueOf(iterations);
+        for (int i = 0; i < timesByDuration.length; i++) {
+            if ( timesByDuration[i] > 0 ) {
+                result.put(startDate.plusDays(i),
+                        BigDecimal.valueOf(timesByDuration[i]).divide(total, 8, RoundingMode.HALF_UP));
+            }
+        }
+
+        return result;
+    }
+
+}
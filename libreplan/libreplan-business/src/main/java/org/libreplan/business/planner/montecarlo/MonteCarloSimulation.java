@@ -0,0 +1,157 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.planner.montecarlo;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.lang3.Validate;
+import org.libreplan.business.planner.montecarlo.MonteCarloExecution.IProgressListener;
+
+/**
+ * Simulates the end date of a {@link MonteCarloPath} choosing randomly the
+ * duration of each task on each iteration.
+ * <p>
+ * The iterations are split in chunks of {@link #CHUNK_ITERATIONS} that are run
+ * in parallel. Each chunk uses its own random generator split from the one of
+ * the simulation, so the result only depends on the seed and not on the
+ * number of threads.
+ * </p>
+ *
+ * @see MonteCarloExecution
+ */
+public class MonteCarloSimulation {
+
+    public static final int CHUNK_ITERATIONS = 1000;
+
+    public static MonteCarloSimulation create(MonteCarloPath path, int iterations) {
+        return new MonteCarloSimulation(path, iterations);
+    }
+
+    private final MonteCarloPath path;
+
+    private final int iterations;
+
+    private Long seed = null;
+
+    private MonteCarloSimulation(MonteCarloPath path, int iterations) {
+        Validate.notNull(path);
+        Validate.isTrue(!path.isEmpty(), "the path has no tasks");
+        Validate.isTrue(iterations > 0, "iterations must be positive");
+        this.path = path.copy();
+        this.iterations = iterations;
+    }
+
+    /**
+     * Sets the seed of the random generator, so the results can be
+     * reproduced.
+     */
+    public MonteCarloSimulation withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Starts the simulation on {@link ForkJoinPool#commonPool()}
+     */
+    public MonteCarloExecution start(IProgressListener progressListener) {
+        return start(ForkJoinPool.commonPool(), progressListener);
+    }
+
+    /**
+     * Starts the simulation submitting its chunks to the executor. It returns
+     * immediately.
+     *
+     * @param progressListener
+     *            notified each time the completed percentage increases, from
+     *            the threads running the chunks
+     */
+    public MonteCarloExecution start(ExecutorService executor, IProgressListener progressListener) {
+        int chunks = (iterations + CHUNK_ITERATIONS - 1) / CHUNK_ITERATIONS;
+        MonteCarloExecution execution = new MonteCarloExecution(
+                path.getStartDate(), path.maxDuration() + 1, iterations, chunks, progressListener);
+
+        SplittableRandom random = seed != null ? new SplittableRandom(seed) : new SplittableRandom();
+        for (int i = 0; i < chunks; i++) {
+            int chunkIterations = Math.min(CHUNK_ITERATIONS, iterations - i * CHUNK_ITERATIONS);
+            execution.submit(executor, new Chunk(path, chunkIterations, random.split()));
+        }
+
+        return execution;
+    }
+
+    /**
+     * Runs the simulation in parallel and waits for its result
+     */
+    public MonteCarloResult run() throws InterruptedException {
+        return start(null).getResult();
+    }
+
+    static class Chunk {
+
+        private static final int PROGRESS_STEP = 100;
+
+        private final MonteCarloPath path;
+
+        private final int iterations;
+
+        private final SplittableRandom random;
+
+        private Chunk(MonteCarloPath path, int iterations, SplittableRandom random) {
+            this.path = path;
+            this.iterations = iterations;
+            this.random = random;
+        }
+
+        int getIterations() {
+            return iterations;
+        }
+
+        /**
+         * @return <code>false</code> if it has been cancelled
+         */
+        boolean run(long[] timesByDuration, MonteCarloExecution execution) {
+            int tasks = path.size();
+            for (int i = 0; i < iterations; i++) {
+                if ( execution.isCancelled() ) {
+                    return false;
+                }
+                int duration = 0;
+                for (int task = 0; task < tasks; task++) {
+                    duration += path.durationFor(task, random.nextDouble());
+                }
+                timesByDuration[duration]++;
+                if ( (i + 1) % PROGRESS_STEP == 0 ) {
+                    execution.advance(PROGRESS_STEP);
+                }
+            }
+            execution.advance(iterations % PROGRESS_STEP);
+
+            return true;
+        }
+
+    }
+
+}
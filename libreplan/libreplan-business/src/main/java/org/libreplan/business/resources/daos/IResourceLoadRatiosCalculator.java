@@ -20,6 +20,8 @@
 package org.libreplan.business.resources.daos;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
 
 import org.joda.time.LocalDate;
 import org.libreplan.business.resources.entities.Resource;
@@ -77,4 +79,15 @@ public interface IResourceLoadRatiosCalculator {
             LocalDate startDate,
             LocalDate endDate, Scenario scenario);
 
+    /**
+     * Calculates the load ratios of several resources between two dates in
+     * the scenario specified. The load of each resource is aggregated by
+     * weeks, so it's faster than calculating them one by one.
+     *
+     * @return the load ratios calculated for each resource.
+     */
+    Map<Resource, ILoadRatiosDataType> calculateLoadRatios(Collection<? extends Resource> resources,
+            LocalDate startDate,
+            LocalDate endDate, Scenario scenario);
+
 }
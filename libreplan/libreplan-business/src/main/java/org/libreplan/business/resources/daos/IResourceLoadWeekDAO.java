@@ -0,0 +1,47 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.resources.daos;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.libreplan.business.common.daos.IGenericDAO;
+import org.libreplan.business.resources.entities.ResourceLoadWeek;
+
+/**
+ * DAO interface for the {@link ResourceLoadWeek} entity.
+ * Contract for {@link ResourceLoadWeekDAO}.
+ */
+public interface IResourceLoadWeekDAO extends IGenericDAO<ResourceLoadWeek, Long> {
+
+    /**
+     * Returns the stored weeks of the resources in the scenario starting
+     * between the dates, including the outdated ones.
+     */
+    List<ResourceLoadWeek> findFor(
+            Collection<Long> resourceIds, Long scenarioId, LocalDate firstWeekStart, LocalDate lastWeekStart);
+
+    /**
+     * Removes the weeks with the ids and stores the new ones.
+     */
+    void replace(Collection<Long> outdatedIds, Collection<ResourceLoadWeek> weeks);
+
+}
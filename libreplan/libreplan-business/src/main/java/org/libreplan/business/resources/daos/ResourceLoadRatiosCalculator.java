@@ -20,15 +20,24 @@
 package org.libreplan.business.resources.daos;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.joda.time.DateTimeConstants;
 import org.joda.time.LocalDate;
+import org.joda.time.Weeks;
+import org.libreplan.business.common.IAdHocTransactionService;
+import org.libreplan.business.common.IOnTransaction;
 import org.libreplan.business.planner.daos.IDayAssignmentDAO;
 import org.libreplan.business.planner.entities.DayAssignment;
 import org.libreplan.business.resources.entities.Resource;
+import org.libreplan.business.resources.entities.ResourceLoadWeek;
 import org.libreplan.business.scenarios.entities.Scenario;
 import org.libreplan.business.workingday.EffortDuration;
 import org.libreplan.business.workingday.IntraDayDate.PartialDay;
@@ -49,12 +58,23 @@ import org.springframework.transaction.annotation.Transactional;
 @Scope(BeanDefinition.SCOPE_SINGLETON)
 public class ResourceLoadRatiosCalculator implements IResourceLoadRatiosCalculator {
 
+    private static final Log LOG = LogFactory.getLog(ResourceLoadRatiosCalculator.class);
+
     @Autowired
     private IDayAssignmentDAO dayAssignmentDAO;
 
     @Autowired
     private IResourceDAO resourceDAO;
 
+    @Autowired
+    private IResourceLoadWeekDAO resourceLoadWeekDAO;
+
+    @Autowired
+    private ResourceLoadWeeksTracker resourceLoadWeeksTracker;
+
+    @Autowired
+    private IAdHocTransactionService transactionService;
+
     private static class LoadRatiosDataType implements IResourceLoadRatiosCalculator.ILoadRatiosDataType {
         private EffortDuration load;
 
@@ -119,45 +139,186 @@ public class ResourceLoadRatiosCalculator implements IResourceLoadRatiosCalculat
                                                    final LocalDate startDate,
                                                    final LocalDate endDate,
                                                    final Scenario scenario) {
-        resourceDAO.reattach(resource);
 
-        EffortDuration
-                totalLoad = EffortDuration.zero(),
-                totalOverload = EffortDuration.zero(),
-                totalCapacity;
+        return calculateLoadRatios(Collections.singletonList(resource), startDate, endDate, scenario).get(resource);
+    }
+
+    /**
+     * The load of the weeks completely inside the interval is taken from the
+     * stored {@link ResourceLoadWeek}. The weeks not stored or outdated, and
+     * the days of the weeks partially inside the interval, are calculated
+     * from the day assignments of all the resources retrieved together. The
+     * weeks calculated are stored for the next time.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Resource, ILoadRatiosDataType> calculateLoadRatios(Collection<? extends Resource> resources,
+                                                                  LocalDate startDate,
+                                                                  LocalDate endDate,
+                                                                  Scenario scenario) {
+        long stamp = resourceLoadWeeksTracker.currentStamp();
+
+        Map<Long, Resource> resourcesById = new HashMap<>();
+        for (Resource each : resources) {
+            resourceDAO.reattach(each);
+            resourcesById.put(each.getId(), each);
+        }
+
+        LocalDate firstWeekStart = ResourceLoadWeek.weekStartOf(startDate);
+        if ( firstWeekStart.isBefore(startDate) ) {
+            firstWeekStart = firstWeekStart.plusWeeks(1);
+        }
+        LocalDate lastWeekStart = ResourceLoadWeek.weekStartOf(endDate);
+        if ( lastWeekStart.plusDays(6).isAfter(endDate) ) {
+            lastWeekStart = lastWeekStart.minusWeeks(1);
+        }
 
-        Set<Map.Entry<LocalDate, EffortDuration>> efforts =
-                getAllEffortPerDateFor(scenario, startDate, endDate, resource).entrySet();
+        Map<Long, Map<LocalDate, ResourceLoadWeek>> storedWeeks = new HashMap<>();
+        List<Long> outdatedIds = new ArrayList<>();
+        for (ResourceLoadWeek each : resourceLoadWeekDAO.findFor(
+                resourcesById.keySet(), scenario.getId(), firstWeekStart, lastWeekStart)) {
 
-        for (Map.Entry<LocalDate, EffortDuration> each : efforts) {
-            totalLoad = totalLoad.plus(each.getValue());
-            totalOverload = addOverload(totalOverload, resource, each.getValue(), each.getKey());
+            if ( resourceLoadWeeksTracker.isUpToDate(each) ) {
+                weeksOf(storedWeeks, each.getResourceId()).put(each.getWeekStart(), each);
+            } else {
+                outdatedIds.add(each.getId());
+            }
         }
 
-        totalCapacity = calculateTotalCapacity(resource, startDate, endDate);
+        List<Resource> withAllWeeks = new ArrayList<>();
+        List<Resource> withMissingWeeks = new ArrayList<>();
+        int weeksNumber = firstWeekStart.isAfter(lastWeekStart)
+                ? 0
+                : Weeks.weeksBetween(firstWeekStart, lastWeekStart).getWeeks() + 1;
+        for (Resource each : resources) {
+            if ( weeksNumber > 0 && weeksOf(storedWeeks, each.getId()).size() == weeksNumber ) {
+                withAllWeeks.add(each);
+            } else {
+                withMissingWeeks.add(each);
+            }
+        }
 
-        return new LoadRatiosDataType(totalLoad, totalOverload, totalCapacity);
+        Map<Long, Map<LocalDate, EffortDuration>> efforts = new HashMap<>();
+        addEffortPerDate(efforts, dayAssignmentDAO.getAllFor(scenario, startDate, endDate, withMissingWeeks));
+        if ( !withAllWeeks.isEmpty() ) {
+            if ( startDate.isBefore(firstWeekStart) ) {
+                addEffortPerDate(efforts,
+                        dayAssignmentDAO.getAllFor(scenario, startDate, firstWeekStart.minusDays(1), withAllWeeks));
+            }
+            LocalDate afterLastWeek = lastWeekStart.plusWeeks(1);
+            if ( !afterLastWeek.isAfter(endDate) ) {
+                addEffortPerDate(efforts, dayAssignmentDAO.getAllFor(scenario, afterLastWeek, endDate, withAllWeeks));
+            }
+        }
+
+        Map<Resource, ILoadRatiosDataType> result = new HashMap<>();
+        List<ResourceLoadWeek> calculatedWeeks = new ArrayList<>();
+        for (Resource each : resources) {
+            Map<LocalDate, EffortDuration> effortPerDate = efforts.get(each.getId());
+            if ( effortPerDate == null ) {
+                effortPerDate = Collections.emptyMap();
+            }
+            Map<LocalDate, ResourceLoadWeek> weeks = weeksOf(storedWeeks, each.getId());
+
+            EffortDuration totalLoad = EffortDuration.zero();
+            EffortDuration totalOverload = EffortDuration.zero();
+            LocalDate day = startDate;
+            while (!day.isAfter(endDate)) {
+                boolean isFullWeek = !day.isBefore(firstWeekStart) && !day.isAfter(lastWeekStart);
+                if ( isFullWeek ) {
+                    ResourceLoadWeek week = weeks.get(day);
+                    if ( week == null ) {
+                        week = calculateWeek(each, scenario, day, effortPerDate, stamp);
+                        calculatedWeeks.add(week);
+                    }
+                    totalLoad = totalLoad.plus(week.getLoad());
+                    totalOverload = totalOverload.plus(week.getOverload());
+                    day = day.plusWeeks(1);
+                } else {
+                    EffortDuration load = getEffort(effortPerDate, day);
+                    totalLoad = totalLoad.plus(load);
+                    totalOverload = addOverload(totalOverload, each, load, day);
+                    day = day.plusDays(1);
+                }
+            }
+
+            result.put(each, new LoadRatiosDataType(totalLoad, totalOverload,
+                    calculateTotalCapacity(each, startDate, endDate)));
+        }
+
+        storeWeeks(outdatedIds, calculatedWeeks);
+
+        return result;
     }
 
-    private Map<LocalDate, EffortDuration> getAllEffortPerDateFor(
-            Scenario scenario, LocalDate startDate, LocalDate endDate, Resource resource) {
+    private static Map<LocalDate, ResourceLoadWeek> weeksOf(
+            Map<Long, Map<LocalDate, ResourceLoadWeek>> storedWeeks, Long resourceId) {
 
-        HashMap<LocalDate, EffortDuration> result;
-        result = new HashMap<>();
+        Map<LocalDate, ResourceLoadWeek> result = storedWeeks.get(resourceId);
+        if ( result == null ) {
+            result = new HashMap<>();
+            storedWeeks.put(resourceId, result);
+        }
 
-        List<DayAssignment> l = dayAssignmentDAO.getAllFor(scenario, startDate, endDate, resource);
+        return result;
+    }
 
-        EffortDuration newValue;
+    private static void addEffortPerDate(
+            Map<Long, Map<LocalDate, EffortDuration>> efforts, List<DayAssignment> dayAssignments) {
 
-        for (DayAssignment each : l) {
-            if (result.containsKey(each.getDay())) {
-                newValue = result.get(each.getDay()).plus(each.getDuration());
-            } else {
-                newValue = each.getDuration();
+        for (DayAssignment each : dayAssignments) {
+            Long resourceId = each.getResource().getId();
+            Map<LocalDate, EffortDuration> effortPerDate = efforts.get(resourceId);
+            if ( effortPerDate == null ) {
+                effortPerDate = new HashMap<>();
+                efforts.put(resourceId, effortPerDate);
             }
-            result.put(each.getDay(), newValue);
+            effortPerDate.put(each.getDay(), getEffort(effortPerDate, each.getDay()).plus(each.getDuration()));
+        }
+    }
+
+    private static EffortDuration getEffort(Map<LocalDate, EffortDuration> effortPerDate, LocalDate day) {
+        EffortDuration result = effortPerDate.get(day);
+
+        return result != null ? result : EffortDuration.zero();
+    }
+
+    private ResourceLoadWeek calculateWeek(
+            Resource resource, Scenario scenario, LocalDate weekStart, Map<LocalDate, EffortDuration> effortPerDate,
+            long stamp) {
+
+        EffortDuration load = EffortDuration.zero();
+        EffortDuration overload = EffortDuration.zero();
+        for (int i = 0; i < DateTimeConstants.DAYS_PER_WEEK; i++) {
+            LocalDate day = weekStart.plusDays(i);
+            EffortDuration loadAtDate = getEffort(effortPerDate, day);
+            load = load.plus(loadAtDate);
+            overload = addOverload(overload, resource, loadAtDate, day);
+        }
+
+        return ResourceLoadWeek.create(resource.getId(), scenario.getId(), weekStart, load, overload, stamp);
+    }
+
+    /**
+     * The weeks are stored in another transaction, so the load ratios are
+     * returned even if they can't be stored, for example because another
+     * transaction has just stored the same weeks.
+     */
+    private void storeWeeks(final List<Long> outdatedIds, final List<ResourceLoadWeek> calculatedWeeks) {
+        if ( outdatedIds.isEmpty() && calculatedWeeks.isEmpty() ) {
+            return;
+        }
+        try {
+            transactionService.runOnAnotherTransaction(new IOnTransaction<Void>() {
+                @Override
+                public Void execute() {
+                    resourceLoadWeekDAO.replace(outdatedIds, calculatedWeeks);
+                    return null;
+                }
+            });
+        } catch (RuntimeException e) {
+            LOG.warn("the resource load weeks couldn't be stored, they will be calculated again", e);
         }
-        return result;
     }
 
     private EffortDuration calculateTotalCapacity(Resource resource, LocalDate startDate, LocalDate endDate) {
@@ -167,6 +328,10 @@ public class ResourceLoadRatiosCalculator implements IResourceLoadRatiosCalculat
     private EffortDuration addOverload(
             EffortDuration currentOverload, Resource resource, EffortDuration loadAtDate, LocalDate date) {
 
+        if ( loadAtDate.isZero() ) {
+            return currentOverload;
+        }
+
         EffortDuration result;
         EffortDuration capacityAtDay = getCapacityAtDate(resource, date);
 
@@ -182,4 +347,4 @@ public class ResourceLoadRatiosCalculator implements IResourceLoadRatiosCalculat
     private EffortDuration getCapacityAtDate(Resource resource, LocalDate date) {
         return resource.getCalendar().getCapacityOn(PartialDay.wholeDay(date));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.resources.daos;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.criterion.Restrictions;
+import org.joda.time.LocalDate;
+import org.libreplan.business.common.daos.GenericDAOHibernate;
+import org.libreplan.business.resources.entities.ResourceLoadWeek;
+import org.springframework.stereotype.Repository;
+
+/**
+ * DAO for {@link ResourceLoadWeek}.
+ */
+@Repository
+public class ResourceLoadWeekDAO extends GenericDAOHibernate<ResourceLoadWeek, Long> implements IResourceLoadWeekDAO {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ResourceLoadWeek> findFor(
+            Collection<Long> resourceIds, Long scenarioId, LocalDate firstWeekStart, LocalDate lastWeekStart) {
+
+        if ( resourceIds.isEmpty() || firstWeekStart.isAfter(lastWeekStart) ) {
+            return Collections.emptyList();
+        }
+
+        return getSession()
+                .createCriteria(ResourceLoadWeek.class)
+                .add(Restrictions.in("resourceId", resourceIds))
+                .add(Restrictions.eq("scenarioId", scenarioId))
+                .add(Restrictions.between("weekStart", firstWeekStart, lastWeekStart))
+                .list();
+    }
+
+    @Override
+    public void replace(Collection<Long> outdatedIds, Collection<ResourceLoadWeek> weeks) {
+        if ( !outdatedIds.isEmpty() ) {
+            getSession()
+                    .createQuery("delete from ResourceLoadWeek w where w.id in (:ids)")
+                    .setParameterList("ids", outdatedIds)
+                    .executeUpdate();
+        }
+        for (ResourceLoadWeek each : weeks) {
+            saveWithoutValidating(each);
+        }
+    }
+
+}
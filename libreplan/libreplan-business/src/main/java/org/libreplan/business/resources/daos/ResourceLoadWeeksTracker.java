@@ -0,0 +1,314 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.resources.daos;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.transaction.Synchronization;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.joda.time.LocalDate;
+import org.libreplan.business.calendars.entities.BaseCalendar;
+import org.libreplan.business.calendars.entities.CalendarAvailability;
+import org.libreplan.business.calendars.entities.CalendarData;
+import org.libreplan.business.calendars.entities.CalendarException;
+import org.libreplan.business.hibernate.notification.EntityChanges;
+import org.libreplan.business.hibernate.notification.IEntityChangesListener;
+import org.libreplan.business.hibernate.notification.ISnapshotRefresherService;
+import org.libreplan.business.planner.entities.DayAssignment;
+import org.libreplan.business.planner.entities.IDayAssignmentsContainer;
+import org.libreplan.business.resources.entities.Resource;
+import org.libreplan.business.resources.entities.ResourceLoadWeek;
+import org.libreplan.business.scenarios.entities.Scenario;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks which {@link ResourceLoadWeek} are outdated, so they are calculated
+ * again the next time they are needed.
+ * <p>
+ * Each aggregate is stamped with {@link #currentStamp()} before reading the
+ * day assignments it's calculated from. When a transaction changing the day
+ * assignments of a resource in a week completes, that week gets a newer stamp,
+ * so the aggregates calculated before are discarded. The day assignments are
+ * shared by the derived scenarios, so the week is outdated in all of them.
+ * </p>
+ * <p>
+ * All the aggregates are outdated when the calendars change, as the overload
+ * depends on the capacity of each day, when a container of day assignments of
+ * a derived scenario is added or removed, as it changes which assignments of
+ * the predecessors are visible, and when a resource or a scenario are removed,
+ * so their ids can't be reused with old aggregates. The stamps start from the
+ * current time, so the aggregates stored by a previous execution are outdated
+ * too.
+ * </p>
+ * <p>
+ * The stamps are kept in memory, so the aggregates can only be shared by the
+ * transactions of this application instance.
+ * </p>
+ */
+@Component
+@Scope(BeanDefinition.SCOPE_SINGLETON)
+public class ResourceLoadWeeksTracker implements
+        PostInsertEventListener,
+        PostUpdateEventListener,
+        PostDeleteEventListener,
+        IEntityChangesListener {
+
+    private static final Log LOG = LogFactory.getLog(ResourceLoadWeeksTracker.class);
+
+    private static final List<Class<?>> CALENDAR_CLASSES = Collections.unmodifiableList(Arrays.<Class<?>> asList(
+            BaseCalendar.class,
+            CalendarData.class,
+            CalendarException.class,
+            CalendarAvailability.class));
+
+    private static final class WeekKey {
+
+        private final Long resourceId;
+
+        private final LocalDate weekStart;
+
+        private WeekKey(Long resourceId, LocalDate weekStart) {
+            this.resourceId = resourceId;
+            this.weekStart = weekStart;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if ( !(obj instanceof WeekKey) ) {
+                return false;
+            }
+            WeekKey other = (WeekKey) obj;
+
+            return new EqualsBuilder()
+                    .append(resourceId, other.resourceId)
+                    .append(weekStart, other.weekStart)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder().append(resourceId).append(weekStart).toHashCode();
+        }
+
+    }
+
+    /**
+     * The weeks changed by a transaction, outdated when it completes. A
+     * rollback outdates them too, what only costs calculating them again.
+     */
+    private final class TransactionChanges implements Synchronization {
+
+        private final Transaction transaction;
+
+        private final Set<WeekKey> weeks = new HashSet<>();
+
+        private boolean all = false;
+
+        private TransactionChanges(Transaction transaction) {
+            this.transaction = transaction;
+        }
+
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            pending.remove(transaction);
+            if ( all ) {
+                outdateAll();
+            } else {
+                outdate(weeks);
+            }
+        }
+
+    }
+
+    private final AtomicLong counter = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    private volatile long validSince = counter.get();
+
+    private final ConcurrentMap<WeekKey, Long> outdatedAt = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Transaction, TransactionChanges> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private ISnapshotRefresherService snapshotRefresherService;
+
+    @PostConstruct
+    private void registerListeners() {
+        EventListenerRegistry registry = ((SessionFactoryImpl) sessionFactory)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+
+        snapshotRefresherService.addChangesListener(this);
+    }
+
+    /**
+     * @return the stamp for the aggregates calculated from now on
+     */
+    public long currentStamp() {
+        return counter.get();
+    }
+
+    public boolean isUpToDate(ResourceLoadWeek week) {
+        Long outdated = outdatedAt.get(new WeekKey(week.getResourceId(), week.getWeekStart()));
+
+        return week.getStamp() >= validSince && (outdated == null || week.getStamp() >= outdated);
+    }
+
+    private void outdate(Set<WeekKey> weeks) {
+        for (WeekKey each : weeks) {
+            outdatedAt.put(each, counter.incrementAndGet());
+        }
+    }
+
+    private void outdateAll() {
+        LOG.debug("all the resource load weeks are outdated");
+        validSince = counter.incrementAndGet();
+        outdatedAt.clear();
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event, event.getEntity(), true);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event, event.getEntity(), false);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event, event.getEntity(), true);
+    }
+
+    private void changed(AbstractEvent event, Object entity, boolean insertedOrRemoved) {
+        if ( entity instanceof DayAssignment ) {
+            DayAssignment dayAssignment = (DayAssignment) entity;
+            WeekKey week = new WeekKey(dayAssignment.getResource().getId(),
+                    ResourceLoadWeek.weekStartOf(dayAssignment.getDay()));
+            TransactionChanges changes = changesOn(event.getSession().getTransaction());
+            if ( changes == null ) {
+                outdate(Collections.singleton(week));
+            } else {
+                changes.weeks.add(week);
+            }
+        } else if ( entity instanceof IDayAssignmentsContainer && insertedOrRemoved
+                && isDerived(((IDayAssignmentsContainer<?>) entity).getScenario()) ) {
+            TransactionChanges changes = changesOn(event.getSession().getTransaction());
+            if ( changes == null ) {
+                outdateAll();
+            } else {
+                changes.all = true;
+            }
+        }
+    }
+
+    private static boolean isDerived(Scenario scenario) {
+        return scenario != null && scenario.getPredecessor() != null;
+    }
+
+    /**
+     * @return <code>null</code> if there is no transaction
+     */
+    private TransactionChanges changesOn(Transaction transaction) {
+        if ( transaction == null ) {
+            return null;
+        }
+        TransactionChanges newChanges = new TransactionChanges(transaction);
+        TransactionChanges previous = pending.putIfAbsent(transaction, newChanges);
+        if ( previous != null ) {
+            return previous;
+        }
+        transaction.registerSynchronization(newChanges);
+
+        return newChanges;
+    }
+
+    @Override
+    public void onChanges(EntityChanges changes) {
+        for (Class<?> each : changes.getClasses()) {
+            if ( isCalendarClass(each) ) {
+                outdateAll();
+                return;
+            }
+        }
+        for (Class<?> each : changes.getClasses()) {
+            if ( (Resource.class.isAssignableFrom(each) || Scenario.class.isAssignableFrom(each))
+                    && !changes.getRemovedIds(each).isEmpty() ) {
+                outdateAll();
+                return;
+            }
+        }
+    }
+
+    private static boolean isCalendarClass(Class<?> klass) {
+        for (Class<?> each : CALENDAR_CLASSES) {
+            if ( each.isAssignableFrom(klass) ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+}
@@ -27,19 +27,23 @@ import static org.libreplan.business.planner.limiting.entities.LimitingResourceQ
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.libreplan.business.calendars.entities.CalendarAvailability;
-import org.libreplan.business.calendars.entities.ResourceCalendar;
 import org.libreplan.business.common.BaseEntity;
 import org.libreplan.business.planner.limiting.entities.DateAndHour;
 import org.libreplan.business.planner.limiting.entities.Gap;
 import org.libreplan.business.planner.limiting.entities.Gap.GapOnQueue;
 import org.libreplan.business.planner.limiting.entities.GapInterval;
+import org.libreplan.business.planner.limiting.entities.GapsIndex;
 import org.libreplan.business.planner.limiting.entities.InsertionRequirements;
 import org.libreplan.business.planner.limiting.entities.LimitingResourceQueueElement;
 /**
@@ -54,7 +58,34 @@ public class LimitingResourceQueue extends BaseEntity {
     private SortedSet<LimitingResourceQueueElement> limitingResourceQueueElements =
         new TreeSet<LimitingResourceQueueElement>(new LimitingResourceQueueElementComparator());
 
-    private List<GapOnQueue> cachedGaps;
+    /**
+     * Built on demand and updated when the elements are added, removed or
+     * moved. The gaps are grouped by the element after them, the last gap is
+     * under <code>null</code>
+     */
+    private GapsIndex gapsIndex;
+
+    private Map<LimitingResourceQueueElement, List<GapOnQueue>> gapsBeforeElement;
+
+    private TreeMap<DateAndHour, IndexedElement> indexedByStart;
+
+    private Map<LimitingResourceQueueElement, IndexedElement> indexedElements;
+
+    private static class IndexedElement {
+
+        private final LimitingResourceQueueElement element;
+
+        private final DateAndHour start;
+
+        private final DateAndHour end;
+
+        private IndexedElement(LimitingResourceQueueElement element) {
+            this.element = element;
+            this.start = element.getStartTime();
+            this.end = element.getEndTime();
+        }
+
+    }
 
     public static Collection<LimitingResourceQueue> queuesOf(
             Collection<LimitingResourceQueueElement> queueElements) {
@@ -83,47 +114,130 @@ public class LimitingResourceQueue extends BaseEntity {
 
     public void addLimitingResourceQueueElement(LimitingResourceQueueElement element) {
         element.setLimitingResourceQueue(this);
-        limitingResourceQueueElements.add(element);
-        invalidCachedGaps();
+        if (limitingResourceQueueElements.add(element) && gapsIndex != null) {
+            indexElement(element);
+        }
     }
 
     public void removeLimitingResourceQueueElement(LimitingResourceQueueElement element) {
         limitingResourceQueueElements.remove(element);
         element.detach();
-        invalidCachedGaps();
+        if (gapsIndex != null) {
+            unindexElement(element);
+        }
     }
 
-    private void invalidCachedGaps() {
-        cachedGaps = null;
+    public List<GapOnQueue> getGaps() {
+        return getGapsIndex().getGaps();
     }
 
-    public List<GapOnQueue> getGaps() {
-        if (cachedGaps == null) {
-            cachedGaps = calculateGaps();
+    /**
+     * @return the first gap that ends after <code>time</code> and has at least
+     *         <code>hours</code> available
+     */
+    public GapOnQueue getFirstGapWithAtLeast(int hours, DateAndHour time) {
+        return getGapsIndex().getFirstGapWithAtLeast(hours, time);
+    }
+
+    private GapsIndex getGapsIndex() {
+        if (gapsIndex == null) {
+            buildGapsIndex();
         }
-        return cachedGaps;
+        return gapsIndex;
     }
 
-    private List<GapOnQueue> calculateGaps() {
-        List<Gap> result = new ArrayList<Gap>();
-        DateAndHour previousEnd = null;
-        ResourceCalendar calendar = resource.getCalendar();
-        List<CalendarAvailability> activationPeriods = calendar.getCalendarAvailabilities();
+    private void buildGapsIndex() {
+        gapsIndex = new GapsIndex();
+        gapsBeforeElement = new HashMap<LimitingResourceQueueElement, List<GapOnQueue>>();
+        indexedByStart = new TreeMap<DateAndHour, IndexedElement>();
+        indexedElements = new HashMap<LimitingResourceQueueElement, IndexedElement>();
 
+        DateAndHour previousEnd = null;
         for (LimitingResourceQueueElement each : limitingResourceQueueElements) {
-            DateAndHour startTime = each.getStartTime();
-            if (previousEnd == null || startTime.isAfter(previousEnd)) {
-                List<GapInterval> gapIntervals = GapInterval.
-                        create(previousEnd, startTime).
-                        delimitByActivationPeriods(activationPeriods);
-                if (!gapIntervals.isEmpty()) {
-                    result.addAll(GapInterval.gapsOn(gapIntervals, resource));
-                }
+            IndexedElement indexed = new IndexedElement(each);
+            indexedByStart.put(indexed.start, indexed);
+            indexedElements.put(each, indexed);
+            putGapsBefore(each, previousEnd, indexed.start);
+            previousEnd = indexed.end;
+        }
+        putGapsBefore(null, previousEnd, null);
+    }
+
+    private void indexElement(LimitingResourceQueueElement element) {
+        IndexedElement indexed = new IndexedElement(element);
+        if (indexedByStart.containsKey(indexed.start)) {
+            // Two elements can overlap while they're being moved, the index
+            // is built again when needed so no element is lost
+            gapsIndex = null;
+            return;
+        }
+        Entry<DateAndHour, IndexedElement> previous = indexedByStart.lowerEntry(indexed.start);
+        Entry<DateAndHour, IndexedElement> next = indexedByStart.higherEntry(indexed.start);
+
+        indexedByStart.put(indexed.start, indexed);
+        indexedElements.put(element, indexed);
+
+        LimitingResourceQueueElement nextElement = next != null ? next.getValue().element : null;
+        removeGapsBefore(nextElement);
+        putGapsBefore(element, previous != null ? previous.getValue().end : null, indexed.start);
+        putGapsBefore(nextElement, indexed.end, next != null ? next.getKey() : null);
+    }
+
+    private void unindexElement(LimitingResourceQueueElement element) {
+        IndexedElement indexed = indexedElements.remove(element);
+        if (indexed == null) {
+            return;
+        }
+        if (indexedByStart.get(indexed.start) != indexed) {
+            gapsIndex = null;
+            return;
+        }
+        indexedByStart.remove(indexed.start);
+
+        Entry<DateAndHour, IndexedElement> previous = indexedByStart.lowerEntry(indexed.start);
+        Entry<DateAndHour, IndexedElement> next = indexedByStart.higherEntry(indexed.start);
+
+        LimitingResourceQueueElement nextElement = next != null ? next.getValue().element : null;
+        removeGapsBefore(element);
+        removeGapsBefore(nextElement);
+        putGapsBefore(nextElement, previous != null ? previous.getValue().end : null, next != null ? next.getKey() : null);
+    }
+
+    private void removeGapsBefore(LimitingResourceQueueElement element) {
+        List<GapOnQueue> gaps = gapsBeforeElement.remove(element);
+        if (gaps != null) {
+            for (GapOnQueue each : gaps) {
+                gapsIndex.remove(each);
             }
-            previousEnd = each.getEndTime();
         }
-        result.add(Gap.create(resource, previousEnd, null));
-        return GapOnQueue.onQueue(this, result);
+    }
+
+    private void putGapsBefore(LimitingResourceQueueElement element, DateAndHour previousEnd, DateAndHour start) {
+        List<GapOnQueue> gaps = GapOnQueue.onQueue(this, calculateGapsBetween(previousEnd, start));
+        gapsBeforeElement.put(element, gaps);
+        for (GapOnQueue each : gaps) {
+            gapsIndex.add(each);
+        }
+    }
+
+    /**
+     * @param previousEnd
+     *            <code>null</code> if there is no element before
+     * @param start
+     *            <code>null</code> if there is no element after
+     */
+    private List<Gap> calculateGapsBetween(DateAndHour previousEnd, DateAndHour start) {
+        List<Gap> result = new ArrayList<Gap>();
+        if (start == null) {
+            result.add(Gap.create(resource, previousEnd, null));
+        } else if (previousEnd == null || start.isAfter(previousEnd)) {
+            List<CalendarAvailability> activationPeriods = resource.getCalendar().getCalendarAvailabilities();
+            List<GapInterval> gapIntervals = GapInterval.
+                    create(previousEnd, start).
+                    delimitByActivationPeriods(activationPeriods);
+            result.addAll(GapInterval.gapsOn(gapIntervals, resource));
+        }
+        return result;
     }
 
     public SortedSet<LimitingResourceQueueElement> getLimitingResourceQueueElements() {
@@ -137,7 +251,9 @@ public class LimitingResourceQueue extends BaseEntity {
     public List<GapOnQueue> getGapsPotentiallyValidFor(
             InsertionRequirements requirements) {
         List<GapOnQueue> result = new ArrayList<GapOnQueue>();
-        for (GapOnQueue each : getGaps()) {
+        List<GapOnQueue> endingAfterStart = getGapsIndex().getGapsEndingAfter(
+                requirements.getEarliestPossibleStart());
+        for (GapOnQueue each : endingAfterStart) {
             if (requirements.isPotentiallyValid(each.getGap())) {
                 result.add(each);
             }
@@ -168,7 +284,13 @@ public class LimitingResourceQueue extends BaseEntity {
 
     public void queueElementMoved(
             LimitingResourceQueueElement limitingResourceQueueElement) {
-        invalidCachedGaps();
+        if (gapsIndex != null
+                && indexedElements.containsKey(limitingResourceQueueElement)) {
+            unindexElement(limitingResourceQueueElement);
+            if (gapsIndex != null) {
+                indexElement(limitingResourceQueueElement);
+            }
+        }
     }
 
     public String toString() {
@@ -183,7 +183,7 @@ public abstract class Resource extends IntegrationEntity implements IHumanIdenti
             List<DayAssignment> result = new ArrayList<DayAssignment>();
             Scenario current = Registry.getScenarioManager().getCurrent();
             for (DayAssignment each : dayAssignments) {
-                if ( each.getScenario() != null && each.getScenario().equals(current) ) {
+                if ( each.getScenario() != null && each.isVisibleAt(current) ) {
                     result.add(each);
                 }
             }
@@ -203,7 +203,7 @@ public abstract class Resource extends IntegrationEntity implements IHumanIdenti
         List<DayAssignment> calculateAssignments() {
             List<DayAssignment> result = new ArrayList<DayAssignment>();
             for (DayAssignment each : dayAssignments) {
-                if ( isTransient(each) || each.getScenario().equals(currentScenario) ) {
+                if ( isTransient(each) || each.isVisibleAt(currentScenario) ) {
                     result.add(each);
                 }
             }
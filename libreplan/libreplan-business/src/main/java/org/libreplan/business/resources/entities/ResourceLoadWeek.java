@@ -0,0 +1,118 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.resources.entities;
+
+import org.apache.commons.lang3.Validate;
+import org.joda.time.DateTimeConstants;
+import org.joda.time.LocalDate;
+import org.libreplan.business.common.BaseEntity;
+import org.libreplan.business.workingday.EffortDuration;
+
+/**
+ * Load of a resource in a scenario during a week, from Monday to Sunday. The
+ * overload is the sum of the effort assigned over the capacity of each day.
+ * <p>
+ * It's an aggregate of the day assignments, so they don't have to be loaded
+ * to calculate the load ratios of many resources. The stamp is the one of
+ * {@link org.libreplan.business.resources.daos.ResourceLoadWeeksTracker} when
+ * the aggregate was calculated, and it's used to discard the outdated ones.
+ * </p>
+ * <p>
+ * The resource and the scenario are kept as ids, so removing them isn't
+ * prevented by these aggregates.
+ * </p>
+ */
+public class ResourceLoadWeek extends BaseEntity {
+
+    public static LocalDate weekStartOf(LocalDate day) {
+        return day.withDayOfWeek(DateTimeConstants.MONDAY);
+    }
+
+    public static ResourceLoadWeek create(
+            Long resourceId, Long scenarioId, LocalDate weekStart, EffortDuration load, EffortDuration overload,
+            long stamp) {
+
+        return create(new ResourceLoadWeek(resourceId, scenarioId, weekStart, load, overload, stamp));
+    }
+
+    private Long resourceId;
+
+    private Long scenarioId;
+
+    private LocalDate weekStart;
+
+    private EffortDuration load;
+
+    private EffortDuration overload;
+
+    private long stamp;
+
+    /**
+     * Constructor for hibernate. Do not use!
+     */
+    public ResourceLoadWeek() {
+    }
+
+    private ResourceLoadWeek(
+            Long resourceId, Long scenarioId, LocalDate weekStart, EffortDuration load, EffortDuration overload,
+            long stamp) {
+
+        Validate.notNull(resourceId);
+        Validate.notNull(scenarioId);
+        Validate.isTrue(weekStart.getDayOfWeek() == DateTimeConstants.MONDAY);
+        Validate.notNull(load);
+        Validate.notNull(overload);
+        this.resourceId = resourceId;
+        this.scenarioId = scenarioId;
+        this.weekStart = weekStart;
+        this.load = load;
+        this.overload = overload;
+        this.stamp = stamp;
+    }
+
+    public Long getResourceId() {
+        return resourceId;
+    }
+
+    public Long getScenarioId() {
+        return scenarioId;
+    }
+
+    public LocalDate getWeekStart() {
+        return weekStart;
+    }
+
+    public LocalDate getWeekEnd() {
+        return weekStart.plusDays(6);
+    }
+
+    public EffortDuration getLoad() {
+        return load;
+    }
+
+    public EffortDuration getOverload() {
+        return overload;
+    }
+
+    public long getStamp() {
+        return stamp;
+    }
+
+}
@@ -53,6 +53,8 @@ public class EffortDuration implements Comparable<EffortDuration> {
 
     private static final Pattern contiguousDigitsPattern = Pattern.compile("\\d+");
 
+    private static final EffortDuration ZERO = new EffortDuration(0);
+
     private final int seconds;
 
     private EffortDuration(int seconds) {
@@ -123,12 +125,76 @@ public class EffortDuration implements Comparable<EffortDuration> {
         EffortDuration from(T each);
     }
 
+    /**
+     * Mutable sum of seconds, so the algorithms adding or subtracting lots of
+     * durations don't create a new {@link EffortDuration} for each operation.
+     * Its value can be negative while accumulating, but it must not be
+     * negative when it's converted to an {@link EffortDuration}.
+     * <p>
+     * It's not thread safe.
+     * </p>
+     */
+    public static class Accumulator {
+
+        private int seconds;
+
+        public Accumulator() {
+            this(0);
+        }
+
+        public Accumulator(int seconds) {
+            this.seconds = seconds;
+        }
+
+        public Accumulator add(EffortDuration duration) {
+            seconds += duration.seconds;
+            return this;
+        }
+
+        public Accumulator addSeconds(int amount) {
+            seconds += amount;
+            return this;
+        }
+
+        public Accumulator subtract(EffortDuration duration) {
+            seconds -= duration.seconds;
+            return this;
+        }
+
+        public Accumulator subtractSeconds(int amount) {
+            seconds -= amount;
+            return this;
+        }
+
+        public int getSeconds() {
+            return seconds;
+        }
+
+        public boolean isZero() {
+            return seconds == 0;
+        }
+
+        public boolean isPositive() {
+            return seconds > 0;
+        }
+
+        public EffortDuration toEffortDuration() {
+            return EffortDuration.seconds(seconds);
+        }
+
+        @Override
+        public String toString() {
+            return seconds + "s";
+        }
+
+    }
+
     public static <T> EffortDuration sum(Iterable<? extends T> collection, IEffortFrom<T> effortFrom) {
-        EffortDuration result = zero();
+        Accumulator result = new Accumulator();
         for (T each : collection) {
-            result = result.plus(effortFrom.from(each));
+            result.add(effortFrom.from(each));
         }
-        return result;
+        return result.toEffortDuration();
     }
 
     public static EffortDuration sum(EffortDuration... summands) {
@@ -141,11 +207,12 @@ public class EffortDuration implements Comparable<EffortDuration> {
     }
 
     public static EffortDuration zero() {
-        return elapsing(0, Granularity.SECONDS);
+        return ZERO;
     }
 
     public static EffortDuration elapsing(int amount, Granularity granularity) {
-        return new EffortDuration(granularity.toSeconds(amount));
+        int seconds = granularity.toSeconds(amount);
+        return seconds == 0 ? ZERO : new EffortDuration(seconds);
     }
 
     public static EffortDuration hours(int amount) {
@@ -303,6 +370,12 @@ public class EffortDuration implements Comparable<EffortDuration> {
      *         {@link EffortDuration} and the other duration
      */
     public EffortDuration plus(EffortDuration other) {
+        if (other.seconds == 0) {
+            return this;
+        }
+        if (seconds == 0) {
+            return other;
+        }
         return new EffortDuration(seconds + other.seconds);
     }
 
@@ -322,6 +395,9 @@ public class EffortDuration implements Comparable<EffortDuration> {
      */
     public EffortDuration minus(EffortDuration duration) {
         Validate.isTrue(this.compareTo(duration) >= 0, "minued must not be smaller than subtrahend");
+        if (duration.seconds == 0) {
+            return this;
+        }
 
         return new EffortDuration(seconds - duration.seconds);
     }
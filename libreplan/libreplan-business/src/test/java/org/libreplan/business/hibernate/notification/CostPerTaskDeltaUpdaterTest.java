@@ -0,0 +1,159 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.business.hibernate.notification;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.libreplan.business.planner.entities.DerivedDayAssignment;
+import org.libreplan.business.planner.entities.GenericDayAssignment;
+import org.libreplan.business.planner.entities.SpecificDayAssignment;
+import org.libreplan.business.planner.entities.Task;
+import org.libreplan.business.planner.entities.TaskElement;
+
+/**
+ * Tests for {@link CostPerTaskDeltaUpdater}.
+ */
+public class CostPerTaskDeltaUpdaterTest {
+
+    private final Map<Long, Task> tasks = new HashMap<>();
+
+    private final Set<Long> calculated = new HashSet<>();
+
+    private Map<TaskElement, SortedMap<LocalDate, BigDecimal>> previous;
+
+    private CostPerTaskDeltaUpdater updater;
+
+    @Before
+    public void createThreeTasks() {
+        previous = new HashMap<>();
+        for (long id = 1; id <= 3; id++) {
+            Task task = createNiceMock(Task.class);
+            expect(task.getId()).andReturn(id).anyTimes();
+            replay(task);
+            tasks.put(id, task);
+            previous.put(task, new TreeMap<>());
+        }
+        updater = new CostPerTaskDeltaUpdater(
+                this::calculateCost,
+                this::findTasks,
+                changes -> changes.getAffectedIds(Task.class),
+                SpecificDayAssignment.class, GenericDayAssignment.class);
+    }
+
+    private SortedMap<LocalDate, BigDecimal> calculateCost(Task task) {
+        calculated.add(task.getId());
+        SortedMap<LocalDate, BigDecimal> result = new TreeMap<>();
+        result.put(new LocalDate(2016, 1, 1), BigDecimal.valueOf(task.getId()));
+
+        return result;
+    }
+
+    private List<TaskElement> findTasks(Collection<Long> ids) {
+        List<TaskElement> result = new ArrayList<>();
+        for (Long each : ids) {
+            if ( tasks.containsKey(each) ) {
+                result.add(tasks.get(each));
+            }
+        }
+
+        return result;
+    }
+
+    @Test
+    public void onlyTheTasksAffectedByTheChangesAreCalculatedAgain() {
+        EntityChanges changes = new EntityChanges();
+        changes.modified(SpecificDayAssignment.class, 100L);
+        changes.affected(Task.class, 2L);
+
+        Map<TaskElement, SortedMap<LocalDate, BigDecimal>> result = updater.update(previous, changes);
+
+        assertThat(calculated, equalTo(Collections.singleton(2L)));
+        assertThat(result.size(), equalTo(3));
+        assertThat(result.get(tasks.get(1L)), sameInstance(previous.get(tasks.get(1L))));
+        assertThat(result.get(tasks.get(2L)).get(new LocalDate(2016, 1, 1)), equalTo(BigDecimal.valueOf(2)));
+        assertThat("the previous value is not modified", previous.get(tasks.get(2L)).isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void theModifiedTasksAreCalculatedAgainAndTheRemovedOnesDiscarded() {
+        EntityChanges changes = new EntityChanges();
+        changes.modified(Task.class, 1L);
+        changes.removed(Task.class, 3L);
+        changes.affected(Task.class, 3L);
+
+        Map<TaskElement, SortedMap<LocalDate, BigDecimal>> result = updater.update(previous, changes);
+
+        assertThat(calculated, equalTo(Collections.singleton(1L)));
+        assertThat(result.size(), equalTo(2));
+        assertFalse(result.containsKey(tasks.get(3L)));
+    }
+
+    @Test
+    public void itMustBeCalculatedAgainIfTheTasksAffectedByADayAssignmentAreUnknown() {
+        EntityChanges changes = new EntityChanges();
+        changes.modified(GenericDayAssignment.class, 100L);
+        changes.affectedUnknown(GenericDayAssignment.class);
+
+        assertThat(updater.update(previous, changes), nullValue());
+    }
+
+    @Test
+    public void itMustBeCalculatedAgainIfTheModifiedTasksAreUnknown() {
+        EntityChanges changes = new EntityChanges();
+        changes.modified(Task.class, "unknown");
+
+        assertThat(updater.update(previous, changes), nullValue());
+    }
+
+    @Test
+    public void theUnknownChangesOfOtherEntitiesAreIgnored() {
+        EntityChanges changes = new EntityChanges();
+        changes.modified(DerivedDayAssignment.class, "unknown");
+
+        Map<TaskElement, SortedMap<LocalDate, BigDecimal>> result = updater.update(previous, changes);
+
+        assertThat(result, equalTo(previous));
+        assertThat(calculated.isEmpty(), equalTo(true));
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.business.hibernate.notification;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.libreplan.business.planner.entities.Task;
+
+/**
+ * Tests for {@link DeltaAutoUpdatedSnapshot}. The calculations are run on the
+ * calling thread.
+ */
+public class DeltaAutoUpdatedSnapshotTest {
+
+    private static final ExecutorService CALLING_THREAD = new AbstractExecutorService() {
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    };
+
+    private final AtomicInteger calculations = new AtomicInteger();
+
+    private final List<EntityChanges> appliedChanges = new ArrayList<>();
+
+    private DeltaAutoUpdatedSnapshot<String> snapshot(ISnapshotDeltaUpdater<String> deltaUpdater) {
+        DeltaAutoUpdatedSnapshot<String> result = new DeltaAutoUpdatedSnapshot<>(
+                "test", () -> "calculated" + calculations.incrementAndGet(), deltaUpdater);
+        result.ensureFirstLoad(CALLING_THREAD);
+
+        return result;
+    }
+
+    private static EntityChanges taskModified(Long id) {
+        EntityChanges result = new EntityChanges();
+        result.modified(Task.class, id);
+
+        return result;
+    }
+
+    @Test
+    public void theChangesAreAppliedToThePreviousValue() {
+        DeltaAutoUpdatedSnapshot<String> snapshot = snapshot((previous, changes) -> {
+            appliedChanges.add(changes);
+            return previous + "+" + changes.getModifiedIds(Task.class).iterator().next();
+        });
+        assertThat(snapshot.getValue(), equalTo("calculated1"));
+
+        snapshot.reloadNeeded(CALLING_THREAD, taskModified(1L));
+        snapshot.reloadNeeded(CALLING_THREAD, taskModified(2L));
+
+        assertThat(snapshot.getValue(), equalTo("calculated1+1+2"));
+        assertThat(calculations.get(), equalTo(1));
+        assertThat(appliedChanges.size(), equalTo(2));
+        assertThat(snapshot.getStatistics().getCalculations(), equalTo(1));
+        assertThat(snapshot.getStatistics().getDeltaUpdates(), equalTo(2));
+    }
+
+    @Test
+    public void itIsCalculatedAgainIfTheChangesCannotBeApplied() {
+        DeltaAutoUpdatedSnapshot<String> snapshot = snapshot((previous, changes) -> null);
+
+        snapshot.reloadNeeded(CALLING_THREAD, taskModified(1L));
+
+        assertThat(snapshot.getValue(), equalTo("calculated2"));
+        assertThat(snapshot.getStatistics().getCalculations(), equalTo(2));
+        assertThat(snapshot.getStatistics().getDeltaUpdates(), equalTo(0));
+    }
+
+    @Test
+    public void itIsCalculatedAgainIfTheChangesFailToBeApplied() {
+        DeltaAutoUpdatedSnapshot<String> snapshot = snapshot((previous, changes) -> {
+            throw new IllegalStateException("failing on purpose");
+        });
+
+        snapshot.reloadNeeded(CALLING_THREAD, taskModified(1L));
+
+        assertThat(snapshot.getValue(), equalTo("calculated2"));
+        assertThat(snapshot.getStatistics().getErrors(), equalTo(0));
+    }
+
+    @Test
+    public void afterAFailedCalculationTheChangesAreNotAppliedButCalculatedAgain() {
+        AtomicInteger deltaUpdates = new AtomicInteger();
+        DeltaAutoUpdatedSnapshot<String> snapshot = new DeltaAutoUpdatedSnapshot<>("test", () -> {
+            if ( calculations.incrementAndGet() == 2 ) {
+                throw new IllegalStateException("failing on purpose");
+            }
+            return "calculated" + calculations.get();
+        }, (previous, changes) -> {
+            deltaUpdates.incrementAndGet();
+            return null;
+        });
+        snapshot.ensureFirstLoad(CALLING_THREAD);
+
+        snapshot.reloadNeeded(CALLING_THREAD, taskModified(1L));
+        assertThat("the previous value is kept", snapshot.getValue(), equalTo("calculated1"));
+        assertThat(snapshot.getStatistics().getErrors(), equalTo(1));
+
+        snapshot.reloadNeeded(CALLING_THREAD, taskModified(2L));
+        assertThat(snapshot.getValue(), equalTo("calculated3"));
+        assertThat("the lost changes can't be applied", deltaUpdates.get(), equalTo(1));
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.business.hibernate.notification;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Test;
+import org.libreplan.business.planner.entities.GenericDayAssignment;
+import org.libreplan.business.planner.entities.SpecificDayAssignment;
+import org.libreplan.business.planner.entities.Task;
+
+/**
+ * Tests for {@link EntityChanges}.
+ */
+public class EntityChangesTest {
+
+    @Test
+    public void theIdsAreGroupedByClass() {
+        EntityChanges changes = new EntityChanges();
+        changes.modified(SpecificDayAssignment.class, 1L);
+        changes.modified(SpecificDayAssignment.class, 2L);
+        changes.removed(GenericDayAssignment.class, 3L);
+
+        assertThat(changes.getClasses(),
+                equalTo(new HashSet<>(Arrays.asList(SpecificDayAssignment.class, GenericDayAssignment.class))));
+        assertThat(changes.getModifiedIds(SpecificDayAssignment.class), equalTo(new HashSet<>(Arrays.asList(1L, 2L))));
+        assertThat(changes.getRemovedIds(GenericDayAssignment.class), equalTo(Collections.singleton(3L)));
+        assertThat(changes.getChangedIds(SpecificDayAssignment.class, GenericDayAssignment.class),
+                equalTo(new HashSet<>(Arrays.asList(1L, 2L, 3L))));
+        assertTrue(changes.getModifiedIds(GenericDayAssignment.class).isEmpty());
+    }
+
+    @Test
+    public void theChangesWithoutLongIdsAreUnknown() {
+        EntityChanges changes = new EntityChanges();
+        changes.modified(Task.class, "code");
+
+        assertFalse(changes.isEmpty());
+        assertTrue(changes.hasUnknownIds(Task.class));
+        assertTrue(changes.getModifiedIds(Task.class).isEmpty());
+        assertFalse(changes.hasUnknownIds(SpecificDayAssignment.class));
+    }
+
+    @Test
+    public void theAffectedEntitiesAreNotChangedClasses() {
+        EntityChanges changes = new EntityChanges();
+        changes.modified(SpecificDayAssignment.class, 1L);
+        changes.affected(Task.class, 10L);
+
+        assertThat(changes.getAffectedIds(Task.class), equalTo(Collections.singleton(10L)));
+        assertThat(changes.getClasses(), equalTo(Collections.<Class<?>> singleton(SpecificDayAssignment.class)));
+        assertTrue(changes.getChangedIds(Task.class).isEmpty());
+    }
+
+    @Test
+    public void ifTheAffectedEntitiesAreUnknownTheChangedClassHasUnknownIds() {
+        EntityChanges changes = new EntityChanges();
+        changes.modified(SpecificDayAssignment.class, 1L);
+        changes.affectedUnknown(SpecificDayAssignment.class);
+
+        assertTrue(changes.hasUnknownIds(SpecificDayAssignment.class));
+    }
+
+    @Test
+    public void addingChangesDoesNotModifyTheAddedOnes() {
+        EntityChanges changes = new EntityChanges();
+        changes.modified(Task.class, 1L);
+        EntityChanges other = new EntityChanges();
+        other.modified(Task.class, 2L);
+        other.affected(Task.class, 3L);
+
+        changes.addAll(other);
+        changes.modified(Task.class, 4L);
+
+        assertThat(changes.getModifiedIds(Task.class), equalTo(new HashSet<>(Arrays.asList(1L, 2L, 4L))));
+        assertThat(changes.getAffectedIds(Task.class), equalTo(Collections.singleton(3L)));
+        assertThat(other.getModifiedIds(Task.class), equalTo(Collections.singleton(2L)));
+    }
+
+}
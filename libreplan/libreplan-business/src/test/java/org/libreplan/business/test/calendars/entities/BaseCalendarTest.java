@@ -838,4 +838,88 @@ public class BaseCalendarTest {
         AvailabilityTimeLine availability = calendar.getAvailability();
         assertFalse(availability.isValid(MONDAY_LOCAL_DATE));
     }
+
+    @Test
+    public void theWorkableDurationSpanningSeveralMonthsSumsAllTheDays() {
+        BaseCalendar calendar = createBasicCalendar();
+        addChristmasAsExceptionDay(calendar);
+
+        LocalDate start = new LocalDate(CHRISTMAS_DAY_LOCAL_DATE.getYear(), 1, 1);
+        LocalDate end = CHRISTMAS_DAY_LOCAL_DATE.plusMonths(1);
+
+        EffortDuration expected = zero();
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            expected = expected.plus(calendar.getCapacityOn(wholeDay(day)));
+        }
+
+        assertThat(calendar.getWorkableDuration(start, end), equalTo(expected));
+        assertThat(calendar.getWorkableDuration(MONDAY_LOCAL_DATE, MONDAY_LOCAL_DATE), equalTo(hours(8)));
+        assertThat(calendar.getWorkableDuration(MONDAY_LOCAL_DATE, MONDAY_LOCAL_DATE.minusDays(1)), equalTo(zero()));
+    }
+
+    @Test
+    public void theCapacitiesAreUpdatedWhenTheCalendarIsModified() {
+        BaseCalendar calendar = createBasicCalendar();
+        assertThat(calendar.getCapacityOn(wholeDay(WEDNESDAY_LOCAL_DATE)), equalTo(hours(8)));
+
+        addExceptionOn(calendar, WEDNESDAY_LOCAL_DATE, Capacity.zero());
+        assertThat(calendar.getCapacityOn(wholeDay(WEDNESDAY_LOCAL_DATE)), equalTo(zero()));
+
+        calendar.newVersion(MONDAY_LOCAL_DATE);
+        calendar.setCapacityAt(Days.MONDAY, withNormalDuration(hours(4)));
+        assertThat(calendar.getCapacityOn(wholeDay(MONDAY_LOCAL_DATE)), equalTo(hours(4)));
+        assertThat(calendar.getCapacityOn(wholeDay(MONDAY_LOCAL_DATE.minusWeeks(1))), equalTo(hours(8)));
+    }
+
+    @Test
+    public void theCapacitiesOfDerivedCalendarsAreUpdatedWhenTheParentIsModified() {
+        BaseCalendar parent = createBasicCalendar();
+        BaseCalendar derived = parent.newDerivedCalendar();
+        assertThat(derived.getCapacityOn(wholeDay(WEDNESDAY_LOCAL_DATE)), equalTo(hours(8)));
+
+        addExceptionOn(parent, WEDNESDAY_LOCAL_DATE, Capacity.zero());
+        assertThat(derived.getCapacityOn(wholeDay(WEDNESDAY_LOCAL_DATE)), equalTo(zero()));
+
+        BaseCalendar otherParent = createBasicCalendar();
+        otherParent.setCapacityAt(Days.MONDAY, withNormalDuration(hours(2)));
+        derived.setParent(otherParent);
+        assertThat(derived.getCapacityOn(wholeDay(WEDNESDAY_LOCAL_DATE)), equalTo(hours(8)));
+        assertThat(derived.getCapacityOn(wholeDay(MONDAY_LOCAL_DATE)), equalTo(hours(2)));
+    }
+
+    @Test
+    public void modifyingACalendarDoesNotModifyTheOtherCalendars() {
+        BaseCalendar calendar = createBasicCalendar();
+        BaseCalendar other = createBasicCalendar();
+        long otherModifications = other.getCapacitiesModifications();
+
+        addExceptionOn(calendar, WEDNESDAY_LOCAL_DATE, Capacity.zero());
+        calendar.setCapacityAt(Days.MONDAY, withNormalDuration(hours(4)));
+
+        assertThat(other.getCapacitiesModifications(), equalTo(otherModifications));
+        assertThat(other.getCapacityOn(wholeDay(WEDNESDAY_LOCAL_DATE)), equalTo(hours(8)));
+    }
+
+    @Test
+    public void theCapacitiesAreUpdatedWhenAVersionOfTheCalendarIsModifiedDirectly() {
+        BaseCalendar calendar = createBasicCalendar();
+        assertThat(calendar.getCapacityOn(wholeDay(MONDAY_LOCAL_DATE)), equalTo(hours(8)));
+
+        calendar.getCalendarDataVersions().get(0).setCapacityAt(Days.MONDAY, withNormalDuration(hours(3)));
+        assertThat(calendar.getCapacityOn(wholeDay(MONDAY_LOCAL_DATE)), equalTo(hours(3)));
+    }
+
+    @Test
+    public void theCapacitiesAreUpdatedWhenAnExceptionOfTheCalendarIsModifiedDirectly() {
+        BaseCalendar calendar = createBasicCalendar();
+        CalendarException exception = CalendarException.create(WEDNESDAY_LOCAL_DATE, hours(4), createCalendarExceptionType());
+        calendar.addExceptionDay(exception);
+        assertThat(calendar.getCapacityOn(wholeDay(WEDNESDAY_LOCAL_DATE)), equalTo(hours(4)));
+
+        exception.updateUnvalidated(THURSDAY_LOCAL_DATE, null, null);
+
+        assertThat(calendar.getCapacityOn(wholeDay(WEDNESDAY_LOCAL_DATE)), equalTo(hours(8)));
+        assertThat(calendar.getCapacityOn(wholeDay(THURSDAY_LOCAL_DATE)), equalTo(hours(4)));
+    }
+
 }
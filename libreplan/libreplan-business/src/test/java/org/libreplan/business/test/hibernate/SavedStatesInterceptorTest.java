@@ -0,0 +1,168 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.test.hibernate;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.hibernate.Transaction;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
+import org.hibernate.type.StandardBasicTypes;
+import org.hibernate.type.Type;
+import org.junit.Test;
+import org.libreplan.business.common.BaseEntity;
+import org.libreplan.business.hibernate.SavedStates;
+import org.libreplan.business.hibernate.SavedStatesInterceptor;
+
+/**
+ * Tests for {@link SavedStatesInterceptor}.
+ */
+public class SavedStatesInterceptorTest {
+
+    private static class TestEntity extends BaseEntity {
+
+        private TestEntity(Long id) {
+            setId(id);
+        }
+
+    }
+
+    private static final String[] PROPERTY_NAMES = { "code", "name" };
+
+    private static final Type[] TYPES = { StandardBasicTypes.STRING, StandardBasicTypes.STRING };
+
+    private final SavedStatesInterceptor interceptor = new SavedStatesInterceptor();
+
+    private final SavedStates states = new SavedStates();
+
+    private final TestEntity entity = new TestEntity(1L);
+
+    private static Transaction transaction(TransactionStatus status) {
+        Transaction result = createMock(Transaction.class);
+        expect(result.getStatus()).andReturn(status).anyTimes();
+        replay(result);
+
+        return result;
+    }
+
+    private void load(String code, String name) {
+        interceptor.onLoad(entity, entity.getId(), new Object[] { code, name }, PROPERTY_NAMES, TYPES);
+    }
+
+    private int[] findDirty(String code, String name) {
+        return interceptor.findDirty(entity, entity.getId(), new Object[] { code, name }, null, PROPERTY_NAMES,
+                TYPES);
+    }
+
+    @Test
+    public void nothingIsDoneOutsideRunUsing() {
+        load("code", "name");
+        assertThat(states.size(), equalTo(0));
+        assertThat(findDirty("code", "name"), nullValue());
+    }
+
+    @Test
+    public void onlyTheModifiedPropertiesAreDirty() {
+        SavedStatesInterceptor.runUsing(states, () -> {
+            load("code", "name");
+            assertThat(findDirty("code", "name").length, equalTo(0));
+            assertThat(findDirty("code", "other").length, equalTo(1));
+            assertThat(findDirty("code", "other")[0], equalTo(1));
+
+            return null;
+        });
+        assertThat(states.getSavedValue(entity, "code"), equalTo("code"));
+    }
+
+    @Test
+    public void theUsualCheckingIsDoneIfThePreviousStateIsKnown() {
+        SavedStatesInterceptor.runUsing(states, () -> {
+            load("code", "name");
+            assertThat(interceptor.findDirty(entity, entity.getId(), new Object[] { "code", "name" },
+                    new Object[] { "code", "name" }, PROPERTY_NAMES, TYPES), nullValue());
+
+            return null;
+        });
+    }
+
+    @Test
+    public void theUnknownEntitiesAreNotChecked() {
+        SavedStatesInterceptor.runUsing(states, () -> {
+            assertThat(findDirty("code", "name"), nullValue());
+
+            return null;
+        });
+    }
+
+    @Test
+    public void theStatesWrittenAreSavedWhenCommitted() {
+        SavedStatesInterceptor.runUsing(states, () -> {
+            load("code", "name");
+            interceptor.onFlushDirty(entity, entity.getId(), new Object[] { "code", "other" },
+                    new Object[] { "code", "name" }, PROPERTY_NAMES, TYPES);
+            assertThat(states.getSavedValue(entity, "name"), equalTo("name"));
+            interceptor.afterTransactionCompletion(transaction(TransactionStatus.COMMITTED));
+
+            return null;
+        });
+        assertThat(states.getSavedValue(entity, "name"), equalTo("other"));
+    }
+
+    @Test
+    public void theStatesRemovedAreForgottenWhenCommitted() {
+        SavedStatesInterceptor.runUsing(states, () -> {
+            load("code", "name");
+            interceptor.onDelete(entity, entity.getId(), new Object[] { "code", "name" }, PROPERTY_NAMES, TYPES);
+            interceptor.afterTransactionCompletion(transaction(TransactionStatus.COMMITTED));
+
+            return null;
+        });
+        assertThat(states.size(), equalTo(0));
+    }
+
+    @Test
+    public void allTheStatesAreForgottenIfNotCommitted() {
+        SavedStatesInterceptor.runUsing(states, () -> {
+            load("code", "name");
+            interceptor.onSave(new TestEntity(2L), 2L, new Object[] { "new", "name" }, PROPERTY_NAMES, TYPES);
+            interceptor.afterTransactionCompletion(transaction(TransactionStatus.ROLLED_BACK));
+
+            return null;
+        });
+        assertThat(states.size(), equalTo(0));
+        assertThat(states.getSavedValue(entity, "code"), nullValue());
+    }
+
+    @Test
+    public void theForgottenEntitiesAreNotChecked() {
+        SavedStatesInterceptor.runUsing(states, () -> {
+            load("code", "name");
+            states.forget(entity);
+            assertThat(findDirty("code", "name"), nullValue());
+
+            return null;
+        });
+    }
+
+}
@@ -0,0 +1,47 @@
+package org.libreplan.business.test.hibernate;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.libreplan.business.hibernate.StatementCounter;
+
+/**
+ * Tests for {@link StatementCounter}.
+ */
+public class StatementCounterTest {
+
+    private final StatementCounter inspector = new StatementCounter();
+
+    @Test
+    public void theStatementsAreOnlyCountedWhileRunning() {
+        inspector.inspect("select 1");
+        StatementCounter.Count count = StatementCounter.start();
+        assertThat(inspector.inspect("select 2"), equalTo("select 2"));
+        inspector.inspect("select 3");
+        assertThat(count.stop(), equalTo(2));
+        inspector.inspect("select 4");
+        assertThat(count.getStatements(), equalTo(2));
+    }
+
+    @Test
+    public void theCountsCanBeNested() {
+        StatementCounter.Count outer = StatementCounter.start();
+        inspector.inspect("select 1");
+        StatementCounter.Count inner = StatementCounter.start();
+        inspector.inspect("select 2");
+        assertThat(inner.stop(), equalTo(1));
+        inspector.inspect("select 3");
+        assertThat(outer.stop(), equalTo(3));
+    }
+
+    @Test
+    public void theStatementsOfOtherThreadsAreNotCounted() throws InterruptedException {
+        StatementCounter.Count count = StatementCounter.start();
+        Thread other = new Thread(() -> inspector.inspect("select 1"));
+        other.start();
+        other.join();
+        assertThat(count.stop(), equalTo(0));
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.business.test.orders.daos;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import org.easymock.Capture;
+import org.hibernate.Transaction;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.libreplan.business.advance.entities.AdvanceMeasurement;
+import org.libreplan.business.advance.entities.DirectAdvanceAssignment;
+import org.libreplan.business.orders.daos.IOrderDAO;
+import org.libreplan.business.orders.daos.OrderModificationsTracker;
+import org.libreplan.business.orders.entities.Order;
+import org.libreplan.business.orders.entities.OrderElement;
+import org.libreplan.business.orders.entities.OrderLine;
+import org.libreplan.business.orders.entities.OrderLineGroup;
+import org.libreplan.business.resources.entities.Worker;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Tests for {@link OrderModificationsTracker}.
+ */
+public class OrderModificationsTrackerTest {
+
+    private OrderModificationsTracker tracker;
+
+    private IOrderDAO orderDAO;
+
+    private Capture<Collection<Long>> updatedIds;
+
+    private Capture<Synchronization> synchronization;
+
+    private EventSource session;
+
+    @Before
+    public void createTracker() {
+        tracker = new OrderModificationsTracker();
+        orderDAO = createMock(IOrderDAO.class);
+        ReflectionTestUtils.setField(tracker, "orderDAO", orderDAO);
+        updatedIds = new Capture<>();
+        synchronization = new Capture<>();
+    }
+
+    private void onTransaction() {
+        Transaction transaction = createNiceMock(Transaction.class);
+        transaction.registerSynchronization(capture(synchronization));
+        expectLastCall().once();
+        session = createNiceMock(EventSource.class);
+        expect(session.getTransaction()).andReturn(transaction).anyTimes();
+        replay(transaction, session);
+    }
+
+    private void withoutTransaction() {
+        session = createNiceMock(EventSource.class);
+        replay(session);
+    }
+
+    private static <T extends OrderElement> T withId(T orderElement, Long id) {
+        ReflectionTestUtils.setField(orderElement, "id", id);
+
+        return orderElement;
+    }
+
+    private static <T extends OrderElement> T childOf(OrderLineGroup group, T orderElement) {
+        ReflectionTestUtils.setField(orderElement, "parent", group);
+
+        return orderElement;
+    }
+
+    @Test
+    public void theOrdersContainingTheChangedElementsAreUpdatedBeforeCommitting() {
+        onTransaction();
+        orderDAO.updateLastModified(capture(updatedIds), anyObject(Date.class));
+        expectLastCall().once();
+        replay(orderDAO);
+
+        Order order = withId(Order.create(), 1L);
+        OrderLineGroup group = childOf(order, withId(OrderLineGroup.create(), 5L));
+        OrderLine updated = childOf(group, withId(OrderLine.create(), 2L));
+        OrderLine removed = childOf(group, withId(OrderLine.create(), 3L));
+        Order otherOrder = withId(Order.create(), 4L);
+        DirectAdvanceAssignment advanceAssignment = DirectAdvanceAssignment.create();
+        advanceAssignment.setOrderElement(childOf(otherOrder, withId(OrderLine.create(), 6L)));
+        AdvanceMeasurement measurement = AdvanceMeasurement.create();
+        measurement.setAdvanceAssignment(advanceAssignment);
+
+        tracker.onPostUpdate(new PostUpdateEvent(updated, 2L, null, null, null, null, session));
+        tracker.onPostDelete(new PostDeleteEvent(removed, 3L, null, null, session));
+        tracker.onPostInsert(new PostInsertEvent(measurement, 10L, null, null, session));
+        synchronization.getValue().beforeCompletion();
+        synchronization.getValue().afterCompletion(Status.STATUS_COMMITTED);
+
+        verify(orderDAO);
+        assertThat(new HashSet<>(updatedIds.getValue()), equalTo(new HashSet<>(Arrays.asList(1L, 4L))));
+    }
+
+    @Test
+    public void theChangesOfOtherEntitiesAreIgnored() {
+        onTransaction();
+        replay(orderDAO);
+
+        Worker worker = Worker.create();
+        tracker.onPostUpdate(new PostUpdateEvent(worker, 1L, null, null, null, null, session));
+
+        assertThat(synchronization.hasCaptured(), equalTo(false));
+        verify(orderDAO);
+    }
+
+    @Test
+    public void withoutTransactionTheChangesAreNotTracked() {
+        withoutTransaction();
+        replay(orderDAO);
+
+        tracker.onPostUpdate(new PostUpdateEvent(withId(OrderLine.create(), 1L), 1L, null, null, null, null, session));
+
+        verify(orderDAO);
+    }
+
+}
@@ -0,0 +1,124 @@
+package org.libreplan.business.test.orders.entities;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.libreplan.business.workingday.EffortDuration.hours;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.libreplan.business.orders.entities.OrderElement;
+import org.libreplan.business.orders.entities.OrderLine;
+import org.libreplan.business.orders.entities.OrderLineGroup;
+import org.libreplan.business.orders.entities.SumChargedEffort;
+import org.libreplan.business.orders.entities.SumChargedEffortDeltas;
+import org.libreplan.business.test.planner.entities.TaskTest;
+import org.libreplan.business.workingday.EffortDuration;
+
+public class SumChargedEffortDeltasTest {
+
+    private OrderLineGroup root;
+
+    private OrderLineGroup group;
+
+    private OrderLine line1;
+
+    private OrderLine line2;
+
+    private OrderLine line3;
+
+    private Map<OrderElement, SumChargedEffort> sums;
+
+    @Before
+    public void createTree() {
+        root = OrderLineGroup.create();
+        group = OrderLineGroup.create();
+        root.useSchedulingDataFor(TaskTest.mockOrderVersion());
+        line1 = OrderLine.createOrderLineWithUnfixedPercentage(10);
+        line2 = OrderLine.createOrderLineWithUnfixedPercentage(10);
+        line3 = OrderLine.createOrderLineWithUnfixedPercentage(10);
+        root.add(group);
+        group.add(line1);
+        group.add(line2);
+        root.add(line3);
+        sums = new HashMap<>();
+    }
+
+    private List<SumChargedEffort> apply(SumChargedEffortDeltas deltas) {
+        return deltas.applyTo(orderElement -> sums.computeIfAbsent(orderElement, SumChargedEffort::create));
+    }
+
+    private EffortDuration direct(OrderElement orderElement) {
+        return sums.get(orderElement).getDirectChargedEffort();
+    }
+
+    private EffortDuration indirect(OrderElement orderElement) {
+        return sums.get(orderElement).getIndirectChargedEffort();
+    }
+
+    @Test
+    public void theEffortIsPropagatedAsIndirectToTheAncestors() {
+        SumChargedEffortDeltas deltas = new SumChargedEffortDeltas();
+        deltas.add(line1, hours(3));
+        deltas.add(line2, hours(2));
+
+        assertThat(apply(deltas).size(), equalTo(4));
+        assertThat(direct(line1), equalTo(hours(3)));
+        assertThat(direct(line2), equalTo(hours(2)));
+        assertThat(direct(group), equalTo(EffortDuration.zero()));
+        assertThat(indirect(group), equalTo(hours(5)));
+        assertThat(indirect(root), equalTo(hours(5)));
+        assertFalse(sums.containsKey(line3));
+    }
+
+    @Test
+    public void movingEffortBetweenSiblingsDoesNotModifyTheAncestors() {
+        SumChargedEffortDeltas deltas = new SumChargedEffortDeltas();
+        deltas.add(line1, hours(4));
+        apply(deltas);
+
+        deltas = new SumChargedEffortDeltas();
+        deltas.subtract(line1, hours(4));
+        deltas.add(line2, hours(4));
+        List<SumChargedEffort> modified = apply(deltas);
+
+        assertThat(modified.size(), equalTo(2));
+        assertThat(direct(line1), equalTo(EffortDuration.zero()));
+        assertThat(direct(line2), equalTo(hours(4)));
+        assertThat(indirect(group), equalTo(hours(4)));
+        assertThat(indirect(root), equalTo(hours(4)));
+    }
+
+    @Test
+    public void onlyTheNetDeltaIsApplied() {
+        SumChargedEffortDeltas deltas = new SumChargedEffortDeltas();
+        deltas.add(line3, hours(8));
+        apply(deltas);
+
+        deltas = new SumChargedEffortDeltas();
+        deltas.subtract(line3, hours(8));
+        deltas.add(line3, hours(6));
+        deltas.subtract(line1, EffortDuration.zero());
+        apply(deltas);
+
+        assertThat(direct(line3), equalTo(hours(6)));
+        assertThat(indirect(root), equalTo(hours(6)));
+        assertFalse(sums.containsKey(line1));
+    }
+
+    @Test
+    public void compensatedChangesDoNotModifyAnything() {
+        SumChargedEffortDeltas deltas = new SumChargedEffortDeltas();
+        deltas.add(line1, hours(1));
+        deltas.subtract(line1, hours(1));
+
+        assertTrue(deltas.isEmpty());
+        assertTrue(apply(deltas).isEmpty());
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.libreplan.business.test.orders.entities;
+
+import static org.easymock.EasyMock.anyLong;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.makeThreadSafe;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.libreplan.business.orders.daos.ISumChargedEffortDAO;
+import org.libreplan.business.orders.entities.RecalculationStatistics;
+import org.libreplan.business.orders.entities.SumChargedEffortRecalculator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class SumChargedEffortRecalculatorTest {
+
+    private final List<Long> recalculated = new CopyOnWriteArrayList<>();
+
+    private SumChargedEffortRecalculator createRecalculator(Runnable onRecalculation) {
+        ISumChargedEffortDAO dao = createNiceMock(ISumChargedEffortDAO.class);
+        dao.recalculateSumChargedEfforts(anyLong());
+        expectLastCall().andAnswer(() -> {
+            onRecalculation.run();
+            return null;
+        }).anyTimes();
+        // The recalculations must be able to run at the same time
+        makeThreadSafe(dao, false);
+        replay(dao);
+
+        SumChargedEffortRecalculator result = new SumChargedEffortRecalculator();
+        ReflectionTestUtils.setField(result, "sumChargedEffortDAO", dao);
+        return result;
+    }
+
+    private static void waitUntilIdle(SumChargedEffortRecalculator recalculator) throws InterruptedException {
+        long limit = System.currentTimeMillis() + 10000;
+        while (!isIdle(recalculator.getStatistics())) {
+            assertTrue("timeout waiting for the recalculations", System.currentTimeMillis() < limit);
+            Thread.sleep(10);
+        }
+    }
+
+    private static boolean isIdle(RecalculationStatistics statistics) {
+        return statistics.getQueueDepth() == 0 && statistics.getRunning() == 0;
+    }
+
+    @Test(timeout = 20000)
+    public void theRequestsReceivedWhileRunningAreMergedInOneRecalculation() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        SumChargedEffortRecalculator recalculator = createRecalculator(() -> {
+            recalculated.add(1L);
+            started.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        recalculator.recalculate(1L);
+        started.await();
+        recalculator.recalculate(1L);
+        recalculator.recalculate(1L);
+        recalculator.recalculate(1L);
+
+        RecalculationStatistics statistics = recalculator.getStatistics();
+        assertThat(statistics.getRunning(), equalTo(1));
+        assertThat(statistics.getQueueDepth(), equalTo(1));
+
+        finish.countDown();
+        waitUntilIdle(recalculator);
+
+        statistics = recalculator.getStatistics();
+        assertThat(recalculated.size(), equalTo(2));
+        assertThat(statistics.getRequests(), equalTo(4));
+        assertThat(statistics.getCoalescedRequests(), equalTo(2));
+        assertThat(statistics.getRecalculations(), equalTo(2));
+        assertThat(statistics.getMsLag(), equalTo(0L));
+    }
+
+    @Test(timeout = 20000)
+    public void differentOrdersAreRecalculatedInParallel() throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        SumChargedEffortRecalculator recalculator = createRecalculator(() -> {
+            try {
+                // Both orders must be running at the same time to get through
+                barrier.await(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            recalculated.add(1L);
+        });
+
+        recalculator.recalculate(1L);
+        recalculator.recalculate(2L);
+        waitUntilIdle(recalculator);
+
+        assertThat(recalculated.size(), equalTo(2));
+        assertThat(recalculator.getStatistics().getErrors(), equalTo(0));
+    }
+
+}
@@ -0,0 +1,139 @@
+package org.libreplan.business.test.planner.chart;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.libreplan.business.planner.chart.DayAssignmentsColumns.fromEpochDay;
+import static org.libreplan.business.planner.chart.DayAssignmentsColumns.toEpochDay;
+import static org.libreplan.business.workingday.EffortDuration.hours;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.libreplan.business.planner.chart.DayAssignmentsColumns;
+import org.libreplan.business.planner.chart.DayAssignmentsColumns.Column;
+import org.libreplan.business.planner.entities.DayAssignment;
+import org.libreplan.business.planner.entities.SpecificDayAssignment;
+import org.libreplan.business.resources.entities.Resource;
+import org.libreplan.business.resources.entities.Worker;
+
+public class DayAssignmentsColumnsTest {
+
+    private static final LocalDate someDate = new LocalDate(2016, 3, 7);
+
+    private static Resource createResource(Long id) {
+        Worker result = createNiceMock(Worker.class);
+        expect(result.getId()).andReturn(id).anyTimes();
+        replay(result);
+
+        return result;
+    }
+
+    private static DayAssignment assignment(LocalDate day, int hours, Resource resource) {
+        return SpecificDayAssignment.create(day, hours(hours), resource);
+    }
+
+    @Test
+    public void epochDaysCanBeConvertedBackToLocalDates() {
+        for (LocalDate each : Arrays.asList(someDate, new LocalDate(1970, 1, 1), new LocalDate(1969, 12, 30))) {
+            assertThat(fromEpochDay(toEpochDay(each)), equalTo(each));
+        }
+
+        assertThat(toEpochDay(new LocalDate(1970, 1, 2)), equalTo(1));
+        assertThat(toEpochDay(new LocalDate(1969, 12, 31)), equalTo(-1));
+    }
+
+    @Test
+    public void withoutAssignmentsItIsEmpty() {
+        DayAssignmentsColumns columns = DayAssignmentsColumns.create(Collections.<DayAssignment> emptyList());
+
+        assertTrue(columns.isEmpty());
+        assertTrue(columns.getColumns().isEmpty());
+        assertThat(columns.sumSeconds(0, 100), equalTo(0L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void anEmptyOneHasNoFirstDay() {
+        DayAssignmentsColumns.create(Collections.<DayAssignment> emptyList()).getFirstDay();
+    }
+
+    @Test
+    public void theAssignmentsAreGroupedByResourceAndAggregatedByDay() {
+        Resource first = createResource(1L);
+        Resource second = createResource(2L);
+
+        List<DayAssignment> assignments = new ArrayList<>();
+        assignments.add(assignment(someDate.plusDays(2), 3, first));
+        assignments.add(assignment(someDate, 4, first));
+        assignments.add(assignment(someDate.plusDays(2), 2, first));
+        assignments.add(assignment(someDate.plusDays(1), 8, second));
+
+        DayAssignmentsColumns columns = DayAssignmentsColumns.create(assignments);
+
+        assertThat(columns.getColumns().size(), equalTo(2));
+        assertThat(columns.getFirstDay(), equalTo(toEpochDay(someDate)));
+        assertThat(columns.getLastDay(), equalTo(toEpochDay(someDate.plusDays(2))));
+
+        Column column = columns.getColumn(1L);
+        assertThat(column.getResource(), equalTo(first));
+        assertThat(column.size(), equalTo(2));
+        assertThat(column.getDay(0), equalTo(toEpochDay(someDate)));
+        assertThat(column.getSeconds(0), equalTo((long) hours(4).getSeconds()));
+        assertThat(column.getDay(1), equalTo(toEpochDay(someDate.plusDays(2))));
+        assertThat(column.getSeconds(1), equalTo((long) hours(5).getSeconds()));
+        assertThat(column.getTotalSeconds(), equalTo((long) hours(9).getSeconds()));
+
+        assertThat(columns.getColumn(second).size(), equalTo(1));
+        assertThat(columns.getColumn(3L), nullValue());
+    }
+
+    @Test
+    public void theSecondsCanBeSummedOnIntervals() {
+        Resource resource = createResource(1L);
+        List<DayAssignment> assignments = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            assignments.add(assignment(someDate.plusDays(2 * i), i + 1, resource));
+        }
+
+        Column column = DayAssignmentsColumns.create(assignments).getColumn(resource);
+        int start = toEpochDay(someDate);
+
+        assertThat(column.sumSeconds(start, start + 1), equalTo((long) hours(1).getSeconds()));
+        assertThat(column.sumSeconds(start + 1, start + 2), equalTo(0L));
+        assertThat(column.sumSeconds(start + 1, start + 5), equalTo((long) hours(2 + 3).getSeconds()));
+        assertThat(column.sumSeconds(start - 10, start + 100), equalTo((long) hours(55).getSeconds()));
+        assertThat(column.sumSeconds(start + 5, start + 1), equalTo(0L));
+    }
+
+    @Test
+    public void theSecondsOfAllResourcesCanBeAggregatedByDay() {
+        Resource first = createResource(1L);
+        Resource second = createResource(null);
+
+        DayAssignmentsColumns columns = DayAssignmentsColumns.create(Arrays.asList(
+                assignment(someDate, 1, first),
+                assignment(someDate, 2, second),
+                assignment(someDate.plusDays(3), 4, second),
+                assignment(someDate.plusDays(5), 8, first)));
+
+        int start = toEpochDay(someDate);
+        long[] byDay = columns.secondsByDay(start - 1, start + 4);
+
+        assertThat(byDay.length, equalTo(5));
+        assertThat(byDay[0], equalTo(0L));
+        assertThat(byDay[1], equalTo((long) hours(3).getSeconds()));
+        assertThat(byDay[2], equalTo(0L));
+        assertThat(byDay[4], equalTo((long) hours(4).getSeconds()));
+        assertThat(columns.sumSeconds(start, start + 6), equalTo((long) hours(15).getSeconds()));
+        assertThat(columns.getColumn(second).size(), equalTo(2));
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.libreplan.business.test.planner.chart;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.libreplan.business.workingday.EffortDuration.hours;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.libreplan.business.calendars.entities.SameWorkHoursEveryDay;
+import org.libreplan.business.planner.chart.ILoadChartData;
+import org.libreplan.business.planner.chart.ResourceLoadChartData;
+import org.libreplan.business.planner.entities.DayAssignment;
+import org.libreplan.business.planner.entities.SpecificDayAssignment;
+import org.libreplan.business.resources.entities.Resource;
+import org.libreplan.business.resources.entities.Worker;
+import org.libreplan.business.workingday.EffortDuration;
+
+public class ResourceLoadChartDataTest {
+
+    private static final LocalDate someDate = new LocalDate(2016, 3, 7);
+
+    private static Resource createResource() {
+        Worker result = createNiceMock(Worker.class);
+        expect(result.getCalendarOrDefault()).andReturn(SameWorkHoursEveryDay.getDefaultWorkingDay()).anyTimes();
+        replay(result);
+
+        return result;
+    }
+
+    private static DayAssignment assignment(LocalDate day, int hours, Resource resource) {
+        return SpecificDayAssignment.create(day, hours(hours), resource);
+    }
+
+    @Test
+    public void withoutAssignmentsThereIsNoData() {
+        ResourceLoadChartData data = new ResourceLoadChartData(
+                Collections.<DayAssignment> emptyList(), Collections.<Resource> emptyList());
+
+        assertTrue(data.getLoad().isEmpty());
+        assertTrue(data.on(someDate, someDate.plusDays(10)).getOverload().isEmpty());
+    }
+
+    @Test
+    public void theLoadIsLimitedByTheCapacityAndTheRestIsOverload() {
+        Resource resource = createResource();
+        ResourceLoadChartData data = new ResourceLoadChartData(
+                Arrays.asList(assignment(someDate, 4, resource), assignment(someDate.plusDays(1), 10, resource)),
+                Collections.singletonList(resource));
+
+        SortedMap<LocalDate, EffortDuration> load = data.getLoad();
+        SortedMap<LocalDate, EffortDuration> overload = data.getOverload();
+
+        assertThat(load.size(), equalTo(2));
+        assertThat(load.get(someDate), equalTo(hours(4)));
+        assertThat(load.get(someDate.plusDays(1)), equalTo(hours(8)));
+        assertThat(overload.get(someDate), equalTo(hours(8)));
+        assertThat(overload.get(someDate.plusDays(1)), equalTo(hours(10)));
+        assertThat(data.getAvailability().get(someDate), equalTo(hours(8)));
+    }
+
+    @Test
+    public void onlyTheWindowsOfTheRequestedIntervalAreCalculated() {
+        Resource resource = createResource();
+        int days = ResourceLoadChartData.WINDOW_DAYS * 10;
+        List<DayAssignment> assignments = new ArrayList<>();
+        for (int i = 0; i < days; i++) {
+            assignments.add(assignment(someDate.plusDays(i), 2, resource));
+        }
+        ResourceLoadChartData data = new ResourceLoadChartData(assignments, Collections.singletonList(resource));
+
+        ILoadChartData visible = data.on(someDate.plusDays(5), someDate.plusDays(15));
+
+        assertThat(data.getCachedWindows(), equalTo(0));
+
+        SortedMap<LocalDate, EffortDuration> load = visible.getLoad();
+
+        assertThat(load.size(), equalTo(10));
+        assertThat(load.firstKey(), equalTo(someDate.plusDays(5)));
+        assertThat(load.lastKey(), equalTo(someDate.plusDays(14)));
+        assertTrue(data.getCachedWindows() <= 2);
+    }
+
+    @Test
+    public void anIntervalSpanningSeveralWindowsIsContiguous() {
+        Resource resource = createResource();
+        int days = ResourceLoadChartData.WINDOW_DAYS * 3;
+        List<DayAssignment> assignments = new ArrayList<>();
+        for (int i = 0; i < days; i++) {
+            assignments.add(assignment(someDate.plusDays(i), 1, resource));
+        }
+        ResourceLoadChartData data = new ResourceLoadChartData(assignments, Collections.singletonList(resource));
+
+        SortedMap<LocalDate, EffortDuration> load = data.on(someDate.minusDays(10), null).getLoad();
+
+        assertThat(load.size(), equalTo(days));
+        assertThat(load.firstKey(), equalTo(someDate));
+        assertThat(load.lastKey(), equalTo(someDate.plusDays(days - 1)));
+        assertThat(data.on(null, someDate.plusDays(1)).getAvailability().size(), equalTo(1));
+    }
+
+    @Test
+    public void theNumberOfCachedWindowsIsBounded() {
+        Resource resource = createResource();
+        int days = ResourceLoadChartData.WINDOW_DAYS * (ResourceLoadChartData.MAX_CACHED_WINDOWS + 5);
+        ResourceLoadChartData data = new ResourceLoadChartData(
+                Arrays.asList(assignment(someDate, 1, resource), assignment(someDate.plusDays(days), 1, resource)),
+                Collections.singletonList(resource));
+
+        assertThat(data.getLoad().size(), equalTo(days + 1));
+        assertThat(data.getCachedWindows(), equalTo(ResourceLoadChartData.MAX_CACHED_WINDOWS));
+    }
+
+}
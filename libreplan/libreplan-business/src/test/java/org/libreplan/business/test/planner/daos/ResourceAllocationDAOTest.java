@@ -21,9 +21,11 @@
 
 package org.libreplan.business.test.planner.daos;
 
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.libreplan.business.BusinessGlobalNames.BUSINESS_SPRING_CONFIG_FILE;
 import static org.libreplan.business.test.BusinessGlobalNames.BUSINESS_SPRING_CONFIG_TEST_FILE;
@@ -31,6 +33,8 @@ import static org.libreplan.business.test.BusinessGlobalNames.BUSINESS_SPRING_CO
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.joda.time.LocalDate;
@@ -52,14 +56,20 @@ import org.libreplan.business.planner.entities.GenericResourceAllocation;
 import org.libreplan.business.planner.entities.ResourceAllocation;
 import org.libreplan.business.planner.entities.SpecificResourceAllocation;
 import org.libreplan.business.planner.entities.Task;
+import org.libreplan.business.resources.daos.ICriterionDAO;
+import org.libreplan.business.resources.daos.ICriterionTypeDAO;
 import org.libreplan.business.resources.daos.IResourceDAO;
 import org.libreplan.business.resources.daos.IWorkerDAO;
+import org.libreplan.business.resources.entities.Criterion;
+import org.libreplan.business.resources.entities.CriterionType;
 import org.libreplan.business.resources.entities.Resource;
 import org.libreplan.business.resources.entities.Worker;
 import org.libreplan.business.scenarios.IScenarioManager;
 import org.libreplan.business.scenarios.bootstrap.IScenariosBootstrap;
+import org.libreplan.business.scenarios.daos.IScenarioDAO;
 import org.libreplan.business.scenarios.entities.OrderVersion;
 import org.libreplan.business.scenarios.entities.Scenario;
+import org.libreplan.business.workingday.IntraDayDate;
 import org.libreplan.business.workingday.ResourcesPerDay;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
@@ -109,6 +119,15 @@ public class ResourceAllocationDAOTest {
     @Autowired
     private IScenarioManager scenarioManager;
 
+    @Autowired
+    private ICriterionTypeDAO criterionTypeDAO;
+
+    @Autowired
+    private IScenarioDAO scenarioDAO;
+
+    @Autowired
+    private ICriterionDAO criterionDAO;
+
     enum ResourceAllocationType {
         SPECIFIC_RESOURCE_ALLOCATION, GENERIC_RESOURCE_ALLOCATION
     }
@@ -118,10 +137,16 @@ public class ResourceAllocationDAOTest {
         scenariosBootstrap.loadRequiredData();
     }
 
-    private OrderLine createValidOrderLine() {
+    private static OrderVersion setupVersionOwnedBy(Scenario owner, Order order) {
+        OrderVersion result = OrderVersion.createInitialVersion(owner);
+        order.setVersionForScenario(owner, result);
+        return result;
+    }
+
+    private OrderLine createValidOrderLine(Scenario owner) {
         Order order = new Order();
         order.setInitDate(new Date());
-        OrderVersion orderVersion = setupVersionUsing(scenarioManager, order);
+        OrderVersion orderVersion = setupVersionOwnedBy(owner, order);
         order.useSchedulingDataFor(orderVersion);
         OrderLine orderLine = OrderLine.create();
         order.add(orderLine);
@@ -140,12 +165,10 @@ public class ResourceAllocationDAOTest {
         return worker;
     }
 
-    private ResourceAllocation<?> createValidResourceAllocation(
-            ResourceAllocationType type) {
-        OrderLine orderLine = createValidOrderLine();
+    private Task createValidTask(Scenario owner) {
+        OrderLine orderLine = createValidOrderLine(owner);
         Order order = orderLine.getOrder();
-        OrderVersion orderVersion = setupVersionUsing(scenarioManager,
-                order);
+        OrderVersion orderVersion = setupVersionOwnedBy(owner, order);
         orderLine.useSchedulingDataFor(orderVersion);
         assert orderLine.getSchedulingStateType().isSomewhatScheduled();
 
@@ -162,7 +185,12 @@ public class ResourceAllocationDAOTest {
         TaskSourceSynchronization synchronization = TaskSource
                 .mustAdd(taskSource);
         synchronization.apply(TaskSource.persistTaskSources(taskSourceDAO));
-        Task task = (Task) taskSource.getTask();
+        return (Task) taskSource.getTask();
+    }
+
+    private ResourceAllocation<?> createValidResourceAllocation(
+            ResourceAllocationType type) {
+        Task task = createValidTask(scenarioManager.getCurrent());
         if (ResourceAllocationType.SPECIFIC_RESOURCE_ALLOCATION.equals(type)) {
             SpecificResourceAllocation specificResourceAllocation = SpecificResourceAllocation
                     .createForTesting(ResourcesPerDay.amount(1),
@@ -189,6 +217,50 @@ public class ResourceAllocationDAOTest {
         return (GenericResourceAllocation) createValidResourceAllocation(ResourceAllocationType.GENERIC_RESOURCE_ALLOCATION);
     }
 
+    private Criterion createCriterion(Criterion parent) {
+        CriterionType type = CriterionType.create(UUID.randomUUID().toString(), "");
+        criterionTypeDAO.save(type);
+        Criterion result = Criterion.create(UUID.randomUUID().toString(), type);
+        result.setParent(parent);
+        criterionDAO.save(result);
+        return result;
+    }
+
+    private Scenario createDerivedScenario() {
+        Scenario result = scenarioManager.getCurrent().newDerivedScenario();
+        result.setName(UUID.randomUUID().toString());
+        scenarioDAO.save(result);
+        return result;
+    }
+
+    private GenericResourceAllocation createGenericResourceAllocationFor(Criterion criterion) {
+        Task task = createValidTask(scenarioManager.getCurrent());
+        GenericResourceAllocation result = GenericResourceAllocation.create(task, Arrays.asList(criterion));
+        resourceAllocationDAO.save(result);
+        return result;
+    }
+
+    /**
+     * The assignments are done on <code>assignmentsScenario</code> for a task
+     * of an order version owned by <code>versionOwner</code>
+     */
+    private GenericResourceAllocation createGenericResourceAllocationWithAssignmentsFor(
+            Criterion criterion, Scenario versionOwner, Scenario assignmentsScenario) {
+        Task task = createValidTask(versionOwner);
+        LocalDate start = task.getStartAsLocalDate();
+        task.setIntraDayEndDate(IntraDayDate.startOfDay(start.plusDays(3)));
+
+        GenericResourceAllocation result = GenericResourceAllocation.create(task, Arrays.asList(criterion));
+        result.forResources(Arrays.asList(createValidWorker()))
+                .onIntervalWithinTask(start, start.plusDays(3))
+                .allocateHours(24);
+        result.switchToScenario(assignmentsScenario);
+        assertTrue(result.hasAssignments());
+
+        resourceAllocationDAO.save(result);
+        return result;
+    }
+
     @Test
     @Transactional
     public void testInSpringContainer() {
@@ -301,4 +373,53 @@ public class ResourceAllocationDAOTest {
                 resources,
                 intervalInitDate, null).contains(resourceAllocation1));
   }
+
+    @Test
+    @Transactional
+    public void testFindGenericAllocationsRelatedToCriterions() {
+        Criterion criterion = createCriterion(null);
+        GenericResourceAllocation allocation = createGenericResourceAllocationFor(criterion);
+
+        Map<Criterion, List<GenericResourceAllocation>> found = resourceAllocationDAO
+                .findGenericAllocationsRelatedToCriterions(scenarioManager.getCurrent(),
+                        Arrays.asList(criterion), null, null);
+
+        assertTrue(found.get(criterion).contains(allocation));
+    }
+
+    @Test
+    @Transactional
+    public void testFindCriterionsOfGenericAllocationsOnlyWithAssignments() {
+        Criterion criterion = createCriterion(null);
+        createGenericResourceAllocationFor(criterion);
+
+        assertFalse(resourceAllocationDAO.findCriterionsOfGenericAllocations(
+                scenarioManager.getCurrent(), null, null).contains(criterion));
+    }
+
+    @Test
+    @Transactional
+    public void testFindCriterionsOfGenericAllocationsWithAssignmentsIncludingTheirParents() {
+        Scenario current = scenarioManager.getCurrent();
+        Criterion parent = createCriterion(null);
+        Criterion child = createCriterion(parent);
+        createGenericResourceAllocationWithAssignmentsFor(child, current, current);
+
+        Set<Criterion> found = resourceAllocationDAO.findCriterionsOfGenericAllocations(current, null, null);
+
+        assertTrue(found.contains(child));
+        assertTrue(found.contains(parent));
+    }
+
+    @Test
+    @Transactional
+    public void testFindCriterionsOfGenericAllocationsWithAssignmentsSharedFromAPredecessor() {
+        Scenario derived = createDerivedScenario();
+        Criterion criterion = createCriterion(null);
+        GenericResourceAllocation allocation =
+                createGenericResourceAllocationWithAssignmentsFor(criterion, derived, scenarioManager.getCurrent());
+
+        assertThat(allocation.getScenarioOfAssignmentsSeenFrom(derived), equalTo(scenarioManager.getCurrent()));
+        assertTrue(resourceAllocationDAO.findCriterionsOfGenericAllocations(derived, null, null).contains(criterion));
+    }
 }
@@ -54,6 +54,7 @@ import org.libreplan.business.externalcompanies.entities.ExternalCompany;
 import org.libreplan.business.orders.daos.IOrderDAO;
 import org.libreplan.business.orders.entities.HoursGroup;
 import org.libreplan.business.orders.entities.Order;
+import org.libreplan.business.orders.entities.OrderElement;
 import org.libreplan.business.orders.entities.OrderLine;
 import org.libreplan.business.orders.entities.SchedulingDataForVersion;
 import org.libreplan.business.orders.entities.TaskSource;
@@ -138,11 +139,16 @@ public class TaskElementDAOTest {
     }
 
     private Task createValidTask() {
+        OrderLine orderLine = createOrderLine();
+        OrderVersion orderVersion = ResourceAllocationDAOTest.setupVersionUsing(scenarioManager, orderLine.getOrder());
+
+        return createValidTaskFor(orderLine, orderVersion);
+    }
+
+    private Task createValidTaskFor(OrderLine orderLine, OrderVersion orderVersion) {
         HoursGroup associatedHoursGroup = new HoursGroup();
         associatedHoursGroup.setCode("hours-group-code-" + UUID.randomUUID());
-        OrderLine orderLine = createOrderLine();
         orderLine.addHoursGroup(associatedHoursGroup);
-        OrderVersion orderVersion = ResourceAllocationDAOTest.setupVersionUsing(scenarioManager, orderLine.getOrder());
         orderLine.useSchedulingDataFor(orderVersion);
         SchedulingDataForVersion schedulingDataForVersion = orderLine.getCurrentSchedulingDataForVersion();
 
@@ -155,19 +161,25 @@ public class TaskElementDAOTest {
     }
 
     private OrderLine createOrderLine() {
-        OrderLine orderLine = OrderLine.create();
-        orderLine.setName("bla");
-        orderLine.setCode("code-" + UUID.randomUUID());
-        HoursGroup hoursGroup = new HoursGroup();
-        hoursGroup.setCode("hours-group-code-" + UUID.randomUUID());
-        orderLine.addHoursGroup(hoursGroup);
+        return (OrderLine) createOrderWithLines(1).getChildren().get(0);
+    }
+
+    private Order createOrderWithLines(int numberOfLines) {
         Order order = Order.create();
         OrderVersion orderVersion = ResourceAllocationDAOTest.setupVersionUsing(scenarioManager, order);
         order.setName("bla-" + UUID.randomUUID());
         order.setInitDate(new Date());
         order.setCode("code-" + UUID.randomUUID());
         order.useSchedulingDataFor(orderVersion);
-        order.add(orderLine);
+        for (int i = 0; i < numberOfLines; i++) {
+            OrderLine orderLine = OrderLine.create();
+            orderLine.setName("bla");
+            orderLine.setCode("code-" + UUID.randomUUID());
+            HoursGroup hoursGroup = new HoursGroup();
+            hoursGroup.setCode("hours-group-code-" + UUID.randomUUID());
+            orderLine.addHoursGroup(hoursGroup);
+            order.add(orderLine);
+        }
         order.setCalendar(configurationDAO.getConfiguration().getDefaultCalendar());
         try {
             orderDAO.save(order);
@@ -175,7 +187,7 @@ public class TaskElementDAOTest {
         } catch (ValidationException e) {
             throw new RuntimeException(e);
         }
-        return orderLine;
+        return order;
     }
 
     private TaskGroup createValidTaskGroup() {
@@ -569,4 +581,38 @@ public class TaskElementDAOTest {
         transactionService.runOnTransaction(checkAllocatedHoursWereUpdated);
     }
 
+    /**
+     * One query for each step of the fetch plan, so it mustn't grow with the
+     * number of tasks.
+     */
+    @Test
+    @Transactional
+    public void loadingThePlanningDataOfAnOrderExecutesTheSameStatementsWhateverItsSize() {
+        int statementsForOneTask = statementsLoadingThePlanningDataOf(createOrderWithTasks(1));
+        int statementsForSeveralTasks = statementsLoadingThePlanningDataOf(createOrderWithTasks(5));
+
+        assertTrue(statementsForOneTask > 0);
+        assertThat(statementsForSeveralTasks, equalTo(statementsForOneTask));
+    }
+
+    private Long createOrderWithTasks(int numberOfTasks) {
+        Order order = createOrderWithLines(numberOfTasks);
+        OrderVersion orderVersion = ResourceAllocationDAOTest.setupVersionUsing(scenarioManager, order);
+        for (OrderElement each : order.getChildren()) {
+            createValidTaskFor((OrderLine) each, orderVersion);
+        }
+        sessionFactory.getCurrentSession().flush();
+
+        return order.getId();
+    }
+
+    private int statementsLoadingThePlanningDataOf(Long orderId) {
+        sessionFactory.getCurrentSession().clear();
+
+        Order order = orderDAO.findExistingEntity(orderId);
+        order.useSchedulingDataFor(scenarioManager.getCurrent());
+
+        return taskElementDAO.loadPlanningDataOf(order);
+    }
+
 }
@@ -0,0 +1,151 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.business.test.planner.entities;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.libreplan.business.planner.entities.DailySeries;
+import org.libreplan.business.planner.entities.EarnedValueCalculator;
+
+public class DailySeriesTest {
+
+    private static final LocalDate DAY = new LocalDate(2016, 2, 27);
+
+    private static SortedMap<LocalDate, BigDecimal> values(Object... dayAndValues) {
+        SortedMap<LocalDate, BigDecimal> result = new TreeMap<>();
+        for (int i = 0; i < dayAndValues.length; i += 2) {
+            result.put(DAY.plusDays((Integer) dayAndValues[i]), new BigDecimal((String) dayAndValues[i + 1]));
+        }
+        return result;
+    }
+
+    @Test
+    public void theSumKeepsTheDaysWithValue() {
+        DailySeries sum = DailySeries.sum(Arrays.asList(values(0, "1.5", 3, "2"), values(3, "1.25", -2, "4")));
+
+        assertThat(sum.toSortedMap(), equalTo(values(-2, "4.00", 0, "1.50", 3, "3.25")));
+    }
+
+    @Test
+    public void theCumulativeSumsAreCalculatedOnce() {
+        DailySeries series = DailySeries.fromMap(values(0, "1", 1, "2", 5, "3"));
+
+        assertThat(series.cumulative().toSortedMap(), equalTo(values(0, "1", 1, "3", 5, "6")));
+        assertTrue(series.cumulative() == series.cumulative());
+    }
+
+    @Test
+    public void theSubtractionOnlyHasTheDaysWithBothValues() {
+        DailySeries result = DailySeries.fromMap(values(0, "5", 1, "4", 2, "3"))
+                .minus(DailySeries.fromMap(values(1, "0.5", 2, "1", 7, "1")));
+
+        assertThat(result.toSortedMap(), equalTo(values(1, "3.5", 2, "2.0")));
+    }
+
+    @Test
+    public void theDaysWithoutValueOfASubtractionAreNotSummed() {
+        DailySeries difference = DailySeries.fromMap(values(0, "5", 2, "4"))
+                .minus(DailySeries.fromMap(values(0, "1", 1, "1", 2, "1")));
+
+        assertThat(difference.cumulative().toSortedMap(), equalTo(values(0, "4", 2, "7")));
+        assertThat(difference.plus(DailySeries.fromMap(values(1, "1"))).toSortedMap(),
+                equalTo(values(0, "4", 1, "1", 2, "3")));
+    }
+
+    @Test
+    public void theDaysWithoutValueOfACumulativeSumAreNotSummed() {
+        DailySeries cumulative = DailySeries.fromMap(values(0, "1", 2, "2")).cumulative();
+
+        assertThat(cumulative.plus(DailySeries.fromMap(values(1, "5"))).toSortedMap(),
+                equalTo(values(0, "1", 1, "5", 2, "3")));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void theSumFailsIfAValueDoesNotFitInALong() {
+        DailySeries max = DailySeries.fromMap(values(0, Long.toString(Long.MAX_VALUE)));
+
+        max.plus(DailySeries.fromMap(values(0, "1")));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void theSubtractionFailsIfAValueDoesNotFitInALong() {
+        DailySeries min = DailySeries.fromMap(values(0, Long.toString(Long.MIN_VALUE)));
+
+        min.minus(DailySeries.fromMap(values(0, "1")));
+    }
+
+    @Test
+    public void theMultiplicationIsZeroWithoutSecondFactor() {
+        DailySeries result = DailySeries.fromMap(values(0, "1.5", 1, "2.0"))
+                .multiply(DailySeries.fromMap(values(0, "3.00")));
+
+        assertThat(result.toSortedMap(), equalTo(values(0, "4.500", 1, "0.000")));
+    }
+
+    @Test
+    public void theDivisionIsRoundedHalfUpWithTheScaleOfTheDividend() {
+        DailySeries result = DailySeries.fromMap(values(0, "1.00", 1, "-1.00", 2, "2.00", 3, "5.00"))
+                .divide(DailySeries.fromMap(values(0, "8", 1, "8", 2, "0")), BigDecimal.ONE);
+
+        assertThat(result.toSortedMap(), equalTo(values(0, "0.13", 1, "-0.13", 2, "1.00", 3, "1.00")));
+    }
+
+    @Test
+    public void theEarnedValueIndicatorsAreTheSameAsWithBigDecimal() {
+        Random random = new Random(7);
+        SortedMap<LocalDate, BigDecimal> bcwp = new TreeMap<>();
+        SortedMap<LocalDate, BigDecimal> acwp = new TreeMap<>();
+        for (int i = 0; i < 200; i++) {
+            bcwp.put(DAY.plusDays(random.nextInt(100)), BigDecimal.valueOf(random.nextInt(100000), 2));
+            acwp.put(DAY.plusDays(random.nextInt(100)), BigDecimal.valueOf(random.nextInt(100000), 2));
+        }
+        EarnedValueCalculator calculator = new EarnedValueCalculator();
+
+        SortedMap<LocalDate, BigDecimal> costVariance = calculator.calculateCostVariance(bcwp, acwp);
+        SortedMap<LocalDate, BigDecimal> costPerformanceIndex = calculator.calculateCostPerformanceIndex(bcwp, acwp);
+
+        for (Entry<LocalDate, BigDecimal> each : bcwp.entrySet()) {
+            BigDecimal actual = acwp.get(each.getKey());
+            if ( actual == null ) {
+                assertTrue(!costVariance.containsKey(each.getKey()));
+                assertThat(costPerformanceIndex.get(each.getKey()).signum(), equalTo(0));
+            } else {
+                assertThat(costVariance.get(each.getKey()), equalTo(each.getValue().subtract(actual)));
+                assertThat(costPerformanceIndex.get(each.getKey()), equalTo(actual.signum() == 0
+                        ? BigDecimal.ZERO.setScale(2)
+                        : each.getValue().divide(actual, RoundingMode.HALF_UP)));
+            }
+        }
+    }
+
+}
@@ -106,6 +106,7 @@ public class GenericResourceAllocationTest {
 
     private static Scenario mockScenario() {
         Scenario result = createNiceMock(Scenario.class);
+        expect(result.getPredecessors()).andReturn(Collections.<Scenario> emptyList()).anyTimes();
         replay(result);
         return result;
     }
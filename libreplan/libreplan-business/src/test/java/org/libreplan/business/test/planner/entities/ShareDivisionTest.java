@@ -180,6 +180,23 @@ public class ShareDivisionTest {
         assertArrayEquals(new int[] { 3, 0, 0, 3, 3, 0 }, difference);
     }
 
+    @Test
+    public void theIncrementsCanBeCalculatedWithoutCreatingADivision() {
+        int[] shares = { 3, -1, 5, -1 };
+        assertArrayEquals(new int[] { 0, 3, 0, 2 }, ShareDivision.increments(shares, 5));
+        assertArrayEquals(new int[] { 3, -1, 5, -1 }, shares);
+    }
+
+    @Test
+    public void theIncrementsAreTheSameAsTheDifferenceBetweenDivisions() {
+        givenDivisionShare(new Share(-8), new Share(-6), new Share(0), new Share(-6), new Share(Integer.MAX_VALUE));
+        for (int increase = 0; increase < 40; increase++) {
+            assertArrayEquals(
+                    shareDivision.to(shareDivision.plus(increase)),
+                    ShareDivision.increments(new int[] { -8, -6, 0, -6, Integer.MAX_VALUE }, increase));
+        }
+    }
+
     @Test
     public void canDistributeSubtraction() {
         /*
@@ -31,6 +31,8 @@ import static org.easymock.EasyMock.replay;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.libreplan.business.test.planner.entities.DayAssignmentMatchers.consecutiveDays;
@@ -61,6 +63,7 @@ import org.libreplan.business.planner.entities.SpecificDayAssignment;
 import org.libreplan.business.planner.entities.SpecificResourceAllocation;
 import org.libreplan.business.planner.entities.Task;
 import org.libreplan.business.resources.entities.Worker;
+import org.libreplan.business.scenarios.entities.Scenario;
 import org.libreplan.business.workingday.EffortDuration;
 import org.libreplan.business.workingday.IntraDayDate;
 import org.libreplan.business.workingday.IntraDayDate.PartialDay;
@@ -88,6 +91,8 @@ public class SpecificResourceAllocationTest {
 
     private Task task;
 
+    private IntraDayDate firstDayNotConsolidated;
+
     private SpecificResourceAllocation specificResourceAllocation;
 
     private Worker worker;
@@ -198,7 +203,8 @@ public class SpecificResourceAllocationTest {
         expect(task.getIntraDayStartDate()).andReturn(start).anyTimes();
         expect(task.getEndDate()).andReturn(end.toDateTimeAtStartOfDay().toDate()).anyTimes();
         expect(task.getIntraDayEndDate()).andReturn(end).anyTimes();
-        expect(task.getFirstDayNotConsolidated()).andReturn(start).anyTimes();
+        expect(task.getFirstDayNotConsolidated())
+                .andReturn(firstDayNotConsolidated != null ? firstDayNotConsolidated : start).anyTimes();
         replay(task);
     }
 
@@ -743,4 +749,88 @@ public class SpecificResourceAllocationTest {
         assertTrue(specificResourceAllocation.isAlreadyFinishedBy(specificResourceAllocation.getEndDate()));
     }
 
+    private Scenario parent;
+
+    private Scenario derived;
+
+    private void givenAllocationDoneOnAScenarioWithADerivedOne(IntraDayDate start) {
+        givenResourceCalendarAlwaysReturning(3);
+        givenSpecificResourceAllocation(start, 4);
+        specificResourceAllocation.allocate(ResourcesPerDay.amount(1));
+        parent = Scenario.create("parent");
+        derived = parent.newDerivedScenario();
+        specificResourceAllocation.switchToScenario(parent);
+    }
+
+    @Test
+    public void aDerivedScenarioSharesTheAssignmentsOfItsPredecessor() {
+        givenAllocationDoneOnAScenarioWithADerivedOne(date(2000, 2, 4));
+        List<SpecificDayAssignment> assignmentsAtParent = specificResourceAllocation.getAssignments();
+
+        specificResourceAllocation.switchToScenario(derived);
+
+        assertThat(specificResourceAllocation.getAssignments(), equalTo(assignmentsAtParent));
+        assertThat(specificResourceAllocation.getScenarioOfAssignmentsSeenFrom(derived), sameInstance(parent));
+
+        for (SpecificDayAssignment each : assignmentsAtParent) {
+            assertTrue(each.isVisibleAt(derived));
+        }
+    }
+
+    @Test
+    public void theAssignmentsAreCopiedWhenModifiedOnADerivedScenario() {
+        IntraDayDate start = date(2000, 2, 4);
+        givenAllocationDoneOnAScenarioWithADerivedOne(start);
+        List<SpecificDayAssignment> assignmentsAtParent = specificResourceAllocation.getAssignments();
+        specificResourceAllocation.setOnDayAssignmentRemoval(new DetachDayAssignmentOnRemoval());
+
+        specificResourceAllocation.switchToScenario(derived);
+        specificResourceAllocation.onIntervalWithinTask(start, plusDays(start, 2)).allocateHours(10);
+
+        assertThat(specificResourceAllocation.getAssignments(), haveHours(5, 5, 3, 3));
+        assertThat(specificResourceAllocation.getScenarioOfAssignmentsSeenFrom(derived), sameInstance(derived));
+
+        for (SpecificDayAssignment each : assignmentsAtParent) {
+            assertThat(each.getSpecificResourceAllocation(), notNullValue());
+            assertTrue(!each.isVisibleAt(derived));
+        }
+
+        specificResourceAllocation.switchToScenario(parent);
+        assertThat(specificResourceAllocation.getAssignments(), haveHours(3, 3, 3, 3));
+    }
+
+    @Test
+    public void mergingTheSameAssignmentsOnADerivedScenarioDoesNotCopyThem() {
+        givenAllocationDoneOnAScenarioWithADerivedOne(date(2000, 2, 4));
+        SpecificResourceAllocation modification = (SpecificResourceAllocation) specificResourceAllocation.copy(derived);
+
+        specificResourceAllocation.mergeAssignmentsAndResourcesPerDay(derived, modification);
+
+        assertThat(specificResourceAllocation.getScenarioOfAssignmentsSeenFrom(derived), sameInstance(parent));
+        assertThat(specificResourceAllocation.getAssignments(), haveHours(3, 3, 3, 3));
+    }
+
+    @Test
+    public void consolidatingOnADerivedScenarioDoesNotModifyThePredecessorAssignments() {
+        IntraDayDate start = date(2000, 2, 4);
+        firstDayNotConsolidated = plusDays(start, 2);
+        givenAllocationDoneOnAScenarioWithADerivedOne(start);
+        List<SpecificDayAssignment> assignmentsAtParent = specificResourceAllocation.getAssignments();
+
+        specificResourceAllocation.switchToScenario(derived);
+        specificResourceAllocation.updateAssignmentsConsolidatedValues();
+
+        assertThat(specificResourceAllocation.getScenarioOfAssignmentsSeenFrom(derived), sameInstance(derived));
+        List<SpecificDayAssignment> assignmentsAtDerived = specificResourceAllocation.getAssignments();
+        assertTrue(assignmentsAtDerived.get(0).isConsolidated());
+        assertTrue(assignmentsAtDerived.get(1).isConsolidated());
+        assertFalse(assignmentsAtDerived.get(2).isConsolidated());
+
+        for (SpecificDayAssignment each : assignmentsAtParent) {
+            assertFalse(each.isConsolidated());
+        }
+        specificResourceAllocation.switchToScenario(parent);
+        assertThat(specificResourceAllocation.getAssignments(), equalTo(assignmentsAtParent));
+    }
+
 }
@@ -1,5 +1,6 @@
 package org.libreplan.business.test.planner.entities.allocationalgorithms;
 
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
 import static org.libreplan.business.workingday.EffortDuration.hours;
 
@@ -63,6 +64,21 @@ public class DistributorTest {
         assertThat(distributor.distribute(hours(4)), hasEfforts(hours(0)));
     }
 
+    @Test
+    public void aBigEffortIsDistributedAmongManyCapacities() {
+        Capacity[] capacities = new Capacity[50];
+        for (int i = 0; i < capacities.length; i++) {
+            capacities[i] = Capacity.create(hours(8)).withAllowedExtraEffort(hours(i % 3));
+        }
+        Distributor distributor = Distributor.among(capacities);
+
+        List<EffortDuration> efforts = distributor.distribute(hours(440));
+        assertThat(EffortDuration.sum(efforts.toArray(new EffortDuration[0])), equalTo(hours(440)));
+        for (int i = 0; i < capacities.length; i++) {
+            assertThat(efforts.get(i), equalTo(capacities[i].limitDuration(efforts.get(i))));
+        }
+    }
+
     private Matcher<List<EffortDuration>> hasEfforts(final EffortDuration... efforts) {
         return new BaseMatcher<List<EffortDuration>>() {
 
@@ -0,0 +1,203 @@
+package org.libreplan.business.test.planner.limiting.entities;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.libreplan.business.workingday.EffortDuration.hours;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.libreplan.business.calendars.entities.CalendarAvailability;
+import org.libreplan.business.calendars.entities.ResourceCalendar;
+import org.libreplan.business.planner.limiting.entities.DateAndHour;
+import org.libreplan.business.planner.limiting.entities.Gap;
+import org.libreplan.business.planner.limiting.entities.Gap.GapOnQueue;
+import org.libreplan.business.planner.limiting.entities.GapsIndex;
+import org.libreplan.business.planner.limiting.entities.LimitingResourceQueueElement;
+import org.libreplan.business.resources.entities.LimitingResourceQueue;
+import org.libreplan.business.resources.entities.Resource;
+import org.libreplan.business.resources.entities.Worker;
+import org.libreplan.business.workingday.IntraDayDate.PartialDay;
+
+public class GapsIndexTest {
+
+    private static final LocalDate someDate = new LocalDate(2016, 3, 7);
+
+    private static Resource createResource() {
+        ResourceCalendar calendar = createNiceMock(ResourceCalendar.class);
+        expect(calendar.getCapacityOn(anyObject(PartialDay.class))).andReturn(hours(8)).anyTimes();
+        expect(calendar.getCalendarAvailabilities()).andReturn(Collections.singletonList(
+                CalendarAvailability.create(someDate.minusYears(1), someDate.plusYears(1)))).anyTimes();
+        replay(calendar);
+
+        Worker result = createNiceMock(Worker.class);
+        expect(result.getCalendar()).andReturn(calendar).anyTimes();
+        replay(result);
+
+        return result;
+    }
+
+    private static DateAndHour at(int days) {
+        return DateAndHour.from(someDate.plusDays(days));
+    }
+
+    private static GapOnQueue gap(Resource resource, int startDay, int endDay) {
+        return Gap.create(resource, at(startDay), at(endDay)).onQueue(null);
+    }
+
+    @Test
+    public void theGapsAreKeptOrderedByStart() {
+        Resource resource = createResource();
+        GapsIndex index = new GapsIndex();
+        List<GapOnQueue> gaps = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            gaps.add(gap(resource, i * 10, i * 10 + 1 + i % 5));
+        }
+        List<GapOnQueue> shuffled = new ArrayList<>(gaps);
+        Collections.shuffle(shuffled);
+        for (GapOnQueue each : shuffled) {
+            index.add(each);
+        }
+
+        assertThat(index.getGaps(), equalTo(gaps));
+
+        index.remove(gaps.get(3));
+        index.remove(gaps.get(20));
+
+        assertThat(index.size(), equalTo(48));
+        assertThat(index.getGaps().contains(gaps.get(3)), equalTo(false));
+        assertThat(index.getGaps().get(3), equalTo(gaps.get(4)));
+    }
+
+    @Test
+    public void theFirstGapWithEnoughHoursAfterSomeTimeIsFound() {
+        Resource resource = createResource();
+        GapsIndex index = new GapsIndex();
+        GapOnQueue small = gap(resource, 0, 1);
+        GapOnQueue big = gap(resource, 2, 5);
+        GapOnQueue bigger = gap(resource, 6, 10);
+        for (GapOnQueue each : Arrays.asList(bigger, small, big)) {
+            index.add(each);
+        }
+
+        assertThat(index.getFirstGapWithAtLeast(8, null), equalTo(small));
+        assertThat(index.getFirstGapWithAtLeast(9, null), equalTo(big));
+        assertThat(index.getFirstGapWithAtLeast(24, at(3)), equalTo(big));
+        assertThat(index.getFirstGapWithAtLeast(8, at(5)), equalTo(bigger));
+        assertThat(index.getFirstGapWithAtLeast(40, null), nullValue());
+        assertThat(index.getGapsEndingAfter(at(1)), equalTo(Arrays.asList(big, bigger)));
+    }
+
+    private static LimitingResourceQueueElement element(int startDay, int endDay) {
+        LimitingResourceQueueElement result = LimitingResourceQueueElement.create();
+        result.setStartDate(someDate.plusDays(startDay));
+        result.setEndDate(someDate.plusDays(endDay));
+
+        return result;
+    }
+
+    private static LimitingResourceQueue queue(Resource resource) {
+        LimitingResourceQueue result = LimitingResourceQueue.create();
+        result.setResource(resource);
+
+        return result;
+    }
+
+    private static List<String> asStrings(List<GapOnQueue> gaps) {
+        List<String> result = new ArrayList<>();
+        for (GapOnQueue each : gaps) {
+            result.add(each.getGap().toString());
+        }
+
+        return result;
+    }
+
+    @Test
+    public void theGapsOfAQueueAreUpdatedWhenAddingAndMovingElements() {
+        Resource resource = createResource();
+        List<Integer> starts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            starts.add(i * 5);
+        }
+        Collections.shuffle(starts);
+
+        LimitingResourceQueue incremental = queue(resource);
+        incremental.getGaps();
+        List<LimitingResourceQueueElement> elements = new ArrayList<>();
+        for (int each : starts) {
+            elements.add(element(each, each + 2));
+            incremental.addLimitingResourceQueueElement(elements.get(elements.size() - 1));
+        }
+
+        LimitingResourceQueue fromScratch = queue(resource);
+        for (int each : starts) {
+            fromScratch.addLimitingResourceQueueElement(element(each, each + 2));
+        }
+
+        assertThat(asStrings(incremental.getGaps()), equalTo(asStrings(fromScratch.getGaps())));
+        assertThat(incremental.getGaps().size(), equalTo(21));
+
+        LimitingResourceQueueElement last = Collections.max(elements, LimitingResourceQueueElement.byStartTimeComparator());
+        last.setEndDate(last.getEndDate().plusDays(3));
+
+        List<String> afterMove = asStrings(incremental.getGaps());
+        assertTrue(afterMove.get(afterMove.size() - 1).startsWith(last.getEndDate().toString()));
+        assertThat(incremental.getFirstGapWithAtLeast(24, at(0)).getGap().getStartTime(),
+                equalTo(DateAndHour.from(someDate.plusDays(2))));
+    }
+
+    private static LimitingResourceQueue indexedQueueWith(Resource resource, LimitingResourceQueueElement... elements) {
+        LimitingResourceQueue result = queue(resource);
+        for (LimitingResourceQueueElement each : elements) {
+            result.addLimitingResourceQueueElement(each);
+        }
+        result.getGaps();
+
+        return result;
+    }
+
+    @Test
+    public void anElementIsNotLostIfItCollidesWithAnotherWhileBeingMoved() {
+        Resource resource = createResource();
+        LimitingResourceQueueElement second = element(5, 7);
+        LimitingResourceQueue queue = indexedQueueWith(resource, element(0, 2), second);
+
+        // The intermediate start is the same than the one of the first element
+        second.setStartDate(someDate);
+        second.setStartDate(someDate.plusDays(10));
+        second.setEndDate(someDate.plusDays(12));
+
+        LimitingResourceQueue fromScratch = queue(resource);
+        fromScratch.addLimitingResourceQueueElement(element(0, 2));
+        fromScratch.addLimitingResourceQueueElement(element(10, 12));
+
+        assertThat(asStrings(queue.getGaps()), equalTo(asStrings(fromScratch.getGaps())));
+    }
+
+    @Test
+    public void theGapsAreUpdatedWhenMovingAnElementAtOnce() {
+        Resource resource = createResource();
+        LimitingResourceQueueElement second = element(5, 7);
+        LimitingResourceQueue queue = indexedQueueWith(resource, element(0, 2), second);
+
+        second.moveTo(at(10), at(12));
+
+        LimitingResourceQueue fromScratch = queue(resource);
+        fromScratch.addLimitingResourceQueueElement(element(0, 2));
+        fromScratch.addLimitingResourceQueueElement(element(10, 12));
+
+        assertThat(asStrings(queue.getGaps()), equalTo(asStrings(fromScratch.getGaps())));
+        assertThat(queue.getGaps().size(), equalTo(3));
+    }
+
+}
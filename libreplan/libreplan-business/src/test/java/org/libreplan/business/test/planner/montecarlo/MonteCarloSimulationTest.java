@@ -0,0 +1,141 @@
+package org.libreplan.business.test.planner.montecarlo;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Test;
+import org.libreplan.business.planner.montecarlo.MonteCarloExecution;
+import org.libreplan.business.planner.montecarlo.MonteCarloPath;
+import org.libreplan.business.planner.montecarlo.MonteCarloResult;
+import org.libreplan.business.planner.montecarlo.MonteCarloSimulation;
+
+public class MonteCarloSimulationTest {
+
+    private static final LocalDate start = new LocalDate(2016, 3, 7);
+
+    private ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    private static MonteCarloPath syntheticPath(int tasks) {
+        MonteCarloPath result = MonteCarloPath.startingOn(start);
+        for (int i = 0; i < tasks; i++) {
+            int normal = 1 + i % 10;
+            result.addTask(normal * 3 / 2, 30, normal, 50, normal / 2);
+        }
+
+        return result;
+    }
+
+    @Test
+    public void withOnlyOnePossibleDurationTheEndIsCertain() throws InterruptedException {
+        MonteCarloPath path = MonteCarloPath.startingOn(start)
+                .addTask(3, 100, 2, 0, 1)
+                .addTask(5, 100, 4, 0, 1);
+
+        MonteCarloResult result = MonteCarloSimulation.create(path, 50).run();
+
+        assertThat(result.getIterations(), equalTo(50L));
+        assertThat(result.getTimes(start.plusDays(8)), equalTo(50L));
+        assertThat(result.getProbabilities().size(), equalTo(1));
+        assertThat(result.getProbabilities().get(start.plusDays(8)).compareTo(BigDecimal.ONE), equalTo(0));
+    }
+
+    @Test
+    public void theProbabilitiesFollowThePercentages() throws InterruptedException {
+        MonteCarloPath path = MonteCarloPath.startingOn(start).addTask(10, 30, 5, 50, 2);
+
+        SortedMap<LocalDate, BigDecimal> probabilities = MonteCarloSimulation.create(path, 100000)
+                .withSeed(7)
+                .start(executor, null)
+                .getResult()
+                .getProbabilities();
+
+        assertThat(probabilities.keySet().size(), equalTo(3));
+        assertTrue(Math.abs(probabilities.get(start.plusDays(10)).doubleValue() - 0.3) < 0.01);
+        assertTrue(Math.abs(probabilities.get(start.plusDays(5)).doubleValue() - 0.5) < 0.01);
+        assertTrue(Math.abs(probabilities.get(start.plusDays(2)).doubleValue() - 0.2) < 0.01);
+    }
+
+    @Test
+    public void withTheSameSeedTheResultDoesNotDependOnTheThreads() throws InterruptedException {
+        MonteCarloPath path = syntheticPath(500);
+
+        Map<LocalDate, BigDecimal> parallel = MonteCarloSimulation.create(path, 20000)
+                .withSeed(42)
+                .start(executor, null)
+                .getResult()
+                .getProbabilities();
+
+        ExecutorService singleThread = Executors.newSingleThreadExecutor();
+        try {
+            Map<LocalDate, BigDecimal> sequential = MonteCarloSimulation.create(path, 20000)
+                    .withSeed(42)
+                    .start(singleThread, null)
+                    .getResult()
+                    .getProbabilities();
+
+            assertThat(parallel, equalTo(sequential));
+        } finally {
+            singleThread.shutdownNow();
+        }
+    }
+
+    @Test
+    public void theProgressIsReportedUntilCompleted() throws InterruptedException {
+        final List<Integer> percentages = Collections.synchronizedList(new ArrayList<Integer>());
+
+        MonteCarloExecution execution = MonteCarloSimulation.create(syntheticPath(50), 5000)
+                .start(executor, percentages::add);
+        execution.getResult();
+
+        assertTrue(execution.isDone());
+        assertThat(execution.getProgress(), equalTo(100));
+        assertThat(percentages.contains(100), equalTo(true));
+        assertThat(Collections.max(percentages), equalTo(100));
+    }
+
+    @Test(expected = CancellationException.class)
+    public void aCancelledSimulationHasNoResult() throws InterruptedException {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        ExecutorService singleThread = Executors.newSingleThreadExecutor();
+        try {
+            singleThread.submit(() -> {
+                blocked.await();
+                return null;
+            });
+
+            MonteCarloExecution execution = MonteCarloSimulation.create(syntheticPath(500), 100000)
+                    .start(singleThread, null);
+            execution.cancel();
+            blocked.countDown();
+
+            execution.getResult();
+        } finally {
+            singleThread.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void anEmptyPathCannotBeSimulated() {
+        MonteCarloSimulation.create(MonteCarloPath.startingOn(start), 10);
+    }
+
+}
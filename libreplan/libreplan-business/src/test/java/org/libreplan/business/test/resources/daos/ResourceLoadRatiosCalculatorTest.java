@@ -0,0 +1,301 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.business.test.resources.daos;
+
+import static org.easymock.EasyMock.anyLong;
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.libreplan.business.test.calendars.entities.BaseCalendarTest.createBasicCalendar;
+import static org.libreplan.business.workingday.EffortDuration.hours;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.libreplan.business.calendars.entities.ResourceCalendar;
+import org.libreplan.business.common.IAdHocTransactionService;
+import org.libreplan.business.common.IOnTransaction;
+import org.libreplan.business.hibernate.notification.ISnapshotRefresherService;
+import org.libreplan.business.planner.daos.IDayAssignmentDAO;
+import org.libreplan.business.planner.entities.DayAssignment;
+import org.libreplan.business.planner.entities.SpecificDayAssignment;
+import org.libreplan.business.resources.daos.IResourceDAO;
+import org.libreplan.business.resources.daos.IResourceLoadRatiosCalculator.ILoadRatiosDataType;
+import org.libreplan.business.resources.daos.IResourceLoadWeekDAO;
+import org.libreplan.business.resources.daos.ResourceLoadRatiosCalculator;
+import org.libreplan.business.resources.daos.ResourceLoadWeeksTracker;
+import org.libreplan.business.resources.entities.Resource;
+import org.libreplan.business.resources.entities.ResourceLoadWeek;
+import org.libreplan.business.resources.entities.Worker;
+import org.libreplan.business.scenarios.entities.Scenario;
+import org.libreplan.business.workingday.EffortDuration;
+import org.libreplan.business.workingday.IntraDayDate.PartialDay;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Tests for {@link ResourceLoadRatiosCalculator}. The day assignments and the
+ * stored {@link ResourceLoadWeek} are kept in memory.
+ */
+public class ResourceLoadRatiosCalculatorTest {
+
+    /* A Wednesday, so the first and last weeks are partial */
+    private static final LocalDate START = new LocalDate(2016, 3, 2);
+
+    /* A Tuesday */
+    private static final LocalDate END = new LocalDate(2016, 3, 29);
+
+    private final List<DayAssignment> dayAssignments = new ArrayList<>();
+
+    private final List<ResourceLoadWeek> storedWeeks = new ArrayList<>();
+
+    private final List<ResourceLoadWeek> lastStoredWeeks = new ArrayList<>();
+
+    private long lastWeekId = 0;
+
+    private ResourceLoadWeeksTracker tracker;
+
+    private ResourceLoadRatiosCalculator calculator;
+
+    private Scenario scenario;
+
+    private Worker worker;
+
+    private Worker otherWorker;
+
+    @Before
+    public void setUp() {
+        scenario = Scenario.create("test");
+        ReflectionTestUtils.setField(scenario, "id", 1L);
+        worker = createWorker(1L);
+        otherWorker = createWorker(2L);
+
+        tracker = new ResourceLoadWeeksTracker();
+        ReflectionTestUtils.setField(tracker, "snapshotRefresherService",
+                createNiceMock(ISnapshotRefresherService.class));
+
+        calculator = new ResourceLoadRatiosCalculator();
+        ReflectionTestUtils.setField(calculator, "dayAssignmentDAO", createDayAssignmentDAO());
+        ReflectionTestUtils.setField(calculator, "resourceDAO", createNiceMock(IResourceDAO.class));
+        ReflectionTestUtils.setField(calculator, "resourceLoadWeekDAO", createResourceLoadWeekDAO());
+        ReflectionTestUtils.setField(calculator, "resourceLoadWeeksTracker", tracker);
+        ReflectionTestUtils.setField(calculator, "transactionService", createTransactionService());
+    }
+
+    private static Worker createWorker(Long id) {
+        Worker result = Worker.create();
+        ReflectionTestUtils.setField(result, "id", id);
+        ResourceCalendar calendar = createBasicCalendar().newDerivedResourceCalendar();
+        result.setCalendar(calendar);
+
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private IDayAssignmentDAO createDayAssignmentDAO() {
+        IDayAssignmentDAO result = createNiceMock(IDayAssignmentDAO.class);
+        expect(result.getAllFor(anyObject(Scenario.class), anyObject(LocalDate.class), anyObject(LocalDate.class),
+                anyObject(Collection.class))).andAnswer(() -> {
+                    Object[] arguments = getCurrentArguments();
+                    return dayAssignmentsOf((LocalDate) arguments[1], (LocalDate) arguments[2],
+                            (Collection<? extends Resource>) arguments[3]);
+                }).anyTimes();
+        replay(result);
+
+        return result;
+    }
+
+    private List<DayAssignment> dayAssignmentsOf(LocalDate startInclusive, LocalDate endInclusive,
+                                                 Collection<? extends Resource> resources) {
+        List<DayAssignment> result = new ArrayList<>();
+        for (DayAssignment each : dayAssignments) {
+            if ( resources.contains(each.getResource()) && !each.getDay().isBefore(startInclusive)
+                    && !each.getDay().isAfter(endInclusive) ) {
+                result.add(each);
+            }
+        }
+
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private IResourceLoadWeekDAO createResourceLoadWeekDAO() {
+        IResourceLoadWeekDAO result = createNiceMock(IResourceLoadWeekDAO.class);
+        expect(result.findFor(anyObject(Collection.class), anyLong(), anyObject(LocalDate.class),
+                anyObject(LocalDate.class))).andAnswer(() -> {
+                    Object[] arguments = getCurrentArguments();
+                    return storedWeeksOf((Collection<Long>) arguments[0], (LocalDate) arguments[2],
+                            (LocalDate) arguments[3]);
+                }).anyTimes();
+        result.replace(anyObject(Collection.class), anyObject(Collection.class));
+        expectLastCall().andAnswer(() -> {
+            Object[] arguments = getCurrentArguments();
+            replaceStoredWeeks((Collection<Long>) arguments[0], (Collection<ResourceLoadWeek>) arguments[1]);
+            return null;
+        }).anyTimes();
+        replay(result);
+
+        return result;
+    }
+
+    private List<ResourceLoadWeek> storedWeeksOf(Collection<Long> resourceIds,
+                                                 LocalDate firstWeekStart,
+                                                 LocalDate lastWeekStart) {
+        List<ResourceLoadWeek> result = new ArrayList<>();
+        for (ResourceLoadWeek each : storedWeeks) {
+            if ( resourceIds.contains(each.getResourceId()) && !each.getWeekStart().isBefore(firstWeekStart)
+                    && !each.getWeekStart().isAfter(lastWeekStart) ) {
+                result.add(each);
+            }
+        }
+
+        return result;
+    }
+
+    private void replaceStoredWeeks(Collection<Long> outdatedIds, Collection<ResourceLoadWeek> weeks) {
+        for (Iterator<ResourceLoadWeek> iterator = storedWeeks.iterator(); iterator.hasNext();) {
+            if ( outdatedIds.contains(iterator.next().getId()) ) {
+                iterator.remove();
+            }
+        }
+        for (ResourceLoadWeek each : weeks) {
+            ReflectionTestUtils.setField(each, "id", ++lastWeekId);
+        }
+        storedWeeks.addAll(weeks);
+        lastStoredWeeks.clear();
+        lastStoredWeeks.addAll(weeks);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IAdHocTransactionService createTransactionService() {
+        IAdHocTransactionService result = createNiceMock(IAdHocTransactionService.class);
+        expect(result.runOnAnotherTransaction(anyObject(IOnTransaction.class)))
+                .andAnswer(() -> ((IOnTransaction<?>) getCurrentArguments()[0]).execute()).anyTimes();
+        replay(result);
+
+        return result;
+    }
+
+    /**
+     * Assigns a different effort each day, so some days are overloaded
+     */
+    private void assignDays(Resource resource, int offset) {
+        for (LocalDate day = START.minusWeeks(2); day.isBefore(END.plusWeeks(2)); day = day.plusDays(1)) {
+            int hours = (day.getDayOfYear() + offset) % 11;
+            dayAssignments.add(SpecificDayAssignment.create(day, hours(hours), resource));
+        }
+    }
+
+    /**
+     * The load and the overload calculated day by day
+     */
+    private EffortDuration[] baseline(Resource resource) {
+        EffortDuration load = EffortDuration.zero();
+        EffortDuration overload = EffortDuration.zero();
+        for (LocalDate day = START; !day.isAfter(END); day = day.plusDays(1)) {
+            EffortDuration loadAtDay = DayAssignment.sum(dayAssignmentsOf(day, day, Arrays.asList(resource)));
+            EffortDuration capacity = resource.getCalendar().getCapacityOn(PartialDay.wholeDay(day));
+            load = load.plus(loadAtDay);
+            if ( loadAtDay.compareTo(capacity) > 0 ) {
+                overload = overload.plus(loadAtDay.minus(capacity));
+            }
+        }
+
+        return new EffortDuration[] { load, overload };
+    }
+
+    private void assertEqualToBaseline(Map<Resource, ILoadRatiosDataType> ratios) {
+        for (Resource each : Arrays.asList(worker, otherWorker)) {
+            EffortDuration[] expected = baseline(each);
+            assertThat(ratios.get(each).getLoad(), equalTo(expected[0]));
+            assertThat(ratios.get(each).getOverload(), equalTo(expected[1]));
+            assertThat(ratios.get(each).getCapacity(),
+                    equalTo(each.getCalendar().getWorkableDuration(START, END)));
+        }
+    }
+
+    private Map<Resource, ILoadRatiosDataType> calculate() {
+        return calculator.calculateLoadRatios(Arrays.asList(worker, otherWorker), START, END, scenario);
+    }
+
+    @Test
+    public void theRatiosAreTheSameThanCalculatingDayByDay() {
+        assignDays(worker, 0);
+        assignDays(otherWorker, 5);
+
+        assertEqualToBaseline(calculate());
+        /* The three complete weeks of each resource */
+        assertThat(storedWeeks.size(), equalTo(6));
+
+        assertEqualToBaseline(calculate());
+        assertThat(storedWeeks.size(), equalTo(6));
+    }
+
+    @Test
+    public void theRatiosOfSeveralResourcesAreTheSameThanCalculatingThemOneByOne() {
+        assignDays(worker, 0);
+        assignDays(otherWorker, 5);
+
+        for (Resource each : Arrays.asList(worker, otherWorker)) {
+            EffortDuration[] expected = baseline(each);
+            ILoadRatiosDataType ratios = calculator.calculateLoadRatios(each, START, END, scenario);
+            assertThat(ratios.getLoad(), equalTo(expected[0]));
+            assertThat(ratios.getOverload(), equalTo(expected[1]));
+        }
+        assertEqualToBaseline(calculate());
+    }
+
+    @Test
+    public void onlyTheWeekOfAChangedDayAssignmentIsCalculatedAgain() {
+        assignDays(worker, 0);
+        assignDays(otherWorker, 5);
+        calculate();
+
+        /* The Monday of the second complete week */
+        LocalDate changedDay = new LocalDate(2016, 3, 14);
+        SpecificDayAssignment added = SpecificDayAssignment.create(changedDay, hours(6), worker);
+        dayAssignments.add(added);
+        /* Without a transaction the week is outdated at once */
+        EventSource session = createNiceMock(EventSource.class);
+        replay(session);
+        tracker.onPostInsert(new PostInsertEvent(added, 1L, null, null, session));
+
+        assertEqualToBaseline(calculate());
+        assertThat(lastStoredWeeks.size(), equalTo(1));
+        assertThat(lastStoredWeeks.get(0).getResourceId(), equalTo(worker.getId()));
+        assertThat(lastStoredWeeks.get(0).getWeekStart(), equalTo(changedDay));
+        assertThat(storedWeeks.size(), equalTo(6));
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.business.test.resources.daos;
+
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import org.easymock.Capture;
+import org.hibernate.Transaction;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.libreplan.business.calendars.entities.CalendarException;
+import org.libreplan.business.hibernate.notification.EntityChanges;
+import org.libreplan.business.planner.entities.SpecificDayAssignment;
+import org.libreplan.business.resources.daos.ResourceLoadWeeksTracker;
+import org.libreplan.business.resources.entities.ResourceLoadWeek;
+import org.libreplan.business.resources.entities.Worker;
+import org.libreplan.business.workingday.EffortDuration;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Tests for {@link ResourceLoadWeeksTracker}.
+ */
+public class ResourceLoadWeeksTrackerTest {
+
+    private static final LocalDate WEEK = new LocalDate(2016, 3, 7);
+
+    private static final Long RESOURCE_ID = 1L;
+
+    private static final Long OTHER_RESOURCE_ID = 2L;
+
+    private ResourceLoadWeeksTracker tracker;
+
+    private Capture<Synchronization> synchronization;
+
+    @Before
+    public void createTracker() {
+        tracker = new ResourceLoadWeeksTracker();
+        synchronization = new Capture<>();
+    }
+
+    private ResourceLoadWeek weekCalculatedNow(Long resourceId, LocalDate weekStart) {
+        return ResourceLoadWeek.create(resourceId, 1L, weekStart,
+                EffortDuration.hours(8), EffortDuration.zero(), tracker.currentStamp());
+    }
+
+    private void dayAssignmentUpdatedOnTransaction(Long resourceId, LocalDate day) {
+        Worker worker = Worker.create();
+        ReflectionTestUtils.setField(worker, "id", resourceId);
+        SpecificDayAssignment dayAssignment = SpecificDayAssignment.create(day, EffortDuration.hours(4), worker);
+
+        Transaction transaction = createNiceMock(Transaction.class);
+        transaction.registerSynchronization(capture(synchronization));
+        expectLastCall().once();
+        EventSource session = createNiceMock(EventSource.class);
+        expect(session.getTransaction()).andReturn(transaction).anyTimes();
+        replay(transaction, session);
+
+        tracker.onPostUpdate(new PostUpdateEvent(dayAssignment, 1L, null, null, null, null, session));
+    }
+
+    @Test
+    public void aCommittedDayAssignmentChangeOutdatesOnlyItsWeek() {
+        ResourceLoadWeek changedWeek = weekCalculatedNow(RESOURCE_ID, WEEK);
+        ResourceLoadWeek previousWeek = weekCalculatedNow(RESOURCE_ID, WEEK.minusWeeks(1));
+        ResourceLoadWeek nextWeek = weekCalculatedNow(RESOURCE_ID, WEEK.plusWeeks(1));
+        ResourceLoadWeek otherResourceWeek = weekCalculatedNow(OTHER_RESOURCE_ID, WEEK);
+
+        dayAssignmentUpdatedOnTransaction(RESOURCE_ID, WEEK.plusDays(3));
+        assertTrue("it's outdated when the transaction completes", tracker.isUpToDate(changedWeek));
+
+        synchronization.getValue().afterCompletion(Status.STATUS_COMMITTED);
+
+        assertFalse(tracker.isUpToDate(changedWeek));
+        assertTrue(tracker.isUpToDate(previousWeek));
+        assertTrue(tracker.isUpToDate(nextWeek));
+        assertTrue(tracker.isUpToDate(otherResourceWeek));
+        assertTrue(tracker.isUpToDate(weekCalculatedNow(RESOURCE_ID, WEEK)));
+    }
+
+    @Test
+    public void aCalendarChangeOutdatesAllTheWeeks() {
+        ResourceLoadWeek week = weekCalculatedNow(RESOURCE_ID, WEEK);
+        ResourceLoadWeek otherResourceWeek = weekCalculatedNow(OTHER_RESOURCE_ID, WEEK.plusWeeks(5));
+
+        EntityChanges changes = new EntityChanges();
+        changes.modified(CalendarException.class, 10L);
+        tracker.onChanges(changes);
+
+        assertFalse(tracker.isUpToDate(week));
+        assertFalse(tracker.isUpToDate(otherResourceWeek));
+        assertTrue(tracker.isUpToDate(weekCalculatedNow(RESOURCE_ID, WEEK)));
+    }
+
+    @Test
+    public void theChangesOfOtherEntitiesDoNotOutdateTheWeeks() {
+        ResourceLoadWeek week = weekCalculatedNow(RESOURCE_ID, WEEK);
+
+        EntityChanges changes = new EntityChanges();
+        changes.modified(Worker.class, RESOURCE_ID);
+        tracker.onChanges(changes);
+
+        assertTrue(tracker.isUpToDate(week));
+    }
+
+}
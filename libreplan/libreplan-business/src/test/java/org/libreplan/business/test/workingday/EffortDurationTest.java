@@ -224,4 +224,35 @@ public class EffortDurationTest {
         assertThat(minutes(30).roundToHours(), equalTo(1));
     }
 
+    @Test
+    public void anAccumulatorAddsAndSubtractsDurations() {
+        EffortDuration.Accumulator accumulator = new EffortDuration.Accumulator();
+        accumulator.add(hours(2)).add(minutes(30)).subtract(hours(1));
+        assertThat(accumulator.toEffortDuration(), equalTo(hours(1).and(30, Granularity.MINUTES)));
+    }
+
+    @Test
+    public void anAccumulatorCanBeNegativeWhileAccumulating() {
+        EffortDuration.Accumulator accumulator = new EffortDuration.Accumulator(10);
+        accumulator.subtractSeconds(20);
+        assertThat(accumulator.getSeconds(), equalTo(-10));
+        assertTrue(!accumulator.isPositive());
+        accumulator.addSeconds(10);
+        assertTrue(accumulator.isZero());
+        assertThat(accumulator.toEffortDuration(), equalTo(zero()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void aNegativeAccumulatorCannotBeConvertedToADuration() {
+        new EffortDuration.Accumulator().subtract(seconds(1)).toEffortDuration();
+    }
+
+    @Test
+    public void addingOrSubtractingZeroReturnsTheSameDuration() {
+        EffortDuration duration = hours(3);
+        assertTrue(duration.plus(zero()) == duration);
+        assertTrue(zero().plus(duration) == duration);
+        assertTrue(duration.minus(zero()) == duration);
+    }
+
 }
@@ -108,6 +108,7 @@ public class CalendarImporterMPXJ implements ICalendarImporter {
      * Makes a {@link OrderDTO} from a InputStream.
      *
      * Uses the ProjectReader of the class. It must be created before.
+     * The ProjectFile read is released afterwards.
      *
      * @param filename
      *            String with the name of the original file of the InputStream.
@@ -123,6 +124,8 @@ public class CalendarImporterMPXJ implements ICalendarImporter {
 
             throw new RuntimeException(e);
 
+        } finally {
+            projectFile = null;
         }
 
     }
@@ -110,6 +110,8 @@ public interface IJiraOrderElementSynchronizer {
      * {@link IJiraOrderElementSynchronizer#syncOrderElementsWithJiraIssues(List, Order).
      *
      * It gets then an already synchronized orders from the {@link OrderSyncInfo} and re-synchronize them.
+     * Only the issues updated since the last synchronization of each order are requested, and the orders
+     * without changes aren't saved. All the orders are synchronized in the same transaction.
      *
      * @return a list of {@link SynchronizationInfo}
      *
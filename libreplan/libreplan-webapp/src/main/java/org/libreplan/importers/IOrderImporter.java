@@ -25,6 +25,7 @@ import java.util.List;
 import org.libreplan.business.orders.entities.Order;
 import org.libreplan.business.planner.entities.Dependency;
 import org.libreplan.business.planner.entities.TaskGroup;
+import org.libreplan.importers.OrderImport.IOrderImportListener;
 
 /**
  * Contract for the {@link OrderImporterMPXJ}.
@@ -80,4 +81,39 @@ public interface IOrderImporter {
 
     public List<Dependency> createDependencies(OrderDTO importData);
 
+    /**
+     * Prepares the import in stages of a file, to be done with
+     * {@link #runImport(OrderImport, IOrderImportListener)}. It must be called
+     * from the request of the user, since the project is imported in the
+     * current scenario of the user.
+     *
+     * @param content
+     *            Content of the file.
+     * @param filename
+     *            String with the name of the original file.
+     * @return OrderImport with the state of the import.
+     */
+    public OrderImport createImport(byte[] content, String filename, boolean importCalendar);
+
+    /**
+     * Prepares the import in stages of the data already read from a file.
+     *
+     * @see #createImport(byte[], String, boolean)
+     */
+    public OrderImport createImport(OrderDTO importData, String filename, boolean importCalendar);
+
+    /**
+     * Runs the stages of the {@link OrderImport} not done yet, each one in its
+     * own transaction. It can be run in background.
+     *
+     * If a stage fails its exception is thrown, and calling again this method
+     * resumes the import from that stage.
+     *
+     * @param orderImport
+     *            OrderImport with the state of the import.
+     * @param listener
+     *            IOrderImportListener to notify the progress to.
+     */
+    public void runImport(OrderImport orderImport, IOrderImportListener listener);
+
 }
@@ -82,6 +82,11 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
 
     private SynchronizationInfo synchronizationInfo;
 
+    /**
+     * Whether the last synchronization of an order has modified it
+     */
+    private boolean orderModified;
+
     @Autowired
     private IConnectorDAO connectorDAO;
 
@@ -145,6 +150,23 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
      * @return a list of {@link IssueDTO}
      */
     private List<IssueDTO> getJiraIssues(String label, Connector connector) {
+        return getJiraIssues(label, connector, null);
+    }
+
+    /**
+     * Gets the jira issues for the specified <code>label</code> updated since
+     * the last synchronization
+     *
+     * @param label
+     *            the search criteria
+     * @param connector
+     *            where to read the configuration parameters
+     * @param lastSyncDate
+     *            date of the last synchronization, <code>null</code> to get
+     *            all the issues
+     * @return a list of {@link IssueDTO}
+     */
+    private List<IssueDTO> getJiraIssues(String label, Connector connector, Date lastSyncDate) {
         Map<String, String> properties = connector.getPropertiesAsMap();
         String url = properties.get(PredefinedConnectorProperties.SERVER_URL);
 
@@ -156,6 +178,9 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
 
         String path = JiraRESTClient.PATH_SEARCH;
         String query = "labels=" + label;
+        if (lastSyncDate != null) {
+            query = JiraRESTClient.updatedSince(query, lastSyncDate, new Date());
+        }
 
         List<IssueDTO> issues = JiraRESTClient.getIssues(url, username, password,
                 path, query);
@@ -169,6 +194,7 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
 
         synchronizationInfo = new SynchronizationInfo(_(
                 "Synchronization order {0}", order.getName()));
+        orderModified = false;
 
         for (IssueDTO issue : issues) {
             String code = PredefinedConnectorProperties.JIRA_CODE_PREFIX
@@ -232,8 +258,12 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
             orderLine = OrderLine.create();
             orderLine.setCode(code);
             order.add(orderLine);
+            orderModified = true;
+        }
+        if (!StringUtils.equals(orderLine.getName(), name)) {
+            orderLine.setName(name);
+            orderModified = true;
         }
-        orderLine.setName(name);
         return orderLine;
     }
 
@@ -259,9 +289,13 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
             hoursGroup = HoursGroup.create(orderLine);
             hoursGroup.setCode(code);
             orderLine.addHoursGroup(hoursGroup);
+            orderModified = true;
         }
 
-        hoursGroup.setWorkingHours(workingHours);
+        if (!workingHours.equals(hoursGroup.getWorkingHours())) {
+            hoursGroup.setWorkingHours(workingHours);
+            orderModified = true;
+        }
     }
 
     /**
@@ -403,6 +437,7 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
                                 orderElement.getCode()));
                 return;
             }
+            orderModified = true;
         }
 
         AdvanceMeasurement advanceMeasurement = directAdvanceAssignment
@@ -411,10 +446,19 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
             advanceMeasurement = AdvanceMeasurement.create();
             advanceMeasurement.setDate(latestWorkLogDate);
             directAdvanceAssignment.addAdvanceMeasurements(advanceMeasurement);
+            orderModified = true;
         }
 
-        advanceMeasurement.setValue(percentage
-                .setScale(2, RoundingMode.HALF_UP));
+        BigDecimal value = percentage.setScale(2, RoundingMode.HALF_UP);
+        if (advanceMeasurement.getValue() == null
+                || advanceMeasurement.getValue().compareTo(value) != 0) {
+            advanceMeasurement.setValue(value);
+            orderModified = true;
+        }
+
+        if (directAdvanceAssignment.getReportGlobalAdvance()) {
+            return;
+        }
 
         DirectAdvanceAssignment spreadAdvanceAssignment = orderElement
                 .getReportGlobalAdvanceAssignment();
@@ -423,6 +467,7 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
         }
 
         directAdvanceAssignment.setReportGlobalAdvance(true);
+        orderModified = true;
     }
 
     /**
@@ -491,6 +536,16 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
     }
 
 
+    /**
+     * Saves the date when the issues of <code>orderSyncInfo</code> were read.
+     * It's saved in the transaction of the synchronization, so the next one
+     * gets the issues updated since then only if this one is committed.
+     */
+    private void markAsSynchronized(OrderSyncInfo orderSyncInfo, Date syncDate) {
+        orderSyncInfo.setLastSyncDate(syncDate);
+        orderSyncInfoDAO.save(orderSyncInfo);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public OrderSyncInfo getOrderLastSyncInfo(Order order) {
@@ -532,15 +587,14 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
             synchronizationInfo = new SynchronizationInfo(_(
                     "Synchronization order {0}", order.getName()));
 
+            Date syncDate = new Date();
             List<IssueDTO> issueDTOs = getJiraIssues(orderSyncInfo.getKey(),
-                    connector);
+                    connector, orderSyncInfo.getLastSyncDate());
             if (issueDTOs == null || issueDTOs.isEmpty()) {
-                LOG.warn("No JIRA issues found for '" + orderSyncInfo.getKey()
-                        + "'");
-                synchronizationInfo.addFailedReason(_(
-                        "No JIRA issues found for key {0}",
-                        orderSyncInfo.getKey()));
-                syncInfos.add(synchronizationInfo);
+                LOG.info("No JIRA issues updated for '"
+                        + orderSyncInfo.getKey() + "' since "
+                        + orderSyncInfo.getLastSyncDate());
+                markAsSynchronized(orderSyncInfo, syncDate);
                 continue;
             }
 
@@ -550,9 +604,11 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
                 syncInfos.add(synchronizationInfo);
                 continue;
             }
-            orderModel.save(false);
+            if (orderModified) {
+                orderModel.save(false);
+            }
 
-            saveSyncInfo(orderSyncInfo.getKey(), order);
+            markAsSynchronized(orderSyncInfo, syncDate);
 
             jiraTimesheetSynchronizer.syncJiraTimesheetWithJiraIssues(
                     issueDTOs, order);
@@ -19,8 +19,11 @@
 
 package org.libreplan.importers;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -59,10 +62,17 @@ public class JiraRESTClient {
     private static final String FIELDS_TO_INCLUDE_IN_RESPONSE = "summary,status,timetracking,worklog";
 
     /**
-     * Max number of issues to return(default is 50)
+     * Max number of issues to return(default is 50). JIRA can return less
+     * issues per page, so the pages are requested until all are read.
      */
     private static final long MAX_RESULTS = 1000;
 
+    /**
+     * Minutes subtracted to the last synchronization, as JQL works with
+     * minutes and the clocks of JIRA and LibrePlan can differ.
+     */
+    private static final long UPDATED_SINCE_MARGIN_MINUTES = 5;
+
     private static final MediaType[] mediaTypes = new MediaType[] {
             MediaType.valueOf(MediaType.APPLICATION_JSON),
             MediaType.valueOf(MediaType.APPLICATION_XML) };
@@ -81,6 +91,29 @@ public class JiraRESTClient {
         return client.get(String.class);
     }
 
+    /**
+     * Restricts a JQL query to the issues updated since <code>since</code>.
+     *
+     * The time is expressed as minutes relative to the current time of JIRA,
+     * so the timezone of the JIRA user doesn't matter.
+     *
+     * @param query
+     *            the JQL query
+     * @param since
+     *            date of the last synchronization
+     * @param now
+     *            the current date
+     * @return the query for the issues updated since that date
+     */
+    public static String updatedSince(String query, Date since, Date now) {
+        long minutes = TimeUnit.MILLISECONDS.toMinutes(Math.max(0, now.getTime() - since.getTime())) +
+                UPDATED_SINCE_MARGIN_MINUTES;
+
+        String updated = "updated >= -" + minutes + "m";
+
+        return query.isEmpty() ? updated : query + " AND " + updated;
+    }
+
     /**
      * Query Jira for all issues with the specified query parameter
      *
@@ -114,9 +147,18 @@ public class JiraRESTClient {
         client.query("maxResults", MAX_RESULTS);
         client.query("fields", StringUtils.deleteWhitespace(FIELDS_TO_INCLUDE_IN_RESPONSE));
 
-        SearchResultDTO searchResult = client.get(SearchResultDTO.class);
-
-        return searchResult.getIssues();
+        List<IssueDTO> result = new ArrayList<>();
+        SearchResultDTO searchResult;
+        do {
+            client.replaceQueryParam("startAt", result.size());
+            searchResult = client.get(SearchResultDTO.class);
+            if ( searchResult.getIssues() == null || searchResult.getIssues().isEmpty() ) {
+                break;
+            }
+            result.addAll(searchResult.getIssues());
+        } while (searchResult.getTotal() != null && result.size() < searchResult.getTotal());
+
+        return result;
     }
 
     /**
@@ -72,19 +72,28 @@ public class MPXJProjectFileConverter {
      *
      * This method contains a switch that is going to select the method to call for each format.
      * At this time it only differences between planner and project.
+     * The conversion uses static state, so the calls are serialized and the
+     * state is released at the end, not to keep the tasks of the last file.
      *
      * @param file
      *            ProjectFile to extract data from.
      * @return ImportData with the data that we want to import.
      */
-    public static OrderDTO convert(ProjectFile file, String filename) {
+    public static synchronized OrderDTO convert(ProjectFile file, String filename) {
 
         OrderDTO importData = null;
 
-        if ( FilenameUtils.getExtension(filename).equals("planner") )
-            importData = getImportDataFromPlanner(file, filename);
-        else if ( FilenameUtils.getExtension(filename).equals("mpp") )
-            importData = getImportDataFromMPP(file, filename);
+        try {
+            if ( FilenameUtils.getExtension(filename).equals("planner") )
+                importData = getImportDataFromPlanner(file, filename);
+            else if ( FilenameUtils.getExtension(filename).equals("mpp") )
+                importData = getImportDataFromMPP(file, filename);
+        } finally {
+            properties = null;
+            mapTask = null;
+            constraint = null;
+            constraintDate = null;
+        }
         return importData;
     }
 
@@ -0,0 +1,206 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.importers;
+
+import java.util.List;
+
+import org.apache.commons.lang3.Validate;
+import org.libreplan.business.orders.entities.Order;
+import org.libreplan.business.planner.entities.TaskGroup;
+import org.libreplan.business.scenarios.entities.Scenario;
+
+/**
+ * State of an import of a project file done in stages by
+ * {@link IOrderImporter#runImport(OrderImport, IOrderImportListener)}.
+ * <p>
+ * Each stage is done once. If a stage fails, running the import again resumes
+ * it from that stage. The dependencies are stored in batches, each one in its
+ * own transaction, so a failed import is resumed from the first batch that
+ * hasn't been stored.
+ * </p>
+ */
+public class OrderImport {
+
+    public enum Stage {
+        READ_FILE, CONVERT_ORDER, CREATE_TASKS, STORE_ORDER, STORE_DEPENDENCIES, FINISHED
+    }
+
+    /**
+     * Receives the progress of the stages of an {@link OrderImport}. It's
+     * called from the thread running the import.
+     */
+    public interface IOrderImportListener {
+
+        void progress(Stage stage, int done, int total);
+
+    }
+
+    public static OrderImport fromFile(byte[] content, String filename, boolean importCalendar, Scenario scenario) {
+        Validate.notNull(content);
+        OrderImport result = new OrderImport(filename, importCalendar, scenario);
+        result.content = content;
+        result.stage = Stage.READ_FILE;
+
+        return result;
+    }
+
+    public static OrderImport fromData(OrderDTO data, String filename, boolean importCalendar, Scenario scenario) {
+        Validate.notNull(data);
+        OrderImport result = new OrderImport(filename, importCalendar, scenario);
+        result.data = data;
+        result.stage = Stage.CONVERT_ORDER;
+
+        return result;
+    }
+
+    private final String filename;
+
+    private final boolean importCalendar;
+
+    private final Scenario scenario;
+
+    private Stage stage;
+
+    /**
+     * The content of the file. It's released once it's read.
+     */
+    private byte[] content;
+
+    private OrderDTO data;
+
+    private Order order;
+
+    private TaskGroup taskGroup;
+
+    private int dependenciesStored = 0;
+
+    private OrderImport(String filename, boolean importCalendar, Scenario scenario) {
+        Validate.notNull(filename);
+        Validate.notNull(scenario);
+        this.filename = filename;
+        this.importCalendar = importCalendar;
+        this.scenario = scenario;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public boolean isImportCalendar() {
+        return importCalendar;
+    }
+
+    /**
+     * The scenario of the user that started the import, since the import can
+     * run outside of the request of the user.
+     */
+    public Scenario getScenario() {
+        return scenario;
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public boolean isFinished() {
+        return stage == Stage.FINISHED;
+    }
+
+    byte[] getContent() {
+        return content;
+    }
+
+    void fileRead(OrderDTO data) {
+        checkStage(Stage.READ_FILE);
+        this.data = data;
+        this.content = null;
+        stage = Stage.CONVERT_ORDER;
+    }
+
+    OrderDTO getData() {
+        return data;
+    }
+
+    void orderConverted(Order order) {
+        checkStage(Stage.CONVERT_ORDER);
+        this.order = order;
+        stage = Stage.CREATE_TASKS;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    void tasksCreated(TaskGroup taskGroup) {
+        checkStage(Stage.CREATE_TASKS);
+        this.taskGroup = taskGroup;
+        stage = Stage.STORE_ORDER;
+    }
+
+    TaskGroup getTaskGroup() {
+        return taskGroup;
+    }
+
+    void orderStored() {
+        checkStage(Stage.STORE_ORDER);
+        stage = hasDependenciesPending() ? Stage.STORE_DEPENDENCIES : Stage.FINISHED;
+    }
+
+    /**
+     * The entities of a failed transaction can't be stored again, so they're
+     * created again from the data read.
+     */
+    void orderNotStored() {
+        checkStage(Stage.STORE_ORDER);
+        order = null;
+        taskGroup = null;
+        stage = Stage.CONVERT_ORDER;
+    }
+
+    List<DependencyDTO> getDependencies() {
+        return data.dependencies;
+    }
+
+    int getDependenciesStored() {
+        return dependenciesStored;
+    }
+
+    int getDependenciesTotal() {
+        return data.dependencies == null ? 0 : data.dependencies.size();
+    }
+
+    private boolean hasDependenciesPending() {
+        return dependenciesStored < getDependenciesTotal();
+    }
+
+    void dependenciesStored(int stored) {
+        checkStage(Stage.STORE_DEPENDENCIES);
+        dependenciesStored += stored;
+        if ( !hasDependenciesPending() ) {
+            stage = Stage.FINISHED;
+        }
+    }
+
+    private void checkStage(Stage expected) {
+        Validate.isTrue(stage == expected, "the import is at stage " + stage + " instead of " + expected);
+    }
+
+}
@@ -21,8 +21,11 @@ package org.libreplan.importers;
 
 import static org.libreplan.web.I18nHelper._;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.List;
 import java.util.UUID;
@@ -35,6 +38,7 @@ import org.joda.time.LocalDate;
 import org.libreplan.business.calendars.daos.IBaseCalendarDAO;
 import org.libreplan.business.calendars.entities.BaseCalendar;
 import org.libreplan.business.common.IAdHocTransactionService;
+import org.libreplan.business.common.IOnTransaction;
 import org.libreplan.business.common.daos.IConfigurationDAO;
 import org.libreplan.business.common.daos.IEntitySequenceDAO;
 import org.libreplan.business.common.entities.EntityNameEnum;
@@ -59,6 +63,8 @@ import org.libreplan.business.scenarios.entities.OrderVersion;
 import org.libreplan.business.scenarios.entities.Scenario;
 import org.libreplan.business.workingday.IntraDayDate;
 import org.libreplan.importers.DependencyDTO.TypeOfDependencyDTO;
+import org.libreplan.importers.OrderImport.IOrderImportListener;
+import org.libreplan.importers.OrderImport.Stage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Scope;
@@ -76,6 +82,12 @@ import org.springframework.transaction.annotation.Transactional;
 @Scope(BeanDefinition.SCOPE_SINGLETON)
 public class OrderImporterMPXJ implements IOrderImporter {
 
+    /**
+     * Number of dependencies stored in each transaction by
+     * {@link #runImport(OrderImport, IOrderImportListener)}.
+     */
+    public static final int DEPENDENCIES_BATCH_SIZE = 500;
+
     @Autowired
     private IBaseCalendarDAO baseCalendarDAO;
 
@@ -154,10 +166,12 @@ public class OrderImporterMPXJ implements IOrderImporter {
     @Override
     @Transactional(readOnly = true)
     public Order convertImportDataToOrder(OrderDTO project, boolean importCalendar) {
+        return convertImportDataToOrder(project, importCalendar, scenarioManager.getCurrent());
+    }
 
-        String code = getCode(EntityNameEnum.ORDER);
+    private Order convertImportDataToOrder(OrderDTO project, boolean importCalendar, Scenario current) {
 
-        Scenario current = scenarioManager.getCurrent();
+        String code = getCode(EntityNameEnum.ORDER);
 
         OrderVersion orderVersion = OrderVersion.createInitialVersion(current);
 
@@ -532,10 +546,14 @@ public class OrderImporterMPXJ implements IOrderImporter {
      */
     @Override
     public List<Dependency> createDependencies(OrderDTO importData) {
+        return createDependencies(importData.dependencies);
+    }
+
+    private List<Dependency> createDependencies(Collection<DependencyDTO> dependencyDTOs) {
 
         List<Dependency> dependencies = new ArrayList<>();
 
-        for(DependencyDTO dependencyDTO: importData.dependencies){
+        for(DependencyDTO dependencyDTO: dependencyDTOs){
 
             TaskElement origin = null;
             TaskElement destination = null;
@@ -554,6 +572,126 @@ public class OrderImporterMPXJ implements IOrderImporter {
         return dependencies;
     }
 
+    @Override
+    public OrderImport createImport(byte[] content, String filename, boolean importCalendar) {
+        return OrderImport.fromFile(content, filename, importCalendar, scenarioManager.getCurrent());
+    }
+
+    @Override
+    public OrderImport createImport(OrderDTO importData, String filename, boolean importCalendar) {
+        return OrderImport.fromData(importData, filename, importCalendar, scenarioManager.getCurrent());
+    }
+
+    /**
+     * Runs the stages of the {@link OrderImport} not done yet.
+     *
+     * The order and its tasks are stored in one transaction, since they are
+     * loaded and saved as a whole. The dependencies are stored afterwards in
+     * batches of {@link #DEPENDENCIES_BATCH_SIZE}, each one in its own
+     * transaction.
+     *
+     * @param orderImport
+     *            OrderImport with the state of the import.
+     * @param listener
+     *            IOrderImportListener to notify the progress to.
+     */
+    @Override
+    public void runImport(OrderImport orderImport, IOrderImportListener listener) {
+        while (!orderImport.isFinished()) {
+            Stage stage = orderImport.getStage();
+
+            if ( stage == Stage.STORE_DEPENDENCIES ) {
+                listener.progress(stage, orderImport.getDependenciesStored(), orderImport.getDependenciesTotal());
+            } else {
+                listener.progress(stage, 0, 1);
+            }
+
+            runStage(orderImport);
+        }
+        listener.progress(Stage.FINISHED, 1, 1);
+    }
+
+    private void runStage(final OrderImport orderImport) {
+        switch (orderImport.getStage()) {
+
+            case READ_FILE:
+                orderImport.fileRead(getImportData(
+                        new ByteArrayInputStream(orderImport.getContent()), orderImport.getFilename()));
+                return;
+
+            case CONVERT_ORDER:
+                orderImport.orderConverted(transactionService.runOnReadOnlyTransaction(new IOnTransaction<Order>() {
+                    @Override
+                    public Order execute() {
+                        return convertImportDataToOrder(
+                                orderImport.getData(), orderImport.isImportCalendar(), orderImport.getScenario());
+                    }
+                }));
+                return;
+
+            case CREATE_TASKS:
+                orderImport.tasksCreated(transactionService.runOnReadOnlyTransaction(new IOnTransaction<TaskGroup>() {
+                    @Override
+                    public TaskGroup execute() {
+                        return createTask(orderImport.getData(), orderImport.isImportCalendar());
+                    }
+                }));
+                return;
+
+            case STORE_ORDER:
+                storeOrderOf(orderImport);
+                return;
+
+            case STORE_DEPENDENCIES:
+                storeNextDependenciesOf(orderImport);
+                return;
+
+            default: return;
+        }
+    }
+
+    private void storeOrderOf(final OrderImport orderImport) {
+        try {
+            transactionService.runOnTransaction(new IOnTransaction<Void>() {
+                @Override
+                public Void execute() {
+                    storeOrder(
+                            orderImport.getOrder(),
+                            orderImport.getTaskGroup(),
+                            Collections.<Dependency> emptyList());
+
+                    return null;
+                }
+            });
+        } catch (RuntimeException e) {
+            orderImport.orderNotStored();
+            throw e;
+        }
+        orderImport.orderStored();
+    }
+
+    /**
+     * The dependencies are created once the tasks are stored, so they are only
+     * saved by the batch storing them.
+     */
+    private void storeNextDependenciesOf(OrderImport orderImport) {
+        int from = orderImport.getDependenciesStored();
+        int to = Math.min(from + DEPENDENCIES_BATCH_SIZE, orderImport.getDependenciesTotal());
+        final List<DependencyDTO> batch = orderImport.getDependencies().subList(from, to);
+
+        transactionService.runOnTransaction(new IOnTransaction<Void>() {
+            @Override
+            public Void execute() {
+                for (Dependency each : createDependencies(batch)) {
+                    dependencyDAO.save(each);
+                }
+
+                return null;
+            }
+        });
+        orderImport.dependenciesStored(batch.size());
+    }
+
     /**
      * Return the equivalent {@link Type} of a {@link TypeOfDependencyDTO}.
      *
@@ -30,6 +30,9 @@ import org.libreplan.business.common.daos.IConfigurationDAO;
 import org.libreplan.business.common.entities.*;
 import org.libreplan.business.common.exceptions.ValidationException;
 import org.libreplan.business.costcategories.entities.TypeOfWorkHours;
+import org.libreplan.business.hibernate.cache.CacheStatistics;
+import org.libreplan.business.hibernate.notification.SnapshotStatistics;
+import org.libreplan.business.orders.entities.RecalculationStatistics;
 import org.libreplan.business.users.entities.UserRole;
 import org.libreplan.importers.JiraRESTClient;
 import org.libreplan.importers.TimSoapClient;
@@ -41,6 +44,7 @@ import org.springframework.ldap.core.support.DefaultDirObjectFactory;
 import org.springframework.ldap.core.support.LdapContextSource;
 import org.springframework.ldap.filter.EqualsFilter;
 import org.springframework.web.context.ContextLoaderListener;
+import org.zkoss.ganttz.util.OperationStatistics;
 import org.zkoss.util.media.Media;
 import org.zkoss.zk.ui.Component;
 import org.zkoss.zk.ui.WrongValueException;
@@ -110,6 +114,14 @@ public class ConfigurationController extends GenericForwardComposer {
 
     private Grid connectorPropertriesGrid;
 
+    private Grid cacheStatisticsGrid;
+
+    private Grid operationStatisticsGrid;
+
+    private Grid snapshotsStatisticsGrid;
+
+    private Grid chargedEffortRecalculationStatisticsGrid;
+
     private Connector selectedConnector;
 
     private Combobox protocolsCombobox;
@@ -790,6 +802,60 @@ public class ConfigurationController extends GenericForwardComposer {
         reloadEntitySequences();
     }
 
+    /**
+     * Used in configuration.zul
+     * Should be public!
+     */
+    public List<CacheStatistics> getCacheStatistics() {
+        return configurationModel.getCacheStatistics();
+    }
+
+    public void reloadCacheStatistics() {
+        Util.reloadBindings(cacheStatisticsGrid);
+    }
+
+    public void evictCaches() {
+        configurationModel.evictCaches();
+        messages.showMessage(Level.INFO, _("Cache cleared"));
+        reloadCacheStatistics();
+    }
+
+    /**
+     * Used in configuration.zul
+     * Should be public!
+     */
+    public List<OperationStatistics> getOperationStatistics() {
+        return configurationModel.getOperationStatistics();
+    }
+
+    /**
+     * Used in configuration.zul
+     * Should be public!
+     */
+    public List<SnapshotStatistics> getSnapshotsStatistics() {
+        return configurationModel.getSnapshotsStatistics();
+    }
+
+    /**
+     * Used in configuration.zul
+     * Should be public!
+     */
+    public RecalculationStatistics getChargedEffortRecalculationStatistics() {
+        return configurationModel.getChargedEffortRecalculationStatistics();
+    }
+
+    public void reloadOperationStatistics() {
+        Util.reloadBindings(operationStatisticsGrid);
+        Util.reloadBindings(snapshotsStatisticsGrid);
+        Util.reloadBindings(chargedEffortRecalculationStatisticsGrid);
+    }
+
+    public void resetOperationStatistics() {
+        configurationModel.resetOperationStatistics();
+        messages.showMessage(Level.INFO, _("Performance statistics reset"));
+        reloadOperationStatistics();
+    }
+
     /**
      * Used in configuration.zul
      * Should be public!
@@ -51,6 +51,12 @@ import org.libreplan.business.common.entities.ProgressType;
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
 import org.libreplan.business.common.exceptions.ValidationException;
 import org.libreplan.business.costcategories.entities.TypeOfWorkHours;
+import org.libreplan.business.hibernate.cache.CacheStatistics;
+import org.libreplan.business.hibernate.cache.IReferenceEntitiesCache;
+import org.libreplan.business.hibernate.notification.PredefinedDatabaseSnapshots;
+import org.libreplan.business.hibernate.notification.SnapshotStatistics;
+import org.libreplan.business.orders.entities.ISumChargedEffortRecalculator;
+import org.libreplan.business.orders.entities.RecalculationStatistics;
 import org.libreplan.business.workreports.daos.IWorkReportDAO;
 import org.libreplan.web.common.concurrentdetection.OnConcurrentModification;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -59,6 +65,8 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.zkoss.ganttz.util.OperationMetrics;
+import org.zkoss.ganttz.util.OperationStatistics;
 
 /**
  * @author Manuel Rego Casasnovas <mrego@igalia.com>
@@ -99,6 +107,15 @@ public class ConfigurationModel implements IConfigurationModel {
     @Autowired
     private IJobSchedulerModel jobSchedulerModel;
 
+    @Autowired
+    private IReferenceEntitiesCache referenceEntitiesCache;
+
+    @Autowired
+    private PredefinedDatabaseSnapshots databaseSnapshots;
+
+    @Autowired
+    private ISumChargedEffortRecalculator sumChargedEffortRecalculator;
+
     @Override
     @Transactional(readOnly = true)
     public List<BaseCalendar> getCalendars() {
@@ -713,4 +730,34 @@ public class ConfigurationModel implements IConfigurationModel {
         }
     }
 
+    @Override
+    public List<CacheStatistics> getCacheStatistics() {
+        return referenceEntitiesCache.getStatistics();
+    }
+
+    @Override
+    public void evictCaches() {
+        referenceEntitiesCache.evictAll();
+    }
+
+    @Override
+    public List<OperationStatistics> getOperationStatistics() {
+        return OperationMetrics.getStatistics();
+    }
+
+    @Override
+    public void resetOperationStatistics() {
+        OperationMetrics.reset();
+    }
+
+    @Override
+    public List<SnapshotStatistics> getSnapshotsStatistics() {
+        return databaseSnapshots.getSnapshotsStatistics();
+    }
+
+    @Override
+    public RecalculationStatistics getChargedEffortRecalculationStatistics() {
+        return sumChargedEffortRecalculator.getStatistics();
+    }
+
 }
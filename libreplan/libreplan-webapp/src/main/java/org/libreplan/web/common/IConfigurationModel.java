@@ -32,6 +32,10 @@ import org.libreplan.business.common.entities.LDAPConfiguration;
 import org.libreplan.business.common.entities.PersonalTimesheetsPeriodicityEnum;
 import org.libreplan.business.common.entities.ProgressType;
 import org.libreplan.business.costcategories.entities.TypeOfWorkHours;
+import org.libreplan.business.hibernate.cache.CacheStatistics;
+import org.libreplan.business.hibernate.notification.SnapshotStatistics;
+import org.libreplan.business.orders.entities.RecalculationStatistics;
+import org.zkoss.ganttz.util.OperationStatistics;
 
 /**
  * Contract for {@link ConfigurationModel}.
@@ -193,4 +197,16 @@ public interface IConfigurationModel {
 
     void setEnabledAutomaticBudget(Boolean enabledAutomaticBudget);
 
+    List<CacheStatistics> getCacheStatistics();
+
+    void evictCaches();
+
+    List<OperationStatistics> getOperationStatistics();
+
+    void resetOperationStatistics();
+
+    List<SnapshotStatistics> getSnapshotsStatistics();
+
+    RecalculationStatistics getChargedEffortRecalculationStatistics();
+
 }
@@ -0,0 +1,123 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.web.common;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.libreplan.business.hibernate.StatementCounter;
+import org.libreplan.business.hibernate.notification.PredefinedDatabaseSnapshots;
+import org.libreplan.business.hibernate.notification.SnapshotStatistics;
+import org.libreplan.business.orders.entities.ISumChargedEffortRecalculator;
+import org.libreplan.business.orders.entities.RecalculationStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import org.zkoss.ganttz.util.OperationMetrics;
+import org.zkoss.ganttz.util.OperationStatistics;
+
+/**
+ * Counts the SQL statements of the operations measured by
+ * {@link OperationMetrics} with the {@link StatementCounter}, and exposes the
+ * metrics through JMX with the name {@link #OBJECT_NAME}. The statistics of
+ * the {@link PredefinedDatabaseSnapshots} and the
+ * {@link ISumChargedEffortRecalculator} are exposed too.
+ */
+@Component
+@Scope(BeanDefinition.SCOPE_SINGLETON)
+public class OperationMetricsExporter implements OperationMetricsMXBean {
+
+    private static final Log LOG = LogFactory.getLog(OperationMetricsExporter.class);
+
+    public static final String OBJECT_NAME = "org.libreplan:type=OperationMetrics";
+
+    private ObjectName registered;
+
+    @Autowired
+    private PredefinedDatabaseSnapshots databaseSnapshots;
+
+    @Autowired
+    private ISumChargedEffortRecalculator sumChargedEffortRecalculator;
+
+    @PostConstruct
+    public void postConstruct() {
+        OperationMetrics.setStatementsCounter(() -> {
+            StatementCounter.Count count = StatementCounter.start();
+
+            return count::stop;
+        });
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if ( server.isRegistered(name) ) {
+                LOG.warn(OBJECT_NAME + " is already registered, probably by another instance of LibrePlan");
+                return;
+            }
+            server.registerMBean(this, name);
+            registered = name;
+        } catch (JMException e) {
+            LOG.error("the operation metrics couldn't be registered in JMX", e);
+        }
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        OperationMetrics.setStatementsCounter(null);
+        if ( registered == null ) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registered);
+        } catch (JMException e) {
+            LOG.warn("the operation metrics couldn't be unregistered from JMX", e);
+        }
+        registered = null;
+    }
+
+    @Override
+    public List<OperationStatistics> getOperations() {
+        return OperationMetrics.getStatistics();
+    }
+
+    @Override
+    public List<SnapshotStatistics> getSnapshots() {
+        return databaseSnapshots.getSnapshotsStatistics();
+    }
+
+    @Override
+    public RecalculationStatistics getChargedEffortRecalculations() {
+        return sumChargedEffortRecalculator.getStatistics();
+    }
+
+    @Override
+    public void reset() {
+        OperationMetrics.reset();
+    }
+
+}
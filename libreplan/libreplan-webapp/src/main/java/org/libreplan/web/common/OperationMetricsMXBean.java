@@ -0,0 +1,43 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.web.common;
+
+import java.util.List;
+
+import org.libreplan.business.hibernate.notification.SnapshotStatistics;
+import org.libreplan.business.orders.entities.RecalculationStatistics;
+import org.zkoss.ganttz.util.OperationMetrics;
+import org.zkoss.ganttz.util.OperationStatistics;
+
+/**
+ * Management interface of {@link OperationMetrics}, registered in the platform
+ * MBean server by {@link OperationMetricsExporter}.
+ */
+public interface OperationMetricsMXBean {
+
+    List<OperationStatistics> getOperations();
+
+    List<SnapshotStatistics> getSnapshots();
+
+    RecalculationStatistics getChargedEffortRecalculations();
+
+    void reset();
+
+}
@@ -316,7 +316,7 @@ public class TemplateModel implements ITemplateModel {
             Order order = each.getKey();
             order.useSchedulingDataFor(scenario);
             if (order.isScheduled()) {
-                doReassignationsOn(order, orderVersion.getOwnerScenario(), scenario);
+                doReassignationsOn(order, scenario);
                 orderVersion.savingThroughOwner();
                 orderVersionDAO.save(orderVersion);
             }
@@ -341,9 +341,12 @@ public class TemplateModel implements ITemplateModel {
         return () -> Clients.showBusy(null, "");
     }
 
-    private void doReassignationsOn(Order order, Scenario from, Scenario to) {
-        copyAssignments(order, from, to);
-
+    /**
+     * The assignments aren't copied to the scenario, they're shared with the
+     * predecessor that has them. Only the allocations modified by the
+     * reassignation get their own assignments for the scenario.
+     */
+    private void doReassignationsOn(Order order, Scenario to) {
         GanttDiagramBuilder.createForcingDependencies(
                 order,
                 TemplateModelAdapter.create(
@@ -360,12 +363,6 @@ public class TemplateModel implements ITemplateModel {
         return date != null ? LocalDate.fromDateFields(date) : null;
     }
 
-    private void copyAssignments(Order order, Scenario from, Scenario to) {
-        for (Task each : getTasksFrom(order)) {
-            each.copyAssignmentsFromOneScenarioToAnother(from, to);
-        }
-    }
-
     private void doReassignations(Order order, Scenario scenario) {
         for (Task each : getTasksFrom(order)) {
             each.reassignAllocationsWithNewResources(scenario, resourcesSearcher);
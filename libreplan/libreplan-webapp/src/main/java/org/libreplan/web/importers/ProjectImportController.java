@@ -2,27 +2,36 @@ package org.libreplan.web.importers;
 
 import static org.libreplan.web.I18nHelper._;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.libreplan.business.calendars.entities.BaseCalendar;
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
 import org.libreplan.business.common.exceptions.ValidationException;
-import org.libreplan.business.orders.entities.Order;
-import org.libreplan.business.planner.entities.Dependency;
-import org.libreplan.business.planner.entities.TaskGroup;
 import org.libreplan.importers.CalendarDTO;
 import org.libreplan.importers.ICalendarImporter;
 import org.libreplan.importers.IOrderImporter;
-import org.libreplan.importers.OrderDTO;
+import org.libreplan.importers.OrderImport;
+import org.libreplan.importers.OrderImport.IOrderImportListener;
+import org.libreplan.importers.OrderImport.Stage;
 import org.libreplan.web.common.IMessagesForUser;
 import org.libreplan.web.common.Level;
 import org.libreplan.web.common.MessagesForUser;
-import org.springframework.transaction.annotation.Transactional;
+import org.zkoss.ganttz.util.LongOperationFeedback;
+import org.zkoss.ganttz.util.LongOperationFeedback.IBackGroundOperation;
+import org.zkoss.ganttz.util.LongOperationFeedback.IDesktopUpdate;
+import org.zkoss.ganttz.util.LongOperationFeedback.IDesktopUpdatesEmitter;
 import org.zkoss.util.media.Media;
 import org.zkoss.zk.ui.Component;
+import org.zkoss.zk.ui.util.Clients;
 import org.zkoss.zk.ui.util.GenericForwardComposer;
 import org.zkoss.zkplus.spring.SpringUtil;
+import org.zkoss.zul.Button;
 import org.zkoss.zul.Image;
 import org.zkoss.zul.Label;
 import org.zkoss.zul.Radio;
@@ -36,6 +45,8 @@ public class ProjectImportController extends GenericForwardComposer {
 
     public static final String BREADCRUMBS_SEPARATOR = "/common/img/migas_separacion.gif";
 
+    private static final Log LOG = LogFactory.getLog(ProjectImportController.class);
+
     /**
      * OrderImporter service.
      */
@@ -56,6 +67,16 @@ public class ProjectImportController extends GenericForwardComposer {
 
     private Radio importAll;
 
+    private Button btnImportProject;
+
+    private Button btnResumeImport;
+
+    /**
+     * Import that failed in the middle, it can be resumed from the stage where
+     * it stopped.
+     */
+    private OrderImport pendingImport;
+
     public void doAfterCompose(Component comp) throws Exception {
         super.doAfterCompose(comp);
         comp.setAttribute("projectImportController", this);
@@ -89,6 +110,8 @@ public class ProjectImportController extends GenericForwardComposer {
      * Should be public!
      * Used in projectImport.zul
      *
+     * The file is read here and imported in background, showing the progress.
+     *
      * @param media
      *            Media to be imported.
      */
@@ -99,31 +122,15 @@ public class ProjectImportController extends GenericForwardComposer {
         if (checkFileFormat(file)) {
 
             if (importCalendars.isChecked()) {
-
-                try {
-                    importCalendar(media.getStreamData(), file);
-                    messages.showMessage(Level.INFO, _(file + ": Calendar import successfully!"));
-                } catch (InstanceNotFoundException e) {
-                    messages.showMessage(Level.ERROR, _("Instance not found."));
-                } catch (ValidationException e) {
-                    messages.showMessage(Level.ERROR, e.getMessage());
-                }
+                launch(file, readContent(media), true, null);
 
             } else if (importTasks.isChecked()) {
-                importProject(media.getStreamData(), file);
-
-                messages.showMessage(Level.INFO, _(file + ": Task import successfully!"));
+                byte[] content = readContent(media);
+                launch(file, null, false, orderImporterMPXJ.createImport(content, file, false));
 
             } else if (importAll.isChecked()) {
-
-                try {
-                    importAll(media.getStreamData(), file);
-                    messages.showMessage(Level.INFO, _(file + ": Import successfully!"));
-                } catch (InstanceNotFoundException e) {
-                    messages.showMessage(Level.ERROR, _("Instance not found."));
-                } catch (ValidationException e) {
-                    messages.showMessage(Level.ERROR, e.getMessage());
-                }
+                byte[] content = readContent(media);
+                launch(file, content, false, orderImporterMPXJ.createImport(content, file, true));
 
             } else {
                 messages.showMessage(Level.WARNING, _("Select one of the options."));
@@ -136,73 +143,154 @@ public class ProjectImportController extends GenericForwardComposer {
     }
 
     /**
-     * Imports calendars, orders, task and dependencies from a InputStream.
+     * Resumes the last import that failed from the stage where it stopped.
      *
-     * @param streamData
-     *            InputStream with the data that is going to be imported.
-     * @param file
-     *            Name of the file that we want to import.
+     * Should be public!
+     * Used in projectImport.zul
      */
-    @Transactional
-    private void importAll(InputStream streamData, String file) throws InstanceNotFoundException {
+    public void resumeImport() {
+        if (pendingImport != null) {
+            launch(pendingImport.getFilename(), null, false, pendingImport);
+        }
+    }
 
-        List<CalendarDTO> calendarDTOs = calendarImporterMPXJ.getCalendarDTOs(streamData, file);
+    private byte[] readContent(Media media) {
+        if (media.isBinary() && media.inMemory()) {
+            return media.getByteData();
+        }
+        try (InputStream streamData = media.getStreamData()) {
+            return IOUtils.toByteArray(streamData);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-        List<BaseCalendar> baseCalendars = calendarImporterMPXJ.getBaseCalendars(calendarDTOs);
+    /**
+     * Imports in background the calendars of the file if
+     * <code>calendarsContent</code> is not <code>null</code>, and then runs the
+     * <code>orderImport</code> if there is one.
+     *
+     * @param calendarsOnly
+     *            if <code>true</code> only the calendars are imported.
+     */
+    private void launch(final String file, final byte[] calendarsContent, final boolean calendarsOnly,
+                        final OrderImport orderImport) {
 
-        calendarImporterMPXJ.storeBaseCalendars(baseCalendars);
+        pendingImport = null;
+        setImporting(true);
 
-        OrderDTO importData = calendarImporterMPXJ.getOrderDTO(file);
+        IBackGroundOperation<IDesktopUpdate> operation = new IBackGroundOperation<IDesktopUpdate>() {
+            @Override
+            public void doOperation(final IDesktopUpdatesEmitter<IDesktopUpdate> desktopUpdateEmitter) {
+                /* The order import can only be resumed once the calendars it uses are stored */
+                OrderImport resumable = calendarsContent == null ? orderImport : null;
+                try {
+                    if (calendarsContent != null) {
+                        desktopUpdateEmitter.doUpdate(sendMessage(_("Importing calendars of {0}", file)));
+                        importCalendar(new ByteArrayInputStream(calendarsContent), file);
+                        resumable = orderImport;
+                    }
+                    if (orderImport != null) {
+                        orderImporterMPXJ.runImport(orderImport, new IOrderImportListener() {
+                            @Override
+                            public void progress(Stage stage, int done, int total) {
+                                desktopUpdateEmitter.doUpdate(showProgress(file, stage, done, total));
+                            }
+                        });
+                    }
+                    desktopUpdateEmitter.doUpdate(notifySuccess(file, calendarsOnly, orderImport));
 
-        Order order = orderImporterMPXJ.convertImportDataToOrder(importData, true);
+                } catch (InstanceNotFoundException e) {
+                    desktopUpdateEmitter.doUpdate(notifyError(_("Instance not found."), null));
+                } catch (ValidationException e) {
+                    desktopUpdateEmitter.doUpdate(notifyError(e.getMessage(), resumable));
+                } catch (Exception e) {
+                    LOG.error("error importing " + file, e);
+                    desktopUpdateEmitter.doUpdate(notifyError(
+                            _("{0}: Import failed: {1}", file, e.getMessage()), resumable));
+                }
+            }
+        };
+        LongOperationFeedback.progressive(desktop, operation);
+    }
 
-        TaskGroup taskGroup = orderImporterMPXJ.createTask(importData, true);
+    private void setImporting(boolean importing) {
+        btnImportProject.setDisabled(importing);
+        btnResumeImport.setVisible(!importing && pendingImport != null);
+    }
 
-        List<Dependency> dependencies = orderImporterMPXJ.createDependencies(importData);
+    private IDesktopUpdate showProgress(String file, Stage stage, int done, int total) {
+        switch (stage) {
 
-        orderImporterMPXJ.storeOrder(order, taskGroup, dependencies);
+            case READ_FILE:
+                return sendMessage(_("Reading {0}", file));
 
-    }
+            case CONVERT_ORDER:
+            case CREATE_TASKS:
+                return sendMessage(_("Converting {0}", file));
 
-    /**
-     * Imports the calendars from a InputStream.
-     *
-     * @param streamData
-     *            InputStream with the data that is going to be imported.
-     * @param file
-     *            Name of the file that we want to import.
-     */
-    @Transactional
-    private void importCalendar(InputStream streamData, String file) throws InstanceNotFoundException {
+            case STORE_ORDER:
+                return sendMessage(_("Saving project of {0}", file));
 
-        List<CalendarDTO> calendarDTOs = calendarImporterMPXJ.getCalendarDTOs(streamData, file);
+            case STORE_DEPENDENCIES:
+                return sendMessage(_("Saving dependencies of {0}: {1} of {2}", file, done, total));
 
-        List<BaseCalendar> baseCalendars = calendarImporterMPXJ.getBaseCalendars(calendarDTOs);
+            default:
+                return showEnd();
+        }
+    }
 
-        calendarImporterMPXJ.storeBaseCalendars(baseCalendars);
+    private IDesktopUpdate sendMessage(final String message) {
+        return () -> Clients.showBusy(message);
+    }
+
+    private IDesktopUpdate showEnd() {
+        return () -> Clients.clearBusy();
+    }
+
+    private IDesktopUpdate notifySuccess(final String file, final boolean calendarsOnly,
+                                         final OrderImport orderImport) {
+        return () -> {
+            Clients.clearBusy();
+            setImporting(false);
+            if (calendarsOnly) {
+                messages.showMessage(Level.INFO, _(file + ": Calendar import successfully!"));
+            } else if (!orderImport.isImportCalendar()) {
+                messages.showMessage(Level.INFO, _(file + ": Task import successfully!"));
+            } else {
+                messages.showMessage(Level.INFO, _(file + ": Import successfully!"));
+            }
+        };
+    }
 
+    /**
+     * @param failedImport
+     *            import to be resumed, <code>null</code> if it can't be
+     */
+    private IDesktopUpdate notifyError(final String message, final OrderImport failedImport) {
+        return () -> {
+            Clients.clearBusy();
+            pendingImport = failedImport;
+            setImporting(false);
+            messages.showMessage(Level.ERROR, message);
+        };
     }
 
     /**
-     * Imports an InputStream.
+     * Imports the calendars from a InputStream.
      *
      * @param streamData
      *            InputStream with the data that is going to be imported.
      * @param file
      *            Name of the file that we want to import.
      */
-    @Transactional
-    private void importProject(InputStream streamData, String file) {
-
-        OrderDTO importData = orderImporterMPXJ.getImportData(streamData, file);
-
-        Order order = orderImporterMPXJ.convertImportDataToOrder(importData, false);
+    private void importCalendar(InputStream streamData, String file) throws InstanceNotFoundException {
 
-        TaskGroup taskGroup = orderImporterMPXJ.createTask(importData, false);
+        List<CalendarDTO> calendarDTOs = calendarImporterMPXJ.getCalendarDTOs(streamData, file);
 
-        List<Dependency> dependencies = orderImporterMPXJ.createDependencies(importData);
+        List<BaseCalendar> baseCalendars = calendarImporterMPXJ.getBaseCalendars(calendarDTOs);
 
-        orderImporterMPXJ.storeOrder(order, taskGroup, dependencies);
+        calendarImporterMPXJ.storeBaseCalendars(baseCalendars);
 
     }
 
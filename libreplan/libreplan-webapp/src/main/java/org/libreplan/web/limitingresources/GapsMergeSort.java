@@ -22,16 +22,17 @@ package org.libreplan.web.limitingresources;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.PriorityQueue;
 
 import org.apache.commons.collections4.comparators.BooleanComparator;
 import org.libreplan.business.planner.limiting.entities.Gap.GapOnQueue;
 
 
 /**
- * Utility class for doing a merge sort of several ordered list of Gaps <br />
+ * Utility class for doing a merge sort of several ordered list of Gaps. The
+ * lists are merged with a heap, so it takes O(n log k) for k lists <br />
  * @author Óscar González Fernández <ogonzalez@igalia.com>
  */
 public class GapsMergeSort {
@@ -120,20 +121,20 @@ public class GapsMergeSort {
             return orderedListsOfGaps.get(0);
         }
 
-        List<CurrentGap> currentGaps = CurrentGap.convert(iteratorsFor(orderedListsOfGaps));
-        CurrentGap min = Collections.min(currentGaps);
-
-        while (!currentGaps.isEmpty() && !min.hasFinished()) {
+        // Only the lists not finished are kept, ordered by their current gap
+        PriorityQueue<CurrentGap> currentGaps = new PriorityQueue<>();
+        for (CurrentGap each : CurrentGap.convert(iteratorsFor(orderedListsOfGaps))) {
+            if ( !each.hasFinished() ) {
+                currentGaps.add(each);
+            }
+        }
 
+        while (!currentGaps.isEmpty()) {
+            CurrentGap min = currentGaps.poll();
             result.add(min.consume());
 
-            if ( min.hasFinished() ) {
-
-                currentGaps.remove(min);
-
-                if ( !currentGaps.isEmpty() ) {
-                    min = Collections.min(currentGaps);
-                }
+            if ( !min.hasFinished() ) {
+                currentGaps.add(min);
             }
         }
 
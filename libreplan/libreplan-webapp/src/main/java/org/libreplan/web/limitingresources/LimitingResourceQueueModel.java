@@ -862,10 +862,7 @@ public class LimitingResourceQueueModel implements ILimitingResourceQueueModel {
                                         DateAndHour startTime,
                                         DateAndHour endTime) {
 
-        element.setStartDate(startTime.getDate());
-        element.setStartHour(startTime.getHour());
-        element.setEndDate(endTime.getDate());
-        element.setEndHour(endTime.getHour());
+        element.moveTo(startTime, endTime);
 
         // Update starting and ending dates for associated Task
         Task task = element.getResourceAllocation().getTask();
@@ -38,6 +38,11 @@ public interface IMonteCarloModel {
     Map<LocalDate, BigDecimal> calculateMonteCarlo(List<MonteCarloTask> tasks,
             int times, IDesktopUpdatesEmitter<Integer> iterationProgress);
 
+    /**
+     * Stops the calculation in progress, if any
+     */
+    void cancelMonteCarlo();
+
     void setCriticalPath(List<TaskElement> criticalPath);
 
     String getOrderName();
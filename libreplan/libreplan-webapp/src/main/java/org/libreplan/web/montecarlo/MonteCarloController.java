@@ -27,6 +27,7 @@ import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 
 import org.joda.time.LocalDate;
 import org.libreplan.business.planner.entities.TaskElement;
@@ -75,7 +76,7 @@ public class MonteCarloController extends GenericForwardComposer {
 
     private static final Integer DEFAULT_ITERATIONS = 10000;
 
-    private static final Integer MAX_NUMBER_ITERATIONS = 100000;
+    private static final Integer MAX_NUMBER_ITERATIONS = 1000000;
 
     private final RowRenderer gridCriticalPathTasksRender = new CriticalPathTasksRender();
 
@@ -85,6 +86,8 @@ public class MonteCarloController extends GenericForwardComposer {
 
     private Button btnRunMonteCarlo;
 
+    private Button btnCancelMonteCarlo;
+
     private Checkbox cbGroupByWeeks;
 
     private Listbox lbCriticalPaths;
@@ -103,6 +106,7 @@ public class MonteCarloController extends GenericForwardComposer {
 
         ibIterations.setValue(DEFAULT_ITERATIONS);
         lbCriticalPaths.addEventListener(Events.ON_SELECT, event -> reloadGridCriticalPathTasks());
+        btnCancelMonteCarlo.addEventListener(Events.ON_CLICK, event -> monteCarloModel.cancelMonteCarlo());
 
         btnRunMonteCarlo.addEventListener(Events.ON_CLICK, new EventListener() {
 
@@ -124,13 +128,18 @@ public class MonteCarloController extends GenericForwardComposer {
                                     percentageCompletedNotifier(updatesEmitter));
 
                     updatesEmitter.doUpdate(showCalculatedData(monteCarloData));
+                } catch (CancellationException e) {
+                    updatesEmitter.doUpdate(() -> progressMonteCarloCalculation.setValue(0));
                 } finally {
                     updatesEmitter.doUpdate(disableButton(false));
                 }
             }
 
             private IDesktopUpdate disableButton(final boolean disable) {
-                return () -> btnRunMonteCarlo.setDisabled(disable);
+                return () -> {
+                    btnRunMonteCarlo.setDisabled(disable);
+                    btnCancelMonteCarlo.setDisabled(!disable);
+                };
             }
 
             private int getIterations() {
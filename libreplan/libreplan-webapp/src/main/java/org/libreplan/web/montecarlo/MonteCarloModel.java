@@ -24,16 +24,13 @@ package org.libreplan.web.montecarlo;
 import static org.libreplan.web.I18nHelper._;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 
 import org.apache.commons.lang3.Validate;
 import org.hibernate.Hibernate;
@@ -44,6 +41,9 @@ import org.libreplan.business.planner.daos.ITaskElementDAO;
 import org.libreplan.business.planner.entities.Dependency;
 import org.libreplan.business.planner.entities.Task;
 import org.libreplan.business.planner.entities.TaskElement;
+import org.libreplan.business.planner.montecarlo.MonteCarloExecution;
+import org.libreplan.business.planner.montecarlo.MonteCarloPath;
+import org.libreplan.business.planner.montecarlo.MonteCarloSimulation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Scope;
@@ -75,6 +75,8 @@ public class MonteCarloModel implements IMonteCarloModel {
 
     private List<Task> tasksInCriticalPath;
 
+    private volatile MonteCarloExecution currentExecution;
+
     @Override
     @Transactional(readOnly = true)
     public void setCriticalPath(List<TaskElement> tasksInCriticalPath) {
@@ -194,162 +196,61 @@ public class MonteCarloModel implements IMonteCarloModel {
         return result;
     }
 
+    /**
+     * The simulation runs in parallel on the business layer, this thread just
+     * waits for its result.
+     *
+     * @throws CancellationException
+     *             if {@link #cancelMonteCarlo()} is called meanwhile
+     */
     @Override
     public Map<LocalDate, BigDecimal> calculateMonteCarlo(List<MonteCarloTask> tasks,
                                                           int iterations,
-                                                          IDesktopUpdatesEmitter<Integer> iterationProgress) {
-
-        MonteCarloCalculation monteCarloCalculation = new MonteCarloCalculation(
-                copyOf(tasks), iterations, iterationProgress);
-        Map<LocalDate, BigDecimal> monteCarloValues = monteCarloCalculation.doCalculation();
-
-        // Convert number of times to probability
-        for (LocalDate key : monteCarloValues.keySet()) {
-            BigDecimal times = monteCarloValues.get(key);
-            BigDecimal probability = times.divide(BigDecimal.valueOf(iterations), 8, RoundingMode.HALF_UP);
-            monteCarloValues.put(key, probability);
+                                                          final IDesktopUpdatesEmitter<Integer> iterationProgress) {
+
+        MonteCarloSimulation simulation = MonteCarloSimulation.create(toPath(tasks), iterations);
+        MonteCarloExecution execution = simulation.start(iterationProgress::doUpdate);
+        currentExecution = execution;
+        try {
+            return execution.getResult().getProbabilities();
+        } catch (InterruptedException e) {
+            execution.cancel();
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        } finally {
+            currentExecution = null;
         }
-
-        return monteCarloValues;
     }
 
-    private List<MonteCarloTask> copyOf(List<MonteCarloTask> tasks) {
-        List<MonteCarloTask> result = new ArrayList<>();
+    private MonteCarloPath toPath(List<MonteCarloTask> tasks) {
+        Validate.notEmpty(tasks);
+        MonteCarloPath result = MonteCarloPath.startingOn(tasks.get(0).getStartDate());
 
-        for (MonteCarloTask each: tasks) {
-            result.add(MonteCarloTask.copy(each));
+        for (MonteCarloTask each : tasks) {
+            result.addTask(
+                    realDays(each, each.getPessimisticDuration()), each.getPessimisticDurationPercentage(),
+                    realDays(each, each.getNormalDuration()), each.getNormalDurationPercentage(),
+                    realDays(each, each.getOptimisticDuration()));
         }
 
         return result;
     }
 
-    @Override
-    public String getOrderName() {
-        return orderName;
+    private int realDays(MonteCarloTask task, BigDecimal workableDays) {
+        return MonteCarloTask.calculateRealDurationFor(task, workableDays).intValue();
     }
 
-    private static class MonteCarloCalculation {
-
-        private Map<MonteCarloTask, Set<EstimationRange>> estimationRangesForTasks = new HashMap<>();
-
-        private List<MonteCarloTask> tasks;
-
-        private int iterations;
-
-        private IDesktopUpdatesEmitter<Integer> iterationProgress;
-
-        public MonteCarloCalculation(List<MonteCarloTask> tasks,
-                                     int iterations,
-                                     IDesktopUpdatesEmitter<Integer> iterationProgress) {
-
-            adjustDurationDays(tasks);
-            initializeEstimationRanges(tasks);
-            this.tasks = tasks;
-            this.iterations = iterations;
-            this.iterationProgress = iterationProgress;
-        }
-
-        public Map<LocalDate, BigDecimal> doCalculation() {
-            Map<LocalDate, BigDecimal> result = new HashMap<>();
-
-            final int onePercent = iterations / 100;
-            Random randomGenerator = new Random((new Date()).getTime());
-
-            // Calculate number of times a date is repeated
-            for (int i = 0; i < iterations; i++) {
-                LocalDate endDate = calculateEndDateFor(tasks, randomGenerator);
-                BigDecimal times = result.get(endDate);
-
-                times = times != null ? times.add(BigDecimal.ONE) : BigDecimal.ONE;
-
-                result.put(endDate, times);
-
-                if (i % onePercent == 0) {
-                    increaseProgressMeter((i * 100) / iterations);
-                }
-            }
-
-            return result;
-        }
-
-        private void increaseProgressMeter(int completedPercent) {
-            iterationProgress.doUpdate(completedPercent);
-        }
-
-        private LocalDate calculateEndDateFor(List<MonteCarloTask> tasks, Random randomGenerator) {
-            Validate.notEmpty(tasks);
-            BigDecimal durationDays = BigDecimal.ZERO;
-            MonteCarloTask first = tasks.get(0);
-
-            for (MonteCarloTask each : tasks) {
-                BigDecimal randomNumber = generate(randomGenerator);
-                durationDays = durationDays.add(getDuration(each, randomNumber));
-            }
-
-            return first.getStartDate().plusDays(durationDays.intValue());
-        }
-
-        private BigDecimal generate(Random randomGenerator) {
-            return BigDecimal.valueOf(randomGenerator.nextDouble());
-        }
-
-        private BigDecimal getDuration(MonteCarloTask each, BigDecimal random) {
-            ESTIMATION_TYPE type = getEstimationType(each, random);
-            Validate.notNull(type);
-            switch (type) {
-
-                case PESSIMISTIC:
-                    return each.getPessimisticDuration();
-
-                case NORMAL:
-                    return each.getNormalDuration();
-
-                case OPTIMISTIC:
-                    return each.getOptimisticDuration();
-
-                default:
-                    break;
-            }
-
-            return BigDecimal.ZERO;
-        }
-
-        private void adjustDurationDays(List<MonteCarloTask> tasks) {
-            for (MonteCarloTask each : tasks) {
-                each.setPessimisticDuration(MonteCarloTask.calculateRealDurationFor(each, each.getPessimisticDuration()));
-                each.setNormalDuration(MonteCarloTask.calculateRealDurationFor(each, each.getNormalDuration()));
-                each.setOptimisticDuration(MonteCarloTask.calculateRealDurationFor(each, each.getOptimisticDuration()));
-            }
-        }
-
-        private void initializeEstimationRanges(List<MonteCarloTask> tasks) {
-            estimationRangesForTasks.clear();
-
-            for (MonteCarloTask each : tasks) {
-                createEstimationRangesFor(each);
-            }
-        }
-
-        private void createEstimationRangesFor(MonteCarloTask task) {
-            Set<EstimationRange> estimationRanges = new HashSet<>();
-            estimationRanges.add(EstimationRange.pessimisticRangeFor(task));
-            estimationRanges.add(EstimationRange.normalRangeFor(task));
-            estimationRanges.add(EstimationRange.optimisticRangeFor(task));
-            estimationRangesForTasks.put(task, estimationRanges);
-        }
-
-        public ESTIMATION_TYPE getEstimationType(MonteCarloTask task, BigDecimal random) {
-            Set<EstimationRange> estimationRanges = estimationRangesForTasks.get(task);
-
-            for (EstimationRange each : estimationRanges) {
-                if (each.contains(random)) {
-                    return each.getEstimationType();
-                }
-            }
-
-            return null;
+    @Override
+    public void cancelMonteCarlo() {
+        MonteCarloExecution execution = currentExecution;
+        if (execution != null) {
+            execution.cancel();
         }
+    }
 
+    @Override
+    public String getOrderName() {
+        return orderName;
     }
 
 }
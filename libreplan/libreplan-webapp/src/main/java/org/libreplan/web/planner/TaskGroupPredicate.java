@@ -312,6 +312,28 @@ public class TaskGroupPredicate implements IPredicate {
         return false;
     }
 
+    /**
+     * @return <code>true</code> if all the filters are also checked when the
+     *         orders are retrieved from the database, so the orders that will
+     *         be accepted are known without loading their tasks
+     */
+    public boolean isCheckedOnDatabase() {
+        if (!StringUtils.isEmpty(name)) {
+            return false;
+        }
+        for (FilterPair filter : getFilters()) {
+            switch ((TaskGroupFilterEnum) filter.getType()) {
+            case Label:
+            case ExternalCompany:
+            case State:
+                break;
+            default:
+                return false;
+            }
+        }
+        return true;
+    }
+
     public Boolean getExcludeFinishedProjects() {
         return excludeFinishedProject;
     }
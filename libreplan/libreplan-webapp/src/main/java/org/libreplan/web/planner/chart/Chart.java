@@ -24,12 +24,20 @@ import org.apache.commons.lang3.Validate;
 import org.zkforge.timeplot.Timeplot;
 import org.zkoss.ganttz.timetracker.TimeTracker;
 import org.zkoss.ganttz.timetracker.zoom.ZoomLevel;
+import org.zkoss.ganttz.util.OperationMetrics;
 
 /**
  * @author Óscar González Fernández <ogonzalez@igalia.com>
  */
 public class Chart {
 
+    /**
+     * Names of the filling of the charts in {@link OperationMetrics}
+     */
+    public static final String FILL_EARNED_VALUE_CHART_OPERATION = "planner.fill-earned-value-chart";
+
+    public static final String FILL_LOAD_CHART_OPERATION = "planner.fill-load-chart";
+
     private final Timeplot timeplot;
 
     private final IChartFiller filler;
@@ -46,7 +54,14 @@ public class Chart {
     }
 
     public void fillChart() {
-        filler.fillChart(timeplot, timeTracker.getRealInterval(), timeTracker.getHorizontalSize());
+        OperationMetrics.Timer timer = OperationMetrics.start(filler instanceof EarnedValueChartFiller
+                ? FILL_EARNED_VALUE_CHART_OPERATION
+                : FILL_LOAD_CHART_OPERATION);
+        try {
+            filler.fillChart(timeplot, timeTracker.getRealInterval(), timeTracker.getHorizontalSize());
+        } finally {
+            timer.stop();
+        }
     }
 
     public void setZoomLevel(ZoomLevel zoomLevel) {
@@ -105,6 +105,10 @@ public class CompanyPlanningController implements Composer {
 
     private Button btnShowAdvances;
 
+    private Combobox cbPages;
+
+    private TaskGroupPredicate currentPredicate;
+
     public CompanyPlanningController() {
     }
 
@@ -143,6 +147,7 @@ public class CompanyPlanningController implements Composer {
         bdFilters.setFinder("taskGroupsMultipleFiltersFinder");
 
         loadPredefinedBandboxFilter();
+        initializeComboboxPages(filterComponent);
 
         filterComponent.setVisible(true);
         checkCreationPermissions();
@@ -235,6 +240,65 @@ public class CompanyPlanningController implements Composer {
 
     }
 
+    /**
+     * The pages are only shown if the model can paginate the orders with the
+     * current filters.
+     */
+    private void initializeComboboxPages(Component filterComponent) {
+        cbPages = new Combobox();
+        cbPages.setWidth("90px");
+        cbPages.setReadonly(true);
+        cbPages.setTooltiptext(_("Projects shown"));
+        cbPages.setVisible(false);
+        cbPages.addEventListener(Events.ON_SELECT, new EventListener() {
+            @Override
+            public void onEvent(Event event) {
+                onSelectPage();
+            }
+        });
+        filterComponent.appendChild(cbPages);
+    }
+
+    private void onSelectPage() {
+        Comboitem selected = cbPages.getSelectedItem();
+        if ( selected != null ) {
+            model.setPageFilterPosition((Integer) selected.getValue());
+            filterByPredicate(currentPredicate);
+        }
+    }
+
+    private void refreshComboboxPages() {
+        int total = model.getPaginatedOrdersCount();
+        int pageSize = model.getPageSize();
+
+        cbPages.getChildren().clear();
+        if ( total <= pageSize ) {
+            cbPages.setVisible(false);
+            return;
+        }
+
+        for (int start = 0; start < total; start += pageSize) {
+            String label = (start + 1) + " - " + Math.min(start + pageSize, total);
+            appendPage(label, label, start);
+        }
+        appendPage(_("All"), _("Show all elements"), -1);
+
+        for (Comboitem each : cbPages.getItems()) {
+            if ( each.getValue().equals(model.getPageFilterPosition()) ) {
+                cbPages.setSelectedItem(each);
+            }
+        }
+        cbPages.setVisible(true);
+    }
+
+    private void appendPage(String label, String description, int position) {
+        Comboitem item = new Comboitem();
+        item.setLabel(label);
+        item.setDescription(description);
+        item.setValue(position);
+        cbPages.appendChild(item);
+    }
+
     private class ProgressTypeRenderer implements ComboitemRenderer {
 
         @Override
@@ -256,7 +320,9 @@ public class CompanyPlanningController implements Composer {
 
     public void setConfigurationForPlanner() {
         // Added predicate
-        model.setConfigurationToPlanner(planner, additional, doubleClickCommand, createPredicate());
+        currentPredicate = createPredicate();
+        model.setConfigurationToPlanner(planner, additional, doubleClickCommand, currentPredicate);
+        refreshComboboxPages();
         model.setTabsController(tabsController);
         planner.updateSelectedZoomLevel();
         planner.invalidate();
@@ -332,6 +398,7 @@ public class CompanyPlanningController implements Composer {
                 filterExcludeFinishedProject.isChecked());
 
         FilterUtils.writeProjectPlanningFilterChanged(true);
+        model.setPageFilterPosition(0);
         filterByPredicate(createPredicate());
     }
 
@@ -370,13 +437,17 @@ public class CompanyPlanningController implements Composer {
 
     private void filterByPredicate(TaskGroupPredicate predicate) {
         // Recalculate predicate
+        currentPredicate = predicate;
         model.setConfigurationToPlanner(planner, additional, doubleClickCommand, predicate);
+        refreshComboboxPages();
         planner.updateSelectedZoomLevel();
         planner.invalidate();
     }
 
     public void setPredicate() {
-        model.setConfigurationToPlanner(planner, additional, doubleClickCommand, createPredicate());
+        currentPredicate = createPredicate();
+        model.setConfigurationToPlanner(planner, additional, doubleClickCommand, currentPredicate);
+        refreshComboboxPages();
     }
 
     public void setTabsController(MultipleTabsPlannerController tabsController) {
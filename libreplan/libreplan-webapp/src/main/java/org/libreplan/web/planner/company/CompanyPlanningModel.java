@@ -36,7 +36,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.joda.time.LocalDate;
 import org.libreplan.business.calendars.entities.AvailabilityTimeLine;
 import org.libreplan.business.calendars.entities.BaseCalendar;
@@ -128,6 +132,14 @@ public class CompanyPlanningModel implements ICompanyPlanningModel {
 
     private static final String INDICATOR = "indicator";
 
+    private static final Log LOG = LogFactory.getLog(CompanyPlanningModel.class);
+
+    /**
+     * Maximum number of orders loaded at the same time if all the filters can
+     * be checked on the database.
+     */
+    private static final int PAGE_SIZE = 50;
+
     @Autowired
     private IOrderDAO orderDAO;
 
@@ -152,6 +164,9 @@ public class CompanyPlanningModel implements ICompanyPlanningModel {
     @Autowired
     private PredefinedDatabaseSnapshots databaseSnapshots;
 
+    @Autowired
+    private CompanyPlanningOrdersLoader ordersLoader;
+
     private List<IZoomLevelChangedListener> keepAliveZoomListeners = new ArrayList<>();
 
     private List<Checkbox> earnedValueChartConfigurationCheckboxes = new ArrayList<>();
@@ -166,6 +181,21 @@ public class CompanyPlanningModel implements ICompanyPlanningModel {
 
     private Boolean filterExcludeFinishedProject;
 
+    /**
+     * Ids of all the orders that can be shown by pages, empty if the orders
+     * can't be paginated with the current filters.
+     */
+    private List<Long> paginatedOrdersIds = Collections.emptyList();
+
+    /**
+     * Position of the first order of the page shown, -1 to show all of them.
+     */
+    private int pageFilterPosition = 0;
+
+    private List<Long> prefetchedOrdersIds = Collections.emptyList();
+
+    private Future<List<Order>> prefetchedOrders;
+
     private static final class TaskElementNavigator implements IStructureNavigator<TaskElement> {
 
         @Override
@@ -689,9 +719,8 @@ public class CompanyPlanningModel implements ICompanyPlanningModel {
     private List<TaskElement> retainOnlyTopLevel(TaskGroupPredicate predicate) {
         List<TaskElement> result = new ArrayList<>();
 
-        List<Order> list = getOrders(predicate);
+        List<Order> list = getOrdersToShow(predicate);
         for (Order order : list) {
-            order.useSchedulingDataFor(currentScenario, false);
             TaskGroup associatedTaskElement = order.getAssociatedTaskElement();
 
             if (associatedTaskElement != null) {
@@ -710,53 +739,178 @@ public class CompanyPlanningModel implements ICompanyPlanningModel {
         return result;
     }
 
+    /**
+     * If all the filters can be checked on the database, only the orders of
+     * the current page are loaded and the next page is loaded in background.
+     * Otherwise all the orders are loaded, as their tasks are needed to know
+     * which ones are accepted.
+     */
+    private List<Order> getOrdersToShow(TaskGroupPredicate predicate) {
+        if (!predicate.isCheckedOnDatabase()) {
+            paginatedOrdersIds = Collections.emptyList();
+            List<Order> result = getOrders(predicate);
+            for (Order each : result) {
+                each.useSchedulingDataFor(currentScenario, false);
+            }
+            return result;
+        }
+
+        paginatedOrdersIds = getOrdersIds(predicate);
+        if (pageFilterPosition >= paginatedOrdersIds.size()) {
+            pageFilterPosition = 0;
+        }
+        if (pageFilterPosition == -1 || paginatedOrdersIds.size() <= PAGE_SIZE) {
+            return ordersLoader.load(currentScenario, paginatedOrdersIds);
+        }
+
+        List<Long> pageIds = getPage(pageFilterPosition);
+        List<Order> result = takePrefetched(pageIds);
+        if (result == null) {
+            result = ordersLoader.load(currentScenario, pageIds);
+        }
+        prefetchNextPage();
+
+        return result;
+    }
+
+    private List<Long> getPage(int position) {
+        return paginatedOrdersIds.subList(position, Math.min(position + PAGE_SIZE, paginatedOrdersIds.size()));
+    }
+
+    private List<Order> takePrefetched(List<Long> pageIds) {
+        Future<List<Order>> prefetched = prefetchedOrders;
+        boolean samePage = prefetchedOrdersIds.equals(pageIds);
+        discardPrefetched();
+        if (prefetched == null || !samePage) {
+            return null;
+        }
+        try {
+            return prefetched.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            LOG.warn("error loading in advance the orders of the company planning, loading them again", e);
+            return null;
+        }
+    }
+
+    private void prefetchNextPage() {
+        int nextPosition = pageFilterPosition + PAGE_SIZE;
+        if (nextPosition < paginatedOrdersIds.size()) {
+            prefetchedOrdersIds = new ArrayList<>(getPage(nextPosition));
+            prefetchedOrders = ordersLoader.prefetch(currentScenario, prefetchedOrdersIds);
+        }
+    }
+
+    private void discardPrefetched() {
+        if (prefetchedOrders != null) {
+            prefetchedOrders.cancel(false);
+        }
+        prefetchedOrders = null;
+        prefetchedOrdersIds = Collections.emptyList();
+    }
+
+    @Override
+    public int getPageSize() {
+        return PAGE_SIZE;
+    }
+
+    @Override
+    public int getPaginatedOrdersCount() {
+        return paginatedOrdersIds.size();
+    }
+
+    @Override
+    public int getPageFilterPosition() {
+        return pageFilterPosition;
+    }
+
+    @Override
+    public void setPageFilterPosition(int pageFilterPosition) {
+        this.pageFilterPosition = pageFilterPosition;
+    }
+
     private List<Order> getOrders(TaskGroupPredicate predicate) {
-        String username = SecurityUtils.getSessionUserLoginName();
+        OrdersFilter filter = OrdersFilter.from(predicate);
+        if (filter == null) {
+            return Collections.emptyList();
+        }
 
-        Date startDate = predicate.getStartDate();
-        Date endDate = predicate.getFinishDate();
-        Boolean excludeFinishedProject = predicate.getExcludeFinishedProjects();
-        List<org.libreplan.business.labels.entities.Label> labels = new ArrayList<>();
-        List<Criterion> criteria = new ArrayList<>();
-        ExternalCompany customer = null;
-        OrderStatusEnum state = null;
+        return orderDAO.getOrdersByReadAuthorizationBetweenDatesByLabelsCriteriaCustomerAndState(
+                SecurityUtils.getSessionUserLoginName(), currentScenario, predicate.getStartDate(),
+                predicate.getFinishDate(), filter.labels, filter.criteria, filter.customer, filter.state,
+                predicate.getExcludeFinishedProjects());
+    }
 
-        for (FilterPair filterPair : predicate.getFilters()) {
-            TaskGroupFilterEnum type = (TaskGroupFilterEnum) filterPair.getType();
+    private List<Long> getOrdersIds(TaskGroupPredicate predicate) {
+        OrdersFilter filter = OrdersFilter.from(predicate);
+        if (filter == null) {
+            return Collections.emptyList();
+        }
 
-            switch (type) {
+        return orderDAO.getOrdersIdsByReadAuthorizationBetweenDatesByLabelsCriteriaCustomerAndState(
+                SecurityUtils.getSessionUserLoginName(), currentScenario, predicate.getStartDate(),
+                predicate.getFinishDate(), filter.labels, filter.criteria, filter.customer, filter.state,
+                predicate.getExcludeFinishedProjects());
+    }
 
-                case Label:
-                    labels.add((org.libreplan.business.labels.entities.Label) filterPair.getValue());
-                    break;
+    /**
+     * The filters of a {@link TaskGroupPredicate} checked by {@link IOrderDAO}.
+     */
+    private static class OrdersFilter {
 
-                case Criterion:
-                    criteria.add((Criterion) filterPair.getValue());
-                    break;
+        private final List<org.libreplan.business.labels.entities.Label> labels = new ArrayList<>();
 
-                case ExternalCompany:
-                    if (customer != null) {
-                        // It's impossible to have an Order associated to more than 1 customer
-                        return Collections.emptyList();
-                    }
-                    customer = (ExternalCompany) filterPair.getValue();
-                    break;
+        private final List<Criterion> criteria = new ArrayList<>();
 
-                case State:
-                    if (state != null) {
-                        // It's impossible to have an Order associated with more than 1 state
-                        return Collections.emptyList();
-                    }
-                    state = (OrderStatusEnum) filterPair.getValue();
-                    break;
+        private ExternalCompany customer = null;
 
-                default:
-                    break;
+        private OrderStatusEnum state = null;
+
+        /**
+         * @return <code>null</code> if no order can pass the filters
+         */
+        private static OrdersFilter from(TaskGroupPredicate predicate) {
+            OrdersFilter result = new OrdersFilter();
+
+            for (FilterPair filterPair : predicate.getFilters()) {
+                TaskGroupFilterEnum type = (TaskGroupFilterEnum) filterPair.getType();
+
+                switch (type) {
+
+                    case Label:
+                        result.labels.add((org.libreplan.business.labels.entities.Label) filterPair.getValue());
+                        break;
+
+                    case Criterion:
+                        result.criteria.add((Criterion) filterPair.getValue());
+                        break;
+
+                    case ExternalCompany:
+                        if (result.customer != null) {
+                            // It's impossible to have an Order associated to more than 1 customer
+                            return null;
+                        }
+                        result.customer = (ExternalCompany) filterPair.getValue();
+                        break;
+
+                    case State:
+                        if (result.state != null) {
+                            // It's impossible to have an Order associated with more than 1 state
+                            return null;
+                        }
+                        result.state = (OrderStatusEnum) filterPair.getValue();
+                        break;
+
+                    default:
+                        break;
+                }
             }
+
+            return result;
         }
 
-        return orderDAO.getOrdersByReadAuthorizationBetweenDatesByLabelsCriteriaCustomerAndState(
-                username, currentScenario, startDate, endDate, labels, criteria, customer, state, excludeFinishedProject);
     }
 
     @Override
@@ -0,0 +1,128 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.web.planner.company;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.libreplan.business.common.IAdHocTransactionService;
+import org.libreplan.business.orders.daos.IOrderDAO;
+import org.libreplan.business.orders.entities.Order;
+import org.libreplan.business.planner.entities.TaskGroup;
+import org.libreplan.business.scenarios.entities.Scenario;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the {@link Order orders} shown by the company planning, preparing the
+ * scheduling data of the current {@link Scenario} and their top level
+ * {@link TaskGroup}.
+ * <p>
+ * The orders can be loaded in advance in another thread and transaction, so
+ * the next page of the company planning is ready when the user moves to it.
+ * The orders loaded in this way are detached, as the ones loaded in previous
+ * requests.
+ * </p>
+ */
+@Component
+@Scope(BeanDefinition.SCOPE_SINGLETON)
+public class CompanyPlanningOrdersLoader {
+
+    /**
+     * Maximum number of pages loaded in advance at the same time.
+     */
+    private static final int PREFETCHING_THREADS = 2;
+
+    @Autowired
+    private IOrderDAO orderDAO;
+
+    @Autowired
+    private IAdHocTransactionService transactionService;
+
+    private final ExecutorService executor = createExecutor();
+
+    private static ExecutorService createExecutor() {
+        ThreadPoolExecutor result = new ThreadPoolExecutor(PREFETCHING_THREADS, PREFETCHING_THREADS, 60,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        result.allowCoreThreadTimeOut(true);
+
+        return result;
+    }
+
+    /**
+     * Loads the orders in the current transaction.
+     *
+     * @return the orders in the same order as the ids. The ids of the orders
+     *         removed meanwhile are ignored
+     */
+    public List<Order> load(Scenario scenario, List<Long> ordersIds) {
+        Map<Long, Order> byId = new HashMap<>();
+        for (Order each : orderDAO.findByIds(ordersIds)) {
+            byId.put(each.getId(), each);
+        }
+
+        List<Order> result = new ArrayList<>();
+        for (Long each : ordersIds) {
+            Order order = byId.get(each);
+            if ( order != null ) {
+                prepare(scenario, order);
+                result.add(order);
+            }
+        }
+
+        return result;
+    }
+
+    private static void prepare(Scenario scenario, Order order) {
+        order.useSchedulingDataFor(scenario, false);
+        TaskGroup taskGroup = order.getAssociatedTaskElement();
+        if ( taskGroup != null ) {
+            // Forces the load of the data used to filter and sort the tasks
+            taskGroup.getName();
+            taskGroup.getStartDate();
+            taskGroup.getEndDate();
+        }
+    }
+
+    /**
+     * Loads the orders in background in a new read only transaction.
+     */
+    public Future<List<Order>> prefetch(final Scenario scenario, final List<Long> ordersIds) {
+        final List<Long> ids = new ArrayList<>(ordersIds);
+
+        return executor.submit(new Callable<List<Order>>() {
+            @Override
+            public List<Order> call() {
+                return transactionService.runOnAnotherReadOnlyTransaction(() -> load(scenario, ids));
+            }
+        });
+    }
+
+}
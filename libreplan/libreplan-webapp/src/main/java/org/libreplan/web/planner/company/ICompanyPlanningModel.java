@@ -55,4 +55,20 @@ public interface ICompanyPlanningModel {
     TaskGroupPredicate getDefaultPredicate();
 
     User getUser();
+
+    int getPageSize();
+
+    /**
+     * @return the number of orders that can be shown by pages, zero if the
+     *         current filters don't allow to paginate them
+     */
+    int getPaginatedOrdersCount();
+
+    /**
+     * @return the position of the first order shown, -1 if all the orders
+     *         are shown
+     */
+    int getPageFilterPosition();
+
+    void setPageFilterPosition(int pageFilterPosition);
 }
\ No newline at end of file
@@ -187,6 +187,7 @@ public class OrderPlanningController implements Composer {
 
         planner.setAreShownReportedHoursByDefault(Planner.guessShowReportedHoursByDefault(parameters));
         planner.setAreShownMoneyCostBarByDefault(Planner.guessShowMoneyCostBarByDefault(parameters));
+        planner.setVirtualizedRendering(Planner.guessVirtualizedRendering(parameters));
 
         orderElementFilter = (Vbox) planner.getFellow("orderElementFilter");
         // Configuration of the order filter
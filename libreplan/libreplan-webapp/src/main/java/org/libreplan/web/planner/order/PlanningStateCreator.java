@@ -29,6 +29,7 @@ import java.util.Set;
 
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.logging.Log;
 import org.hibernate.Hibernate;
 import org.joda.time.LocalDate;
 import org.libreplan.business.advance.entities.DirectAdvanceAssignment;
@@ -37,6 +38,9 @@ import org.libreplan.business.calendars.entities.BaseCalendar;
 import org.libreplan.business.common.IAdHocTransactionService;
 import org.libreplan.business.common.daos.IEntitySequenceDAO;
 import org.libreplan.business.common.entities.EntityNameEnum;
+import org.libreplan.business.hibernate.SavedStates;
+import org.libreplan.business.hibernate.SavedStatesInterceptor;
+import org.libreplan.business.hibernate.StatementCounter;
 import org.libreplan.business.labels.entities.Label;
 import org.libreplan.business.orders.daos.IOrderDAO;
 import org.libreplan.business.orders.entities.HoursGroup;
@@ -92,6 +96,8 @@ import org.springframework.stereotype.Component;
 import org.zkoss.ganttz.adapters.IAdapterToTaskFundamentalProperties;
 import org.zkoss.ganttz.adapters.IStructureNavigator;
 import org.zkoss.ganttz.adapters.PlannerConfiguration;
+import org.zkoss.ganttz.util.OperationMetrics;
+import org.zkoss.ganttz.util.ProfilingLogFactory;
 import org.zkoss.zk.ui.Desktop;
 
 /**
@@ -106,8 +112,23 @@ import org.zkoss.zk.ui.Desktop;
 @Scope(BeanDefinition.SCOPE_SINGLETON)
 public class PlanningStateCreator {
 
+    private static final Log PROFILING_LOG = ProfilingLogFactory.getLog(PlanningStateCreator.class);
+
     private static final String ATTRIBUTE_NAME = PlanningState.class.getName();
 
+    /**
+     * The incremental propagation of the dependencies can be disabled with
+     * <code>-Dlibreplan-incremental-propagation=false</code>
+     */
+    private static final boolean INCREMENTAL_PROPAGATION =
+            Boolean.parseBoolean(System.getProperty("libreplan-incremental-propagation", "true"));
+
+    /**
+     * Name of the loading of the planning of an order in
+     * {@link OperationMetrics}
+     */
+    public static final String OPEN_ORDER_OPERATION = "planner.open-order";
+
     /**
      * When the scenario is not the owner, all the tasks are copied, creating new assignments.
      * But the previous assignments keep on being referenced by the resource and must be discarded.
@@ -238,7 +259,13 @@ public class PlanningStateCreator {
                 return result;
             }
         }
-        PlanningState result = createPlanning(reload(order));
+        /*
+         * The states of the entities loaded are saved, so only the ones
+         * modified are updated when saving the planning
+         */
+        SavedStates savedStates = new SavedStates();
+        PlanningState result = SavedStatesInterceptor.runUsing(savedStates, () -> createPlanning(reload(order)));
+        result.savedStates = savedStates;
 
         result.onRetrieval();
 
@@ -274,29 +301,48 @@ public class PlanningStateCreator {
     }
 
     private PlanningState createPlanning(Order orderReloaded) {
-        final List<Resource> allResources = resourceDAO.list(Resource.class);
-        criterionDAO.list(Criterion.class);
+        OperationMetrics.Timer timer = OperationMetrics.start(OPEN_ORDER_OPERATION);
+        StatementCounter.Count statements = StatementCounter.start();
+        int fetchPlanStatements = 0;
+        PlanningState result;
+        try {
+            final List<Resource> allResources = resourceDAO.list(Resource.class);
+            criterionDAO.list(Criterion.class);
+
+            TaskGroup rootTask = orderReloaded.getAssociatedTaskElement();
+            if (rootTask != null) {
+                /*
+                 * The data is loaded by the fetch plan with set based queries,
+                 * the following traversals only check it's initialized
+                 */
+                fetchPlanStatements = taskDAO.loadPlanningDataOf(orderReloaded);
+            }
 
-        forceLoadOfOrderAssociatedData(orderReloaded);
-        TaskGroup rootTask = orderReloaded.getAssociatedTaskElement();
+            forceLoadOfOrderAssociatedData(orderReloaded);
 
-        if (rootTask != null) {
-            forceLoadOf(rootTask);
-            forceLoadDayAssignments(orderReloaded.getResources(FilterType.KEEP_ALL));
-            forceLoadOfDepedenciesCollections(rootTask);
-            forceLoadOfLabels(Collections.singletonList(rootTask));
-        }
+            if (rootTask != null) {
+                forceLoadOf(rootTask, orderReloaded);
+                forceLoadDayAssignments(orderReloaded.getResources(FilterType.KEEP_ALL));
+                forceLoadOfDepedenciesCollections(rootTask);
+                forceLoadOfLabels(Collections.singletonList(rootTask));
+            }
 
-        if (orderReloaded.getCalendar() != null) {
-            BaseCalendarModel.forceLoadBaseCalendar(orderReloaded.getCalendar());
-        }
+            if (orderReloaded.getCalendar() != null) {
+                BaseCalendarModel.forceLoadBaseCalendar(orderReloaded.getCalendar());
+            }
 
-        PlanningState result = new PlanningState(orderReloaded, allResources
-        );
+            result = new PlanningState(orderReloaded, allResources);
 
-        forceLoadOfWorkingHours(result.getInitial());
+            forceLoadOfWorkingHours(result.getInitial());
 
-        moneyCostCalculator.resetMoneyCostMap();
+            moneyCostCalculator.resetMoneyCostMap();
+        } finally {
+            statements.stop();
+            timer.stop();
+        }
+        result.statementsOnLoad = statements.getStatements();
+        PROFILING_LOG.debug("loading planning of order " + orderReloaded.getCode() + " executed "
+                + statements.getStatements() + " statements, " + fetchPlanStatements + " of them in the fetch plan");
 
         return result;
     }
@@ -338,19 +384,19 @@ public class PlanningStateCreator {
         }
     }
 
-    private void forceLoadOf(TaskElement taskElement) {
-        forceLoadOfDataAssociatedTo(taskElement);
+    private void forceLoadOf(TaskElement taskElement, Order order) {
+        forceLoadOfDataAssociatedTo(taskElement, order);
 
         if (taskElement instanceof TaskGroup) {
-            findChildrenWithQueryToAvoidProxies((TaskGroup) taskElement);
-
             for (TaskElement each : taskElement.getChildren()) {
-                forceLoadOf(each);
+                Hibernate.initialize(each);
+                each.getParent().getName();
+                forceLoadOf(each, order);
             }
         }
     }
 
-    private void forceLoadOfDataAssociatedTo(TaskElement each) {
+    private void forceLoadOfDataAssociatedTo(TaskElement each, Order order) {
         forceLoadOfResourceAllocationsResourcesAndAssignmentFunction(each);
         forceLoadOfCriterions(each);
         forceLoadOfSubcontractedTaskData(each);
@@ -358,7 +404,7 @@ public class PlanningStateCreator {
         BaseCalendar calendar = each.getOwnCalendar();
 
         if (calendar == null && each.getOrderElement() != null) {
-            calendar = orderDAO.loadOrderAvoidingProxyFor(each.getOrderElement()).getCalendar();
+            calendar = order.getCalendar();
         }
 
         if (calendar != null) {
@@ -423,13 +469,6 @@ public class PlanningStateCreator {
         }
     }
 
-    private void findChildrenWithQueryToAvoidProxies(TaskGroup group) {
-        for (TaskElement eachTask : taskDAO.findChildrenOf(group)) {
-            Hibernate.initialize(eachTask);
-            eachTask.getParent().getName();
-        }
-    }
-
     private IScenarioInfo buildScenarioInfo(Order orderReloaded) {
         Scenario currentScenario = scenarioManager.getCurrent();
 
@@ -737,6 +776,10 @@ public class PlanningStateCreator {
 
         private PlannerConfiguration<TaskElement> cachedConfiguration;
 
+        private int statementsOnLoad = 0;
+
+        private SavedStates savedStates = new SavedStates();
+
         public PlanningState(Order order, Collection<? extends Resource> initialResources) {
             Validate.notNull(order);
             this.order = order;
@@ -805,6 +848,23 @@ public class PlanningStateCreator {
             return order;
         }
 
+        /**
+         * @return the SQL statements executed while the planning was loaded,
+         *         it allows to detect N+1 problems
+         */
+        public int getStatementsOnLoad() {
+            return statementsOnLoad;
+        }
+
+        /**
+         * @return the states of the entities of the planning as they are
+         *         stored in the database, they're empty if the planning
+         *         hasn't been loaded from it
+         */
+        public SavedStates getSavedStates() {
+            return savedStates;
+        }
+
         public boolean isEmpty() {
             return getRootTask() == null;
         }
@@ -843,6 +903,7 @@ public class PlanningStateCreator {
             result.setNotAfterThan(order.getDeadline());
             result.setDependenciesConstraintsHavePriority(order.getDependenciesConstraintsHavePriority());
             result.setScheduleBackwards(order.isScheduleBackwards());
+            result.setIncrementalPropagation(INCREMENTAL_PROPAGATION);
             cachedConfiguration = result;
 
             return cachedConfiguration;
@@ -39,11 +39,13 @@ import org.libreplan.business.common.entities.EntityNameEnum;
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
 import org.libreplan.business.common.exceptions.ValidationException;
 import org.libreplan.business.common.exceptions.ValidationException.InvalidValue;
+import org.libreplan.business.hibernate.SavedStatesInterceptor;
 import org.libreplan.business.orders.daos.IOrderDAO;
 import org.libreplan.business.orders.daos.IOrderElementDAO;
 import org.libreplan.business.orders.entities.HoursGroup;
 import org.libreplan.business.orders.entities.ISumChargedEffortRecalculator;
 import org.libreplan.business.orders.entities.ISumExpensesRecalculator;
+import org.libreplan.business.orders.entities.InfoComponentWithCode;
 import org.libreplan.business.orders.entities.Order;
 import org.libreplan.business.orders.entities.OrderElement;
 import org.libreplan.business.orders.entities.OrderLineGroup;
@@ -98,6 +100,7 @@ import org.zkoss.ganttz.data.DependencyType.Point;
 import org.zkoss.ganttz.data.GanttDate;
 import org.zkoss.ganttz.data.constraint.Constraint;
 import org.zkoss.ganttz.extensions.IContext;
+import org.zkoss.ganttz.util.OperationMetrics;
 import org.zkoss.zk.ui.Executions;
 import org.zkoss.zul.Label;
 import org.zkoss.zul.Messagebox;
@@ -105,6 +108,7 @@ import org.zkoss.zul.Messagebox;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
 
@@ -129,6 +133,12 @@ public class SaveCommandBuilder {
 
     private static final Log LOG = LogFactory.getLog(SaveCommandBuilder.class);
 
+    /**
+     * Name of the saving of an order, including the commit of its transaction,
+     * in {@link OperationMetrics}
+     */
+    public static final String SAVE_OPERATION = "planner.save-order";
+
     public static TaskPropertiesController taskPropertiesController;
 
     @Autowired
@@ -277,14 +287,24 @@ public class SaveCommandBuilder {
         public void save(final IBeforeSaveActions beforeSaveActions, IAfterSaveActions afterSaveActions) {
             try {
                 if ( state.getScenarioInfo().isUsingTheOwnerScenario() || userAcceptsCreateANewOrderVersion() ) {
-                    transactionService.runOnTransaction((IOnTransaction<Void>) () -> {
-                        if (beforeSaveActions != null) {
-                            beforeSaveActions.doActions();
-                        }
-                        doTheSaving();
-
-                        return null;
-                    });
+                    OperationMetrics.Timer timer = OperationMetrics.start(SAVE_OPERATION);
+                    try {
+                        /*
+                         * Only the entities changed since they were loaded or
+                         * saved are updated
+                         */
+                        SavedStatesInterceptor.runUsing(state.getSavedStates(), () ->
+                                transactionService.runOnTransaction((IOnTransaction<Void>) () -> {
+                                    if (beforeSaveActions != null) {
+                                        beforeSaveActions.doActions();
+                                    }
+                                    doTheSaving();
+
+                                    return null;
+                                }));
+                    } finally {
+                        timer.stop();
+                    }
 
                     dontPoseAsTransientObjectAnymore(state.getOrder());
                     dontPoseAsTransientObjectAnymore(state.getOrder().getEndDateCommunicationToCustomer());
@@ -376,6 +396,9 @@ public class SaveCommandBuilder {
                 // the deletes on cascade a new root task is fetched causing a NonUniqueObjectException later.
                 taskElementDAO.reattach(rootTask);
             }
+            // The order is always updated, so its version is checked and
+            // concurrent modifications of the project are detected
+            state.getSavedStates().forget(order);
             orderDAO.save(order);
 
             saveDerivedScenarios(order);
@@ -496,8 +519,8 @@ public class SaveCommandBuilder {
 
             }
 
-            // Check no code is repeated within the DB
-            repeatedOrder = Registry.getOrderElementDAO().findRepeatedOrderCodeInDB(order);
+            // Check no code is repeated within the DB, only the new or changed codes can be repeated
+            repeatedOrder = Registry.getOrderElementDAO().findRepeatedOrderCodeInDB(withChangedCode(order));
 
             if (repeatedOrder != null)
                 throw new ValidationException(_(
@@ -519,7 +542,8 @@ public class SaveCommandBuilder {
 
             }
 
-            repeatedHoursGroup = Registry.getHoursGroupDAO().findRepeatedHoursGroupCodeInDB(order.getHoursGroups());
+            repeatedHoursGroup = Registry.getHoursGroupDAO().findRepeatedHoursGroupCodeInDB(
+                    withChangedCode(order.getHoursGroups()));
 
             if (repeatedHoursGroup != null)
                 throw new ValidationException(_(
@@ -529,6 +553,32 @@ public class SaveCommandBuilder {
 
         }
 
+        private List<OrderElement> withChangedCode(OrderElement order) {
+            List<OrderElement> orderElements = new ArrayList<>();
+            orderElements.add(order);
+            orderElements.addAll(order.getAllChildren());
+
+            List<OrderElement> result = new ArrayList<>();
+            for (OrderElement each : orderElements) {
+                Object saved = state.getSavedStates().getSavedValue(each, "infoComponent");
+                if ( !(saved instanceof InfoComponentWithCode) ||
+                        !Objects.equals(((InfoComponentWithCode) saved).getCode(), each.getCode()) ) {
+                    result.add(each);
+                }
+            }
+            return result;
+        }
+
+        private List<HoursGroup> withChangedCode(List<HoursGroup> hoursGroups) {
+            List<HoursGroup> result = new ArrayList<>();
+            for (HoursGroup each : hoursGroups) {
+                if ( !Objects.equals(state.getSavedStates().getSavedValue(each, "code"), each.getCode()) ) {
+                    result.add(each);
+                }
+            }
+            return result;
+        }
+
         private void saveDerivedScenarios(Order order) {
             List<Scenario> derivedScenarios = scenarioDAO.getDerivedScenarios(state.getCurrentScenario());
             for (Scenario scenario : derivedScenarios) {
@@ -192,6 +192,8 @@ public class CutyPrint {
             for (Entry<String, String> entry : printParameters.entrySet()) {
                 result = result.queryParam(entry.getKey(), entry.getValue());
             }
+            // All the rows of the planner are rendered when printing
+            result = result.queryParam(Planner.PRINT_PARAMETER, "true");
 
             return result.build().toASCIIString();
         }
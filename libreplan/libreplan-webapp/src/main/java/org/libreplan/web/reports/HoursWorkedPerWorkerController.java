@@ -30,6 +30,7 @@ import org.libreplan.business.resources.entities.Worker;
 import org.libreplan.web.common.Util;
 import org.libreplan.web.common.components.Autocomplete;
 import org.libreplan.web.common.components.bandboxsearch.BandboxSearch;
+import org.libreplan.web.reports.IReportJobService.IDataSourceCalculation;
 import org.zkoss.zk.ui.Component;
 import org.zkoss.zk.ui.WrongValueException;
 import org.zkoss.zk.ui.event.Events;
@@ -121,6 +122,34 @@ public class HoursWorkedPerWorkerController extends LibrePlanReportController {
                 getEndingDate());
     }
 
+    /**
+     * The report is calculated in background, as it can take long for many
+     * resources. The note shown when there are no hours depends on the data.
+     */
+    @Override
+    protected IDataSourceCalculation prepareDataSource() {
+        final List<Resource> resources = getSelectedResources();
+        final List<Label> labels = new ArrayList<>(getSelectedLabels());
+        final LabelFilterType labelFilterType = getSelectedFilterLabels();
+        final List<Criterion> criterions = new ArrayList<>(getSelectedCriterions());
+        final Date starting = getStartingDate();
+        final Date ending = getEndingDate();
+
+        return parameters -> {
+            JRDataSource result = hoursWorkedPerWorkerModel.getHoursWorkedPerWorkerReport(
+                    resources, labels, labelFilterType, criterions, starting, ending);
+            parameters.put("showNote", hoursWorkedPerWorkerModel.isShowReportMessage());
+
+            return result;
+        };
+    }
+
+    @Override
+    protected String getCacheKey() {
+        return idsOf(getSelectedResources()) + idsOf(getSelectedLabels()) + getSelectedFilterLabels() +
+                idsOf(getSelectedCriterions());
+    }
+
     private LabelFilterType getSelectedFilterLabels() {
         if ( filterByWorkReports.isChecked() ) {
             return LabelFilterType.WORK_REPORT;
@@ -180,7 +209,6 @@ public class HoursWorkedPerWorkerController extends LibrePlanReportController {
         result.put("endingDate", getEndingDate());
         result.put("criteria", getParameterCriterions());
         result.put("labels", getParameterLabels());
-        result.put("showNote", hoursWorkedPerWorkerModel.isShowReportMessage());
 
         return result;
     }
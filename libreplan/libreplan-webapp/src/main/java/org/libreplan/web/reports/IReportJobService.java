@@ -0,0 +1,70 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.web.reports;
+
+import java.util.Map;
+
+import net.sf.jasperreports.engine.JRDataSource;
+
+/**
+ * Renders the reports in background, keeping the output on disk.
+ * <p>
+ * The reports with a cache key are reused while the data doesn't change, so
+ * the same report requested again is downloaded without rendering it.
+ * </p>
+ */
+public interface IReportJobService {
+
+    /**
+     * Calculation of the data source of a report, run in background.
+     */
+    interface IDataSourceCalculation {
+
+        /**
+         * @param parameters
+         *            parameters of the report, the values that depend on the
+         *            data calculated can be added to them
+         */
+        JRDataSource calculate(Map<String, Object> parameters) throws Exception;
+
+    }
+
+    /**
+     * Queues the rendering of a report, or returns the job already queued or
+     * done for the same report and data.
+     *
+     * @param reportName
+     *            name of the compiled report, without extension
+     * @param type
+     *            output format: <code>html</code>, <code>odt</code> or
+     *            <code>pdf</code>
+     * @param parameters
+     *            parameters of the report
+     * @param dataSource
+     *            calculation of the data source, run in background with the
+     *            credentials and locale of the current user
+     * @param cacheKey
+     *            identifies the arguments of the data source calculation,
+     *            <code>null</code> if the report mustn't be reused
+     */
+    ReportJob submit(String reportName, String type, Map<String, Object> parameters,
+                     IDataSourceCalculation dataSource, String cacheKey);
+
+}
@@ -21,23 +21,42 @@
 
 package org.libreplan.web.reports;
 
+import static org.libreplan.web.I18nHelper._;
+
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.JRParameter;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.libreplan.business.common.BaseEntity;
 import org.libreplan.business.common.Registry;
+import org.libreplan.web.reports.IReportJobService.IDataSourceCalculation;
 import org.springframework.web.context.ContextLoaderListener;
+import org.zkoss.ganttz.servlets.CallbackServlet;
+import org.zkoss.ganttz.servlets.CallbackServlet.IServletRequestHandler;
 import org.zkoss.util.Locales;
-import org.zkoss.zk.au.out.AuDownload;
+import org.zkoss.util.media.AMedia;
 import org.zkoss.zk.ui.Component;
 import org.zkoss.zk.ui.Executions;
+import org.zkoss.zk.ui.event.Events;
+import org.zkoss.zk.ui.util.Clients;
 import org.zkoss.zk.ui.util.GenericForwardComposer;
+import org.zkoss.zkplus.spring.SpringUtil;
 import org.zkoss.zul.A;
+import org.zkoss.zul.Filedownload;
 import org.zkoss.zul.Hbox;
+import org.zkoss.zul.Messagebox;
+import org.zkoss.zul.Timer;
 
 import com.libreplan.java.zk.components.JasperreportComponent;
 
@@ -48,7 +67,9 @@ import com.libreplan.java.zk.components.JasperreportComponent;
  * All reports consists of several input components and a show button which
  * retrieves the necessary data to build resulting report.
  * The method showReport takes care of this behaviour.
- * In addition, when a new report is shown, a link to the report shows up as well.
+ * The report is rendered in background by {@link IReportJobService}, and it's
+ * downloaded, or opened in a new tab if it's HTML, once the polling of the job
+ * finds it done.
  *
  * @author Diego Pino Garcia <dpino@igalia.com>
  * @author Manuel Rego Casasnovas <rego@igalia.com>
@@ -58,34 +79,179 @@ public abstract class LibrePlanReportController extends GenericForwardComposer<C
 
     private static final String HTML = "html";
 
+    private static final int POLLING_INTERVAL_MS = 1000;
+
     protected ComboboxOutputFormat outputFormat;
 
     protected Hbox URItext;
 
     protected A URIlink;
 
+    private IReportJobService reportJobService;
+
+    private ReportJob reportJob;
+
+    private Timer reportJobPolling;
+
+    /**
+     * The component is kept as argument for the pages, the report is rendered
+     * by {@link IReportJobService} instead.
+     */
     public void showReport(JasperreportComponent jasperreport) {
-        final String type = outputFormat.getOutputFormat();
+        if ( reportJob != null && !reportJob.isFinished() ) {
+            Messagebox.show(_("The previous report is still being generated"), _("Information"),
+                    Messagebox.OK, Messagebox.INFORMATION);
+            return;
+        }
 
-        jasperreport.setSrc(getReportName());
-        jasperreport.setDatasource(getDataSource());
-        jasperreport.setParameters(getParameters());
-        jasperreport.setType(type);
+        IDataSourceCalculation dataSource = prepareDataSource();
+        reportJob = getReportJobService().submit(
+                getReportName(),
+                outputFormat.getOutputFormat(),
+                getParameters(),
+                dataSource,
+                getCacheKey());
 
-        if ( type.equals(HTML) ) {
-            URItext.setStyle("display: none");
-            Executions.getCurrent().sendRedirect(jasperreport.getReportUrl(), "_blank");
+        URItext.setStyle("display: none");
+        if ( reportJob.isFinished() ) {
+            reportJobFinished();
         } else {
-            /*
-             * We cant use FileDownload.save(<url>) as it creates a new url
-             * where the resource can't be find so we have to create ourselves the download request
-             */
-            Executions.getCurrent().addAuResponse(new AuDownload(jasperreport.getReportUrl()));
-            URItext.setStyle("display: inline");
-            URIlink.setHref(jasperreport.getReportUrl());
+            Clients.showNotification(_("Generating report, it will be downloaded when ready"));
+            startPolling();
+        }
+    }
+
+    private IReportJobService getReportJobService() {
+        if ( reportJobService == null ) {
+            reportJobService = (IReportJobService) SpringUtil.getBean("reportJobService");
+        }
+
+        return reportJobService;
+    }
+
+    private void startPolling() {
+        if ( reportJobPolling == null ) {
+            reportJobPolling = new Timer(POLLING_INTERVAL_MS);
+            reportJobPolling.setRepeats(true);
+            reportJobPolling.addEventListener(Events.ON_TIMER, event -> checkReportJob());
+            reportJobPolling.setParent(self);
+        } else {
+            reportJobPolling.start();
+        }
+    }
+
+    private void checkReportJob() {
+        if ( reportJob == null || reportJob.isFinished() ) {
+            reportJobPolling.stop();
+            if ( reportJob != null ) {
+                reportJobFinished();
+            }
+        }
+    }
+
+    private void reportJobFinished() {
+        if ( reportJob.getState() != ReportJob.State.DONE ) {
+            showError(reportJob);
+        } else if ( HTML.equals(reportJob.getType()) ) {
+            openInNewTab(reportJob);
+        } else {
+            download(reportJob);
+        }
+    }
+
+    private void showError(ReportJob job) {
+        Exception error = job.getError();
+        Messagebox.show(
+                _("The report could not be generated: {0}", error != null ? error.getMessage() : ""),
+                _("Error"), Messagebox.OK, Messagebox.ERROR);
+    }
+
+    /**
+     * The HTML reports are served by the web application, so the relative URL
+     * of the logo is resolved. The link is shown too, as the browser can block
+     * the new tab if it isn't opened on a click.
+     */
+    private void openInNewTab(ReportJob job) {
+        final File output = job.getOutput();
+        IServletRequestHandler handler = (request, response) -> {
+            if ( !output.exists() ) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            response.setContentType(getContentType(HTML) + "; charset=UTF-8");
+            FileUtils.copyFile(output, response.getOutputStream());
+        };
+        String url = CallbackServlet.registerAndCreateURLFor(
+                (HttpServletRequest) Executions.getCurrent().getNativeRequest(), handler);
+
+        Executions.getCurrent().sendRedirect(url, "_blank");
+        URItext.setStyle("display: inline");
+        URIlink.setHref(url);
+        URIlink.setTarget("_blank");
+    }
+
+    private void download(ReportJob job) {
+        String type = job.getType();
+        try {
+            Filedownload.save(new AMedia(job.getReportName() + "." + type, type, getContentType(type),
+                    job.getOutput(), true));
+        } catch (FileNotFoundException e) {
+            Messagebox.show(_("The report is not available anymore, please generate it again"), _("Error"),
+                    Messagebox.OK, Messagebox.ERROR);
         }
     }
 
+    private static String getContentType(String type) {
+        switch (type) {
+
+            case HTML:
+                return "text/html";
+
+            case "odt":
+                return "application/vnd.oasis.opendocument.text";
+
+            case "pdf":
+                return "application/pdf";
+
+            default:
+                return "application/octet-stream";
+        }
+    }
+
+    /**
+     * Prepares the calculation of the data source, that is run in background.
+     * The values of the components must be read here, since they can't be
+     * accessed from other threads.
+     *
+     * By default the data source is calculated here by {@link #getDataSource()},
+     * before {@link #getParameters()}, as some parameters depend on it. Only
+     * the filling and the exporting of the report are done in background.
+     */
+    protected IDataSourceCalculation prepareDataSource() {
+        final JRDataSource dataSource = getDataSource();
+
+        return parameters -> dataSource;
+    }
+
+    /**
+     * Identifies the arguments used by the data source, so the report is reused
+     * for the same arguments while the data doesn't change.
+     *
+     * @return <code>null</code> if the report mustn't be reused
+     */
+    protected String getCacheKey() {
+        return null;
+    }
+
+    protected static String idsOf(Collection<? extends BaseEntity> entities) {
+        StringBuilder result = new StringBuilder("[");
+        for (BaseEntity each : entities) {
+            result.append(each.getId()).append(',');
+        }
+
+        return result.append(']').toString();
+    }
+
     protected Map<String, Object> getParameters() {
         Map<String, Object> parameters = new HashMap<>();
 
@@ -27,6 +27,7 @@ import org.libreplan.business.orders.entities.Order;
 import org.libreplan.business.resources.entities.Criterion;
 import org.libreplan.web.common.Util;
 import org.libreplan.web.common.components.bandboxsearch.BandboxSearch;
+import org.libreplan.web.reports.IReportJobService.IDataSourceCalculation;
 import org.zkoss.zk.ui.Component;
 import org.zkoss.zk.ui.WrongValueException;
 import org.zkoss.zkplus.spring.SpringUtil;
@@ -34,6 +35,7 @@ import org.zkoss.zul.Constraint;
 import org.zkoss.zul.Datebox;
 import org.zkoss.zul.Listbox;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -84,6 +86,22 @@ public class OrderCostsPerResourceController extends LibrePlanReportController {
                 getSelectedCriterions());
     }
 
+    @Override
+    protected IDataSourceCalculation prepareDataSource() {
+        final List<Order> orders = new ArrayList<>(getSelectedOrders());
+        final Date starting = getStartingDate();
+        final Date ending = getEndingDate();
+        final List<Label> labels = new ArrayList<>(getSelectedLabels());
+        final List<Criterion> criterions = new ArrayList<>(getSelectedCriterions());
+
+        return parameters -> orderCostsPerResourceModel.getOrderReport(orders, starting, ending, labels, criterions);
+    }
+
+    @Override
+    protected String getCacheKey() {
+        return idsOf(getSelectedOrders()) + idsOf(getSelectedLabels()) + idsOf(getSelectedCriterions());
+    }
+
     @Override
     public Map<String, Object> getParameters() {
         Map<String, Object> result = super.getParameters();
@@ -0,0 +1,132 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.web.reports;
+
+import java.io.File;
+
+/**
+ * Rendering of a report done in background by {@link IReportJobService}.
+ * <p>
+ * The UI polls its state and downloads the output once it's done. A job done
+ * can be shared by several users requesting the same report while the data
+ * used by it doesn't change.
+ * </p>
+ */
+public class ReportJob {
+
+    public enum State {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private final String reportName;
+
+    private final String type;
+
+    private final long dataVersion;
+
+    private volatile State state = State.QUEUED;
+
+    private volatile File output;
+
+    private volatile Exception error;
+
+    ReportJob(String reportName, String type, long dataVersion) {
+        this.reportName = reportName;
+        this.type = type;
+        this.dataVersion = dataVersion;
+    }
+
+    public String getReportName() {
+        return reportName;
+    }
+
+    /**
+     * @return the output format, <code>html</code>, <code>odt</code> or
+     *         <code>pdf</code>
+     */
+    public String getType() {
+        return type;
+    }
+
+    long getDataVersion() {
+        return dataVersion;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isFinished() {
+        return state == State.DONE || state == State.FAILED;
+    }
+
+    /**
+     * @return the file with the report rendered, <code>null</code> if it isn't
+     *         done
+     */
+    public File getOutput() {
+        return output;
+    }
+
+    /**
+     * @return the cause of the failure, <code>null</code> if it hasn't failed
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    /**
+     * @return <code>true</code> if it can be returned to other requests of the
+     *         same report with the data of <code>currentDataVersion</code>
+     */
+    boolean isReusable(long currentDataVersion) {
+        if ( dataVersion != currentDataVersion || state == State.FAILED ) {
+            return false;
+        }
+
+        return state != State.DONE || output.exists();
+    }
+
+    void running() {
+        state = State.RUNNING;
+    }
+
+    void done(File output) {
+        this.output = output;
+        state = State.DONE;
+    }
+
+    void failed(Exception error) {
+        this.error = error;
+        state = State.FAILED;
+    }
+
+    void deleteOutput() {
+        if ( output != null && !output.delete() && output.exists() ) {
+            output.deleteOnExit();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return reportName + "." + type + " (" + state + ")";
+    }
+
+}
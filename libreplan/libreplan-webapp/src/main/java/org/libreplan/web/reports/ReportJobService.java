@@ -0,0 +1,364 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.web.reports;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLConnection;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.export.HtmlExporter;
+import net.sf.jasperreports.engine.export.HtmlResourceHandler;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.engine.export.oasis.JROdtExporter;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleHtmlExporterOutput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.libreplan.business.hibernate.notification.EntityChanges;
+import org.libreplan.business.hibernate.notification.IEntityChangesListener;
+import org.libreplan.business.hibernate.notification.ISnapshotRefresherService;
+import org.libreplan.web.reports.IReportJobService.IDataSourceCalculation;
+import org.libreplan.web.security.SecurityUtils;
+import org.libreplan.web.users.services.CustomUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.zkoss.util.Locales;
+
+/**
+ * Renders the reports in a bounded pool of threads.
+ * <p>
+ * While the report is filled the pages are swapped to disk, and the output is
+ * written to a file, so the memory used doesn't depend on the size of the
+ * report. The jobs are reused while no entity is modified, any committed
+ * change makes them stale, since the reports read most of the entities.
+ * </p>
+ */
+@Component
+@Scope(BeanDefinition.SCOPE_SINGLETON)
+public class ReportJobService implements IReportJobService, IEntityChangesListener {
+
+    private static final Log LOG = LogFactory.getLog(ReportJobService.class);
+
+    private static final int RENDERING_THREADS = 2;
+
+    /**
+     * Reports waiting to be rendered. Once it's full new requests are rejected.
+     */
+    private static final int MAX_QUEUED_JOBS = 20;
+
+    private static final int MAX_CACHED_JOBS = 50;
+
+    /**
+     * Pages of a report being filled kept in memory
+     */
+    private static final int MAX_PAGES_IN_MEMORY = 20;
+
+    private static final int SWAP_BLOCK_SIZE = 4096;
+
+    private static final int SWAP_MIN_GROW_COUNT = 100;
+
+    @Autowired
+    private ISnapshotRefresherService snapshotRefresherService;
+
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    private final ExecutorService executor;
+
+    private final File directory;
+
+    private final int maxCachedJobs;
+
+    /**
+     * Jobs by key in access order, guarded by this
+     */
+    private final LinkedHashMap<String, ReportJob> jobs = new LinkedHashMap<String, ReportJob>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ReportJob> eldest) {
+            if ( size() > maxCachedJobs ) {
+                eldest.getValue().deleteOutput();
+
+                return true;
+            }
+
+            return false;
+        }
+    };
+
+    public ReportJobService() {
+        this(RENDERING_THREADS, MAX_QUEUED_JOBS, MAX_CACHED_JOBS,
+                new File(System.getProperty("java.io.tmpdir"), "libreplan-reports"));
+    }
+
+    ReportJobService(int renderingThreads, int maxQueuedJobs, int maxCachedJobs, File directory) {
+        this.executor = createExecutor(renderingThreads, maxQueuedJobs);
+        this.maxCachedJobs = maxCachedJobs;
+        this.directory = directory;
+    }
+
+    private static ExecutorService createExecutor(int renderingThreads, int maxQueuedJobs) {
+        ThreadPoolExecutor result = new ThreadPoolExecutor(renderingThreads, renderingThreads, 60,
+                TimeUnit.SECONDS, new ArrayBlockingQueue<>(maxQueuedJobs));
+        result.allowCoreThreadTimeOut(true);
+
+        return result;
+    }
+
+    @PostConstruct
+    private void init() {
+        snapshotRefresherService.addChangesListener(this);
+        try {
+            FileUtils.deleteDirectory(directory);
+        } catch (IOException e) {
+            LOG.warn("the reports of the previous execution in " + directory + " couldn't be removed", e);
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void onChanges(EntityChanges changes) {
+        dataVersion.incrementAndGet();
+    }
+
+    @Override
+    public ReportJob submit(String reportName, String type, Map<String, Object> parameters,
+                            IDataSourceCalculation dataSource, String cacheKey) {
+
+        Validate.notNull(reportName);
+        Validate.notNull(type);
+        Validate.notNull(dataSource);
+
+        long version = dataVersion.get();
+        String key = cacheKey == null ? null : buildKey(reportName, type, parameters, cacheKey);
+
+        synchronized (this) {
+            removeStaleJobs(version);
+            ReportJob existent = key == null ? null : jobs.get(key);
+            if ( existent != null ) {
+                return existent;
+            }
+
+            ReportJob result = new ReportJob(reportName, type, version);
+            launch(result, new HashMap<>(parameters), dataSource);
+            if ( key != null && result.getState() != ReportJob.State.FAILED ) {
+                jobs.put(key, result);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * The user and its scenario are part of the key, since the data shown by
+     * the reports depends on them.
+     */
+    private String buildKey(String reportName, String type, Map<String, Object> parameters, String cacheKey) {
+        CustomUser user = SecurityUtils.getLoggedUser();
+        StringBuilder result = new StringBuilder();
+        result.append(reportName).append('.').append(type);
+        if ( user != null ) {
+            result.append('|').append(user.getUsername()).append('|').append(user.getScenario().getId());
+        }
+        result.append('|').append(new TreeMap<>(parameters)).append('|').append(cacheKey);
+
+        return result.toString();
+    }
+
+    private void removeStaleJobs(long currentVersion) {
+        Iterator<ReportJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            ReportJob each = iterator.next();
+            if ( !each.isReusable(currentVersion) ) {
+                if ( each.isFinished() ) {
+                    each.deleteOutput();
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    private void launch(final ReportJob job, final Map<String, Object> parameters,
+                        final IDataSourceCalculation dataSource) {
+
+        final SecurityContext securityContext = SecurityContextHolder.getContext();
+        final Locale locale = Locales.getCurrent();
+        try {
+            executor.execute(() -> {
+                SecurityContextHolder.setContext(securityContext);
+                Locales.setThreadLocal(locale);
+                try {
+                    render(job, parameters, dataSource);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                    Locales.setThreadLocal(null);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.warn("too many reports queued, rejecting " + job);
+            job.failed(e);
+        }
+    }
+
+    private void render(ReportJob job, Map<String, Object> parameters, IDataSourceCalculation dataSource) {
+        job.running();
+        long start = System.currentTimeMillis();
+        File output = null;
+        try {
+            JRDataSource data = dataSource.calculate(parameters);
+
+            FileUtils.forceMkdir(directory);
+            output = File.createTempFile(job.getReportName() + "-", "." + job.getType(), directory);
+            fillAndExport(job, parameters, data, output);
+            job.done(output);
+            LOG.debug(job + " took " + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            LOG.error("error rendering " + job, e);
+            FileUtils.deleteQuietly(output);
+            job.failed(e);
+        }
+    }
+
+    /**
+     * Fills the report swapping its pages to disk and exports it to
+     * <code>output</code>
+     */
+    void fillAndExport(ReportJob job, Map<String, Object> parameters, JRDataSource data, File output)
+            throws JRException, IOException {
+
+        JRSwapFileVirtualizer virtualizer = new JRSwapFileVirtualizer(MAX_PAGES_IN_MEMORY,
+                new JRSwapFile(directory.getPath(), SWAP_BLOCK_SIZE, SWAP_MIN_GROW_COUNT), true);
+        try {
+            parameters.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+
+            JasperPrint print = JasperFillManager.fillReport(loadReport(job.getReportName()), parameters, data);
+            virtualizer.setReadOnly(true);
+
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(output))) {
+                export(print, job.getType(), out);
+            }
+        } finally {
+            virtualizer.cleanup();
+        }
+    }
+
+    private JasperReport loadReport(String reportName) throws JRException, IOException {
+        try (InputStream input = getClass().getResourceAsStream("/" + reportName + ".jasper")) {
+            if ( input == null ) {
+                throw new JRException("report " + reportName + " not found");
+            }
+
+            return (JasperReport) JRLoader.loadObject(input);
+        }
+    }
+
+    private void export(JasperPrint print, String type, OutputStream out) throws JRException {
+        switch (type) {
+
+            case "pdf":
+                JRPdfExporter pdfExporter = new JRPdfExporter();
+                pdfExporter.setExporterInput(new SimpleExporterInput(print));
+                pdfExporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
+                pdfExporter.exportReport();
+                break;
+
+            case "odt":
+                JROdtExporter odtExporter = new JROdtExporter();
+                odtExporter.setExporterInput(new SimpleExporterInput(print));
+                odtExporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
+                odtExporter.exportReport();
+                break;
+
+            case "html":
+                HtmlExporter htmlExporter = new HtmlExporter();
+                htmlExporter.setExporterInput(new SimpleExporterInput(print));
+                SimpleHtmlExporterOutput htmlOutput = new SimpleHtmlExporterOutput(out);
+                htmlOutput.setImageHandler(new EmbeddedImagesHandler());
+                htmlExporter.setExporterOutput(htmlOutput);
+                htmlExporter.exportReport();
+                break;
+
+            default:
+                throw new JRException("unknown report format " + type);
+        }
+    }
+
+    /**
+     * Embeds the images in the HTML output as data URIs, as it's served as a
+     * single file.
+     */
+    private static class EmbeddedImagesHandler implements HtmlResourceHandler {
+
+        private final Map<String, String> dataURIs = new HashMap<>();
+
+        @Override
+        public void handleResource(String id, byte[] data) {
+            String contentType = URLConnection.guessContentTypeFromName(id);
+            dataURIs.put(id, "data:" + (contentType != null ? contentType : "image/png") +
+                    ";base64," + Base64.getEncoder().encodeToString(data));
+        }
+
+        @Override
+        public String getResourcePath(String id) {
+            return dataURIs.get(id);
+        }
+
+    }
+
+}
@@ -28,12 +28,14 @@ import org.libreplan.business.orders.entities.Order;
 import org.libreplan.business.resources.entities.Criterion;
 import org.libreplan.web.common.Util;
 import org.libreplan.web.common.components.bandboxsearch.BandboxSearch;
+import org.libreplan.web.reports.IReportJobService.IDataSourceCalculation;
 import org.zkoss.zk.ui.Component;
 import org.zkoss.zk.ui.WrongValueException;
 import org.zkoss.zkplus.spring.SpringUtil;
 import org.zkoss.zul.Datebox;
 import org.zkoss.zul.Listbox;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -86,6 +88,22 @@ public class WorkingProgressPerTaskController extends LibrePlanReportController
                 getSelectedOrder(), getDeadlineDate(), getSelectedLabels(), getSelectedCriterions());
     }
 
+    @Override
+    protected IDataSourceCalculation prepareDataSource() {
+        final Order order = getSelectedOrder();
+        final Date deadline = getDeadlineDate();
+        final List<Label> labels = new ArrayList<>(getSelectedLabels());
+        final List<Criterion> criterions = new ArrayList<>(getSelectedCriterions());
+
+        return parameters -> workingProgressPerTaskModel.getWorkingProgressPerTaskReport(
+                order, deadline, labels, criterions);
+    }
+
+    @Override
+    protected String getCacheKey() {
+        return getSelectedOrder().getId() + idsOf(getSelectedLabels()) + idsOf(getSelectedCriterions());
+    }
+
     private Order getSelectedOrder() {
         return (Order) bandboxSelectOrder.getSelectedElement();
     }
@@ -6,7 +6,7 @@ import java.util.concurrent.Callable;
 import org.apache.commons.lang3.Validate;
 import org.joda.time.LocalDate;
 import org.libreplan.business.common.BaseEntity;
-import org.libreplan.business.planner.entities.DayAssignment;
+import org.libreplan.business.planner.chart.DayAssignmentsColumns;
 import org.libreplan.business.resources.entities.Resource;
 import org.libreplan.web.resourceload.ResourceLoadParameters.Paginator;
 import org.zkoss.ganttz.data.resourceload.LoadTimeLine;
@@ -23,13 +23,13 @@ public class ResourceLoadDisplayData {
 
     private final Callable<List<Resource>> resourcesConsidered;
 
-    private final Callable<List<DayAssignment>> assignmentsConsidered;
+    private final Callable<DayAssignmentsColumns> assignmentsConsidered;
 
     public ResourceLoadDisplayData(
             List<LoadTimeLine> timeLines,
             Paginator<? extends BaseEntity> paginator,
             Callable<List<Resource>> resourcesConsidered,
-            Callable<List<DayAssignment>> assignmentsConsidered) {
+            Callable<DayAssignmentsColumns> assignmentsConsidered) {
 
         Validate.notNull(timeLines);
         Validate.notNull(paginator);
@@ -107,7 +107,7 @@ public class ResourceLoadDisplayData {
         return resolve(resourcesConsidered);
     }
 
-    public List<DayAssignment> getDayAssignmentsConsidered() {
+    public DayAssignmentsColumns getDayAssignmentsConsidered() {
         return resolve(assignmentsConsidered);
     }
 
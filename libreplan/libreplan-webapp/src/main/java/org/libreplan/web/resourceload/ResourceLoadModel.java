@@ -48,6 +48,7 @@ import org.libreplan.business.common.exceptions.InstanceNotFoundException;
 import org.libreplan.business.orders.daos.IOrderDAO;
 import org.libreplan.business.orders.entities.Order;
 import org.libreplan.business.orders.entities.OrderElement;
+import org.libreplan.business.planner.chart.DayAssignmentsColumns;
 import org.libreplan.business.planner.daos.IResourceAllocationDAO;
 import org.libreplan.business.planner.entities.DayAssignment;
 import org.libreplan.business.planner.entities.GenericResourceAllocation;
@@ -86,11 +87,17 @@ import org.zkoss.ganttz.data.GanttDate;
 import org.zkoss.ganttz.data.resourceload.LoadPeriod;
 import org.zkoss.ganttz.data.resourceload.LoadTimeLine;
 import org.zkoss.ganttz.data.resourceload.TimeLineRole;
+import org.zkoss.ganttz.util.OperationMetrics;
 
 @Component
 @Scope(BeanDefinition.SCOPE_PROTOTYPE)
 public class ResourceLoadModel implements IResourceLoadModel {
 
+    /**
+     * Name of the calculation of the resource load in {@link OperationMetrics}
+     */
+    public static final String RESOURCE_LOAD_OPERATION = "planner.resource-load";
+
     private String TYPE_RESOURCE = "resource";
 
     @Autowired
@@ -120,22 +127,26 @@ public class ResourceLoadModel implements IResourceLoadModel {
     @Override
     @Transactional(readOnly = true)
     public ResourceLoadDisplayData calculateDataToDisplay(ResourceLoadParameters parameters) {
+        OperationMetrics.Timer timer = OperationMetrics.start(RESOURCE_LOAD_OPERATION);
+        try {
+            PlanningState planningState = parameters.getPlanningState();
 
-        PlanningState planningState = parameters.getPlanningState();
-
-        if ( planningState != null ) {
-            planningState.reattach();
-            planningState.reassociateResourcesWithSession();
-        }
+            if ( planningState != null ) {
+                planningState.reattach();
+                planningState.reassociateResourcesWithSession();
+            }
 
-        ResourceAllocationsFinder<?> allocationsFinder = create(parameters);
-        List<LoadTimeLine> loadTimeLines = allocationsFinder.buildTimeLines();
+            ResourceAllocationsFinder<?> allocationsFinder = create(parameters);
+            List<LoadTimeLine> loadTimeLines = allocationsFinder.buildTimeLines();
 
-        return new ResourceLoadDisplayData(
-                loadTimeLines,
-                allocationsFinder.getPaginator(),
-                allocationsFinder.lazilyGetResourcesIncluded(),
-                allocationsFinder.lazilyGetAssignmentsShown());
+            return new ResourceLoadDisplayData(
+                    loadTimeLines,
+                    allocationsFinder.getPaginator(),
+                    allocationsFinder.lazilyGetResourcesIncluded(),
+                    allocationsFinder.lazilyGetAssignmentsShown());
+        } finally {
+            timer.stop();
+        }
     }
 
 
@@ -205,11 +216,11 @@ public class ResourceLoadModel implements IResourceLoadModel {
 
         abstract List<Resource> getResourcesIncluded();
 
-        public Callable<List<DayAssignment>> lazilyGetAssignmentsShown() {
-            return new Callable<List<DayAssignment>>() {
+        public Callable<DayAssignmentsColumns> lazilyGetAssignmentsShown() {
+            return new Callable<DayAssignmentsColumns>() {
                 @Override
-                public List<DayAssignment> call() throws Exception {
-                    return getAssignmentsShown();
+                public DayAssignmentsColumns call() throws Exception {
+                    return DayAssignmentsColumns.create(getAssignmentsShown());
                 }
 
             };
@@ -427,7 +438,10 @@ public class ResourceLoadModel implements IResourceLoadModel {
 
                         return getCriterionsOn(tasks);
                     } else {
-                        return findAllocationsGroupedByCriteria().keySet();
+                        return resourceAllocationDAO.findCriterionsOfGenericAllocations(
+                                getCurrentScenario(),
+                                asDate(parameters.getInitDateFilter()),
+                                asDate(parameters.getEndDateFilter()));
                     }
                 }
 
@@ -458,18 +472,22 @@ public class ResourceLoadModel implements IResourceLoadModel {
         private Map<Criterion, List<ResourceAllocation<?>>> findAllocationsGroupedByCriteria(
                 List<Criterion> relatedWith) {
 
+            Map<Criterion, List<GenericResourceAllocation>> found =
+                    resourceAllocationDAO.findGenericAllocationsRelatedToCriterions(
+                            getCurrentScenario(),
+                            relatedWith,
+                            asDate(parameters.getInitDateFilter()),
+                            asDate(parameters.getEndDateFilter()));
+
             Map<Criterion, List<ResourceAllocation<?>>> result = new LinkedHashMap<>();
             for (Criterion criterion : relatedWith) {
                 IAllocationCriteria criteria = and(onInterval(), new RelatedWith(criterion));
 
+                List<GenericResourceAllocation> allocations = found.get(criterion);
                 result.put(
                         criterion,
                         ResourceAllocation.sortedByStartDate(doReplacementsIfNeeded(
-                                resourceAllocationDAO.findGenericAllocationsRelatedToCriterion(
-                                        getCurrentScenario(),
-                                        criterion,
-                                        asDate(parameters.getInitDateFilter()),
-                                        asDate(parameters.getEndDateFilter())),
+                                allocations != null ? allocations : Collections.<GenericResourceAllocation> emptyList(),
                                 criteria)));
 
             }
@@ -504,35 +522,6 @@ public class ResourceLoadModel implements IResourceLoadModel {
                     key, parameters.getInitDateFilter(), parameters.getEndDateFilter());
         }
 
-        private Map<Criterion, List<GenericResourceAllocation>> findAllocationsGroupedByCriteria() {
-            return doReplacementsIfNeeded(resourceAllocationDAO.findGenericAllocationsByCriterion(
-                    getCurrentScenario(),
-                    asDate(parameters.getInitDateFilter()),
-                    asDate(parameters.getEndDateFilter())));
-        }
-
-        private Map<Criterion, List<GenericResourceAllocation>> doReplacementsIfNeeded(
-                Map<Criterion, List<GenericResourceAllocation>> map) {
-
-            if ( !parameters.thereIsCurrentOrder() ) {
-                return map;
-            }
-
-            Map<Criterion, List<GenericResourceAllocation>> result = new HashMap<>();
-            for (Entry<Criterion, List<GenericResourceAllocation>> each : map.entrySet()) {
-                IAllocationCriteria criteria = and(onInterval(), new RelatedWith(each.getKey()));
-
-                List<ResourceAllocation<?>> replaced =
-                        parameters.getPlanningState().replaceByCurrentOnes(each.getValue(), criteria);
-
-                if ( !replaced.isEmpty() ) {
-                    result.put(each.getKey(), ResourceAllocation.getOfType(GenericResourceAllocation.class, replaced));
-                }
-            }
-
-            return result;
-        }
-
     }
 
     class LoadTimeLinesBuilder {
@@ -223,13 +223,14 @@ public class NewAllocationSelectorController extends AllocationSelectorControlle
 
         List<ResourceWithItsLoadRatios> result = new ArrayList<>();
 
-        for (Resource each : listResources) {
-            ILoadRatiosDataType t = resourceLoadRatiosCalculator.calculateLoadRatios(each,
-                    LocalDate.fromDateFields(startDateLoadRatiosDatebox.getValue()),
-                    LocalDate.fromDateFields(endDateLoadRatiosDatebox.getValue()),
-                    scenarioManager.getCurrent());
+        Map<Resource, ILoadRatiosDataType> loadRatios = resourceLoadRatiosCalculator.calculateLoadRatios(
+                listResources,
+                LocalDate.fromDateFields(startDateLoadRatiosDatebox.getValue()),
+                LocalDate.fromDateFields(endDateLoadRatiosDatebox.getValue()),
+                scenarioManager.getCurrent());
 
-            result.add(new ResourceWithItsLoadRatios(each, t));
+        for (Resource each : listResources) {
+            result.add(new ResourceWithItsLoadRatios(each, loadRatios.get(each)));
         }
 
         return result;
@@ -22,11 +22,15 @@
 package org.libreplan.ws.common.impl;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
 import org.libreplan.business.common.IAdHocTransactionService;
 import org.libreplan.business.common.IOnTransaction;
 import org.libreplan.business.common.IntegrationEntity;
@@ -58,15 +62,84 @@ public abstract class GenericRESTService<E extends IntegrationEntity,
     }
 
     /**
-     * It saves (inserts or updates) a list of entities. Each entity is
-     * saved in a separate transaction.
+     * It retrieves all entities, writing them to the response while they are
+     * retrieved by pages.
+     *
+     * @param listElementName
+     *            the name of the root element of the list DTO
+     * @see ListStreamingOutput
+     */
+    protected Response findAllStreaming(String listElementName) {
+
+        return Response.ok(new ListStreamingOutput<E, DTO>(
+            transactionService, listElementName) {
+
+            @Override
+            protected List<E> findAfter(Long lastId, int maxResults) {
+                return getIntegrationEntityDAO().findAfter(lastId, maxResults);
+            }
+
+            @Override
+            protected DTO toDTO(E entity) {
+                return GenericRESTService.this.toDTO(entity);
+            }
+
+        }).build();
+
+    }
+
+    /**
+     * It saves (inserts or updates) a list of entities in batches of
+     * {@link #getBatchSize()} entities.
+     *
+     * @see #save(List, int)
      */
     protected InstanceConstraintViolationsListDTO save(
         List<? extends DTO> entityDTOs) {
 
+        return save(entityDTOs, getBatchSize());
+
+    }
+
+    /**
+     * It saves (inserts or updates) a list of entities. The entities of each
+     * batch are saved in the same transaction, retrieving the existing ones
+     * with just one query. If saving a batch fails, the batch is saved again
+     * using a separate transaction per entity, so the constraint violations
+     * reported are the same as when the batch size is 1.
+     */
+    protected InstanceConstraintViolationsListDTO save(
+        List<? extends DTO> entityDTOs, int batchSize) {
+
+        Validate.isTrue(batchSize > 0, "batch size must be positive");
+
         List<InstanceConstraintViolationsDTO> instanceConstraintViolationsList =
             new ArrayList<InstanceConstraintViolationsDTO>();
-        long numItem = 1;
+
+        for (int from = 0; from < entityDTOs.size(); from += batchSize) {
+
+            List<? extends DTO> batch = entityDTOs.subList(from,
+                Math.min(entityDTOs.size(), from + batchSize));
+
+            if (batch.size() == 1 || !insertOrUpdateBatch(batch)) {
+                save(batch, from + 1, instanceConstraintViolationsList);
+            }
+
+        }
+
+        return new InstanceConstraintViolationsListDTO(
+            instanceConstraintViolationsList);
+
+    }
+
+    /**
+     * It saves each entity in a separate transaction, adding the constraint
+     * violations found to <code>instanceConstraintViolationsList</code>.
+     */
+    private void save(List<? extends DTO> entityDTOs, long firstNumItem,
+        List<InstanceConstraintViolationsDTO> instanceConstraintViolationsList) {
+
+        long numItem = firstNumItem;
 
         for (DTO entityDTO : entityDTOs) {
 
@@ -101,9 +174,96 @@ public abstract class GenericRESTService<E extends IntegrationEntity,
 
         }
 
-        return new InstanceConstraintViolationsListDTO(
-            instanceConstraintViolationsList);
+    }
+
+    /**
+     * It returns the number of entities saved in the same transaction by
+     * {@link #save(List)}.
+     *
+     * Default implementation returns 1, so each entity is saved in a separate
+     * transaction.
+     */
+    protected int getBatchSize() {
+        return 1;
+    }
+
+    /**
+     * It saves (inserts or updates) all the entity DTOs by using a new
+     * transaction.
+     *
+     * @return <code>false</code> if any of them could not be saved, in that
+     *         case the transaction is rolled back
+     */
+    private boolean insertOrUpdateBatch(final List<? extends DTO> entityDTOs) {
+
+        IOnTransaction<Void> save = new IOnTransaction<Void>() {
+
+            @Override
+            public Void execute() {
+
+                IIntegrationEntityDAO<E> entityDAO =
+                    getIntegrationEntityDAO();
+                Map<String, E> existing = findExistingByCode(entityDTOs);
+
+                for (DTO entityDTO : entityDTOs) {
+
+                    String key = toKey(entityDTO.code);
+                    E entity = key != null ? existing.get(key) : null;
 
+                    /* Insert or update? */
+                    if (entity != null) {
+                        updateEntity(entity, entityDTO);
+                    } else {
+                        entity = toEntity(entityDTO);
+                        if (key != null) {
+                            existing.put(key, entity);
+                        }
+                    }
+
+                    entity.validate();
+                    beforeSaving(entity);
+                    entityDAO.saveWithoutValidating(entity);
+                    afterSaving(entity);
+
+                }
+
+                return null;
+
+            }
+
+        };
+
+        try {
+            transactionService.runOnAnotherTransaction(save);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+
+    }
+
+    private Map<String, E> findExistingByCode(List<? extends DTO> entityDTOs) {
+
+        List<String> codes = new ArrayList<String>();
+        for (DTO entityDTO : entityDTOs) {
+            codes.add(entityDTO.code);
+        }
+
+        Map<String, E> result = new HashMap<String, E>();
+        for (E entity : getIntegrationEntityDAO().findByCodes(codes)) {
+            result.put(toKey(entity.getCode()), entity);
+        }
+
+        return result;
+
+    }
+
+    /**
+     * Codes are searched ignoring case, like
+     * {@link IIntegrationEntityDAO#findByCode(String)} does.
+     */
+    private static String toKey(String code) {
+        return StringUtils.isBlank(code) ? null : code.trim().toLowerCase();
     }
 
     /**
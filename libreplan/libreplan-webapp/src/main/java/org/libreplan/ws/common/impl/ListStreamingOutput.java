@@ -0,0 +1,174 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.ws.common.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.libreplan.business.common.IAdHocTransactionService;
+import org.libreplan.business.common.IOnTransaction;
+import org.libreplan.business.common.IntegrationEntity;
+import org.libreplan.ws.common.api.WSCommonGlobalNames;
+
+/**
+ * Writes a list of DTOs in XML while the entities are retrieved by pages, so
+ * the memory used doesn't depend on the number of entities.
+ * <p>
+ * Each page is retrieved and converted in a new read only transaction, so only
+ * the entities of one page are kept in the session. The DTOs are marshalled as
+ * XML fragments, so they must be annotated with <code>XmlRootElement</code>
+ * with the same name used in the corresponding list DTO.
+ * </p>
+ * <p>
+ * The entities are written ordered by id. As the pages are retrieved in
+ * different transactions, the entities modified while writing the list can be
+ * written with the values before or after the modification.
+ * </p>
+ */
+public abstract class ListStreamingOutput<E extends IntegrationEntity, DTO>
+        implements StreamingOutput {
+
+    public static final int PAGE_SIZE = 50;
+
+    private static final ConcurrentMap<Class<?>, JAXBContext> contexts = new ConcurrentHashMap<>();
+
+    private static JAXBContext getContext(Class<?> klass) throws JAXBException {
+        JAXBContext result = contexts.get(klass);
+        if ( result == null ) {
+            result = JAXBContext.newInstance(klass);
+            contexts.putIfAbsent(klass, result);
+        }
+
+        return result;
+    }
+
+    private static class Page<DTO> {
+
+        private final List<DTO> dtos;
+
+        private final Long lastId;
+
+        private final boolean last;
+
+        private Page(List<DTO> dtos, Long lastId, boolean last) {
+            this.dtos = dtos;
+            this.lastId = lastId;
+            this.last = last;
+        }
+
+    }
+
+    private final IAdHocTransactionService transactionService;
+
+    private final String listElementName;
+
+    private final Map<Class<?>, Marshaller> marshallers = new HashMap<>();
+
+    /**
+     * @param listElementName
+     *            the name of the root element, the one used in the
+     *            <code>XmlRootElement</code> of the list DTO
+     */
+    protected ListStreamingOutput(IAdHocTransactionService transactionService, String listElementName) {
+        this.transactionService = transactionService;
+        this.listElementName = listElementName;
+    }
+
+    /**
+     * It must return up to <code>maxResults</code> entities with an id greater
+     * than <code>lastId</code> ordered by id, from the first one if
+     * <code>lastId</code> is <code>null</code>.
+     */
+    protected abstract List<E> findAfter(Long lastId, int maxResults);
+
+    protected abstract DTO toDTO(E entity);
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try {
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.setDefaultNamespace(WSCommonGlobalNames.REST_NAMESPACE);
+            writer.writeStartElement(WSCommonGlobalNames.REST_NAMESPACE, listElementName);
+            writer.writeDefaultNamespace(WSCommonGlobalNames.REST_NAMESPACE);
+
+            Page<DTO> page;
+            Long lastId = null;
+            do {
+                page = findPage(lastId);
+                for (DTO each : page.dtos) {
+                    getMarshaller(each.getClass()).marshal(each, writer);
+                }
+                writer.flush();
+                lastId = page.lastId;
+            } while (!page.last);
+
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.close();
+        } catch (XMLStreamException | JAXBException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private Page<DTO> findPage(final Long lastId) {
+        return transactionService.runOnAnotherReadOnlyTransaction(new IOnTransaction<Page<DTO>>() {
+            @Override
+            public Page<DTO> execute() {
+                List<E> entities = findAfter(lastId, PAGE_SIZE);
+                List<DTO> dtos = new ArrayList<>();
+                for (E each : entities) {
+                    dtos.add(toDTO(each));
+                }
+
+                return new Page<>(
+                        dtos,
+                        entities.isEmpty() ? lastId : entities.get(entities.size() - 1).getId(),
+                        entities.size() < PAGE_SIZE);
+            }
+        });
+    }
+
+    private Marshaller getMarshaller(Class<?> klass) throws JAXBException {
+        Marshaller result = marshallers.get(klass);
+        if ( result == null ) {
+            result = getContext(klass).createMarshaller();
+            result.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            marshallers.put(klass, result);
+        }
+
+        return result;
+    }
+
+}
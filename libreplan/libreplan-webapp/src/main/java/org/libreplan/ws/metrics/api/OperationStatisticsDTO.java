@@ -0,0 +1,76 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.ws.metrics.api;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * DTO for the measures of a planner operation. The times are in milliseconds.
+ */
+@XmlRootElement(name = "operation-statistics")
+public class OperationStatisticsDTO {
+
+    @XmlAttribute
+    public String name;
+
+    @XmlAttribute
+    public long count;
+
+    @XmlAttribute(name = "mean")
+    public long meanMs;
+
+    @XmlAttribute(name = "p50")
+    public long p50Ms;
+
+    @XmlAttribute(name = "p95")
+    public long p95Ms;
+
+    @XmlAttribute(name = "p99")
+    public long p99Ms;
+
+    @XmlAttribute(name = "max")
+    public long maxMs;
+
+    @XmlAttribute(name = "mean-statements")
+    public long meanStatements;
+
+    @XmlAttribute(name = "max-statements")
+    public long maxStatements;
+
+    public OperationStatisticsDTO() {
+    }
+
+    public OperationStatisticsDTO(String name, long count, long meanMs,
+            long p50Ms, long p95Ms, long p99Ms, long maxMs,
+            long meanStatements, long maxStatements) {
+        this.name = name;
+        this.count = count;
+        this.meanMs = meanMs;
+        this.p50Ms = p50Ms;
+        this.p95Ms = p95Ms;
+        this.p99Ms = p99Ms;
+        this.maxMs = maxMs;
+        this.meanStatements = meanStatements;
+        this.maxStatements = maxStatements;
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.ws.metrics.api;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * DTO for the statistics of the recalculations of the charged efforts of the
+ * orders. The times are in milliseconds.
+ */
+@XmlRootElement(name = "recalculation-statistics")
+public class RecalculationStatisticsDTO {
+
+    @XmlAttribute
+    public int requests;
+
+    @XmlAttribute(name = "coalesced-requests")
+    public int coalescedRequests;
+
+    @XmlAttribute
+    public int recalculations;
+
+    @XmlAttribute
+    public int errors;
+
+    @XmlAttribute(name = "queue-depth")
+    public int queueDepth;
+
+    @XmlAttribute
+    public int running;
+
+    @XmlAttribute(name = "lag")
+    public long msLag;
+
+    @XmlAttribute(name = "last-waiting")
+    public long lastMsWaiting;
+
+    @XmlAttribute(name = "mean")
+    public long meanMs;
+
+    public RecalculationStatisticsDTO() {
+    }
+
+    public RecalculationStatisticsDTO(int requests, int coalescedRequests,
+            int recalculations, int errors, int queueDepth, int running,
+            long msLag, long lastMsWaiting, long meanMs) {
+        this.requests = requests;
+        this.coalescedRequests = coalescedRequests;
+        this.recalculations = recalculations;
+        this.errors = errors;
+        this.queueDepth = queueDepth;
+        this.running = running;
+        this.msLag = msLag;
+        this.lastMsWaiting = lastMsWaiting;
+        this.meanMs = meanMs;
+    }
+
+}
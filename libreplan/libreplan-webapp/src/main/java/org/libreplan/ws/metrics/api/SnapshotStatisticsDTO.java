@@ -0,0 +1,68 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.ws.metrics.api;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * DTO for the statistics of a database snapshot. The times are in
+ * milliseconds.
+ */
+@XmlRootElement(name = "snapshot-statistics")
+public class SnapshotStatisticsDTO {
+
+    @XmlAttribute
+    public String name;
+
+    @XmlAttribute
+    public int calculations;
+
+    @XmlAttribute(name = "delta-updates")
+    public int deltaUpdates;
+
+    @XmlAttribute
+    public int errors;
+
+    @XmlAttribute(name = "mean")
+    public long meanMs;
+
+    @XmlAttribute(name = "last")
+    public long lastMs;
+
+    @XmlAttribute(name = "stale")
+    public long msStale;
+
+    public SnapshotStatisticsDTO() {
+    }
+
+    public SnapshotStatisticsDTO(String name, int calculations,
+            int deltaUpdates, int errors, long meanMs, long lastMs,
+            long msStale) {
+        this.name = name;
+        this.calculations = calculations;
+        this.deltaUpdates = deltaUpdates;
+        this.errors = errors;
+        this.meanMs = meanMs;
+        this.lastMs = lastMs;
+        this.msStale = msStale;
+    }
+
+}
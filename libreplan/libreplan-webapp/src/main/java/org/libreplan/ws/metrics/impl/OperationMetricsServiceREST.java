@@ -0,0 +1,102 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.ws.metrics.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+import org.libreplan.business.hibernate.notification.PredefinedDatabaseSnapshots;
+import org.libreplan.business.hibernate.notification.SnapshotStatistics;
+import org.libreplan.business.orders.entities.ISumChargedEffortRecalculator;
+import org.libreplan.business.orders.entities.RecalculationStatistics;
+import org.libreplan.ws.metrics.api.IOperationMetricsService;
+import org.libreplan.ws.metrics.api.OperationStatisticsDTO;
+import org.libreplan.ws.metrics.api.OperationStatisticsListDTO;
+import org.libreplan.ws.metrics.api.RecalculationStatisticsDTO;
+import org.libreplan.ws.metrics.api.SnapshotStatisticsDTO;
+import org.libreplan.ws.metrics.api.SnapshotStatisticsListDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.zkoss.ganttz.util.OperationMetrics;
+import org.zkoss.ganttz.util.OperationStatistics;
+
+/**
+ * REST-based implementation of {@link IOperationMetricsService}.
+ */
+@Path("/metrics/")
+@Produces("application/xml")
+@Service("operationMetricsServiceREST")
+public class OperationMetricsServiceREST implements IOperationMetricsService {
+
+    @Autowired
+    private PredefinedDatabaseSnapshots databaseSnapshots;
+
+    @Autowired
+    private ISumChargedEffortRecalculator sumChargedEffortRecalculator;
+
+    @Override
+    @GET
+    public OperationStatisticsListDTO getOperationStatistics() {
+        List<OperationStatisticsDTO> result = new ArrayList<OperationStatisticsDTO>();
+        for (OperationStatistics each : OperationMetrics.getStatistics()) {
+            result.add(new OperationStatisticsDTO(each.getName(),
+                    each.getCount(), each.getMeanMs(), each.getP50Ms(),
+                    each.getP95Ms(), each.getP99Ms(), each.getMaxMs(),
+                    each.getMeanStatements(), each.getMaxStatements()));
+        }
+
+        return new OperationStatisticsListDTO(result);
+    }
+
+    @Override
+    @GET
+    @Path("/snapshots/")
+    public SnapshotStatisticsListDTO getSnapshotStatistics() {
+        List<SnapshotStatisticsDTO> result = new ArrayList<SnapshotStatisticsDTO>();
+        for (SnapshotStatistics each : databaseSnapshots.getSnapshotsStatistics()) {
+            result.add(new SnapshotStatisticsDTO(each.getName(),
+                    each.getCalculations(), each.getDeltaUpdates(),
+                    each.getErrors(), each.getMeanMsExecuting(),
+                    each.getLastMsExecuting(), each.getMsStale()));
+        }
+
+        return new SnapshotStatisticsListDTO(result);
+    }
+
+    @Override
+    @GET
+    @Path("/charged-effort-recalculations/")
+    public RecalculationStatisticsDTO getChargedEffortRecalculationStatistics() {
+        RecalculationStatistics statistics = sumChargedEffortRecalculator.getStatistics();
+
+        return new RecalculationStatisticsDTO(statistics.getRequests(),
+                statistics.getCoalescedRequests(),
+                statistics.getRecalculations(), statistics.getErrors(),
+                statistics.getQueueDepth(), statistics.getRunning(),
+                statistics.getMsLag(), statistics.getLastMsWaiting(),
+                statistics.getMeanMsExecuting());
+    }
+
+}
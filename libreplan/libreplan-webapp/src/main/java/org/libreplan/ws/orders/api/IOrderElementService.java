@@ -37,6 +37,16 @@ public interface IOrderElementService {
 
     OrderListDTO getOrders();
 
+    /**
+     * Like {@link #getOrders()} but writing the orders while they are
+     * retrieved, so it can be used to export any number of orders.
+     *
+     * @param modifiedSince
+     *            if it isn't <code>null</code>, only the orders saved since
+     *            that date, in ISO 8601 format, are returned
+     */
+    Response getOrdersStreaming(String modifiedSince);
+
     Response getOrderElement(String code);
 
     Response removeOrderElement(String code);
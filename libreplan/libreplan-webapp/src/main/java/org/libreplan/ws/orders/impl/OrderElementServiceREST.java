@@ -21,6 +21,8 @@
 
 package org.libreplan.ws.orders.impl;
 
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 import javax.ws.rs.Consumes;
@@ -30,9 +32,11 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
+import org.joda.time.format.ISODateTimeFormat;
 import org.libreplan.business.common.daos.IIntegrationEntityDAO;
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
 import org.libreplan.business.common.exceptions.ValidationException;
@@ -47,6 +51,7 @@ import org.libreplan.ws.common.api.InstanceConstraintViolationsListDTO;
 import org.libreplan.ws.common.api.OrderDTO;
 import org.libreplan.ws.common.impl.ConfigurationOrderElementConverter;
 import org.libreplan.ws.common.impl.GenericRESTService;
+import org.libreplan.ws.common.impl.ListStreamingOutput;
 import org.libreplan.ws.common.impl.OrderElementConverter;
 import org.libreplan.ws.common.impl.RecoverableErrorException;
 import org.libreplan.ws.orders.api.IOrderElementService;
@@ -67,6 +72,8 @@ public class OrderElementServiceREST
         extends GenericRESTService<Order, OrderDTO>
         implements IOrderElementService {
 
+    private static final String ORDER_LIST_ELEMENT_NAME = "order-list";
+
     @Autowired
     private IOrderDAO orderDAO;
 
@@ -83,6 +90,38 @@ public class OrderElementServiceREST
         return new OrderListDTO(findAll());
     }
 
+    @Override
+    @GET
+    @Path("/stream/")
+    public Response getOrdersStreaming(@QueryParam("modified-since") String modifiedSince) {
+        if (modifiedSince == null) {
+            return findAllStreaming(ORDER_LIST_ELEMENT_NAME);
+        }
+
+        final Date since;
+        try {
+            since = ISODateTimeFormat.dateTimeParser().parseDateTime(modifiedSince).toDate();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Status.BAD_REQUEST)
+                    .entity(new ErrorDTO("Invalid modified-since date: " + modifiedSince))
+                    .build();
+        }
+
+        return Response.ok(new ListStreamingOutput<Order, OrderDTO>(transactionService, ORDER_LIST_ELEMENT_NAME) {
+
+            @Override
+            protected List<Order> findAfter(Long lastId, int maxResults) {
+                return orderDAO.getOrdersModifiedSinceAfter(since, lastId, maxResults);
+            }
+
+            @Override
+            protected OrderDTO toDTO(Order entity) {
+                return OrderElementServiceREST.this.toDTO(entity);
+            }
+
+        }).build();
+    }
+
     @Override
     @POST
     @Consumes("application/xml")
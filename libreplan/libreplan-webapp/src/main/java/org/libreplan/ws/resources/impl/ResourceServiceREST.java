@@ -67,6 +67,8 @@ public class ResourceServiceREST
     extends GenericRESTService<Resource, ResourceDTO>
     implements IResourceService {
 
+    private static final int BATCH_SIZE = 100;
+
     @Autowired
     private IResourceDAO resourceDAO;
 
@@ -83,6 +85,11 @@ public class ResourceServiceREST
 
     }
 
+    @Override
+    protected int getBatchSize() {
+        return BATCH_SIZE;
+    }
+
     @Override
     @Transactional
     protected Resource toEntity(ResourceDTO entityDTO)
@@ -34,6 +34,12 @@ public interface IWorkReportService {
 
     public WorkReportListDTO getWorkReports();
 
+    /**
+     * Like {@link #getWorkReports()} but writing the work reports while they
+     * are retrieved, so it can be used to export any number of work reports.
+     */
+    public Response getWorkReportsStreaming();
+
     public InstanceConstraintViolationsListDTO addWorkReports(
             WorkReportListDTO workReportListDTO);
 
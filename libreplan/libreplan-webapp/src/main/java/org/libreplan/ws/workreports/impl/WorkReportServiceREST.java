@@ -63,6 +63,8 @@ import org.springframework.transaction.annotation.Transactional;
 @Service("workReportServiceREST")
 public class WorkReportServiceREST extends GenericRESTService<WorkReport, WorkReportDTO> implements IWorkReportService {
 
+    private static final int BATCH_SIZE = 100;
+
     private Set<OrderElement> orderElements;
 
     @Autowired
@@ -81,6 +83,13 @@ public class WorkReportServiceREST extends GenericRESTService<WorkReport, WorkRe
         return new WorkReportListDTO(findAll());
     }
 
+    @Override
+    @GET
+    @Path("/stream/")
+    public Response getWorkReportsStreaming() {
+        return findAllStreaming("work-report-list");
+    }
+
     @Override
     @POST
     @Consumes("application/xml")
@@ -88,6 +97,11 @@ public class WorkReportServiceREST extends GenericRESTService<WorkReport, WorkRe
         return save(workReportListDTO.workReports);
     }
 
+    @Override
+    protected int getBatchSize() {
+        return BATCH_SIZE;
+    }
+
     @Override
     protected WorkReport toEntity(WorkReportDTO entityDTO) {
         try {
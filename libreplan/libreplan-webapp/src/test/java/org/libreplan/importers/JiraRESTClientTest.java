@@ -19,22 +19,32 @@
 
 package org.libreplan.importers;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Properties;
 
 import javax.ws.rs.ProcessingException;
 
 import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.libreplan.importers.jira.IssueDTO;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
 /**
  * Test for {@link JiraRESTClient }
  *
@@ -44,6 +54,10 @@ public class JiraRESTClientTest {
 
     private Properties properties = null;
 
+    private HttpServer stubServer = null;
+
+    private List<String> stubQueries = new ArrayList<>();
+
     @Before
     public void loadProperties() throws IOException {
 
@@ -54,6 +68,49 @@ public class JiraRESTClientTest {
 
     }
 
+    @After
+    public void stopStubServer() {
+        if ( stubServer != null ) {
+            stubServer.stop(0);
+        }
+    }
+
+    /**
+     * Starts a server answering like JIRA with <code>total</code> issues,
+     * returning at most <code>pageSize</code> issues per request.
+     *
+     * @return the url of the server
+     */
+    private String startStubServer(final int total, final int pageSize) throws IOException {
+        stubServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stubServer.createContext("/" + JiraRESTClient.PATH_AUTH_SESSION, exchange -> respond(exchange, "{}"));
+        stubServer.createContext("/" + JiraRESTClient.PATH_SEARCH, exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            stubQueries.add(query);
+            int startAt = Integer.parseInt(StringUtils.substringBefore(
+                    StringUtils.substringAfter(query, "startAt="), "&"));
+
+            List<String> issues = new ArrayList<>();
+            for (int i = startAt; i < Math.min(startAt + pageSize, total); i++) {
+                issues.add("{\"key\":\"LP-" + i + "\",\"fields\":{\"summary\":\"issue " + i + "\"}}");
+            }
+            respond(exchange, "{\"startAt\":" + startAt + ",\"maxResults\":" + pageSize + ",\"total\":" + total +
+                    ",\"issues\":[" + StringUtils.join(issues, ",") + "]}");
+        });
+        stubServer.start();
+
+        return "http://localhost:" + stubServer.getAddress().getPort() + "/";
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
     private String getJiraLabel(String label) {
         return "labels=" + label;
     }
@@ -102,4 +159,41 @@ public class JiraRESTClientTest {
 
         assertTrue(issues.size() > 0);
     }
+
+    @Test
+    public void testGetIssuesReadsAllThePages() throws IOException {
+        String url = startStubServer(5, 2);
+
+        List<IssueDTO> issues = JiraRESTClient.getIssues(url, "username", "password",
+                JiraRESTClient.PATH_SEARCH, getJiraLabel("label"));
+
+        assertEquals(5, issues.size());
+        for (int i = 0; i < issues.size(); i++) {
+            assertEquals("LP-" + i, issues.get(i).getKey());
+        }
+        assertEquals(3, stubQueries.size());
+        assertTrue(stubQueries.get(2).contains("startAt=4"));
+    }
+
+    @Test
+    public void testGetIssuesWithoutIssues() throws IOException {
+        String url = startStubServer(0, 2);
+
+        List<IssueDTO> issues = JiraRESTClient.getIssues(url, "username", "password",
+                JiraRESTClient.PATH_SEARCH, getJiraLabel("label"));
+
+        assertTrue(issues.isEmpty());
+        assertEquals(1, stubQueries.size());
+    }
+
+    @Test
+    public void testUpdatedSinceAddsTheMinutesSinceTheLastSynchronizationAndAMargin() {
+        Date now = new Date();
+        Date anHourAgo = new Date(now.getTime() - 60 * 60 * 1000);
+
+        assertEquals("labels=label AND updated >= -65m",
+                JiraRESTClient.updatedSince(getJiraLabel("label"), anHourAgo, now));
+        assertEquals("updated >= -5m", JiraRESTClient.updatedSince("", now, now));
+    }
+
 }
@@ -19,8 +19,10 @@
 
 package org.libreplan.importers;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.libreplan.business.BusinessGlobalNames.BUSINESS_SPRING_CONFIG_FILE;
 import static org.libreplan.web.WebappGlobalNames.WEBAPP_SPRING_CONFIG_FILE;
 import static org.libreplan.web.WebappGlobalNames.WEBAPP_SPRING_SECURITY_CONFIG_FILE;
@@ -29,13 +31,35 @@ import static org.libreplan.web.test.WebappGlobalNames.WEBAPP_SPRING_SECURITY_CO
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
+import javax.annotation.Resource;
+
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.libreplan.business.IDataBootstrap;
+import org.libreplan.business.common.IAdHocTransactionService;
+import org.libreplan.business.common.IOnTransaction;
+import org.libreplan.business.orders.daos.IOrderDAO;
+import org.libreplan.business.planner.daos.IDependencyDAO;
+import org.libreplan.business.planner.entities.Dependency;
+import org.libreplan.importers.DependencyDTO.TypeOfDependencyDTO;
+import org.libreplan.importers.OrderImport.IOrderImportListener;
+import org.libreplan.importers.OrderImport.Stage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 
 /**
  * Tests for {@link OrderImport}. <br />
@@ -52,6 +76,165 @@ public class OrderImporterTest {
     @Autowired
     private IOrderImporter orderImporter;
 
+    @Autowired
+    private IAdHocTransactionService transactionService;
+
+    @Autowired
+    private IOrderDAO orderDAO;
+
+    @Autowired
+    private IDependencyDAO dependencyDAO;
+
+    @Resource
+    private IDataBootstrap defaultAdvanceTypesBootstrapListener;
+
+    @Resource
+    private IDataBootstrap configurationBootstrap;
+
+    @Resource
+    private IDataBootstrap scenariosBootstrap;
+
+    /**
+     * Runs the transactions with the real service, making the one with the
+     * given number fail after doing its work, so it's rolled back
+     */
+    private static class FailingTransactionService implements IAdHocTransactionService {
+
+        private final IAdHocTransactionService delegate;
+
+        private int transactionsUntilFailure;
+
+        private FailingTransactionService(IAdHocTransactionService delegate, int transactionsUntilFailure) {
+            this.delegate = delegate;
+            this.transactionsUntilFailure = transactionsUntilFailure;
+        }
+
+        @Override
+        public <T> T runOnTransaction(final IOnTransaction<T> onTransaction) {
+            final boolean fail = transactionsUntilFailure-- == 0;
+
+            return delegate.runOnTransaction(new IOnTransaction<T>() {
+                @Override
+                public T execute() {
+                    T result = onTransaction.execute();
+                    if ( fail ) {
+                        throw new RuntimeException("failure on purpose");
+                    }
+
+                    return result;
+                }
+            });
+        }
+
+        @Override
+        public <T> T runOnReadOnlyTransaction(IOnTransaction<T> onTransaction) {
+            return delegate.runOnReadOnlyTransaction(onTransaction);
+        }
+
+        @Override
+        public <T> T runOnAnotherTransaction(IOnTransaction<T> onTransaction) {
+            return delegate.runOnAnotherTransaction(onTransaction);
+        }
+
+        @Override
+        public <T> T runOnAnotherReadOnlyTransaction(IOnTransaction<T> onTransaction) {
+            return delegate.runOnAnotherReadOnlyTransaction(onTransaction);
+        }
+
+    }
+
+    /**
+     * Records the progress notified, the dependencies stored along with their
+     * stage
+     */
+    private static class ProgressRecorder implements IOrderImportListener {
+
+        private final List<String> progress = new ArrayList<>();
+
+        @Override
+        public void progress(Stage stage, int done, int total) {
+            progress.add(stage == Stage.STORE_DEPENDENCIES ? stage + " " + done + "/" + total : stage.toString());
+        }
+
+    }
+
+    @Before
+    public void loadRequiredData() {
+        defaultAdvanceTypesBootstrapListener.loadRequiredData();
+        configurationBootstrap.loadRequiredData();
+        scenariosBootstrap.loadRequiredData();
+    }
+
+    @After
+    public void restoreTransactionService() {
+        ReflectionTestUtils.setField(getImporter(), "transactionService", transactionService);
+    }
+
+    private OrderImporterMPXJ getImporter() {
+        return AopTestUtils.getUltimateTargetObject(orderImporter);
+    }
+
+    private void failOnTransaction(int transactionsUntilFailure) {
+        ReflectionTestUtils.setField(getImporter(), "transactionService",
+                new FailingTransactionService(transactionService, transactionsUntilFailure));
+    }
+
+    /**
+     * @return the data of a project with a task for each day since today, and
+     *         a dependency between each task and every later one
+     */
+    private static OrderDTO projectWithAllDependenciesBetween(int tasksNumber) {
+        LocalDate today = new LocalDate();
+        OrderDTO result = new OrderDTO();
+        result.name = "import-" + UUID.randomUUID();
+        result.startDate = today.toDateTimeAtStartOfDay().toDate();
+        result.tasks = new ArrayList<>();
+        result.milestones = new ArrayList<>();
+        result.dependencies = new ArrayList<>();
+
+        for (int i = 0; i < tasksNumber; i++) {
+            OrderElementDTO task = new OrderElementDTO();
+            task.name = "task " + i;
+            task.startDate = today.plusDays(i).toDateTimeAtStartOfDay().toDate();
+            task.endDate = today.plusDays(i + 1).toDateTimeAtStartOfDay().toDate();
+            task.totalHours = 8;
+            task.children = new ArrayList<>();
+            task.milestones = new ArrayList<>();
+            task.constraint = ConstraintDTO.AS_SOON_AS_POSSIBLE;
+            result.tasks.add(task);
+        }
+
+        for (int i = 0; i < tasksNumber; i++) {
+            for (int j = i + 1; j < tasksNumber; j++) {
+                DependencyDTO dependency = new DependencyDTO();
+                dependency.origin = result.tasks.get(i);
+                dependency.destination = result.tasks.get(j);
+                dependency.type = TypeOfDependencyDTO.END_START;
+                result.dependencies.add(dependency);
+            }
+        }
+
+        return result;
+    }
+
+    private boolean isStored(final OrderImport orderImport) {
+        return transactionService.runOnReadOnlyTransaction(new IOnTransaction<Boolean>() {
+            @Override
+            public Boolean execute() {
+                return orderDAO.exists(orderImport.getOrder().getId());
+            }
+        });
+    }
+
+    private int countDependencies() {
+        return transactionService.runOnReadOnlyTransaction(new IOnTransaction<Integer>() {
+            @Override
+            public Integer execute() {
+                return dependencyDAO.list(Dependency.class).size();
+            }
+        });
+    }
+
     @Test
     public void testCreatingImportDataFromMPPFile() {
 
@@ -109,4 +292,92 @@ public class OrderImporterTest {
         }
     }
 
+    @Test
+    public void theStagesOfAnImportFromAFileAreRunInOrder() throws IOException {
+        String filename = System.getProperty("user.dir") + "/../scripts/mpxj-import/T1R1FCT2R2.mpp";
+        OrderImport orderImport = orderImporter.createImport(
+                Files.readAllBytes(Paths.get(filename)), filename, false);
+        ProgressRecorder recorder = new ProgressRecorder();
+
+        orderImporter.runImport(orderImport, recorder);
+
+        assertTrue(orderImport.isFinished());
+        assertTrue(isStored(orderImport));
+        assertEquals(Stage.READ_FILE.toString(), recorder.progress.get(0));
+        assertEquals(Stage.CONVERT_ORDER.toString(), recorder.progress.get(1));
+        assertEquals(Stage.CREATE_TASKS.toString(), recorder.progress.get(2));
+        assertEquals(Stage.STORE_ORDER.toString(), recorder.progress.get(3));
+        assertEquals(Stage.FINISHED.toString(), recorder.progress.get(recorder.progress.size() - 1));
+    }
+
+    @Test
+    public void theDependenciesAreStoredAfterTheOrder() {
+        OrderImport orderImport = orderImporter.createImport(projectWithAllDependenciesBetween(3), "project.mpp", false);
+        ProgressRecorder recorder = new ProgressRecorder();
+        int dependenciesBefore = countDependencies();
+
+        orderImporter.runImport(orderImport, recorder);
+
+        assertEquals(asList("CONVERT_ORDER", "CREATE_TASKS", "STORE_ORDER", "STORE_DEPENDENCIES 0/3", "FINISHED"),
+                recorder.progress);
+        assertTrue(isStored(orderImport));
+        assertEquals(dependenciesBefore + 3, countDependencies());
+    }
+
+    @Test
+    public void aFailedImportIsResumedFromTheStageThatFailed() {
+        OrderImport orderImport = orderImporter.createImport(projectWithAllDependenciesBetween(3), "project.mpp", false);
+        ProgressRecorder recorder = new ProgressRecorder();
+        int dependenciesBefore = countDependencies();
+        failOnTransaction(0);
+
+        try {
+            orderImporter.runImport(orderImport, recorder);
+            fail("storing the order should fail");
+        } catch (RuntimeException e) {
+            // Expected
+        }
+        // The entities of the transaction rolled back are created again
+        assertEquals(Stage.CONVERT_ORDER, orderImport.getStage());
+
+        restoreTransactionService();
+        orderImporter.runImport(orderImport, recorder);
+
+        assertEquals(asList("CONVERT_ORDER", "CREATE_TASKS", "STORE_ORDER",
+                "CONVERT_ORDER", "CREATE_TASKS", "STORE_ORDER", "STORE_DEPENDENCIES 0/3", "FINISHED"),
+                recorder.progress);
+        assertTrue(isStored(orderImport));
+        assertEquals(dependenciesBefore + 3, countDependencies());
+    }
+
+    @Test
+    public void theDependenciesAreStoredInBatchesAndResumedFromTheBatchThatFailed() {
+        // 528 dependencies, so two batches are needed
+        OrderImport orderImport = orderImporter.createImport(projectWithAllDependenciesBetween(33), "project.mpp", false);
+        ProgressRecorder recorder = new ProgressRecorder();
+        int dependenciesBefore = countDependencies();
+        // The order is stored in the first transaction and the first batch in the second one
+        failOnTransaction(2);
+
+        try {
+            orderImporter.runImport(orderImport, recorder);
+            fail("storing the second batch should fail");
+        } catch (RuntimeException e) {
+            // Expected
+        }
+        assertEquals(Stage.STORE_DEPENDENCIES, orderImport.getStage());
+        assertEquals(OrderImporterMPXJ.DEPENDENCIES_BATCH_SIZE, orderImport.getDependenciesStored());
+        assertEquals(dependenciesBefore + OrderImporterMPXJ.DEPENDENCIES_BATCH_SIZE, countDependencies());
+
+        restoreTransactionService();
+        orderImporter.runImport(orderImport, recorder);
+
+        assertEquals(asList("CONVERT_ORDER", "CREATE_TASKS", "STORE_ORDER",
+                "STORE_DEPENDENCIES 0/528", "STORE_DEPENDENCIES 500/528",
+                "STORE_DEPENDENCIES 500/528", "FINISHED"),
+                recorder.progress);
+        assertTrue(orderImport.isFinished());
+        assertEquals(dependenciesBefore + 528, countDependencies());
+    }
+
 }
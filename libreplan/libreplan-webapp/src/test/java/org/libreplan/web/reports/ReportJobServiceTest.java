@@ -0,0 +1,190 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2016 LibrePlan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.web.reports;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JREmptyDataSource;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.libreplan.business.hibernate.notification.EntityChanges;
+import org.libreplan.web.reports.IReportJobService.IDataSourceCalculation;
+
+/**
+ * Tests for {@link ReportJobService}. The reports are not filled, a file with
+ * their name is written instead.
+ */
+public class ReportJobServiceTest {
+
+    private static final long TIMEOUT_MS = 10000;
+
+    private static final IDataSourceCalculation EMPTY_DATA_SOURCE = parameters -> new JREmptyDataSource();
+
+    private File directory;
+
+    private ReportJobService service;
+
+    @Before
+    public void createService() throws IOException {
+        directory = Files.createTempDirectory("reports-test").toFile();
+        service = serviceWith(2, 20, 50);
+    }
+
+    @After
+    public void removeReports() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private ReportJobService serviceWith(int threads, int maxQueuedJobs, int maxCachedJobs) {
+        return new ReportJobService(threads, maxQueuedJobs, maxCachedJobs, directory) {
+
+            @Override
+            void fillAndExport(ReportJob job, Map<String, Object> parameters, JRDataSource data, File output)
+                    throws IOException {
+
+                FileUtils.writeStringToFile(output, job.getReportName());
+            }
+        };
+    }
+
+    private static Map<String, Object> parameters(String value) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("parameter", value);
+
+        return result;
+    }
+
+    private ReportJob submit(String cacheKey) {
+        return service.submit("report", "pdf", parameters("value"), EMPTY_DATA_SOURCE, cacheKey);
+    }
+
+    private static ReportJob waitUntilFinished(ReportJob job) throws InterruptedException {
+        long limit = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!job.isFinished() && System.currentTimeMillis() < limit) {
+            Thread.sleep(10);
+        }
+        assertTrue("the report has not finished", job.isFinished());
+
+        return job;
+    }
+
+    @Test
+    public void theReportIsRenderedToAFile() throws Exception {
+        ReportJob job = waitUntilFinished(submit(null));
+
+        assertThat(job.getState(), equalTo(ReportJob.State.DONE));
+        assertThat(job.getOutput().getParentFile(), equalTo(directory));
+        assertThat(FileUtils.readFileToString(job.getOutput()), equalTo("report"));
+    }
+
+    @Test
+    public void theReportIsReusedForTheSameKeyAndParameters() throws Exception {
+        ReportJob job = waitUntilFinished(submit("key"));
+
+        assertThat(submit("key"), sameInstance(job));
+        assertThat(submit("other key"), not(sameInstance(job)));
+        assertThat(submit(null), not(sameInstance(job)));
+        assertThat(service.submit("report", "pdf", parameters("other value"), EMPTY_DATA_SOURCE, "key"),
+                not(sameInstance(job)));
+        assertThat(service.submit("report", "odt", parameters("value"), EMPTY_DATA_SOURCE, "key"),
+                not(sameInstance(job)));
+    }
+
+    @Test
+    public void theReportIsStaleWhenTheDataChanges() throws Exception {
+        ReportJob job = waitUntilFinished(submit("key"));
+        File output = job.getOutput();
+
+        EntityChanges changes = new EntityChanges();
+        changes.modified(Object.class, 1L);
+        service.onChanges(changes);
+
+        ReportJob newJob = submit("key");
+        assertThat(newJob, not(sameInstance(job)));
+        assertFalse("the stale report is removed", output.exists());
+        assertThat(waitUntilFinished(newJob).getState(), equalTo(ReportJob.State.DONE));
+    }
+
+    @Test
+    public void theLeastRecentlyUsedReportsAreRemoved() throws Exception {
+        service = serviceWith(2, 20, 2);
+        ReportJob first = waitUntilFinished(submit("first"));
+        ReportJob second = waitUntilFinished(submit("second"));
+        assertThat(submit("first"), sameInstance(first));
+
+        ReportJob third = waitUntilFinished(submit("third"));
+
+        assertFalse(second.getOutput().exists());
+        assertTrue(first.getOutput().exists());
+        assertTrue(third.getOutput().exists());
+        assertThat(submit("second"), not(sameInstance(second)));
+    }
+
+    @Test
+    public void theReportsAreRejectedWhenTheQueueIsFull() throws Exception {
+        service = serviceWith(1, 1, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IDataSourceCalculation blocking = parameters -> {
+            started.countDown();
+            release.await();
+
+            return new JREmptyDataSource();
+        };
+
+        ReportJob running = service.submit("report", "pdf", Collections.emptyMap(), blocking, "running");
+        assertTrue(started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        ReportJob queued = service.submit("report", "pdf", Collections.emptyMap(), EMPTY_DATA_SOURCE, "queued");
+        ReportJob rejected = service.submit("report", "pdf", Collections.emptyMap(), EMPTY_DATA_SOURCE, "rejected");
+
+        assertThat(rejected.getState(), equalTo(ReportJob.State.FAILED));
+        assertThat(rejected.getError(), instanceOf(RejectedExecutionException.class));
+        assertThat(queued.getState(), equalTo(ReportJob.State.QUEUED));
+
+        release.countDown();
+        assertThat(waitUntilFinished(running).getState(), equalTo(ReportJob.State.DONE));
+        assertThat(waitUntilFinished(queued).getState(), equalTo(ReportJob.State.DONE));
+        assertThat("a rejected report is not reused",
+                service.submit("report", "pdf", Collections.emptyMap(), EMPTY_DATA_SOURCE, "rejected"),
+                not(sameInstance(rejected)));
+    }
+
+}
@@ -35,6 +35,8 @@ import static org.libreplan.web.test.WebappGlobalNames.WEBAPP_SPRING_CONFIG_TEST
 import static org.libreplan.web.test.WebappGlobalNames.WEBAPP_SPRING_SECURITY_CONFIG_TEST_FILE;
 import static org.libreplan.web.test.ws.common.Util.mustEnd;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Date;
@@ -47,6 +49,8 @@ import java.util.UUID;
 import javax.annotation.Resource;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.bind.JAXBContext;
 
 import org.hibernate.SessionFactory;
 import org.joda.time.LocalDate;
@@ -347,6 +351,53 @@ public class OrderElementServiceTest {
 
     }
 
+    @Test
+    @Transactional
+    public void ordersCanBeRetrievedStreaming() throws Exception {
+        String code = "order-code " + UUID.randomUUID().toString();
+
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.name = "Order name " + UUID.randomUUID().toString();
+        orderDTO.code = code;
+        orderDTO.initDate = DateConverter.toXMLGregorianCalendar(new Date());
+
+        assertTrue(orderElementService.addOrders(createOrderListDTO(orderDTO)).instanceConstraintViolationsList
+                .isEmpty());
+
+        assertTrue(containsOrder(getOrdersStreaming(null), code));
+        assertTrue(containsOrder(getOrdersStreaming("2000-01-01T00:00:00"), code));
+        assertFalse(containsOrder(getOrdersStreaming(new LocalDate().plusDays(1).toString()), code));
+    }
+
+    @Test
+    @Transactional
+    public void ordersStreamingWithInvalidModifiedSince() {
+        Response response = orderElementService.getOrdersStreaming("yesterday");
+
+        assertThat(response.getStatus(), equalTo(Status.BAD_REQUEST.getStatusCode()));
+    }
+
+    private OrderListDTO getOrdersStreaming(String modifiedSince) throws Exception {
+        Response response = orderElementService.getOrdersStreaming(modifiedSince);
+        assertThat(response.getStatus(), equalTo(Status.OK.getStatusCode()));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+
+        return (OrderListDTO) JAXBContext.newInstance(OrderListDTO.class).createUnmarshaller()
+                .unmarshal(new ByteArrayInputStream(output.toByteArray()));
+    }
+
+    private boolean containsOrder(OrderListDTO orderListDTO, String code) {
+        for (OrderDTO each : orderListDTO.orderDTOs) {
+            if (code.equals(each.code)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     @Test
     @Transactional
     public void orderWithInvalidOrderLine() {
@@ -185,6 +185,49 @@ public class ResourceServiceTest {
 
     }
 
+    @Test
+    @Transactional
+    public void testAddManyResourcesWithConstraintViolations() {
+
+        /*
+         * More resources than the batch size, with invalid ones in different
+         * batches and a resource repeated in the same batch.
+         */
+        List<ResourceDTO> resources = new ArrayList<ResourceDTO>();
+        for (int i = 0; i < 250; i++) {
+            resources.add(new MachineDTO(getUniqueName(), "desc"));
+        }
+        resources.set(10, new MachineDTO(" ", null, ""));
+        resources.set(160, new MachineDTO(" ", null, ""));
+
+        MachineDTO repeated = new MachineDTO(resources.get(21).code, "name" +
+            "UPDATED", null);
+        resources.set(22, repeated);
+
+        /* Test. */
+        List<InstanceConstraintViolationsDTO> instanceConstraintViolationsList =
+            resourceService.addResources(new ResourceListDTO(resources)).
+                instanceConstraintViolationsList;
+
+        assertTrue(
+            instanceConstraintViolationsList.toString(),
+            instanceConstraintViolationsList.size() == 2);
+        assertEquals(Long.valueOf(11),
+            instanceConstraintViolationsList.get(0).numItem);
+        assertEquals(Long.valueOf(161),
+            instanceConstraintViolationsList.get(1).numItem);
+        assertTrue(resourceDAO.existsByCode(resources.get(0).code));
+        assertTrue(resourceDAO.existsByCode(resources.get(249).code));
+
+        try {
+            assertEquals(repeated.name,
+                machineDAO.findByCode(repeated.code).getName());
+        } catch (InstanceNotFoundException e) {
+            fail(e.getMessage());
+        }
+
+    }
+
     @Test
     @Transactional
     public void testAddWorkerWithExistingFirstNameSurnameAndNif() {
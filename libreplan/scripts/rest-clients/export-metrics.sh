@@ -0,0 +1,3 @@
+#!/bin/sh
+
+./export.sh metrics $*